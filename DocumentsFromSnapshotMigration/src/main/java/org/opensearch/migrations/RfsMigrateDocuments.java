@@ -210,6 +210,12 @@ public class RfsMigrateDocuments {
                 "used to communicate to the target, default 10")
         int maxConnections = 10;
 
+        @Parameter(required = false,
+            names = { "--document-transformation-parallelism", "--documentTransformationParallelism" },
+            description = "Optional.  The number of batches of documents that are transformed concurrently.  "
+                + "Default 0, which uses one thread per available processor")
+        int documentTransformationParallelism = 0;
+
         @Parameter(required = true,
             names = { "--source-version", "--sourceVersion" },
             converter = VersionConverter.class,
@@ -454,7 +460,8 @@ public class RfsMigrateDocuments {
                 arguments.numDocsPerBulkRequest,
                 arguments.numBytesPerBulkRequest,
                 arguments.maxConnections,
-                docTransformerSupplier);
+                docTransformerSupplier,
+                arguments.documentTransformationParallelism);
 
             var finder = ClusterProviderRegistry.getSnapshotFileFinder(
                     arguments.sourceVersion,
@@ -64,6 +64,11 @@ public class MigrateOrEvaluateArgs {
         + " Default: 1 (which does not apply any transformation)")
     public int clusterAwarenessAttributes = 1;
 
+    @Parameter(names = {"--max-concurrent-metadata-requests" }, description = "Optional. The number of templates, or of indices,"
+        + " that are created on (or, when evaluating, checked against) the target cluster at once. Component templates are always"
+        + " created before index templates, and templates before indices. Default: 4")
+    public int maxConcurrentMetadataRequests = 4;
+
     @Parameter(required = false, names = {
         "--otel-collector-endpoint" }, arity = 1, description = "Endpoint (host:port) for the OpenTelemetry Collector to which metrics logs should be"
             + "forwarded. If no value is provided, metrics will not be forwarded.")
@@ -131,7 +131,8 @@ public abstract class MigratorEvaluatorBase {
             arguments.snapshotName,
             clusters.getSource().getGlobalMetadata(),
             clusters.getTarget().getGlobalMetadataCreator(),
-            transformer
+            transformer,
+            arguments.maxConcurrentMetadataRequests
         );
         var metadataResults = metadataRunner.migrateMetadata(mode, context.createMetadataMigrationContext());
         log.info("Metadata copy complete.");
@@ -145,7 +146,8 @@ public abstract class MigratorEvaluatorBase {
             clusters.getTarget().getIndexCreator(),
             transformer,
             arguments.dataFilterArgs.indexAllowlist,
-            clusters.getTarget().getAwarenessAttributeSettings()
+            clusters.getTarget().getAwarenessAttributeSettings(),
+            arguments.maxConcurrentMetadataRequests
         );
         var indexResults = indexRunner.migrateIndices(mode, context.createIndexContext());
         log.info("Index copy complete.");
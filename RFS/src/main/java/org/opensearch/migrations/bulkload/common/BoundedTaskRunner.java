@@ -0,0 +1,57 @@
+package org.opensearch.migrations.bulkload.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Runs tasks, such as requests to a target cluster, on up to maxConcurrency threads at once.  {@link #submit} blocks
+ * while maxConcurrency tasks are already running, so that a caller that submits thousands of tasks doesn't queue up
+ * all of their inputs at once.  Callers that need their results in a deterministic order should collect the returned
+ * futures in the order that the tasks were submitted and join them in that order.
+ *
+ * <p>With a maxConcurrency of 1 (or less), every task runs on the submitting thread before submit returns.
+ */
+public class BoundedTaskRunner implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Semaphore runningTasks;
+
+    public BoundedTaskRunner(String threadNamePrefix, int maxConcurrency) {
+        if (maxConcurrency > 1) {
+            this.executor = Executors.newFixedThreadPool(maxConcurrency, new DefaultThreadFactory(threadNamePrefix));
+            this.runningTasks = new Semaphore(maxConcurrency);
+        } else {
+            this.executor = null;
+            this.runningTasks = null;
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (executor == null) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        runningTasks.acquireUninterruptibly();
+        try {
+            return CompletableFuture.supplyAsync(task, executor)
+                .whenComplete((result, error) -> runningTasks.release());
+        } catch (RuntimeException e) {
+            runningTasks.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -31,6 +31,7 @@ public class DocumentReindexer {
     private final int maxDocsPerBulkRequest;
     private final long maxBytesPerBulkRequest;
     private final int maxConcurrentWorkItems;
+    private final int transformationParallelism;
     private final ThreadSafeTransformerWrapper threadSafeTransformer;
     private final boolean isNoopTransformer;
 
@@ -39,10 +40,26 @@ public class DocumentReindexer {
                long maxBytesPerBulkRequest,
                int maxConcurrentWorkItems,
                Supplier<IJsonTransformer> transformerSupplier) {
+        this(client, maxDocsPerBulkRequest, maxBytesPerBulkRequest, maxConcurrentWorkItems, transformerSupplier, 0);
+    }
+
+    /**
+     * @param transformationParallelism the number of batches of documents that can be transformed at once, or 0
+     *                                  (or less) to use one per available processor
+     */
+    public DocumentReindexer(OpenSearchClient client,
+               int maxDocsPerBulkRequest,
+               long maxBytesPerBulkRequest,
+               int maxConcurrentWorkItems,
+               Supplier<IJsonTransformer> transformerSupplier,
+               int transformationParallelism) {
         this.client = client;
         this.maxDocsPerBulkRequest = maxDocsPerBulkRequest;
         this.maxBytesPerBulkRequest = maxBytesPerBulkRequest;
         this.maxConcurrentWorkItems = maxConcurrentWorkItems;
+        this.transformationParallelism = transformationParallelism > 0
+            ? transformationParallelism
+            : Runtime.getRuntime().availableProcessors();
         this.isNoopTransformer = transformerSupplier == null;
         this.threadSafeTransformer = new ThreadSafeTransformerWrapper((this.isNoopTransformer) ? NOOP_TRANSFORMER_SUPPLIER : transformerSupplier);
     }
@@ -50,8 +67,7 @@ public class DocumentReindexer {
     public Flux<WorkItemCursor> reindex(String indexName, Flux<RfsLuceneDocument> documentStream, IDocumentReindexContext context) {
         // Create executor with hook for threadSafeTransformer cleaner
         AtomicInteger id = new AtomicInteger();
-        int transformationParallelizationFactor = Runtime.getRuntime().availableProcessors();
-        ExecutorService executor = Executors.newFixedThreadPool(transformationParallelizationFactor, r -> {
+        ExecutorService executor = Executors.newFixedThreadPool(transformationParallelism, r -> {
             int threadNum = id.incrementAndGet();
             return new Thread(() -> {
                 try {
@@ -62,10 +78,15 @@ public class DocumentReindexer {
             }, "DocumentBulkAggregator-" + threadNum);
         });
         Scheduler scheduler = Schedulers.fromExecutor(executor);
+        // Batches are transformed concurrently on the pool's threads, but flatMapSequential emits them in the
+        // order that they were read so that the cursors of the bulk requests still advance in order
         var rfsDocs = documentStream
-            .publishOn(scheduler, 1)
             .buffer(Math.min(100, maxDocsPerBulkRequest)) // arbitrary
-            .concatMapIterable(docList -> transformDocumentBatch(threadSafeTransformer, docList, indexName));
+            .flatMapSequential(docList -> Mono.fromCallable(
+                    () -> transformDocumentBatch(threadSafeTransformer, docList, indexName))
+                    .subscribeOn(scheduler),
+                transformationParallelism, 1)
+            .concatMapIterable(docList -> docList);
         return this.reindexDocsInParallelBatches(rfsDocs, indexName, context)
             .doFinally(signalType -> {
                 scheduler.dispose();
@@ -3,6 +3,7 @@ package org.opensearch.migrations.bulkload.common;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.opensearch.migrations.bulkload.common.bulk.*;
 import org.opensearch.migrations.bulkload.common.bulk.operations.DeleteOperationMeta;
@@ -64,7 +65,10 @@ public class RfsDocument {
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Each document is handed to the transformer as a Map, in one transformJsonBatch call for the whole batch.
+     * A transformer can drop a document or split it into several by returning a list in its place.
+     */
     public static List<RfsDocument> transform(IJsonTransformer transformer, List<RfsDocument> docs) {
         var listOfDocMaps = docs.stream().map(doc -> OBJECT_MAPPER.convertValue(doc.document, Map.class))
                 .toList();
@@ -74,19 +78,23 @@ public class RfsDocument {
                 () -> new IllegalArgumentException("Expected non-empty list of docs, but was empty.")
         );
 
-        var transformedObject = transformer.transformJson(listOfDocMaps);
-        if (transformedObject instanceof List) {
-            var transformedList = (List<Map<String, Object>>) transformedObject;
-            return transformedList.stream()
-                .map(item -> new RfsDocument(
-                    progressCheckpointNum,
-                    OBJECT_MAPPER.convertValue(item, BulkOperationSpec.class)
-                ))
-                .collect(Collectors.toList());
+        return transformer.transformJsonBatch(listOfDocMaps).stream()
+            .flatMap(RfsDocument::flattenTransformedDocument)
+            .map(item -> new RfsDocument(
+                progressCheckpointNum,
+                OBJECT_MAPPER.convertValue(item, BulkOperationSpec.class)
+            ))
+            .collect(Collectors.toList());
+    }
+
+    private static Stream<?> flattenTransformedDocument(Object transformedDocument) {
+        if (transformedDocument instanceof List) {
+            return ((List<?>) transformedDocument).stream().flatMap(RfsDocument::flattenTransformedDocument);
+        } else if (transformedDocument instanceof Map) {
+            return Stream.of(transformedDocument);
         } else {
-            throw new IllegalArgumentException(
-                "Unsupported transformed document type: " + transformedObject.getClass().getName()
-            );
+            throw new IllegalArgumentException("Unsupported transformed document type: "
+                + (transformedDocument == null ? "null" : transformedDocument.getClass().getName()));
         }
     }
 }
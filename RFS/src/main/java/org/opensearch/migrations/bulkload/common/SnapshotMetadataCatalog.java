@@ -0,0 +1,132 @@
+package org.opensearch.migrations.bulkload.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.opensearch.migrations.bulkload.models.IndexMetadata;
+import org.opensearch.migrations.bulkload.models.ShardMetadata;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Process-wide cache of the snapshot metadata that has been read and parsed from a repository, so that everything in
+ * the process that asks for the same repository data file, index metadata or shard metadata parses it only once.
+ * Snapshot files are never modified once they've been written, so entries are only evicted to bound memory, least
+ * recently used first.
+ *
+ * <p>Repository data files (index-N) are keyed by their path, size and modification time.  Index and shard metadata
+ * are keyed by the repository's root directory, the ids that locate the file within it and the factory that parsed
+ * it, since factories for different versions can parse the same file differently.  Metadata from a repository
+ * without a root directory isn't cached.  IndexMetadata is mutable, so every caller gets its own deep copy.
+ */
+@Slf4j
+public class SnapshotMetadataCatalog {
+    public static final int MAX_REPO_DATA_ENTRIES = 2;
+    public static final int MAX_INDEX_METADATA_ENTRIES = 64;
+    public static final int MAX_SHARD_METADATA_ENTRIES = 1024;
+
+    private static final SnapshotMetadataCatalog INSTANCE = new SnapshotMetadataCatalog();
+
+    private final BoundedCache<Object> repoData = new BoundedCache<>("repository data", MAX_REPO_DATA_ENTRIES);
+    private final BoundedCache<IndexMetadata> indexMetadata =
+        new BoundedCache<>("index metadata", MAX_INDEX_METADATA_ENTRIES);
+    private final BoundedCache<ShardMetadata> shardMetadata =
+        new BoundedCache<>("shard metadata", MAX_SHARD_METADATA_ENTRIES);
+
+    public static SnapshotMetadataCatalog getInstance() {
+        return INSTANCE;
+    }
+
+    public <T> T getRepoData(Path filePath, Class<T> repoDataType, Supplier<T> loader) {
+        List<Object> key;
+        try {
+            key = Arrays.asList(repoDataType, filePath.toAbsolutePath().normalize(), Files.size(filePath),
+                Files.getLastModifiedTime(filePath));
+        } catch (IOException e) {
+            // Let the loader report that the file can't be read
+            return loader.get();
+        }
+        return repoDataType.cast(repoData.get(key, loader::get));
+    }
+
+    public IndexMetadata getIndexMetadata(Class<?> factoryType,
+                                          Path repoRootDir,
+                                          String indexId,
+                                          String indexFileId,
+                                          String indexName,
+                                          Supplier<IndexMetadata> loader) {
+        if (repoRootDir == null) {
+            return loader.get();
+        }
+        var key = Arrays.<Object>asList(factoryType, repoRootDir, indexId, indexFileId, indexName);
+        var cachedIndexMetadata = indexMetadata.get(key, loader);
+        return cachedIndexMetadata == null ? null : cachedIndexMetadata.deepCopy();
+    }
+
+    public ShardMetadata getShardMetadata(Class<?> factoryType,
+                                          Path repoRootDir,
+                                          String snapshotId,
+                                          String indexId,
+                                          String indexName,
+                                          int shardId,
+                                          Supplier<ShardMetadata> loader) {
+        if (repoRootDir == null) {
+            return loader.get();
+        }
+        var key = Arrays.<Object>asList(factoryType, repoRootDir, snapshotId, indexId, indexName, shardId);
+        return shardMetadata.get(key, loader);
+    }
+
+    /**
+     * Forgets everything that has been cached, e.g. after a repository has been rewritten in place.
+     */
+    public void clear() {
+        repoData.clear();
+        indexMetadata.clear();
+        shardMetadata.clear();
+    }
+
+    private static class BoundedCache<V> {
+        private final String description;
+        private final Map<List<Object>, V> entries;
+
+        BoundedCache(String description, int maxEntries) {
+            this.description = description;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, V> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        V get(List<Object> key, Supplier<? extends V> loader) {
+            synchronized (entries) {
+                var value = entries.get(key);
+                if (value != null) {
+                    return value;
+                }
+            }
+            // Load outside of the lock so that unrelated entries can be loaded concurrently.  Two threads that miss
+            // on the same key both load it, which is harmless since the results are equivalent.
+            log.atDebug().setMessage("Loading {} for {}").addArgument(description).addArgument(key).log();
+            V value = loader.get();
+            synchronized (entries) {
+                entries.putIfAbsent(key, value);
+            }
+            return value;
+        }
+
+        void clear() {
+            synchronized (entries) {
+                entries.clear();
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.nio.file.Path;
 
 import org.opensearch.migrations.bulkload.common.ByteArrayIndexInput;
 import org.opensearch.migrations.bulkload.common.InvalidSnapshotFormatException;
+import org.opensearch.migrations.bulkload.common.SnapshotMetadataCatalog;
 import org.opensearch.migrations.bulkload.common.SnapshotRepo;
 import org.opensearch.migrations.transformation.entity.Index;
 
@@ -69,12 +70,20 @@ public interface IndexMetadata extends Index {
             }
         }
 
+        /**
+         * Parsed index metadata is cached in the {@link SnapshotMetadataCatalog}, and every call returns a copy of it.
+         */
         default IndexMetadata fromRepo(String snapshotName, String indexName) {
-            SmileFactory smileFactory = getSmileFactory();
             String indexId = getRepoDataProvider().getIndexId(indexName);
             String indexFileId = getIndexFileId(snapshotName, indexName);
-            JsonNode root = getJsonNode(indexId, indexFileId, smileFactory);
-            return fromJsonNode(root, indexId, indexName);
+            return SnapshotMetadataCatalog.getInstance().getIndexMetadata(
+                getClass(),
+                getRepoDataProvider().getRepo().getRepoRootDir(),
+                indexId,
+                indexFileId,
+                indexName,
+                () -> fromJsonNode(getJsonNode(indexId, indexFileId, getSmileFactory()), indexId, indexName)
+            );
         }
 
         // Version-specific implementation
@@ -8,6 +8,7 @@ import java.util.List;
 
 import org.opensearch.migrations.bulkload.common.ByteArrayIndexInput;
 import org.opensearch.migrations.bulkload.common.RfsException;
+import org.opensearch.migrations.bulkload.common.SnapshotMetadataCatalog;
 import org.opensearch.migrations.bulkload.common.SnapshotRepo;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -85,12 +86,23 @@ public interface ShardMetadata {
             }
         }
 
+        /**
+         * Parsed shard metadata is cached in the {@link SnapshotMetadataCatalog}, so asking for the same shard again
+         * (e.g. for each phase of a work item) doesn't re-read and re-parse its file.
+         */
         default ShardMetadata fromRepo(String snapshotName, String indexName, int shardId) {
-            SmileFactory smileFactory = getSmileFactory();
             String snapshotId = getRepoDataProvider().getSnapshotId(snapshotName);
             String indexId = getRepoDataProvider().getIndexId(indexName);
-            JsonNode root = getJsonNode(snapshotId, indexId, shardId, smileFactory);
-            return fromJsonNode(root, indexId, indexName, shardId);
+            return SnapshotMetadataCatalog.getInstance().getShardMetadata(
+                getClass(),
+                getRepoDataProvider().getRepo().getRepoRootDir(),
+                snapshotId,
+                indexId,
+                indexName,
+                shardId,
+                () -> fromJsonNode(
+                    getJsonNode(snapshotId, indexId, shardId, getSmileFactory()), indexId, indexName, shardId)
+            );
         }
 
         // Version-specific implementation
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.opensearch.migrations.bulkload.common.ObjectMapperFactory;
+import org.opensearch.migrations.bulkload.common.SnapshotMetadataCatalog;
 import org.opensearch.migrations.bulkload.common.SnapshotRepo;
 import org.opensearch.migrations.bulkload.common.SnapshotRepo.CannotParseRepoFile;
 import org.opensearch.migrations.bulkload.common.SourceRepo;
@@ -92,6 +93,11 @@ public class SnapshotRepoData_ES_5_4 {
     }
 
     public static SnapshotRepoData_ES_5_4 fromRepoFile(Path filePath) {
+        return SnapshotMetadataCatalog.getInstance().getRepoData(filePath, SnapshotRepoData_ES_5_4.class,
+            () -> readRepoFile(filePath));
+    }
+
+    private static SnapshotRepoData_ES_5_4 readRepoFile(Path filePath) {
         ObjectMapper mapper = ObjectMapperFactory.createDefaultMapper();
         try {
             SnapshotRepoData_ES_5_4 data = mapper.readValue(
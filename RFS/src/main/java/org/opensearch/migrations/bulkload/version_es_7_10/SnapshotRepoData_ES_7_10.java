@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.opensearch.migrations.bulkload.common.ObjectMapperFactory;
+import org.opensearch.migrations.bulkload.common.SnapshotMetadataCatalog;
 import org.opensearch.migrations.bulkload.common.SnapshotRepo;
 import org.opensearch.migrations.bulkload.common.SnapshotRepo.CannotParseRepoFile;
 import org.opensearch.migrations.bulkload.common.SourceRepo;
@@ -71,6 +72,11 @@ public class SnapshotRepoData_ES_7_10 {
     }
 
     public static SnapshotRepoData_ES_7_10 fromRepoFile(Path filePath) {
+        return SnapshotMetadataCatalog.getInstance().getRepoData(filePath, SnapshotRepoData_ES_7_10.class,
+            () -> readRepoFile(filePath));
+    }
+
+    private static SnapshotRepoData_ES_7_10 readRepoFile(Path filePath) {
         ObjectMapper mapper = ObjectMapperFactory.createDefaultMapper();
         try {
             SnapshotRepoData_ES_7_10 data = mapper.readValue(
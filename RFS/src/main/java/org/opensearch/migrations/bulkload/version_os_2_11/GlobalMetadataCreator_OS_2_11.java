@@ -1,12 +1,15 @@
 package org.opensearch.migrations.bulkload.version_os_2_11;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import org.opensearch.migrations.MigrationMode;
+import org.opensearch.migrations.bulkload.common.BoundedTaskRunner;
 import org.opensearch.migrations.bulkload.common.FilterScheme;
 import org.opensearch.migrations.bulkload.common.OpenSearchClient;
 import org.opensearch.migrations.bulkload.models.GlobalMetadata;
@@ -34,42 +37,60 @@ public class GlobalMetadataCreator_OS_2_11 implements GlobalMetadataCreator {
         GlobalMetadata root,
         MigrationMode mode,
         IClusterMetadataContext context) {
+        return create(root, mode, context, 1);
+    }
+
+    /**
+     * Templates of each type are created concurrently, but all of the component templates are created before any of
+     * the index templates that could be composed of them.  Each type's results are in the snapshot's order.
+     */
+    @Override
+    public GlobalMetadataCreatorResults create(
+        GlobalMetadata root,
+        MigrationMode mode,
+        IClusterMetadataContext context,
+        int maxConcurrentRequests) {
         log.info("Setting Global Metadata");
 
         var results = GlobalMetadataCreatorResults.builder();
-        results.legacyTemplates(createLegacyTemplates(root, mode, context));
-        results.componentTemplates(createComponentTemplates(root, mode, context));
-        results.indexTemplates(createIndexTemplates(root, mode, context));
+        try (var taskRunner = new BoundedTaskRunner("templateCreation", maxConcurrentRequests)) {
+            results.legacyTemplates(createLegacyTemplates(root, mode, context, taskRunner));
+            results.componentTemplates(createComponentTemplates(root, mode, context, taskRunner));
+            results.indexTemplates(createIndexTemplates(root, mode, context, taskRunner));
+        }
         return results.build();
     }
 
-    public List<CreationResult> createLegacyTemplates(GlobalMetadata metadata, MigrationMode mode, IClusterMetadataContext context) {
+    public List<CreationResult> createLegacyTemplates(GlobalMetadata metadata, MigrationMode mode, IClusterMetadataContext context, BoundedTaskRunner taskRunner) {
         return createTemplates(
             metadata.getTemplates(),
             legacyTemplateAllowlist,
             TemplateTypes.LEGACY_INDEX_TEMPLATE,
             mode,
-            context
+            context,
+            taskRunner
         );
     }
 
-    public List<CreationResult> createComponentTemplates(GlobalMetadata metadata, MigrationMode mode, IClusterMetadataContext context) {
+    public List<CreationResult> createComponentTemplates(GlobalMetadata metadata, MigrationMode mode, IClusterMetadataContext context, BoundedTaskRunner taskRunner) {
         return createTemplates(
             metadata.getComponentTemplates(),
             componentTemplateAllowlist,
             TemplateTypes.COMPONENT_TEMPLATE,
             mode,
-            context
+            context,
+            taskRunner
         );
     }
 
-    public List<CreationResult> createIndexTemplates(GlobalMetadata metadata, MigrationMode mode, IClusterMetadataContext context) {
+    public List<CreationResult> createIndexTemplates(GlobalMetadata metadata, MigrationMode mode, IClusterMetadataContext context, BoundedTaskRunner taskRunner) {
         return createTemplates(
             metadata.getIndexTemplates(),
             indexTemplateAllowlist,
             TemplateTypes.INDEX_TEMPLATE,
             mode,
-            context
+            context,
+            taskRunner
         );
     }
 
@@ -109,7 +130,8 @@ public class GlobalMetadataCreator_OS_2_11 implements GlobalMetadataCreator {
         List<String> templateAllowlist,
         TemplateTypes templateType,
         MigrationMode mode,
-        IClusterMetadataContext context
+        IClusterMetadataContext context,
+        BoundedTaskRunner taskRunner
     ) {
 
         log.info("Setting {} ...", templateType);
@@ -121,11 +143,11 @@ public class GlobalMetadataCreator_OS_2_11 implements GlobalMetadataCreator {
 
         var templatesToCreate = getAllTemplates(templates);
 
-        return processTemplateCreation(templatesToCreate, templateType, templateAllowlist, mode, context);
+        return processTemplateCreation(templatesToCreate, templateType, templateAllowlist, mode, context, taskRunner);
     }
 
     Map<String, ObjectNode> getAllTemplates(ObjectNode templates) {
-        var templatesToCreate = new HashMap<String, ObjectNode>();
+        var templatesToCreate = new LinkedHashMap<String, ObjectNode>();
 
         templates.fieldNames().forEachRemaining(templateName -> {
             ObjectNode settings = (ObjectNode) templates.get(templateName);
@@ -140,45 +162,58 @@ public class GlobalMetadataCreator_OS_2_11 implements GlobalMetadataCreator {
             TemplateTypes templateType,
             List<String> templateAllowList,
             MigrationMode mode,
-            IClusterMetadataContext context
+            IClusterMetadataContext context,
+            BoundedTaskRunner taskRunner
         ) {
         var skipCreation = FilterScheme.filterByAllowList(templateAllowList).negate();
 
-        return templatesToCreate.entrySet().stream().map(kvp -> {
-            var templateName = kvp.getKey();
-            var templateBody = kvp.getValue();
-
+        var creationResults = new ArrayList<CompletableFuture<CreationResult>>();
+        templatesToCreate.forEach((templateName, templateBody) -> {
             String[] problemSettings = { "settings.mapping.single_type", "settings.mapper.dynamic" };
             for (var field : problemSettings) {
                 ObjectNodeUtils.removeFieldsByPath(templateBody, field);
             }
 
-            var creationResult = CreationResult.builder().name(templateName);
-
             if (skipCreation.test(templateName)) {
                 log.atInfo().setMessage("Template {} was skipped due to allowlist filter {}").addArgument(templateName).addArgument(templateAllowList).log();
-                return creationResult.failureType(CreationFailureType.SKIPPED_DUE_TO_FILTER).build();
+                creationResults.add(CompletableFuture.completedFuture(CreationResult.builder()
+                    .name(templateName)
+                    .failureType(CreationFailureType.SKIPPED_DUE_TO_FILTER)
+                    .build()));
+            } else {
+                creationResults.add(taskRunner.submit(() -> createTemplate(templateName, templateBody, templateType, mode, context)));
             }
+        });
+        return creationResults.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
 
-            log.info("Creating {}: {}", templateType, templateName);
-            try {
-                if (mode == MigrationMode.SIMULATE) {
-                    if (templateType.alreadyExistsCheck.templateAlreadyExists(client, templateName)) {
-                        creationResult.failureType(CreationFailureType.ALREADY_EXISTS);
-                        log.warn("Template {} already exists on the target, it will not be created during a migration", templateName);
-                    }
-                } else if (mode == MigrationMode.PERFORM) {
-                    var createdTemplate = templateType.creator.createTemplate(client, templateName, templateBody, context);
-                    if (createdTemplate.isEmpty()) {
-                        creationResult.failureType(CreationFailureType.ALREADY_EXISTS);
-                        log.warn("Template {} already exists on the target, unable to create", templateName);
-                    }
+    private CreationResult createTemplate(
+            String templateName,
+            ObjectNode templateBody,
+            TemplateTypes templateType,
+            MigrationMode mode,
+            IClusterMetadataContext context
+        ) {
+        var creationResult = CreationResult.builder().name(templateName);
+
+        log.info("Creating {}: {}", templateType, templateName);
+        try {
+            if (mode == MigrationMode.SIMULATE) {
+                if (templateType.alreadyExistsCheck.templateAlreadyExists(client, templateName)) {
+                    creationResult.failureType(CreationFailureType.ALREADY_EXISTS);
+                    log.warn("Template {} already exists on the target, it will not be created during a migration", templateName);
+                }
+            } else if (mode == MigrationMode.PERFORM) {
+                var createdTemplate = templateType.creator.createTemplate(client, templateName, templateBody, context);
+                if (createdTemplate.isEmpty()) {
+                    creationResult.failureType(CreationFailureType.ALREADY_EXISTS);
+                    log.warn("Template {} already exists on the target, unable to create", templateName);
                 }
-            } catch (Exception e) {
-                creationResult.failureType(CreationFailureType.TARGET_CLUSTER_FAILURE);
-                creationResult.exception(e);
             }
-            return creationResult.build();
-        }).collect(Collectors.toList());
+        } catch (Exception e) {
+            creationResult.failureType(CreationFailureType.TARGET_CLUSTER_FAILURE);
+            creationResult.exception(e);
+        }
+        return creationResult.build();
     }
 }
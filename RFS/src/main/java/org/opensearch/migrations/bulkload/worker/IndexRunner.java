@@ -2,9 +2,11 @@ package org.opensearch.migrations.bulkload.worker;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.opensearch.migrations.AwarenessAttributeSettings;
 import org.opensearch.migrations.MigrationMode;
+import org.opensearch.migrations.bulkload.common.BoundedTaskRunner;
 import org.opensearch.migrations.bulkload.common.FilterScheme;
 import org.opensearch.migrations.bulkload.common.SnapshotRepo;
 import org.opensearch.migrations.bulkload.models.IndexMetadata;
@@ -19,7 +21,6 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-@AllArgsConstructor
 public class IndexRunner {
 
     private final String snapshotName;
@@ -28,58 +29,106 @@ public class IndexRunner {
     private final Transformer transformer;
     private final List<String> indexAllowlist;
     private final AwarenessAttributeSettings awarenessAttributeSettings;
+    private final int maxConcurrentRequests;
 
+    public IndexRunner(String snapshotName,
+                       IndexMetadata.Factory metadataFactory,
+                       IndexCreator indexCreator,
+                       Transformer transformer,
+                       List<String> indexAllowlist,
+                       AwarenessAttributeSettings awarenessAttributeSettings) {
+        this(snapshotName, metadataFactory, indexCreator, transformer, indexAllowlist, awarenessAttributeSettings, 1);
+    }
+
+    /**
+     * @param maxConcurrentRequests the number of indices that can be created on (or, when simulating, checked
+     *                              against) the target at once.  Indices are still read and transformed one at a
+     *                              time, since transformers aren't thread-safe.
+     */
+    public IndexRunner(String snapshotName,
+                       IndexMetadata.Factory metadataFactory,
+                       IndexCreator indexCreator,
+                       Transformer transformer,
+                       List<String> indexAllowlist,
+                       AwarenessAttributeSettings awarenessAttributeSettings,
+                       int maxConcurrentRequests) {
+        this.snapshotName = snapshotName;
+        this.metadataFactory = metadataFactory;
+        this.indexCreator = indexCreator;
+        this.transformer = transformer;
+        this.indexAllowlist = indexAllowlist;
+        this.awarenessAttributeSettings = awarenessAttributeSettings;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * The results are in the order of the indices in the snapshot, however many of them were created at once.
+     */
     public IndexMetadataResults migrateIndices(MigrationMode mode, ICreateIndexContext context) {
         var repoDataProvider = metadataFactory.getRepoDataProvider();
-        var results = IndexMetadataResults.builder();
         var skipCreation = FilterScheme.filterByAllowList(indexAllowlist).negate();
+        var pendingIndices = new ArrayList<PendingIndex>();
 
-        for (SnapshotRepo.Index index : repoDataProvider.getIndicesInSnapshot(snapshotName)) {
-            List<CreationResult> creationResults;
-            if (skipCreation.test(index.getName())) {
-                log.atInfo()
-                        .setMessage("Index {} was not part of the allowlist and will not be migrated.")
-                        .addArgument(index.getName())
-                        .log();
-                creationResults = List.of(CreationResult.builder()
-                        .name(index.getName())
-                        .failureType(CreationFailureType.SKIPPED_DUE_TO_FILTER)
-                        .build());
-            } else {
-                creationResults = createIndex(index.getName(), mode, context);
-            }
+        try (var taskRunner = new BoundedTaskRunner("indexCreation", maxConcurrentRequests)) {
+            for (SnapshotRepo.Index index : repoDataProvider.getIndicesInSnapshot(snapshotName)) {
+                var indexMetadata = metadataFactory.fromRepo(snapshotName, index.getName());
+                CompletableFuture<List<CreationResult>> creationResults;
+                if (skipCreation.test(index.getName())) {
+                    log.atInfo()
+                            .setMessage("Index {} was not part of the allowlist and will not be migrated.")
+                            .addArgument(index.getName())
+                            .log();
+                    creationResults = CompletableFuture.completedFuture(List.of(CreationResult.builder()
+                            .name(index.getName())
+                            .failureType(CreationFailureType.SKIPPED_DUE_TO_FILTER)
+                            .build()));
+                } else {
+                    creationResults = createIndex(index.getName(), indexMetadata, mode, context, taskRunner);
+                }
 
-            creationResults.forEach(results::index);
+                var aliases = new ArrayList<String>();
+                indexMetadata.getAliases().fieldNames().forEachRemaining(aliases::add);
+                pendingIndices.add(new PendingIndex(creationResults, aliases));
+            }
 
-            var indexMetadata = metadataFactory.fromRepo(snapshotName, index.getName());
-            indexMetadata.getAliases().fieldNames().forEachRemaining(alias -> {
-                var aliasResult = CreationResult.builder().name(alias);
-                if (!creationResults.isEmpty()) {
-                    aliasResult.failureType(creationResults.get(0).getFailureType());
-                }
-                results.alias(aliasResult.build());
-            });
+            var results = IndexMetadataResults.builder();
+            for (var pendingIndex : pendingIndices) {
+                var creationResults = pendingIndex.creationResults.join();
+                creationResults.forEach(results::index);
+                pendingIndex.aliases.forEach(alias -> {
+                    var aliasResult = CreationResult.builder().name(alias);
+                    if (!creationResults.isEmpty()) {
+                        aliasResult.failureType(creationResults.get(0).getFailureType());
+                    }
+                    results.alias(aliasResult.build());
+                });
+            }
+            return results.build();
         }
-        return results.build();
     }
 
-    private List<CreationResult> createIndex(String indexName, MigrationMode mode, ICreateIndexContext context) {
-        var originalIndexMetadata = metadataFactory.fromRepo(snapshotName, indexName);
+    private CompletableFuture<List<CreationResult>> createIndex(String indexName,
+                                                                IndexMetadata originalIndexMetadata,
+                                                                MigrationMode mode,
+                                                                ICreateIndexContext context,
+                                                                BoundedTaskRunner taskRunner) {
         var indexMetadata = originalIndexMetadata.deepCopy();
-        List<CreationResult> creationResults = new ArrayList<>();
+        List<CompletableFuture<CreationResult>> creationResults = new ArrayList<>();
         try {
             List<IndexMetadata> transformedMetadataList = transformer.transformIndexMetadata(indexMetadata);
             for (IndexMetadata transformedMetadata : transformedMetadataList) {
-                creationResults.add(createInner(indexName, mode, context, transformedMetadata));
+                creationResults.add(taskRunner.submit(
+                    () -> createInner(indexName, mode, context, transformedMetadata)));
             }
         } catch (Exception e) {
-            creationResults.add(CreationResult.builder()
+            creationResults.add(CompletableFuture.completedFuture(CreationResult.builder()
                 .name(indexName)
                 .exception(new IndexTransformationException(indexName, e))
                 .failureType(CreationFailureType.UNABLE_TO_TRANSFORM_FAILURE)
-                .build());
+                .build()));
         }
-        return creationResults;
+        return CompletableFuture.allOf(creationResults.toArray(CompletableFuture[]::new))
+            .thenApply(v -> creationResults.stream().map(CompletableFuture::join).toList());
     }
 
     private CreationResult createInner(String indexName,
@@ -95,5 +144,11 @@ public class IndexRunner {
                 .failureType(CreationFailureType.UNABLE_TO_TRANSFORM_FAILURE)
                 .build();
         }
-    } 
+    }
+
+    @AllArgsConstructor
+    private static class PendingIndex {
+        final CompletableFuture<List<CreationResult>> creationResults;
+        final List<String> aliases;
+    }
 }
@@ -18,12 +18,20 @@ public class MetadataRunner {
     private final GlobalMetadata.Factory metadataFactory;
     private final GlobalMetadataCreator metadataCreator;
     private final Transformer transformer;
+    private final int maxConcurrentRequests;
+
+    public MetadataRunner(String snapshotName,
+                          GlobalMetadata.Factory metadataFactory,
+                          GlobalMetadataCreator metadataCreator,
+                          Transformer transformer) {
+        this(snapshotName, metadataFactory, metadataCreator, transformer, 1);
+    }
 
     public GlobalMetadataCreatorResults migrateMetadata(MigrationMode mode, IClusterMetadataContext context) {
         log.info("Migrating the Templates...");
         var globalMetadata = metadataFactory.fromRepo(snapshotName);
         var transformedRoot = transformer.transformGlobalMetadata(globalMetadata);
-        var results = metadataCreator.create(transformedRoot, mode, context);
+        var results = metadataCreator.create(transformedRoot, mode, context, maxConcurrentRequests);
         log.info("Templates migration complete");
         return results;
     }
@@ -9,4 +9,17 @@ public interface GlobalMetadataCreator {
         GlobalMetadata metadata,
         MigrationMode mode,
         IClusterMetadataContext context);
+
+    /**
+     * Like {@link #create(GlobalMetadata, MigrationMode, IClusterMetadataContext)}, but with up to
+     * maxConcurrentRequests templates of each type being created at once.  Creators that don't support concurrent
+     * creation create them one at a time.
+     */
+    default GlobalMetadataCreatorResults create(
+        GlobalMetadata metadata,
+        MigrationMode mode,
+        IClusterMetadataContext context,
+        int maxConcurrentRequests) {
+        return create(metadata, mode, context);
+    }
 }
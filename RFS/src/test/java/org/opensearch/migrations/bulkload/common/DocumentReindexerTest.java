@@ -7,9 +7,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.opensearch.migrations.bulkload.common.bulk.BulkNdjson;
 import org.opensearch.migrations.bulkload.common.bulk.BulkOperationSpec;
+import org.opensearch.migrations.bulkload.common.bulk.operations.IndexOperationMeta;
 import org.opensearch.migrations.bulkload.tracing.IRfsContexts;
 import org.opensearch.migrations.bulkload.worker.WorkItemCursor;
 import org.opensearch.migrations.reindexer.tracing.IDocumentMigrationContexts;
+import org.opensearch.migrations.testutils.ConcurrencyProbe;
 import org.opensearch.migrations.transform.IJsonTransformer;
 import org.opensearch.migrations.transform.TransformationLoader;
 
@@ -131,10 +133,9 @@ class DocumentReindexerTest {
     void reindex_shouldBufferByTransformedSize() throws JsonProcessingException {
         // Set up the transformer that replaces the sourceDoc from the document
         var replacedSourceDoc = Map.of("simpleKey", "simpleValue");
-        IJsonTransformer transformer = originalJsons -> {
-            ((List<Map<String, Object>>) originalJsons)
-                    .forEach(json -> json.put("document", replacedSourceDoc));
-            return originalJsons;
+        IJsonTransformer transformer = originalJson -> {
+            ((Map<String, Object>) originalJson).put("document", replacedSourceDoc);
+            return originalJson;
         };
         int numDocs = 5;
 
@@ -328,6 +329,52 @@ class DocumentReindexerTest {
                 "Document 3 should have _type removed");
     }
 
+    @Test
+    void transformDocumentBatch_shouldDropOrSplitDocumentsThatTransformIntoLists() {
+        IJsonTransformer transformer = incomingJson -> {
+            var id = ((Map<?, ?>) ((Map<?, ?>) incomingJson).get("operation")).get("_id");
+            if ("1".equals(id)) {
+                return List.of();
+            } else if ("2".equals(id)) {
+                return List.of(incomingJson, incomingJson);
+            }
+            return incomingJson;
+        };
+        documentReindexer = new DocumentReindexer(mockClient, MAX_DOCS_PER_BULK, MAX_BYTES_PER_BULK_REQUEST,
+            MAX_CONCURRENT_REQUESTS, () -> transformer);
+
+        var transformedDocs = documentReindexer.transformDocumentBatch(transformer,
+            List.of(createTestDocument(1), createTestDocument(2), createTestDocument(3)), "test-index");
+
+        assertEquals(List.of("2", "2", "3"), transformedDocs.stream()
+            .map(doc -> ((IndexOperationMeta) doc.document.getOperation()).getId())
+            .toList());
+    }
+
+    @Test
+    void reindex_shouldTransformBatchesConcurrentlyAndKeepThemInOrder() {
+        var concurrencyProbe = new ConcurrencyProbe(2);
+        IJsonTransformer probedTransformer = incomingJson -> concurrencyProbe.run(() -> incomingJson);
+        documentReindexer = new DocumentReindexer(mockClient, MAX_DOCS_PER_BULK, MAX_BYTES_PER_BULK_REQUEST,
+            MAX_CONCURRENT_REQUESTS, () -> probedTransformer, 4);
+
+        when(mockClient.sendBulkRequest(eq("test-index"), any(), any()))
+            .thenAnswer(invocation -> {
+                List<?> bulkBody = invocation.getArgument(1);
+                return Mono.just(new OpenSearchClient.BulkResponse(200, "OK", null,
+                    String.format("{\"took\":1,\"errors\":false,\"items\":[%s]}", "{}".repeat(bulkBody.size()))));
+            });
+
+        var documentStream = Flux.range(1, 12).map(this::createTestDocument);
+        StepVerifier.create(documentReindexer.reindex("test-index", documentStream, mockContext))
+            .expectNext(new WorkItemCursor(3), new WorkItemCursor(6), new WorkItemCursor(9), new WorkItemCursor(12))
+            .verifyComplete();
+
+        assertTrue(concurrencyProbe.callsOverlapped(),
+            "Expected batches to be transformed concurrently, but at most " + concurrencyProbe.getMaxActiveCalls()
+                + " were");
+    }
+
     private RfsLuceneDocument createTestDocument(int id) {
         return new RfsLuceneDocument(id, String.valueOf(id), null, "{\"field\":\"value\"}", null, RfsDocumentOperation.INDEX);
     }
@@ -0,0 +1,104 @@
+package org.opensearch.migrations.bulkload.common;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opensearch.migrations.bulkload.models.IndexMetadata;
+import org.opensearch.migrations.bulkload.models.ShardMetadata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SnapshotMetadataCatalogTest {
+    private static final Path REPO_ROOT = Path.of("/repo");
+
+    @Test
+    void testRepoDataIsCachedUntilTheFileChanges(@TempDir Path tempDir) throws Exception {
+        var catalog = new SnapshotMetadataCatalog();
+        var repoFile = tempDir.resolve("index-0");
+        Files.writeString(repoFile, "{}");
+        var loads = new AtomicInteger();
+
+        var first = catalog.getRepoData(repoFile, String.class, () -> "load" + loads.incrementAndGet());
+        var second = catalog.getRepoData(repoFile, String.class, () -> "load" + loads.incrementAndGet());
+        assertThat(first, equalTo("load1"));
+        assertThat(second, sameInstance(first));
+
+        Files.writeString(repoFile, "{\"snapshots\": []}");
+        Files.setLastModifiedTime(repoFile, FileTime.fromMillis(0));
+        assertThat(catalog.getRepoData(repoFile, String.class, () -> "load" + loads.incrementAndGet()),
+            equalTo("load2"));
+    }
+
+    @Test
+    void testShardMetadataIsCachedPerShardAndFactory() {
+        var catalog = new SnapshotMetadataCatalog();
+        var loads = new AtomicInteger();
+
+        var shard0 = loadShard(catalog, String.class, 0, loads);
+        assertThat(loadShard(catalog, String.class, 0, loads), sameInstance(shard0));
+        assertThat(loads.get(), equalTo(1));
+
+        assertThat(loadShard(catalog, String.class, 1, loads), not(sameInstance(shard0)));
+        assertThat(loadShard(catalog, Integer.class, 0, loads), not(sameInstance(shard0)));
+        assertThat(loads.get(), equalTo(3));
+
+        catalog.clear();
+        assertThat(loadShard(catalog, String.class, 0, loads), not(sameInstance(shard0)));
+        assertThat(loads.get(), equalTo(4));
+    }
+
+    @Test
+    void testIndexMetadataCallersGetTheirOwnCopies() {
+        var catalog = new SnapshotMetadataCatalog();
+        var loads = new AtomicInteger();
+        var cached = mock(IndexMetadata.class);
+        var copy1 = mock(IndexMetadata.class);
+        var copy2 = mock(IndexMetadata.class);
+        when(cached.deepCopy()).thenReturn(copy1, copy2);
+
+        var first = catalog.getIndexMetadata(String.class, REPO_ROOT, "indexId", "fileId", "index", () -> {
+            loads.incrementAndGet();
+            return cached;
+        });
+        var second = catalog.getIndexMetadata(String.class, REPO_ROOT, "indexId", "fileId", "index", () -> {
+            loads.incrementAndGet();
+            return cached;
+        });
+        assertThat(first, sameInstance(copy1));
+        assertThat(second, sameInstance(copy2));
+        assertThat(loads.get(), equalTo(1));
+    }
+
+    @Test
+    void testMetadataWithoutARepoRootIsNotCached() {
+        var catalog = new SnapshotMetadataCatalog();
+        var loads = new AtomicInteger();
+        for (int i = 0; i < 2; ++i) {
+            catalog.getShardMetadata(String.class, null, "snapshotId", "indexId", "index", 0, () -> {
+                loads.incrementAndGet();
+                return mock(ShardMetadata.class);
+            });
+        }
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    private static ShardMetadata loadShard(SnapshotMetadataCatalog catalog,
+                                           Class<?> factoryType,
+                                           int shardId,
+                                           AtomicInteger loads) {
+        return catalog.getShardMetadata(factoryType, REPO_ROOT, "snapshotId", "indexId", "index", shardId, () -> {
+            loads.incrementAndGet();
+            return mock(ShardMetadata.class);
+        });
+    }
+}
@@ -1,5 +1,8 @@
 package org.opensearch.migrations.bulkload.version_os_2_11;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -10,17 +13,23 @@ import org.opensearch.migrations.bulkload.models.GlobalMetadata;
 import org.opensearch.migrations.metadata.CreationResult;
 import org.opensearch.migrations.metadata.CreationResult.CreationFailureType;
 import org.opensearch.migrations.metadata.tracing.IMetadataMigrationContexts.IClusterMetadataContext;
+import org.opensearch.migrations.testutils.ConcurrencyProbe;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -64,6 +73,45 @@ public class GlobalMetadataCreator_OS_2_11Test {
         assertThat(results.getIndexTemplates(), containsInAnyOrder(createSuccessResult("it1"), createResult(".its", SKIPPED_DUE_TO_FILTER)));
     }
 
+    @Test
+    void testCreateConcurrently() {
+        var mapper = new ObjectMapper();
+        var obj = mapper.createObjectNode();
+        var createdTemplates = Collections.synchronizedList(new ArrayList<String>());
+        var concurrencyProbe = new ConcurrencyProbe(2);
+        var probedCreate = (Answer<Optional<?>>) invocation -> concurrencyProbe.run(() -> {
+            createdTemplates.add(invocation.getArgument(0));
+            return Optional.of(obj);
+        });
+        doAnswer(probedCreate).when(client).createComponentTemplate(any(), any(), any());
+        doAnswer(probedCreate).when(client).createIndexTemplate(any(), any(), any());
+
+        var globalMetadata = mock(GlobalMetadata.class);
+        var componentTemplates = mapper.createObjectNode().put("type", "component");
+        var indexTemplates = mapper.createObjectNode().put("type", "index");
+        doReturn(componentTemplates).when(globalMetadata).getComponentTemplates();
+        doReturn(indexTemplates).when(globalMetadata).getIndexTemplates();
+
+        var creator = spy(new GlobalMetadataCreator_OS_2_11(client, List.of(), List.of(), List.of()));
+        var components = new LinkedHashMap<String, ObjectNode>();
+        var indices = new LinkedHashMap<String, ObjectNode>();
+        for (int i = 0; i < 6; ++i) {
+            components.put("ct" + i, obj.deepCopy());
+            indices.put("it" + i, obj.deepCopy());
+        }
+        doReturn(components).when(creator).getAllTemplates(componentTemplates);
+        doReturn(indices).when(creator).getAllTemplates(indexTemplates);
+
+        var results = creator.create(globalMetadata, MigrationMode.PERFORM, context, 3);
+        assertThat(results.fatalIssueCount(), equalTo(0L));
+        assertThat(results.getComponentTemplates(), contains(components.keySet().stream().map(this::createSuccessResult).toArray()));
+        assertThat(results.getIndexTemplates(), contains(indices.keySet().stream().map(this::createSuccessResult).toArray()));
+        assertThat(concurrencyProbe.callsOverlapped(), equalTo(true));
+        assertThat(concurrencyProbe.getMaxActiveCalls(), lessThanOrEqualTo(3));
+        // Every component template is created before any index template that could be composed of it
+        assertThat(createdTemplates.subList(0, 6), containsInAnyOrder(components.keySet().toArray()));
+    }
+
     private CreationResult createSuccessResult(String name) {
         return createResult(name, null);
     }
@@ -0,0 +1,101 @@
+package org.opensearch.migrations.bulkload.worker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.opensearch.migrations.MigrationMode;
+import org.opensearch.migrations.bulkload.common.SnapshotRepo;
+import org.opensearch.migrations.bulkload.models.IndexMetadata;
+import org.opensearch.migrations.bulkload.transformers.Transformer;
+import org.opensearch.migrations.metadata.CreationResult;
+import org.opensearch.migrations.metadata.CreationResult.CreationFailureType;
+import org.opensearch.migrations.metadata.IndexCreator;
+import org.opensearch.migrations.metadata.tracing.IMetadataMigrationContexts.ICreateIndexContext;
+import org.opensearch.migrations.testutils.ConcurrencyProbe;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndexRunnerTest {
+    private static final String SNAPSHOT_NAME = "snapshot";
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void migrateIndices_createsConcurrentlyAndKeepsSnapshotOrder() {
+        var indexNames = IntStream.range(0, 8).mapToObj(i -> "index" + i).collect(Collectors.toList());
+        indexNames.add(".skipped");
+        var metadataFactory = mockMetadataFactory(indexNames);
+
+        var transformingThreads = Collections.synchronizedList(new ArrayList<String>());
+        var transformer = mock(Transformer.class);
+        when(transformer.transformIndexMetadata(any())).thenAnswer(invocation -> {
+            transformingThreads.add(Thread.currentThread().getName());
+            return List.of(invocation.getArgument(0));
+        });
+
+        var concurrencyProbe = new ConcurrencyProbe(2);
+        var indexCreator = mock(IndexCreator.class);
+        when(indexCreator.create(any(), any(), any(), any())).thenAnswer(invocation -> concurrencyProbe.run(() -> {
+            IndexMetadata index = invocation.getArgument(0);
+            return CreationResult.builder().name(index.getName()).build();
+        }));
+
+        var runner = new IndexRunner(SNAPSHOT_NAME, metadataFactory, indexCreator, transformer, List.of(),
+            null, 4);
+        var results = runner.migrateIndices(MigrationMode.PERFORM, mock(ICreateIndexContext.class));
+
+        var expectedIndexes = indexNames.stream()
+            .map(name -> CreationResult.builder()
+                .name(name)
+                .failureType(name.startsWith(".") ? CreationFailureType.SKIPPED_DUE_TO_FILTER : null)
+                .build())
+            .toArray();
+        assertThat(results.getIndexes(), contains(expectedIndexes));
+        assertThat(results.getAliases(), contains(
+            indexNames.stream().map(name -> CreationResult.builder()
+                .name(name + "-alias")
+                .failureType(name.startsWith(".") ? CreationFailureType.SKIPPED_DUE_TO_FILTER : null)
+                .build()).toArray()));
+        assertThat(concurrencyProbe.callsOverlapped(), equalTo(true));
+        assertThat(concurrencyProbe.getMaxActiveCalls(), lessThanOrEqualTo(4));
+        assertThat(transformingThreads.size(), equalTo(8));
+        assertThat(transformingThreads, everyItem(equalTo(Thread.currentThread().getName())));
+    }
+
+    private static IndexMetadata.Factory mockMetadataFactory(List<String> indexNames) {
+        var indices = new ArrayList<SnapshotRepo.Index>();
+        for (var name : indexNames) {
+            var index = mock(SnapshotRepo.Index.class);
+            when(index.getName()).thenReturn(name);
+            indices.add(index);
+        }
+        var repoDataProvider = mock(SnapshotRepo.Provider.class);
+        when(repoDataProvider.getIndicesInSnapshot(SNAPSHOT_NAME)).thenReturn(indices);
+
+        var metadataFactory = mock(IndexMetadata.Factory.class);
+        when(metadataFactory.getRepoDataProvider()).thenReturn(repoDataProvider);
+        when(metadataFactory.fromRepo(any(), anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(1);
+            var indexMetadata = mock(IndexMetadata.class);
+            when(indexMetadata.getName()).thenReturn(name);
+            when(indexMetadata.getAliases()).thenReturn(mapper.createObjectNode().set(name + "-alias",
+                mapper.createObjectNode()));
+            when(indexMetadata.deepCopy()).thenReturn(indexMetadata);
+            return indexMetadata;
+        });
+        return metadataFactory;
+    }
+}
@@ -1,8 +1,10 @@
 package org.opensearch.migrations.trafficcapture.kafkaoffloader;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Arrays;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ForkJoinPool;
 
@@ -11,32 +13,59 @@ import org.opensearch.migrations.trafficcapture.CodedOutputStreamHolder;
 import org.opensearch.migrations.trafficcapture.IChannelConnectionCaptureSerializer;
 import org.opensearch.migrations.trafficcapture.IConnectionCaptureFactory;
 import org.opensearch.migrations.trafficcapture.OrderedStreamLifecyleManager;
+import org.opensearch.migrations.trafficcapture.PayloadCompressor;
 import org.opensearch.migrations.trafficcapture.StreamChannelConnectionCaptureSerializer;
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.tracing.IRootKafkaOffloaderContext;
 
 import com.google.protobuf.CodedOutputStream;
-import lombok.AllArgsConstructor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.Builder;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 
 @Slf4j
-public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMetadata> {
+public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMetadata>, AutoCloseable {
 
     public static final String DEFAULT_TOPIC_NAME_FOR_TRAFFIC = "logging-traffic-topic";
     // This value encapsulates overhead we should reserve for a given Producer record to account for record key bytes
     // and
     // general Kafka message overhead
     public static final int KAFKA_MESSAGE_OVERHEAD_BYTES = 500;
+    /**
+     * Streams start with a buffer this big and only grow (up to the message size) as they're written to, so
+     * that the many connections that only ever send small streams don't each hold a message-sized buffer
+     */
+    static final int INITIAL_STREAM_BUFFER_BYTES = 16 * 1024;
+    /** The size of the heap array that each CodedOutputStream stages its writes in before they go to its buffer */
+    private static final int CODED_OUTPUT_STREAM_BUFFER_BYTES = 4 * 1024;
 
     private final IRootKafkaOffloaderContext rootScope;
     private final String nodeId;
-    // Potential future optimization here to use a direct buffer (e.g. nio) instead of byte array
     private final Producer<String, byte[]> producer;
     private final String topicNameForTraffic;
     private final int bufferSize;
+    /**
+     * Streams are serialized into direct buffers from this allocator rather than into a newly allocated (and
+     * zeroed) heap array for every record.  Buffers start at INITIAL_STREAM_BUFFER_BYTES and are grown by the
+     * allocator, which keeps them within its size classes.  Each buffer is returned to the allocator as soon as
+     * its contents have been copied into the record value, which is the one copy that Kafka's byte[] Serializer
+     * contract requires, or as soon as it's known that the stream won't be sent (e.g. after an earlier send for
+     * its connection failed).
+     */
+    private final ByteBufAllocator streamBufferAllocator;
+    /** null unless small streams are being coalesced into batch records */
+    private final TrafficStreamBatcher trafficStreamBatcher;
+    /** null unless read and write payloads are being compressed */
+    private final PayloadCompressor payloadCompressor;
+    /** null unless records that Kafka can't take are spilled to local disk */
+    private final KafkaSpillBuffer spillBuffer;
 
     public KafkaCaptureFactory(
         IRootKafkaOffloaderContext rootScope,
@@ -45,11 +74,7 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
         String topicNameForTraffic,
         int messageSize
     ) {
-        this.rootScope = rootScope;
-        this.nodeId = nodeId;
-        this.producer = producer;
-        this.topicNameForTraffic = topicNameForTraffic;
-        this.bufferSize = messageSize - KAFKA_MESSAGE_OVERHEAD_BYTES;
+        this(rootScope, nodeId, producer, topicNameForTraffic, messageSize, 0, null, null, null, null);
     }
 
     public KafkaCaptureFactory(
@@ -61,23 +86,128 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
         this(rootScope, nodeId, producer, DEFAULT_TOPIC_NAME_FOR_TRAFFIC, messageSize);
     }
 
+    /**
+     * @param topicNameForTraffic defaults to DEFAULT_TOPIC_NAME_FOR_TRAFFIC
+     * @param maxBatchBytes when positive, streams that fit are packed together (with streams from other
+     *                      connections) into records of up to this many bytes.  This can't be more than the
+     *                      space that's available for a single stream within messageSize.
+     * @param batchLinger the longest that a batch will wait for more streams before it is sent
+     * @param payloadCompressor when non-null, read and write payloads are compressed within each TrafficStream
+     * @param streamBufferAllocator defaults to PooledByteBufAllocator.DEFAULT
+     * @param spillBuffer when non-null, records that Kafka can't take (and the records after them) are spilled
+     *                    there until Kafka can take them again
+     */
+    @Builder
+    private KafkaCaptureFactory(
+        IRootKafkaOffloaderContext rootScope,
+        String nodeId,
+        Producer<String, byte[]> producer,
+        String topicNameForTraffic,
+        int messageSize,
+        int maxBatchBytes,
+        Duration batchLinger,
+        PayloadCompressor payloadCompressor,
+        ByteBufAllocator streamBufferAllocator,
+        KafkaSpillBuffer spillBuffer
+    ) {
+        this.rootScope = rootScope;
+        this.spillBuffer = spillBuffer;
+        this.payloadCompressor = payloadCompressor;
+        this.nodeId = nodeId;
+        this.producer = producer;
+        this.topicNameForTraffic = Optional.ofNullable(topicNameForTraffic).orElse(DEFAULT_TOPIC_NAME_FOR_TRAFFIC);
+        this.bufferSize = messageSize - KAFKA_MESSAGE_OVERHEAD_BYTES;
+        this.streamBufferAllocator = Optional.ofNullable(streamBufferAllocator).orElse(PooledByteBufAllocator.DEFAULT);
+        if (maxBatchBytes > bufferSize) {
+            throw new IllegalArgumentException("maxBatchBytes (" + maxBatchBytes + ") must be at most "
+                + bufferSize + " for a message size of " + messageSize);
+        }
+        this.trafficStreamBatcher = maxBatchBytes <= 0 ? null
+            : new TrafficStreamBatcher(
+                this::send,
+                this.topicNameForTraffic,
+                nodeId,
+                maxBatchBytes,
+                Optional.ofNullable(batchLinger).orElse(Duration.ZERO),
+                this.streamBufferAllocator
+            );
+    }
+
     @Override
     public IChannelConnectionCaptureSerializer<RecordMetadata> createOffloader(IConnectionContext ctx) {
         return new StreamChannelConnectionCaptureSerializer<>(
             nodeId,
             ctx.getConnectionId(),
-            new StreamManager(rootScope, ctx)
+            new StreamManager(rootScope, ctx),
+            payloadCompressor,
+            ctx instanceof PayloadCompressor.IListener ? (PayloadCompressor.IListener) ctx : null
         );
     }
 
-    @AllArgsConstructor
+    /**
+     * Sends the streams that are still waiting to be batched and stops the spill buffer (if there is one) once
+     * what has already been spilled is on disk.  Streams that are closed after this are still sent, but without
+     * waiting for others to be batched with them, and they fail if Kafka doesn't take them.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (trafficStreamBatcher != null) {
+            trafficStreamBatcher.close();
+        }
+        if (spillBuffer != null) {
+            spillBuffer.close();
+        }
+    }
+
     static class CodedOutputStreamWrapper implements CodedOutputStreamHolder {
         private final CodedOutputStream codedOutputStream;
-        private final ByteBuffer byteBuffer;
+        /**
+         * The pooled buffer that the stream is written through to.  Its max capacity is the stream's limit.  It's
+         * released when the stream is closed.
+         */
+        private final ByteBuf pooledBuffer;
+
+        CodedOutputStreamWrapper(ByteBuf pooledBuffer) {
+            this.pooledBuffer = pooledBuffer;
+            this.codedOutputStream = CodedOutputStream.newInstance(
+                new ByteBufOutputStream(pooledBuffer),
+                CODED_OUTPUT_STREAM_BUFFER_BYTES
+            );
+        }
+
+        int getWrittenSize() {
+            return codedOutputStream.getTotalBytesWritten();
+        }
+
+        /** A view of what has been written so far.  It's only valid until release() is called. */
+        @SneakyThrows
+        ByteBuffer getWrittenContents() {
+            // Normally a no-op since the serializer flushes a stream before closing it
+            codedOutputStream.flush();
+            return pooledBuffer.nioBuffer(pooledBuffer.readerIndex(), pooledBuffer.readableBytes());
+        }
+
+        /**
+         * Copies what has been written so far into a new array and returns the underlying buffer to its pool.
+         * The stream must not be used after this is called.
+         */
+        byte[] copyContentsAndRelease() {
+            try {
+                var contents = new byte[getWrittenSize()];
+                getWrittenContents().get(contents);
+                return contents;
+            } finally {
+                release();
+            }
+        }
+
+        void release() {
+            pooledBuffer.release();
+        }
 
         @Override
         public int getOutputStreamBytesLimit() {
-            return byteBuffer.limit();
+            return pooledBuffer.maxCapacity();
         }
 
         @Override
@@ -102,8 +232,18 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
         public CodedOutputStreamWrapper createStream() {
             telemetryContext.addEvent("streamCreated");
 
-            ByteBuffer bb = ByteBuffer.allocate(bufferSize);
-            return new CodedOutputStreamWrapper(CodedOutputStream.newInstance(bb), bb);
+            return new CodedOutputStreamWrapper(streamBufferAllocator.directBuffer(
+                Math.min(INITIAL_STREAM_BUFFER_BYTES, bufferSize),
+                bufferSize
+            ));
+        }
+
+        @Override
+        public void discardStream(CodedOutputStreamHolder outputStreamHolder) {
+            log.debug("Discarding a stream for {} that won't be sent", telemetryContext.getConnectionId());
+            if (outputStreamHolder instanceof CodedOutputStreamWrapper) {
+                ((CodedOutputStreamWrapper) outputStreamHolder).release();
+            }
         }
 
         @Override
@@ -121,20 +261,32 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
             final var connectionId = telemetryContext.getConnectionId();
 
             String recordId = String.format("%s.%d", connectionId, index);
-            var byteBuffer = osh.byteBuffer;
-            ProducerRecord<String, byte[]> kafkaRecord = new ProducerRecord<>(
-                topicNameForTraffic,
-                recordId,
-                Arrays.copyOfRange(byteBuffer.array(), 0, byteBuffer.position())
-            );
-            log.debug("Sending Kafka producer record: {} for topic: {}", recordId, topicNameForTraffic);
-
+            var streamSize = osh.getWrittenSize();
             var flushContext = rootScope.createKafkaRecordContext(
                 telemetryContext,
                 topicNameForTraffic,
                 recordId,
-                kafkaRecord.value().length
+                streamSize
             );
+            CompletableFuture<RecordMetadata> sendFuture;
+            if (trafficStreamBatcher != null && trafficStreamBatcher.canBatch(streamSize)) {
+                log.debug("Adding traffic stream: {} to the next batch for topic: {}", recordId, topicNameForTraffic);
+                try {
+                    sendFuture = trafficStreamBatcher.add(osh.getWrittenContents());
+                } catch (IOException e) {
+                    sendFuture = CompletableFuture.failedFuture(e);
+                } finally {
+                    osh.release();
+                }
+            } else {
+                ProducerRecord<String, byte[]> kafkaRecord = new ProducerRecord<>(
+                    topicNameForTraffic,
+                    recordId,
+                    osh.copyContentsAndRelease()
+                );
+                log.debug("Sending Kafka producer record: {} for topic: {}", recordId, topicNameForTraffic);
+                sendFuture = send(kafkaRecord);
+            }
             /*
              * The default KafkaProducer comes with built-in retry and error-handling logic that suits many cases. From the
              * documentation here for retry: https://kafka.apache.org/35/javadoc/org/apache/kafka/clients/producer/KafkaProducer.html
@@ -145,7 +297,7 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
              * retried or not retried at all: https://kafka.apache.org/35/javadoc/org/apache/kafka/common/errors/RetriableException.html
              * as well as basic retry backoff
              */
-            return sendFullyAsync(producer, kafkaRecord).whenComplete(((recordMetadata, throwable) -> {
+            return sendFuture.whenComplete(((recordMetadata, throwable) -> {
                 if (throwable != null) {
                     flushContext.addTraceException(throwable, true);
                     log.error("Error sending producer record: {}", recordId, throwable);
@@ -162,6 +314,10 @@ public class KafkaCaptureFactory implements IConnectionCaptureFactory<RecordMeta
         }
     }
 
+    private CompletableFuture<RecordMetadata> send(ProducerRecord<String, byte[]> kafkaRecord) {
+        return spillBuffer == null ? sendFullyAsync(producer, kafkaRecord) : spillBuffer.send(kafkaRecord);
+    }
+
     // Producer Send will block on actions such as retrieving cluster metadata, allows running fully async
     public static <K, V> CompletableFuture<RecordMetadata> sendFullyAsync(
         Producer<K, V> producer,
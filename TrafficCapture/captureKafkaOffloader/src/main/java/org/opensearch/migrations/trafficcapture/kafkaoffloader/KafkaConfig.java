@@ -2,11 +2,16 @@ package org.opensearch.migrations.trafficcapture.kafkaoffloader;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Properties;
 
+import org.opensearch.migrations.trafficcapture.PayloadCompressor;
+import org.opensearch.migrations.trafficcapture.protos.PayloadCodec;
+
 import com.beust.jcommander.Parameter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.config.SaslConfigs;
 
@@ -39,6 +44,75 @@ public class KafkaConfig {
                 arity = 0,
                 description = "Enables SASL Kafka properties required for connecting to MSK with IAM auth.")
         public boolean mskAuthEnabled = false;
+        @Parameter(required = false,
+                names = { "--kafkaBatchMaxBytes" },
+                arity = 1,
+                description = "When positive, TrafficStreams that fit are packed together, across connections, into "
+                    + "Kafka records of up to this many bytes.  This reduces the number of records sent for "
+                    + "workloads with many small requests.  Replayers older than this proxy can't read those "
+                    + "records.  Disabled by default.")
+        public int kafkaBatchMaxBytes = 0;
+        @Parameter(required = false,
+                names = { "--kafkaBatchLingerMs" },
+                arity = 1,
+                description = "The longest that a batch (see --kafkaBatchMaxBytes) waits for more TrafficStreams "
+                    + "before it is sent.")
+        public long kafkaBatchLingerMs = 5;
+        @Parameter(required = false,
+                names = { "--kafkaPayloadCompression" },
+                arity = 1,
+                description = "Compresses the request and response payloads within each TrafficStream with this "
+                    + "codec (NONE or DEFLATE).  Payloads that don't get smaller are left as they are.  Replayers "
+                    + "older than this proxy can't read compressed payloads.")
+        public PayloadCodec kafkaPayloadCompression = PayloadCodec.NONE;
+        @Parameter(required = false,
+                names = { "--kafkaSpillDirectory" },
+                arity = 1,
+                description = "When set, records that Kafka doesn't accept (e.g. while the brokers are unavailable) "
+                    + "are written to segment files in this directory, along with every record that's sent after "
+                    + "them, and are sent to Kafka once it accepts records again.  Each connection's records stay "
+                    + "in order, but records from different connections may be reordered.  Spilled records that "
+                    + "haven't been sent are kept across restarts.  Disabled by default.")
+        public String kafkaSpillDirectory;
+        @Parameter(required = false,
+                names = { "--kafkaSpillMaxBytes" },
+                arity = 1,
+                description = "The most bytes that --kafkaSpillDirectory may hold.  Records that don't fit are "
+                    + "dropped, as they would be without a spill.")
+        public long kafkaSpillMaxBytes = KafkaSpillBuffer.DEFAULT_MAX_SPILL_BYTES;
+        @Parameter(required = false,
+                names = { "--kafkaSpillSegmentBytes" },
+                arity = 1,
+                description = "The size of each segment file in --kafkaSpillDirectory.  A segment is deleted once "
+                    + "all of its records have been sent.")
+        public long kafkaSpillSegmentBytes = KafkaSpillBuffer.DEFAULT_SEGMENT_BYTES;
+    }
+
+    /**
+     * @return null when payloads shouldn't be compressed
+     */
+    public static PayloadCompressor buildPayloadCompressor(KafkaParameters params) {
+        return params.kafkaPayloadCompression == PayloadCodec.NONE ? null
+            : new PayloadCompressor(params.kafkaPayloadCompression);
+    }
+
+    /**
+     * @return null when records shouldn't be spilled to disk
+     */
+    public static KafkaSpillBuffer buildSpillBuffer(
+        KafkaParameters params,
+        Producer<String, byte[]> producer,
+        KafkaSpillBuffer.IListener listener
+    ) throws IOException {
+        return params.kafkaSpillDirectory == null ? null
+            : new KafkaSpillBuffer(
+                Path.of(params.kafkaSpillDirectory),
+                params.kafkaSpillMaxBytes,
+                params.kafkaSpillSegmentBytes,
+                producer,
+                KafkaSpillBuffer.DEFAULT_DRAIN_RETRY_DELAY,
+                listener
+            );
     }
 
     public static Properties buildKafkaProperties(KafkaParameters params) throws IOException {
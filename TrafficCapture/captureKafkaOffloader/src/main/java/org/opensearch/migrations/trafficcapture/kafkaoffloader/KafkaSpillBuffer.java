@@ -0,0 +1,730 @@
+package org.opensearch.migrations.trafficcapture.kafkaoffloader;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+/**
+ * A bounded write-ahead log on local disk for the records that Kafka couldn't take.  Once a send fails with a
+ * retriable error (e.g. a TimeoutException because delivery.timeout.ms or max.block.ms passed while the brokers
+ * were unavailable), that record and every record that's sent after the failure are appended here instead of
+ * being sent.  Records that fail with errors that retrying won't fix (e.g. a RecordTooLargeException or an
+ * authorization error) are never spilled.  Their futures fail, and when a spilled record fails that way while
+ * it's being drained, it's skipped so that it can't hold up the records behind it.  A stream's future completes as
+ * soon as its record is durable on disk, so connections don't hold their streams in memory while Kafka is down.
+ * A background drainer sends the spilled records to Kafka, oldest first, and once it has caught up, records are
+ * sent directly to Kafka again.
+ *
+ * The order of each connection's records is kept, since KafkaCaptureFactory doesn't send a connection's next
+ * record until its previous one has been acknowledged or spilled.  Records of different connections that were
+ * already in flight when a send failed may still be acknowledged by Kafka, so they can reach Kafka before records
+ * of other connections that were sent earlier and spilled.
+ *
+ * Records are appended to segment files by one writer thread, which fsyncs once for every group of records that
+ * was waiting to be written.  Drained segments are deleted.  Segments that are left over when the process stops
+ * are drained when it starts again.  Records are delivered at least once: a segment that fails partway through
+ * draining is resent from its first record that wasn't acknowledged.
+ *
+ * The futures for spilled records complete with RecordMetadata whose partition is SPILLED_PARTITION.  Records
+ * that would be spilled after this has been closed fail instead.
+ */
+@Slf4j
+public class KafkaSpillBuffer implements AutoCloseable {
+    public static final int SPILLED_PARTITION = -1;
+    public static final long DEFAULT_MAX_SPILL_BYTES = 1024L * 1024 * 1024;
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_DRAIN_RETRY_DELAY = Duration.ofSeconds(5);
+
+    static final String SEGMENT_PREFIX = "spill-";
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final int NULL_LENGTH = -1;
+    /** The spilledAt time and the lengths of the topic, the key, the header count and the value */
+    static final int MIN_BODY_LENGTH = Long.BYTES + 4 * Integer.BYTES;
+
+    /**
+     * Callbacks for the metrics of the spill.  These are called from the threads that append records and from
+     * the spill's own threads.
+     */
+    public interface IListener {
+        IListener NO_OP = new IListener() {};
+
+        default void onRecordSpilled(int bytes) {}
+
+        /** @param timeInSpill how long the record waited on disk before Kafka acknowledged it */
+        default void onRecordDrained(Duration timeInSpill) {}
+
+        /** A record couldn't be sent and couldn't be spilled because the spill was full */
+        default void onRecordDropped() {}
+
+        /** Kafka failed a record with an error that retrying won't fix, so it wasn't spilled (or retried) */
+        default void onRecordRejected() {}
+
+        /** The number of bytes on disk changed by deltaBytes */
+        default void onSpillSizeChanged(long deltaBytes) {}
+    }
+
+    public static class SpillFullException extends IOException {
+        public SpillFullException(long maxSpillBytes) {
+            super("The Kafka spill buffer is full (" + maxSpillBytes + " bytes)");
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingAppend {
+        /** null for a request to seal the active segment */
+        final ByteBuffer encodedRecord;
+        final RecordMetadata metadata;
+        final CompletableFuture<RecordMetadata> future;
+    }
+
+    @AllArgsConstructor
+    static class SpilledRecord {
+        final ProducerRecord<String, byte[]> record;
+        final Instant spilledAt;
+        /** The offset within the segment just past this record */
+        final long endPosition;
+    }
+
+    @AllArgsConstructor
+    private static class Segment {
+        final Path path;
+        /** The bytes of the records that were completely written to the segment */
+        final long bytes;
+    }
+
+    @AllArgsConstructor
+    private static class DrainingRecord {
+        final String key;
+        final CompletableFuture<RecordMetadata> sendFuture;
+        final Instant spilledAt;
+        final long endPosition;
+    }
+
+    private final Path directory;
+    private final long maxSpillBytes;
+    private final long segmentBytes;
+    private final Producer<String, byte[]> producer;
+    private final Duration drainRetryDelay;
+    private final IListener listener;
+    private final BlockingQueue<PendingAppend> appendQueue;
+    private final ExecutorService writerExecutor;
+    private final ScheduledExecutorService drainExecutor;
+
+    // guarded by 'this'
+    private boolean isSpilling;
+    private boolean isClosed;
+    private boolean isDrainScheduled;
+    private long bytesInSpill;
+    private int unwrittenAppends;
+    private long activeSegmentBytes;
+    private final ArrayDeque<Segment> sealedSegments;
+
+    // only used by the writer thread (after the constructor has recovered the segments on disk)
+    private long nextSegmentNumber;
+    private FileChannel activeSegment;
+    private Path activeSegmentPath;
+
+    // only used by the drain thread
+    private long drainPositionInFirstSegment;
+
+    public KafkaSpillBuffer(Path directory, Producer<String, byte[]> producer, IListener listener)
+        throws IOException {
+        this(directory, DEFAULT_MAX_SPILL_BYTES, DEFAULT_SEGMENT_BYTES, producer, DEFAULT_DRAIN_RETRY_DELAY, listener);
+    }
+
+    /**
+     * @param maxSpillBytes once the segments on disk hold this many bytes, records that can't be sent are dropped
+     * @param segmentBytes the size at which a segment is sealed and a new one is started
+     * @param drainRetryDelay how long to wait before trying to drain again after Kafka rejected a spilled record
+     */
+    public KafkaSpillBuffer(
+        Path directory,
+        long maxSpillBytes,
+        long segmentBytes,
+        Producer<String, byte[]> producer,
+        Duration drainRetryDelay,
+        IListener listener
+    ) throws IOException {
+        this.directory = directory;
+        this.maxSpillBytes = maxSpillBytes;
+        this.segmentBytes = segmentBytes;
+        this.producer = producer;
+        this.drainRetryDelay = drainRetryDelay;
+        this.listener = listener;
+        this.appendQueue = new LinkedBlockingQueue<>();
+        this.sealedSegments = new ArrayDeque<>();
+        Files.createDirectories(directory);
+        recoverSegments();
+        this.writerExecutor = Executors.newSingleThreadExecutor(new DefaultThreadFactory("kafkaSpillWriter", true));
+        this.drainExecutor = Executors.newSingleThreadScheduledExecutor(
+            new DefaultThreadFactory("kafkaSpillDrainer", true)
+        );
+        writerExecutor.execute(this::writeAppendsUntilClosed);
+        synchronized (this) {
+            if (isSpilling) {
+                scheduleDrain(Duration.ZERO);
+            }
+        }
+    }
+
+    /**
+     * Sends the record to Kafka, or appends it to the spill if Kafka can't take it or if earlier records are
+     * still waiting in the spill.
+     */
+    public CompletableFuture<RecordMetadata> send(ProducerRecord<String, byte[]> kafkaRecord) {
+        if (isSpilling()) {
+            return append(kafkaRecord);
+        }
+        return KafkaCaptureFactory.sendFullyAsync(producer, kafkaRecord)
+            .handle((recordMetadata, throwable) -> {
+                if (throwable == null) {
+                    return CompletableFuture.completedFuture(recordMetadata);
+                }
+                var cause = unwrapCompletionException(throwable);
+                if (!isRetriable(cause)) {
+                    listener.onRecordRejected();
+                    return CompletableFuture.<RecordMetadata>failedFuture(cause);
+                }
+                log.atWarn().setCause(throwable)
+                    .setMessage("Couldn't send Kafka record {}, spilling it (and subsequent records) to {}")
+                    .addArgument(kafkaRecord::key)
+                    .addArgument(directory)
+                    .log();
+                return append(kafkaRecord);
+            })
+            .thenCompose(f -> f);
+    }
+
+    /**
+     * @return true when a later attempt to send the record may succeed, which includes the TimeoutExceptions for
+     * delivery.timeout.ms and max.block.ms
+     */
+    static boolean isRetriable(Throwable t) {
+        return t instanceof RetriableException;
+    }
+
+    private static Throwable unwrapCompletionException(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    public synchronized boolean isSpilling() {
+        return isSpilling;
+    }
+
+    public synchronized long getBytesInSpill() {
+        return bytesInSpill;
+    }
+
+    /**
+     * Stops the spill's threads once the records that were already appended have been written.  Records that are
+     * on disk stay there until a new KafkaSpillBuffer is created for the same directory.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            // queued while holding the lock so that nothing can be appended after it
+            appendQueue.add(new PendingAppend(null, null, null));
+        }
+        writerExecutor.shutdown();
+        drainExecutor.shutdownNow();
+        writerExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        drainExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private CompletableFuture<RecordMetadata> append(ProducerRecord<String, byte[]> kafkaRecord) {
+        var spilledAt = Instant.now();
+        var encodedRecord = encode(kafkaRecord, spilledAt);
+        var size = encodedRecord.remaining();
+        var metadata = new RecordMetadata(
+            new TopicPartition(kafkaRecord.topic(), SPILLED_PARTITION),
+            -1,
+            -1,
+            spilledAt.toEpochMilli(),
+            -1,
+            kafkaRecord.value() == null ? -1 : kafkaRecord.value().length
+        );
+        var future = new CompletableFuture<RecordMetadata>();
+        synchronized (this) {
+            if (isClosed) {
+                listener.onRecordDropped();
+                return CompletableFuture.failedFuture(
+                    new IOException("The Kafka spill buffer in " + directory + " has been closed")
+                );
+            }
+            if (bytesInSpill + size > maxSpillBytes) {
+                listener.onRecordDropped();
+                return CompletableFuture.failedFuture(new SpillFullException(maxSpillBytes));
+            }
+            bytesInSpill += size;
+            ++unwrittenAppends;
+            isSpilling = true;
+            // queued while holding the lock so that the drainer can't see the spill as empty before this is written
+            appendQueue.add(new PendingAppend(encodedRecord, metadata, future));
+            if (!isDrainScheduled) {
+                scheduleDrain(Duration.ZERO);
+            }
+        }
+        listener.onRecordSpilled(size);
+        listener.onSpillSizeChanged(size);
+        return future;
+    }
+
+    // guarded by 'this'
+    private void scheduleDrain(Duration delay) {
+        if (isClosed) {
+            return;
+        }
+        isDrainScheduled = true;
+        drainExecutor.schedule(this::drain, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void recoverSegments() throws IOException {
+        try (var files = Files.list(directory)) {
+            var segments = files.filter(KafkaSpillBuffer::isSegmentFile)
+                .sorted(Comparator.comparingLong(KafkaSpillBuffer::getSegmentNumber))
+                .collect(Collectors.toList());
+            for (var segment : segments) {
+                var size = Files.size(segment);
+                if (size == 0) {
+                    Files.delete(segment);
+                    continue;
+                }
+                sealedSegments.add(new Segment(segment, size));
+                bytesInSpill += size;
+                nextSegmentNumber = getSegmentNumber(segment) + 1;
+            }
+        }
+        if (!sealedSegments.isEmpty()) {
+            isSpilling = true;
+            listener.onSpillSizeChanged(bytesInSpill);
+            log.atInfo().setMessage("Found {} bytes in {} spilled segments in {} that will be sent to Kafka")
+                .addArgument(bytesInSpill)
+                .addArgument(sealedSegments::size)
+                .addArgument(directory)
+                .log();
+        }
+    }
+
+    private static boolean isSegmentFile(Path p) {
+        var name = p.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long getSegmentNumber(Path p) {
+        var name = p.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void writeAppendsUntilClosed() {
+        var batch = new ArrayList<PendingAppend>();
+        while (true) {
+            try {
+                batch.add(appendQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            appendQueue.drainTo(batch);
+            if (!writeBatch(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes every record in the batch and then fsyncs once before completing any of their futures.
+     *
+     * @return false once the spill has been closed
+     */
+    private boolean writeBatch(List<PendingAppend> batch) {
+        var appends = new ArrayList<PendingAppend>(batch.size());
+        var sealRequests = new ArrayList<PendingAppend>();
+        IOException writeException = null;
+        long unwrittenBytes = 0;
+        boolean isClosed = false;
+        for (var pendingAppend : batch) {
+            if (pendingAppend.encodedRecord == null) {
+                if (pendingAppend.future == null) {
+                    isClosed = true;
+                } else {
+                    sealRequests.add(pendingAppend);
+                }
+                continue;
+            }
+            appends.add(pendingAppend);
+            if (writeException != null) {
+                unwrittenBytes += pendingAppend.encodedRecord.capacity();
+                continue;
+            }
+            try {
+                writeToActiveSegment(pendingAppend.encodedRecord);
+            } catch (IOException e) {
+                log.atError().setCause(e).setMessage("Couldn't write to the Kafka spill in {}")
+                    .addArgument(directory).log();
+                writeException = e;
+                unwrittenBytes += pendingAppend.encodedRecord.capacity();
+                // the segment may end with part of this record, so nothing else can be appended to it
+                closeActiveSegmentAfterFailure();
+            }
+        }
+        try {
+            if (activeSegment != null) {
+                activeSegment.force(false);
+            }
+            if (!sealRequests.isEmpty() || isClosed) {
+                sealActiveSegment();
+            }
+        } catch (IOException e) {
+            log.atError().setCause(e).setMessage("Couldn't fsync the Kafka spill in {}").addArgument(directory).log();
+            writeException = writeException == null ? e : writeException;
+            closeActiveSegmentAfterFailure();
+        }
+        synchronized (this) {
+            unwrittenAppends -= appends.size();
+            bytesInSpill -= unwrittenBytes;
+        }
+        if (unwrittenBytes > 0) {
+            listener.onSpillSizeChanged(-unwrittenBytes);
+        }
+        for (var pendingAppend : appends) {
+            if (writeException == null) {
+                pendingAppend.future.complete(pendingAppend.metadata);
+            } else {
+                pendingAppend.future.completeExceptionally(writeException);
+            }
+        }
+        sealRequests.forEach(r -> r.future.complete(null));
+        return !isClosed;
+    }
+
+    private void writeToActiveSegment(ByteBuffer encodedRecord) throws IOException {
+        var size = encodedRecord.remaining();
+        if (activeSegment != null && activeSegmentBytes > 0 && activeSegmentBytes + size > segmentBytes) {
+            activeSegment.force(false);
+            sealActiveSegment();
+        }
+        if (activeSegment == null) {
+            activeSegmentPath = directory.resolve(
+                String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX)
+            );
+            activeSegment = FileChannel.open(
+                activeSegmentPath,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+            );
+        }
+        while (encodedRecord.hasRemaining()) {
+            activeSegment.write(encodedRecord);
+        }
+        synchronized (this) {
+            activeSegmentBytes += size;
+        }
+    }
+
+    /**
+     * Makes the active segment available to the drainer.  Its contents must have already been fsynced.
+     */
+    private void sealActiveSegment() throws IOException {
+        if (activeSegment == null) {
+            return;
+        }
+        var segmentPath = activeSegmentPath;
+        activeSegment.close();
+        activeSegment = null;
+        activeSegmentPath = null;
+        synchronized (this) {
+            if (activeSegmentBytes > 0) {
+                sealedSegments.add(new Segment(segmentPath, activeSegmentBytes));
+                activeSegmentBytes = 0;
+                return;
+            }
+        }
+        Files.deleteIfExists(segmentPath);
+    }
+
+    private void closeActiveSegmentAfterFailure() {
+        try {
+            sealActiveSegment();
+        } catch (IOException e) {
+            log.atWarn().setCause(e).setMessage("Couldn't close the active segment of the Kafka spill in {}")
+                .addArgument(directory).log();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Segment segment;
+                synchronized (this) {
+                    segment = sealedSegments.peek();
+                    if (segment == null && unwrittenAppends == 0 && activeSegmentBytes == 0) {
+                        isSpilling = false;
+                        isDrainScheduled = false;
+                        log.atInfo().setMessage("Caught up on the Kafka spill in {}").addArgument(directory).log();
+                        return;
+                    }
+                }
+                if (segment == null) {
+                    // the records that are waiting to be written get written before the segment is sealed
+                    var sealed = new CompletableFuture<RecordMetadata>();
+                    appendQueue.add(new PendingAppend(null, null, sealed));
+                    sealed.get();
+                    continue;
+                }
+                drainSegment(segment.path);
+                Files.delete(segment.path);
+                drainPositionInFirstSegment = 0;
+                synchronized (this) {
+                    sealedSegments.poll();
+                    bytesInSpill -= segment.bytes;
+                }
+                listener.onSpillSizeChanged(-segment.bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.atWarn().setCause(e)
+                .setMessage("Couldn't send the spilled records in {} to Kafka.  Trying again in {}")
+                .addArgument(directory)
+                .addArgument(drainRetryDelay)
+                .log();
+            synchronized (this) {
+                scheduleDrain(drainRetryDelay);
+            }
+        }
+    }
+
+    /**
+     * Sends every record of the segment (starting from where an earlier attempt stopped) and waits for all of
+     * them to be acknowledged.
+     */
+    private void drainSegment(Path segment) throws IOException, InterruptedException, ExecutionException {
+        var unacknowledged = new ArrayDeque<DrainingRecord>();
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            channel.position(drainPositionInFirstSegment);
+            var segmentSize = channel.size();
+            var input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            var position = drainPositionInFirstSegment;
+            while (true) {
+                var spilledRecord = readRecord(input, position, segmentSize, segment);
+                if (spilledRecord == null) {
+                    break;
+                }
+                position = spilledRecord.endPosition;
+                var sendFuture = new CompletableFuture<RecordMetadata>();
+                try {
+                    // this thread is allowed to block when the producer's buffer is full
+                    producer.send(spilledRecord.record, (metadata, exception) -> {
+                        if (exception != null) {
+                            sendFuture.completeExceptionally(exception);
+                        } else {
+                            sendFuture.complete(metadata);
+                        }
+                    });
+                } catch (InterruptException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    // e.g. a SerializationException, which is handled like any other failure to send the record
+                    sendFuture.completeExceptionally(e);
+                }
+                unacknowledged.add(
+                    new DrainingRecord(spilledRecord.record.key(), sendFuture, spilledRecord.spilledAt, position)
+                );
+                while (!unacknowledged.isEmpty() && unacknowledged.peek().sendFuture.isDone()) {
+                    onDrainingRecordAcknowledged(unacknowledged.poll());
+                }
+            }
+        }
+        while (!unacknowledged.isEmpty()) {
+            onDrainingRecordAcknowledged(unacknowledged.poll());
+        }
+    }
+
+    /**
+     * Waits for the record to be acknowledged.  If it failed with a retriable error, the next attempt to drain will
+     * start with it.  If it failed with any other error, it's skipped.
+     */
+    private void onDrainingRecordAcknowledged(DrainingRecord drainingRecord)
+        throws InterruptedException, ExecutionException {
+        try {
+            drainingRecord.sendFuture.get();
+            listener.onRecordDrained(Duration.between(drainingRecord.spilledAt, Instant.now()));
+        } catch (ExecutionException e) {
+            if (isRetriable(e.getCause())) {
+                throw e;
+            }
+            log.atError().setCause(e.getCause())
+                .setMessage("Kafka rejected spilled record {} from {}.  It's being skipped since retrying won't help.")
+                .addArgument(drainingRecord.key)
+                .addArgument(directory)
+                .log();
+            listener.onRecordRejected();
+        }
+        drainPositionInFirstSegment = drainingRecord.endPosition;
+    }
+
+    static ByteBuffer encode(ProducerRecord<String, byte[]> kafkaRecord, Instant spilledAt) {
+        var topic = kafkaRecord.topic().getBytes(StandardCharsets.UTF_8);
+        var key = kafkaRecord.key() == null ? null : kafkaRecord.key().getBytes(StandardCharsets.UTF_8);
+        var headers = kafkaRecord.headers().toArray();
+        int bodyLength = Long.BYTES + lengthPrefixedSize(topic) + lengthPrefixedSize(key) + Integer.BYTES
+            + lengthPrefixedSize(kafkaRecord.value());
+        var headerKeys = new byte[headers.length][];
+        for (int i = 0; i < headers.length; ++i) {
+            headerKeys[i] = headers[i].key().getBytes(StandardCharsets.UTF_8);
+            bodyLength += lengthPrefixedSize(headerKeys[i]) + lengthPrefixedSize(headers[i].value());
+        }
+        var bb = ByteBuffer.allocate(Integer.BYTES + bodyLength + Integer.BYTES);
+        bb.putInt(bodyLength);
+        bb.putLong(spilledAt.toEpochMilli());
+        putLengthPrefixed(bb, topic);
+        putLengthPrefixed(bb, key);
+        bb.putInt(headers.length);
+        for (int i = 0; i < headers.length; ++i) {
+            putLengthPrefixed(bb, headerKeys[i]);
+            putLengthPrefixed(bb, headers[i].value());
+        }
+        putLengthPrefixed(bb, kafkaRecord.value());
+        var crc = new CRC32();
+        crc.update(bb.array(), Integer.BYTES, bodyLength);
+        bb.putInt((int) crc.getValue());
+        return bb.flip();
+    }
+
+    /**
+     * @param segmentSize the size of the segment file, which bounds how long a record that starts at position
+     *                    can be
+     * @return null at the end of the segment, including when the last record was only partly written and when
+     *         the rest of the segment is corrupt (e.g. because it was zero-filled when the host crashed).  Either
+     *         way, nothing after that in the segment is sent.
+     */
+    static SpilledRecord readRecord(DataInputStream input, long position, long segmentSize, Path segment)
+        throws IOException {
+        int bodyLength;
+        try {
+            bodyLength = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        // a length that was zero-filled or only partly written mustn't be trusted with an allocation
+        var maxBodyLength = segmentSize - position - Integer.BYTES - Integer.BYTES;
+        if (bodyLength < MIN_BODY_LENGTH || bodyLength > maxBodyLength) {
+            log.atWarn().setMessage("Ignoring the rest of {} from offset {}, where a record has an invalid length ({})")
+                .addArgument(segment).addArgument(position).addArgument(bodyLength).log();
+            return null;
+        }
+        var body = new byte[bodyLength];
+        int crcValue;
+        try {
+            input.readFully(body);
+            crcValue = input.readInt();
+        } catch (EOFException e) {
+            log.atWarn().setMessage("Ignoring a partly written record at offset {} of {}")
+                .addArgument(position).addArgument(segment).log();
+            return null;
+        }
+        var crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != crcValue) {
+            log.atWarn().setMessage("Ignoring the rest of {} from offset {}, where a record is corrupt")
+                .addArgument(segment).addArgument(position).log();
+            return null;
+        }
+        try {
+            var bb = ByteBuffer.wrap(body);
+            var spilledAt = Instant.ofEpochMilli(bb.getLong());
+            var topic = new String(getLengthPrefixed(bb), StandardCharsets.UTF_8);
+            var keyBytes = getLengthPrefixed(bb);
+            var headers = new RecordHeaders();
+            int numHeaders = bb.getInt();
+            for (int i = 0; i < numHeaders; ++i) {
+                headers.add(new String(getLengthPrefixed(bb), StandardCharsets.UTF_8), getLengthPrefixed(bb));
+            }
+            var value = getLengthPrefixed(bb);
+            if (bb.hasRemaining()) {
+                throw new IllegalStateException(bb.remaining() + " bytes were left over after the value");
+            }
+            var kafkaRecord = new ProducerRecord<>(
+                topic,
+                null,
+                keyBytes == null ? null : new String(keyBytes, StandardCharsets.UTF_8),
+                value,
+                headers
+            );
+            return new SpilledRecord(kafkaRecord, spilledAt, position + Integer.BYTES + bodyLength + Integer.BYTES);
+        } catch (RuntimeException e) {
+            log.atWarn().setCause(e)
+                .setMessage("Ignoring the rest of {} from offset {}, where a record can't be decoded")
+                .addArgument(segment).addArgument(position).log();
+            return null;
+        }
+    }
+
+    private static int lengthPrefixedSize(byte[] bytes) {
+        return Integer.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putLengthPrefixed(ByteBuffer bb, byte[] bytes) {
+        if (bytes == null) {
+            bb.putInt(NULL_LENGTH);
+        } else {
+            bb.putInt(bytes.length);
+            bb.put(bytes);
+        }
+    }
+
+    private static byte[] getLengthPrefixed(ByteBuffer bb) {
+        int length = bb.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > bb.remaining()) {
+            throw new IllegalStateException("Invalid length " + length + " with " + bb.remaining() + " bytes left");
+        }
+        var bytes = new byte[length];
+        bb.get(bytes);
+        return bytes;
+    }
+}
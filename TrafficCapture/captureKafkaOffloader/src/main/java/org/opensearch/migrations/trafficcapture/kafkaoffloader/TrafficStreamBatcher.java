@@ -0,0 +1,204 @@
+package org.opensearch.migrations.trafficcapture.kafkaoffloader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatch;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatchRecords;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+/**
+ * Packs serialized TrafficStreams from any number of connections into a single Kafka record that holds a
+ * TrafficStreamBatch.  Since a repeated message field is encoded as a tag and a length followed by the message
+ * bytes, the streams are appended as they are, without being parsed again.
+ *
+ * A batch is sent once the next stream wouldn't fit within maxBatchBytes, or once the linger time has passed
+ * since the batch was started, whichever comes first.  The future returned for each stream completes when the
+ * record for its batch has been acknowledged.  Because KafkaCaptureFactory doesn't close a connection's next
+ * stream until its previous one has been acknowledged, a batch never holds two streams of the same connection,
+ * so the order of each connection's streams is the same as when every stream is sent as its own record.
+ *
+ * Once this has been closed, every stream that's added is sent right away, in a batch of its own.
+ */
+@Slf4j
+class TrafficStreamBatcher {
+    private static final int STREAM_FIELD_NUMBER = TrafficStreamBatch.TRAFFICSTREAMS_FIELD_NUMBER;
+
+    /** Sends a record, e.g. with KafkaCaptureFactory.sendFullyAsync() */
+    private final Function<ProducerRecord<String, byte[]>, CompletableFuture<RecordMetadata>> sender;
+    private final String topicNameForTraffic;
+    private final String nodeId;
+    private final int maxBatchBytes;
+    private final Duration linger;
+    private final ByteBufAllocator bufferAllocator;
+    private final ScheduledExecutorService lingerExecutor;
+    private final AtomicLong batchCounter;
+
+    // guarded by 'this'
+    private Batch currentBatch;
+    // guarded by 'this'
+    private boolean isClosed;
+
+    private class Batch {
+        final ByteBuf pooledBuffer;
+        final ByteBuffer byteBuffer;
+        final CodedOutputStream outputStream;
+        final List<CompletableFuture<RecordMetadata>> streamFutures;
+
+        Batch() {
+            pooledBuffer = bufferAllocator.directBuffer(maxBatchBytes, maxBatchBytes);
+            byteBuffer = pooledBuffer.nioBuffer(0, maxBatchBytes);
+            outputStream = CodedOutputStream.newInstance(byteBuffer);
+            streamFutures = new ArrayList<>();
+        }
+
+        int getSpaceLeft() {
+            return maxBatchBytes - outputStream.getTotalBytesWritten();
+        }
+    }
+
+    TrafficStreamBatcher(
+        Function<ProducerRecord<String, byte[]>, CompletableFuture<RecordMetadata>> sender,
+        String topicNameForTraffic,
+        String nodeId,
+        int maxBatchBytes,
+        Duration linger,
+        ByteBufAllocator bufferAllocator
+    ) {
+        this.sender = sender;
+        this.topicNameForTraffic = topicNameForTraffic;
+        this.nodeId = nodeId;
+        this.maxBatchBytes = maxBatchBytes;
+        this.linger = linger;
+        this.bufferAllocator = bufferAllocator;
+        this.lingerExecutor = Executors.newSingleThreadScheduledExecutor(
+            new DefaultThreadFactory("kafkaBatchLinger", true)
+        );
+        this.batchCounter = new AtomicLong();
+    }
+
+    static int getBatchedSize(int streamSize) {
+        return CodedOutputStream.computeTagSize(STREAM_FIELD_NUMBER)
+            + CodedOutputStream.computeUInt32SizeNoTag(streamSize)
+            + streamSize;
+    }
+
+    boolean canBatch(int streamSize) {
+        return getBatchedSize(streamSize) <= maxBatchBytes;
+    }
+
+    /**
+     * Copies the remaining contents of serializedStream into the current batch, so the caller is free to reuse
+     * that buffer as soon as this returns.
+     */
+    CompletableFuture<RecordMetadata> add(ByteBuffer serializedStream) throws IOException {
+        var streamSize = serializedStream.remaining();
+        var streamFuture = new CompletableFuture<RecordMetadata>();
+        Batch batchToSend = null;
+        synchronized (this) {
+            Batch batch;
+            if (isClosed) {
+                // nothing would ever send a batch that was left open now
+                batch = new Batch();
+                batchToSend = batch;
+            } else {
+                if (currentBatch != null && currentBatch.getSpaceLeft() < getBatchedSize(streamSize)) {
+                    batchToSend = currentBatch;
+                    currentBatch = null;
+                }
+                if (currentBatch == null) {
+                    var newBatch = new Batch();
+                    currentBatch = newBatch;
+                    lingerExecutor.schedule(() -> sendIfCurrent(newBatch), linger.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                batch = currentBatch;
+            }
+            var outputStream = batch.outputStream;
+            outputStream.writeTag(STREAM_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            outputStream.writeUInt32NoTag(streamSize);
+            outputStream.write(serializedStream);
+            batch.streamFutures.add(streamFuture);
+        }
+        if (batchToSend != null) {
+            send(batchToSend);
+        }
+        return streamFuture;
+    }
+
+    /**
+     * Sends the batch that's being filled, if there is one, without waiting for its linger time to pass and stops
+     * the linger thread.
+     */
+    void close() {
+        Batch lastBatch;
+        synchronized (this) {
+            isClosed = true;
+            lastBatch = currentBatch;
+            currentBatch = null;
+        }
+        lingerExecutor.shutdownNow();
+        if (lastBatch != null) {
+            send(lastBatch);
+        }
+    }
+
+    private void sendIfCurrent(Batch batch) {
+        synchronized (this) {
+            if (currentBatch != batch) {
+                return;
+            }
+            currentBatch = null;
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        byte[] recordValue;
+        try {
+            batch.outputStream.flush();
+            recordValue = new byte[batch.byteBuffer.position()];
+            batch.byteBuffer.duplicate().flip().get(recordValue);
+        } catch (IOException e) {
+            batch.streamFutures.forEach(f -> f.completeExceptionally(e));
+            return;
+        } finally {
+            batch.pooledBuffer.release();
+        }
+
+        var recordId = nodeId + ".batch." + batchCounter.incrementAndGet();
+        var kafkaRecord = new ProducerRecord<String, byte[]>(topicNameForTraffic, recordId, recordValue);
+        kafkaRecord.headers().add(TrafficStreamBatchRecords.HEADER_NAME, new byte[0]);
+        log.atDebug().setMessage("Sending Kafka producer record: {} with {} traffic streams ({} bytes) for topic: {}")
+            .addArgument(recordId)
+            .addArgument(batch.streamFutures::size)
+            .addArgument(recordValue.length)
+            .addArgument(topicNameForTraffic)
+            .log();
+        sender.apply(kafkaRecord).whenComplete((recordMetadata, throwable) -> {
+            for (var streamFuture : batch.streamFutures) {
+                if (throwable != null) {
+                    streamFuture.completeExceptionally(throwable);
+                } else {
+                    streamFuture.complete(recordMetadata);
+                }
+            }
+        });
+    }
+}
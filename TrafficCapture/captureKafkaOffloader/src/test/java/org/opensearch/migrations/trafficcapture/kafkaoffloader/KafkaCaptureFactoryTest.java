@@ -3,21 +3,28 @@ package org.opensearch.migrations.trafficcapture.kafkaoffloader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.tracing.TestRootKafkaOffloaderContext;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatch;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatchRecords;
 import org.opensearch.migrations.trafficcapture.tracing.ConnectionContext;
 
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.Callback;
@@ -89,6 +96,220 @@ public class KafkaCaptureFactoryTest {
         producer.close();
     }
 
+    @Test
+    public void testStreamBuffersAreReturnedOnceRecordsAreSent() throws IOException, ExecutionException,
+        InterruptedException {
+        var allocator = new UnpooledByteBufAllocator(true);
+        MockProducer<String, byte[]> producer = new MockProducer<>(
+            true,
+            null,
+            new StringSerializer(),
+            new ByteArraySerializer()
+        );
+        KafkaCaptureFactory kafkaCaptureFactory = KafkaCaptureFactory.builder()
+            .rootScope(TestRootKafkaOffloaderContext.noTracking())
+            .nodeId(TEST_NODE_ID_STRING)
+            .producer(producer)
+            .topicNameForTraffic(topic)
+            .messageSize(1024 * 1024)
+            .streamBufferAllocator(allocator)
+            .build();
+        var serializer = kafkaCaptureFactory.createOffloader(createCtx());
+
+        var bb = Unpooled.wrappedBuffer("FakeData".getBytes(StandardCharsets.UTF_8));
+        serializer.addReadEvent(Instant.now(), bb);
+        Assertions.assertTrue(allocator.metric().usedDirectMemory() > 0);
+        serializer.flushCommitAndResetStream(false).get();
+        serializer.addReadEvent(Instant.now(), bb);
+        serializer.flushCommitAndResetStream(true).get();
+        bb.release();
+
+        Assertions.assertEquals(0, allocator.metric().usedDirectMemory());
+        Assertions.assertEquals(2, producer.history().size());
+        var trafficStream = TrafficStream.parseFrom(producer.history().get(0).value());
+        Assertions.assertEquals(
+            "FakeData",
+            trafficStream.getSubStream(0).getRead().getData().toStringUtf8()
+        );
+        producer.close();
+    }
+
+    @Test
+    public void testStreamBuffersStartSmallAndGrowAsTheyAreWritten() throws IOException, ExecutionException,
+        InterruptedException {
+        var allocator = new UnpooledByteBufAllocator(true);
+        MockProducer<String, byte[]> producer = new MockProducer<>(
+            true,
+            null,
+            new StringSerializer(),
+            new ByteArraySerializer()
+        );
+        KafkaCaptureFactory kafkaCaptureFactory = KafkaCaptureFactory.builder()
+            .rootScope(TestRootKafkaOffloaderContext.noTracking())
+            .nodeId(TEST_NODE_ID_STRING)
+            .producer(producer)
+            .topicNameForTraffic(topic)
+            .messageSize(1024 * 1024)
+            .streamBufferAllocator(allocator)
+            .build();
+        var serializer = kafkaCaptureFactory.createOffloader(createCtx());
+
+        var smallBuf = Unpooled.wrappedBuffer("FakeData".getBytes(StandardCharsets.UTF_8));
+        serializer.addReadEvent(Instant.now(), smallBuf);
+        Assertions.assertEquals(KafkaCaptureFactory.INITIAL_STREAM_BUFFER_BYTES, allocator.metric().usedDirectMemory());
+
+        var largeData = "x".repeat(4 * KafkaCaptureFactory.INITIAL_STREAM_BUFFER_BYTES);
+        var largeBuf = Unpooled.wrappedBuffer(largeData.getBytes(StandardCharsets.UTF_8));
+        serializer.addReadEvent(Instant.now(), largeBuf);
+        Assertions.assertTrue(allocator.metric().usedDirectMemory() > largeData.length());
+        serializer.flushCommitAndResetStream(true).get();
+        smallBuf.release();
+        largeBuf.release();
+
+        Assertions.assertEquals(0, allocator.metric().usedDirectMemory());
+        Assertions.assertEquals(1, producer.history().size());
+        var trafficStream = TrafficStream.parseFrom(producer.history().get(0).value());
+        Assertions.assertEquals("FakeData", trafficStream.getSubStream(0).getRead().getData().toStringUtf8());
+        Assertions.assertEquals(largeData, trafficStream.getSubStream(1).getRead().getData().toStringUtf8());
+        producer.close();
+    }
+
+    @Test
+    public void testStreamBuffersAreReturnedWhenAnEarlierSendFails() throws IOException, InterruptedException {
+        var allocator = new UnpooledByteBufAllocator(true);
+        MockProducer<String, byte[]> producer = new MockProducer<>(
+            false,
+            null,
+            new StringSerializer(),
+            new ByteArraySerializer()
+        );
+        KafkaCaptureFactory kafkaCaptureFactory = KafkaCaptureFactory.builder()
+            .rootScope(TestRootKafkaOffloaderContext.noTracking())
+            .nodeId(TEST_NODE_ID_STRING)
+            .producer(producer)
+            .topicNameForTraffic(topic)
+            .messageSize(1024 * 1024)
+            .streamBufferAllocator(allocator)
+            .build();
+        var serializer = kafkaCaptureFactory.createOffloader(createCtx());
+
+        var bb = Unpooled.wrappedBuffer("FakeData".getBytes(StandardCharsets.UTF_8));
+        serializer.addReadEvent(Instant.now(), bb);
+        var firstFuture = serializer.flushCommitAndResetStream(false);
+        // The second stream is held until the first one's send completes, which it never does successfully
+        serializer.addReadEvent(Instant.now(), bb);
+        var finalFuture = serializer.flushCommitAndResetStream(true);
+        bb.release();
+        while (!producer.errorNext(new RuntimeException("Kafka is unavailable"))) {
+            Thread.sleep(10);
+        }
+
+        Assertions.assertThrows(ExecutionException.class, firstFuture::get);
+        Assertions.assertThrows(ExecutionException.class, finalFuture::get);
+        Assertions.assertEquals(1, producer.history().size());
+        Assertions.assertEquals(0, allocator.metric().usedDirectMemory());
+        producer.close();
+    }
+
+    @Test
+    public void testSmallStreamsFromManyConnectionsAreSentAsOneBatch() throws IOException, ExecutionException,
+        InterruptedException {
+        var allocator = new UnpooledByteBufAllocator(true);
+        MockProducer<String, byte[]> producer = new MockProducer<>(
+            true,
+            null,
+            new StringSerializer(),
+            new ByteArraySerializer()
+        );
+        KafkaCaptureFactory kafkaCaptureFactory = KafkaCaptureFactory.builder()
+            .rootScope(TestRootKafkaOffloaderContext.noTracking())
+            .nodeId(TEST_NODE_ID_STRING)
+            .producer(producer)
+            .topicNameForTraffic(topic)
+            .messageSize(1024 * 1024)
+            .maxBatchBytes(64 * 1024)
+            .batchLinger(Duration.ofMillis(50))
+            .streamBufferAllocator(allocator)
+            .build();
+        var rootContext = new TestRootKafkaOffloaderContext();
+        var bb = Unpooled.wrappedBuffer("FakeData".getBytes(StandardCharsets.UTF_8));
+        var futures = new ArrayList<CompletableFuture<RecordMetadata>>();
+        for (var connection : List.of("c1", "c2", "c3")) {
+            var serializer = kafkaCaptureFactory.createOffloader(new ConnectionContext(rootContext, connection, "n"));
+            serializer.addReadEvent(Instant.now(), bb);
+            futures.add(serializer.flushCommitAndResetStream(true));
+        }
+        bb.release();
+        for (var f : futures) {
+            f.get();
+        }
+
+        Assertions.assertEquals(0, allocator.metric().usedDirectMemory());
+        Assertions.assertEquals(1, producer.history().size());
+        var batchRecord = producer.history().get(0);
+        Assertions.assertNotNull(batchRecord.headers().lastHeader(TrafficStreamBatchRecords.HEADER_NAME));
+        var batch = TrafficStreamBatch.parseFrom(batchRecord.value());
+        Assertions.assertEquals(
+            List.of("c1", "c2", "c3"),
+            batch.getTrafficStreamsList().stream().map(TrafficStream::getConnectionId).collect(Collectors.toList())
+        );
+        producer.close();
+    }
+
+    @Test
+    public void testClosingSendsTheOpenBatch() throws IOException, ExecutionException, InterruptedException {
+        var allocator = new UnpooledByteBufAllocator(true);
+        MockProducer<String, byte[]> producer = new MockProducer<>(
+            true,
+            null,
+            new StringSerializer(),
+            new ByteArraySerializer()
+        );
+        KafkaCaptureFactory kafkaCaptureFactory = KafkaCaptureFactory.builder()
+            .rootScope(TestRootKafkaOffloaderContext.noTracking())
+            .nodeId(TEST_NODE_ID_STRING)
+            .producer(producer)
+            .topicNameForTraffic(topic)
+            .messageSize(1024 * 1024)
+            .maxBatchBytes(64 * 1024)
+            .batchLinger(Duration.ofHours(1))
+            .streamBufferAllocator(allocator)
+            .build();
+        var rootContext = new TestRootKafkaOffloaderContext();
+        var bb = Unpooled.wrappedBuffer("FakeData".getBytes(StandardCharsets.UTF_8));
+        var serializer = kafkaCaptureFactory.createOffloader(new ConnectionContext(rootContext, "c1", "n"));
+        serializer.addReadEvent(Instant.now(), bb);
+        var batchedFuture = serializer.flushCommitAndResetStream(true);
+        Assertions.assertFalse(batchedFuture.isDone());
+
+        kafkaCaptureFactory.close();
+        batchedFuture.get();
+        Assertions.assertEquals(1, producer.history().size());
+
+        // with nothing left to flush a batch, streams that come later are sent right away
+        serializer = kafkaCaptureFactory.createOffloader(new ConnectionContext(rootContext, "c2", "n"));
+        serializer.addReadEvent(Instant.now(), bb);
+        serializer.flushCommitAndResetStream(true).get();
+        bb.release();
+
+        Assertions.assertEquals(2, producer.history().size());
+        Assertions.assertEquals(0, allocator.metric().usedDirectMemory());
+        producer.close();
+    }
+
+    @Test
+    public void testBatchesCannotBeLargerThanASingleStream() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KafkaCaptureFactory.builder()
+            .rootScope(TestRootKafkaOffloaderContext.noTracking())
+            .nodeId(TEST_NODE_ID_STRING)
+            .producer(mockProducer)
+            .topicNameForTraffic(topic)
+            .messageSize(1024 * 1024)
+            .maxBatchBytes(1024 * 1024)
+            .batchLinger(Duration.ofMillis(50))
+            .build());
+    }
+
     private static ConnectionContext createCtx() {
         return new ConnectionContext(new TestRootKafkaOffloaderContext(), "test", "test");
     }
@@ -0,0 +1,256 @@
+package org.opensearch.migrations.trafficcapture.kafkaoffloader;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatchRecords;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class KafkaSpillBufferTest {
+    private static final String TOPIC = "test_topic";
+
+    @TempDir
+    Path spillDirectory;
+
+    private static MockProducer<String, byte[]> makeProducer(boolean autoComplete) {
+        return new MockProducer<>(autoComplete, null, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    private static ProducerRecord<String, byte[]> makeRecord(String key) {
+        return new ProducerRecord<>(TOPIC, key, ("value of " + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void waitFor(BooleanSupplier condition, Runnable eachTime) throws InterruptedException {
+        var deadline = Instant.now().plusSeconds(10);
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(Instant.now().isBefore(deadline), "Timed out waiting");
+            eachTime.run();
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> getSentKeys(MockProducer<String, byte[]> producer) {
+        return producer.history().stream().map(ProducerRecord::key).collect(Collectors.toList());
+    }
+
+    @Test
+    void recordsSurviveEncoding() throws Exception {
+        var kafkaRecord = new ProducerRecord<String, byte[]>(TOPIC, null, "v".getBytes(StandardCharsets.UTF_8));
+        kafkaRecord.headers().add(TrafficStreamBatchRecords.HEADER_NAME, new byte[0]);
+        var spilledAt = Instant.ofEpochMilli(1234);
+        var encoded = KafkaSpillBuffer.encode(kafkaRecord, spilledAt);
+        var bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+
+        var input = new DataInputStream(new ByteArrayInputStream(bytes));
+        var decoded = KafkaSpillBuffer.readRecord(input, 0, bytes.length, spillDirectory);
+        Assertions.assertEquals(TOPIC, decoded.record.topic());
+        Assertions.assertNull(decoded.record.key());
+        Assertions.assertArrayEquals(kafkaRecord.value(), decoded.record.value());
+        Assertions.assertEquals(kafkaRecord.headers(), decoded.record.headers());
+        Assertions.assertEquals(spilledAt, decoded.spilledAt);
+        Assertions.assertEquals(bytes.length, decoded.endPosition);
+        Assertions.assertNull(KafkaSpillBuffer.readRecord(input, bytes.length, bytes.length, spillDirectory));
+
+        // a record that was only partly written is treated as the end of the segment
+        var truncatedInput = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 1));
+        Assertions.assertNull(KafkaSpillBuffer.readRecord(truncatedInput, 0, bytes.length - 1, spillDirectory));
+    }
+
+    @Test
+    void corruptTailsOfSegmentsAreSkipped() throws Exception {
+        var random = new Random(1);
+        var randomBytes = new byte[64];
+        random.nextBytes(randomBytes);
+        var undecodableBody = ByteBuffer.allocate(KafkaSpillBuffer.MIN_BODY_LENGTH)
+            .putLong(0)
+            .putInt(1000) // a topic that's longer than the body
+            .array();
+        var crc = new CRC32();
+        crc.update(undecodableBody);
+        var tails = List.of(
+            new byte[64],
+            randomBytes,
+            ByteBuffer.allocate(64).putInt(Integer.MAX_VALUE).array(),
+            ByteBuffer.allocate(64).putInt(-2).array(),
+            ByteBuffer.allocate(2 * Integer.BYTES + undecodableBody.length)
+                .putInt(undecodableBody.length)
+                .put(undecodableBody)
+                .putInt((int) crc.getValue())
+                .array()
+        );
+        for (int i = 0; i < tails.size(); ++i) {
+            var directory = Files.createDirectory(spillDirectory.resolve("tail" + i));
+            var encoded = KafkaSpillBuffer.encode(makeRecord("r1"), Instant.now());
+            try (var segment = FileChannel.open(
+                directory.resolve(KafkaSpillBuffer.SEGMENT_PREFIX + String.format("%020d", 0)
+                    + KafkaSpillBuffer.SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE
+            )) {
+                segment.write(encoded);
+                segment.write(ByteBuffer.wrap(tails.get(i)));
+            }
+
+            var producer = makeProducer(true);
+            var spill = new KafkaSpillBuffer(
+                directory, 1024 * 1024, 1024, producer, Duration.ofMillis(10), KafkaSpillBuffer.IListener.NO_OP
+            );
+            waitFor(() -> !spill.isSpilling(), () -> {});
+            Assertions.assertEquals(List.of("r1"), getSentKeys(producer), "for tail " + i);
+            Assertions.assertEquals(0, spill.getBytesInSpill());
+            try (var files = Files.list(directory)) {
+                Assertions.assertEquals(0, files.count());
+            }
+            spill.close();
+        }
+    }
+
+    @Test
+    void recordsAreSpilledAfterAFailureAndSentInOrderOnceKafkaRecovers() throws Exception {
+        var producer = makeProducer(false);
+        var spill = new KafkaSpillBuffer(
+            spillDirectory, 1024 * 1024, 1024, producer, Duration.ofMillis(10), KafkaSpillBuffer.IListener.NO_OP
+        );
+        var firstFuture = spill.send(makeRecord("r1"));
+        waitFor(() -> producer.history().size() == 1, () -> {});
+        producer.errorNext(new TimeoutException("brokers are unavailable"));
+        Assertions.assertEquals(KafkaSpillBuffer.SPILLED_PARTITION, firstFuture.get().partition());
+        Assertions.assertTrue(spill.isSpilling());
+
+        // while anything is in the spill, later records go to the spill too so that they stay in order
+        var secondFuture = spill.send(makeRecord("r2"));
+        Assertions.assertEquals(KafkaSpillBuffer.SPILLED_PARTITION, secondFuture.get().partition());
+
+        waitFor(() -> !spill.isSpilling(), producer::completeNext);
+        Assertions.assertEquals(List.of("r1", "r1", "r2"), getSentKeys(producer));
+        Assertions.assertEquals(0, spill.getBytesInSpill());
+        try (var files = Files.list(spillDirectory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+
+        var thirdFuture = spill.send(makeRecord("r3"));
+        waitFor(() -> producer.history().size() == 4, () -> {});
+        producer.completeNext();
+        Assertions.assertNotEquals(KafkaSpillBuffer.SPILLED_PARTITION, thirdFuture.get().partition());
+        spill.close();
+    }
+
+    @Test
+    void spilledRecordsAreSentAfterARestart() throws Exception {
+        var unavailableProducer = makeProducer(false);
+        var spill = new KafkaSpillBuffer(
+            spillDirectory, 1024 * 1024, 1024, unavailableProducer, Duration.ofMillis(10),
+            KafkaSpillBuffer.IListener.NO_OP
+        );
+        var future = spill.send(makeRecord("r1"));
+        waitFor(() -> unavailableProducer.history().size() == 1, () -> {});
+        unavailableProducer.errorNext(new TimeoutException("brokers are unavailable"));
+        future.get();
+        spill.close();
+
+        var producer = makeProducer(true);
+        var restartedSpill = new KafkaSpillBuffer(
+            spillDirectory, 1024 * 1024, 1024, producer, Duration.ofMillis(10), KafkaSpillBuffer.IListener.NO_OP
+        );
+        waitFor(() -> !restartedSpill.isSpilling(), () -> {});
+        Assertions.assertEquals(List.of("r1"), getSentKeys(producer));
+        restartedSpill.close();
+    }
+
+    @Test
+    void recordsThatWouldBeSpilledAfterCloseFail() throws Exception {
+        var producer = makeProducer(false);
+        var spill = new KafkaSpillBuffer(
+            spillDirectory, 1024 * 1024, 1024, producer, Duration.ofMillis(10), KafkaSpillBuffer.IListener.NO_OP
+        );
+        var future = spill.send(makeRecord("r1"));
+        spill.close();
+        waitFor(() -> producer.history().size() == 1, () -> {});
+        producer.errorNext(new TimeoutException("brokers are unavailable"));
+        var e = Assertions.assertThrows(ExecutionException.class, future::get);
+        Assertions.assertInstanceOf(IOException.class, e.getCause());
+        Assertions.assertFalse(spill.isSpilling());
+    }
+
+    @Test
+    void recordsThatKafkaRejectsAreNeitherSpilledNorRetried() throws Exception {
+        var rejectedCount = new AtomicInteger();
+        var producer = makeProducer(false);
+        var spill = new KafkaSpillBuffer(
+            spillDirectory, 1024 * 1024, 1024, producer, Duration.ofMillis(10), new KafkaSpillBuffer.IListener() {
+                @Override
+                public void onRecordRejected() {
+                    rejectedCount.incrementAndGet();
+                }
+            }
+        );
+        var rejectedFuture = spill.send(makeRecord("r1"));
+        waitFor(() -> producer.history().size() == 1, () -> {});
+        producer.errorNext(new RecordTooLargeException("too large"));
+        var e = Assertions.assertThrows(ExecutionException.class, rejectedFuture::get);
+        Assertions.assertInstanceOf(RecordTooLargeException.class, e.getCause());
+        Assertions.assertFalse(spill.isSpilling());
+        Assertions.assertEquals(1, rejectedCount.get());
+
+        var spilledFuture = spill.send(makeRecord("r2"));
+        waitFor(() -> producer.history().size() == 2, () -> {});
+        producer.errorNext(new TimeoutException("brokers are unavailable"));
+        Assertions.assertEquals(KafkaSpillBuffer.SPILLED_PARTITION, spilledFuture.get().partition());
+        Assertions.assertEquals(KafkaSpillBuffer.SPILLED_PARTITION, spill.send(makeRecord("r3")).get().partition());
+
+        // while draining, a spilled record that Kafka rejects is skipped rather than blocking the ones after it
+        var isRejectingNextRecord = new boolean[] { true };
+        waitFor(() -> !spill.isSpilling(), () -> {
+            if (isRejectingNextRecord[0]) {
+                isRejectingNextRecord[0] = !producer.errorNext(new RecordTooLargeException("too large"));
+            } else {
+                producer.completeNext();
+            }
+        });
+        Assertions.assertEquals(List.of("r1", "r2", "r2", "r3"), getSentKeys(producer));
+        Assertions.assertEquals(2, rejectedCount.get());
+        Assertions.assertEquals(0, spill.getBytesInSpill());
+        spill.close();
+    }
+
+    @Test
+    void recordsAreDroppedWhenTheSpillIsFull() throws Exception {
+        var producer = makeProducer(false);
+        var spill = new KafkaSpillBuffer(
+            spillDirectory, 16, 1024, producer, Duration.ofMillis(10), KafkaSpillBuffer.IListener.NO_OP
+        );
+        var future = spill.send(makeRecord("r1"));
+        waitFor(() -> producer.history().size() == 1, () -> {});
+        producer.errorNext(new TimeoutException("brokers are unavailable"));
+        var e = Assertions.assertThrows(ExecutionException.class, future::get);
+        Assertions.assertInstanceOf(KafkaSpillBuffer.SpillFullException.class, e.getCause());
+        Assertions.assertFalse(spill.isSpilling());
+        spill.close();
+    }
+}
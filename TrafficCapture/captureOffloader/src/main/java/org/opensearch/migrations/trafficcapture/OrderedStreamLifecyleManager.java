@@ -6,7 +6,13 @@ public abstract class OrderedStreamLifecyleManager<T> implements StreamLifecycle
     CompletableFuture<T> futureForLastClose = CompletableFuture.completedFuture(null);
 
     public CompletableFuture<T> closeStream(CodedOutputStreamHolder outputStreamHolder, int index) {
-        futureForLastClose = futureForLastClose.thenCompose(v -> kickoffCloseStream(outputStreamHolder, index));
+        // Once one close has failed, every later close is skipped (and fails the same way), so the streams that
+        // would have been closed are discarded instead
+        futureForLastClose = futureForLastClose.whenComplete((v, t) -> {
+            if (t != null) {
+                discardStream(outputStreamHolder);
+            }
+        }).thenCompose(v -> kickoffCloseStream(outputStreamHolder, index));
         return futureForLastClose;
     }
 
@@ -0,0 +1,96 @@
+package org.opensearch.migrations.trafficcapture;
+
+import java.util.zip.Deflater;
+
+import org.opensearch.migrations.trafficcapture.protos.PayloadCodec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import lombok.Getter;
+
+/**
+ * Compresses the payloads of read and write observations before they're written into a TrafficStream.  Only
+ * DEFLATE is supported, which keeps the proxy free of native compression libraries.
+ *
+ * This is safe to share across connections.  Serializers run on their channel's event loop, so every thread
+ * reuses its own Deflater rather than allocating one (and its native memory) per payload.
+ */
+public class PayloadCompressor {
+    /** Payloads smaller than this are rarely worth the CPU, e.g. a GET without a body */
+    public static final int DEFAULT_MIN_PAYLOAD_BYTES = 256;
+
+    @Getter
+    private final PayloadCodec codec;
+    @Getter
+    private final int minPayloadBytes;
+    private final ByteBufAllocator bufferAllocator;
+    private final ThreadLocal<Deflater> deflaters;
+
+    /**
+     * Callback for each payload that compress() was asked to compress, whether or not the result was used
+     */
+    public interface IListener {
+        void onPayloadCompressed(int uncompressedBytes, int storedBytes, long compressionNanos);
+    }
+
+    public PayloadCompressor(PayloadCodec codec) {
+        this(codec, DEFAULT_MIN_PAYLOAD_BYTES, Deflater.BEST_SPEED, ByteBufAllocator.DEFAULT);
+    }
+
+    public PayloadCompressor(PayloadCodec codec, int minPayloadBytes, int level, ByteBufAllocator bufferAllocator) {
+        if (codec != PayloadCodec.DEFLATE) {
+            throw new IllegalArgumentException("Unsupported payload codec: " + codec);
+        }
+        this.codec = codec;
+        this.minPayloadBytes = minPayloadBytes;
+        this.bufferAllocator = bufferAllocator;
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+    }
+
+    /**
+     * Compresses the readable bytes of buf without changing its reader index.
+     *
+     * @return a buffer, which the caller must release, holding the compressed bytes, or null when buf is smaller
+     *         than minPayloadBytes or when compressing it wouldn't have made it any smaller.
+     */
+    public ByteBuf compress(ByteBuf buf) {
+        final int uncompressedSize = buf.readableBytes();
+        if (uncompressedSize < minPayloadBytes) {
+            return null;
+        }
+        // Anything that isn't smaller than the original is dropped, so there's never a reason to write more
+        final int maxCompressedSize = uncompressedSize - 1;
+        var deflater = deflaters.get();
+        var output = bufferAllocator.heapBuffer(maxCompressedSize, maxCompressedSize);
+        try {
+            var outputArray = output.array();
+            var outputOffset = output.arrayOffset();
+            int written = 0;
+            for (var input : buf.nioBuffers()) {
+                deflater.setInput(input);
+                while (!deflater.needsInput()) {
+                    if (written == maxCompressedSize) {
+                        return null;
+                    }
+                    written += deflater.deflate(outputArray, outputOffset + written, maxCompressedSize - written);
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (written == maxCompressedSize) {
+                    return null;
+                }
+                written += deflater.deflate(outputArray, outputOffset + written, maxCompressedSize - written);
+            }
+            output.writerIndex(written);
+            var compressed = output;
+            output = null;
+            return compressed;
+        } finally {
+            deflater.reset();
+            if (output != null) {
+                output.release();
+            }
+        }
+    }
+}
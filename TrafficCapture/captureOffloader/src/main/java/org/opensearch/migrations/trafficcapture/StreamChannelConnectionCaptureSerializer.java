@@ -70,6 +70,8 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
 
     // 100 is the default size of netty connectionId and kafka nodeId along with serializationTags
     private static final int MAX_ID_SIZE = 100;
+    // The same for all four of the Read/Write(Segment)Observation types
+    private static final int CODEC_FIELD_NUMBER = ReadObservation.CODEC_FIELD_NUMBER;
 
     private boolean readObservationsAreWaitingForEom;
     private int eomsSoFar;
@@ -82,13 +84,33 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
     private final String nodeIdString;
     private final String connectionIdString;
     private CodedOutputStreamHolder currentCodedOutputStreamHolderOrNull;
+    private final PayloadCompressor payloadCompressor;
+    private final PayloadCompressor.IListener compressionListener;
 
     public StreamChannelConnectionCaptureSerializer(
         String nodeId,
         String connectionId,
         @NonNull StreamLifecycleManager<T> streamLifecycleManager
+    ) {
+        this(nodeId, connectionId, streamLifecycleManager, null, null);
+    }
+
+    /**
+     * @param payloadCompressor when non-null, the data of read and write observations is compressed whenever
+     *                          that makes it smaller.  Each segment of a segmented observation is compressed
+     *                          on its own.
+     * @param compressionListener optional; notified with the sizes and the cost of every compression
+     */
+    public StreamChannelConnectionCaptureSerializer(
+        String nodeId,
+        String connectionId,
+        @NonNull StreamLifecycleManager<T> streamLifecycleManager,
+        PayloadCompressor payloadCompressor,
+        PayloadCompressor.IListener compressionListener
     ) {
         this.streamManager = streamLifecycleManager;
+        this.payloadCompressor = payloadCompressor;
+        this.compressionListener = compressionListener;
         assert (nodeId == null ? 0 : CodedOutputStream.computeStringSize(TrafficStream.NODEID_FIELD_NUMBER, nodeId))
             + CodedOutputStream.computeStringSize(TrafficStream.CONNECTIONID_FIELD_NUMBER, connectionId) <= MAX_ID_SIZE;
         this.connectionIdString = connectionId;
@@ -300,6 +322,7 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
         if (streamHasBeenClosed || (currentCodedOutputStreamHolderOrNull == null && !isFinal)) {
             return CompletableFuture.completedFuture(null);
         }
+        boolean streamWasHandedOff = false;
         try {
             CodedOutputStream currentStream = getOrCreateCodedOutputStream();
             var fieldNum = isFinal
@@ -311,8 +334,12 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
             currentStream.flush();
             assert currentStream == currentCodedOutputStreamHolderOrNull.getOutputStream() : "Expected the stream that "
                 + "is being finalized to be the same stream contained by currentCodedOutputStreamHolderOrNull";
+            streamWasHandedOff = true;
             return streamManager.closeStream(currentCodedOutputStreamHolderOrNull, numFlushesSoFar);
         } finally {
+            if (!streamWasHandedOff && currentCodedOutputStreamHolderOrNull != null) {
+                streamManager.discardStream(currentCodedOutputStreamHolderOrNull);
+            }
             currentCodedOutputStreamHolderOrNull = null;
             if (isFinal) {
                 streamHasBeenClosed = true;
@@ -389,6 +416,20 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
             segmentFieldNumber = TrafficObservation.WRITESEGMENT_FIELD_NUMBER;
             segmentDataFieldNumber = WriteSegmentObservation.DATA_FIELD_NUMBER;
         }
+        // Payloads that don't shrink are written just as they would be without a compressor
+        var compressed = payloadCompressor == null ? null : compressPayload(buf);
+        if (compressed != null) {
+            addCompressedDataMessage(
+                captureFieldNumber,
+                dataFieldNumber,
+                segmentFieldNumber,
+                segmentDataFieldNumber,
+                timestamp,
+                buf,
+                compressed
+            );
+            return;
+        }
 
         // The message bytes here are not optimizing for space and instead are calculated on the worst case estimate of
         // the potentially required bytes for simplicity. This could leave ~5 bytes of unused space in the
@@ -438,6 +479,109 @@ public class StreamChannelConnectionCaptureSerializer<T> implements IChannelConn
         }
     }
 
+    /**
+     * Writes a payload whose compressed form (which is released here) is smaller than the original.  If the
+     * compressed payload fits within an empty stream, the current stream is flushed (when needed) so that the
+     * payload can be written as a single observation.  Otherwise, raw slices sized to the space that's left are
+     * compressed one at a time and written as segments, so that every segment can be decompressed on its own.
+     * Any slice that compression wouldn't shrink is written as it is, without a codec.
+     */
+    private void addCompressedDataMessage(
+        int captureFieldNumber,
+        int dataFieldNumber,
+        int segmentFieldNumber,
+        int segmentDataFieldNumber,
+        Instant timestamp,
+        ByteBuf buf,
+        ByteBuf compressed
+    ) throws IOException {
+        final var codecNumber = payloadCompressor.getCodec().getNumber();
+        final int codecFieldSize = CodedOutputStream.computeInt32Size(CODEC_FIELD_NUMBER, codecNumber);
+        try {
+            final int compressedMessageAndOverheadBytes = CodedOutputStreamSizeUtil
+                .maxBytesNeededForASegmentedObservation(
+                    timestamp,
+                    segmentFieldNumber,
+                    segmentDataFieldNumber,
+                    compressed
+                ) + codecFieldSize;
+            flushIfNeeded(compressedMessageAndOverheadBytes);
+            var spaceLeft = currentOutputStreamWriteableSpaceLeft();
+            if (spaceLeft == -1 || compressedMessageAndOverheadBytes <= spaceLeft) {
+                addSubstreamMessage(
+                    captureFieldNumber,
+                    dataFieldNumber,
+                    CODEC_FIELD_NUMBER,
+                    codecNumber,
+                    timestamp,
+                    compressed
+                );
+                observationSizeSanityCheck(spaceLeft - compressedMessageAndOverheadBytes, captureFieldNumber);
+                return;
+            }
+        } finally {
+            compressed.release();
+        }
+
+        final int trafficStreamOverhead = CodedOutputStreamSizeUtil.maxBytesNeededForASegmentedObservation(
+            timestamp,
+            segmentFieldNumber,
+            segmentDataFieldNumber,
+            buf
+        ) - CodedOutputStreamSizeUtil.computeByteBufRemainingSizeNoTag(buf) + codecFieldSize;
+        final int maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte = trafficStreamOverhead + 2;
+        var bufToRead = buf.duplicate();
+        while (bufToRead.readableBytes() > 0) {
+            flushIfNeeded(maxBytesNeededForOneSegmentWithOneDataByteWithLengthByte);
+            var bytesToRead = computeMaxLengthDelimitedFieldSizeForSpace(
+                currentOutputStreamWriteableSpaceLeft() - trafficStreamOverhead,
+                bufToRead.readableBytes()
+            );
+            if (bytesToRead <= 0) {
+                throw new IllegalStateException("Stream space is not allowing forward progress on byteBuf reading");
+            }
+            var bufSliceToRead = bufToRead.readSlice(bytesToRead);
+            var compressedSlice = compressPayload(bufSliceToRead);
+            if (compressedSlice == null) {
+                addSubstreamMessage(segmentFieldNumber, segmentDataFieldNumber, timestamp, bufSliceToRead);
+            } else {
+                try {
+                    addSubstreamMessage(
+                        segmentFieldNumber,
+                        segmentDataFieldNumber,
+                        CODEC_FIELD_NUMBER,
+                        codecNumber,
+                        timestamp,
+                        compressedSlice
+                    );
+                } finally {
+                    compressedSlice.release();
+                }
+            }
+        }
+        writeEndOfSegmentMessage(timestamp);
+    }
+
+    /**
+     * @return the compressed payload, which the caller must release, or null if it's too small to compress or if
+     *         compressing it wouldn't have made it any smaller
+     */
+    private ByteBuf compressPayload(ByteBuf buf) {
+        if (buf.readableBytes() < payloadCompressor.getMinPayloadBytes()) {
+            return null;
+        }
+        var startNanos = System.nanoTime();
+        var compressed = payloadCompressor.compress(buf);
+        if (compressionListener != null) {
+            compressionListener.onPayloadCompressed(
+                buf.readableBytes(),
+                compressed == null ? buf.readableBytes() : compressed.readableBytes(),
+                System.nanoTime() - startNanos
+            );
+        }
+        return compressed;
+    }
+
     private void addSubstreamMessage(
         int captureFieldNumber,
         int dataFieldNumber,
@@ -6,4 +6,10 @@ public interface StreamLifecycleManager<T> {
     CodedOutputStreamHolder createStream();
 
     CompletableFuture<T> closeStream(CodedOutputStreamHolder outputStreamHolder, int index);
+
+    /**
+     * Called instead of closeStream for a stream whose contents will never be sent, so that whatever resources
+     * it holds can be released.
+     */
+    default void discardStream(CodedOutputStreamHolder outputStreamHolder) {}
 }
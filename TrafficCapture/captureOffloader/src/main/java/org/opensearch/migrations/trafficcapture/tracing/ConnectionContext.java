@@ -1,10 +1,15 @@
 package org.opensearch.migrations.trafficcapture.tracing;
 
+import java.time.Duration;
+
 import org.opensearch.migrations.tracing.BaseSpanContext;
 import org.opensearch.migrations.tracing.CommonScopedMetricInstruments;
 import org.opensearch.migrations.tracing.IHasRootInstrumentationScope;
 import org.opensearch.migrations.tracing.commoncontexts.IConnectionContext;
+import org.opensearch.migrations.trafficcapture.PayloadCompressor;
 
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
 import io.opentelemetry.api.metrics.LongUpDownCounter;
 import io.opentelemetry.api.metrics.Meter;
 import lombok.Getter;
@@ -13,9 +18,13 @@ import lombok.NonNull;
 public class ConnectionContext extends BaseSpanContext<IRootOffloaderContext>
     implements
         IConnectionContext,
-        IHasRootInstrumentationScope<IRootOffloaderContext> {
+        IHasRootInstrumentationScope<IRootOffloaderContext>,
+        PayloadCompressor.IListener {
 
     public static final String ACTIVE_CONNECTION = "activeConnection";
+    public static final String PAYLOAD_BYTES_BEFORE_COMPRESSION = "payloadBytesBeforeCompression";
+    public static final String PAYLOAD_BYTES_AFTER_COMPRESSION = "payloadBytesAfterCompression";
+    public static final String PAYLOAD_COMPRESSION_DURATION = "payloadCompressionDuration";
     public static final String ACTIVITY_NAME = "captureConnection";
 
     @Getter
@@ -38,12 +47,22 @@ public class ConnectionContext extends BaseSpanContext<IRootOffloaderContext>
 
     public static class MetricInstruments extends CommonScopedMetricInstruments {
         private final LongUpDownCounter activeConnectionsCounter;
+        private final LongCounter payloadBytesBeforeCompressionCounter;
+        private final LongCounter payloadBytesAfterCompressionCounter;
+        private final DoubleHistogram payloadCompressionDuration;
 
         protected MetricInstruments(Meter meter, String activityName) {
             super(meter, activityName);
             activeConnectionsCounter = meter.upDownCounterBuilder(ConnectionContext.ACTIVE_CONNECTION)
                 .setUnit("count")
                 .build();
+            payloadBytesBeforeCompressionCounter = meter.counterBuilder(PAYLOAD_BYTES_BEFORE_COMPRESSION)
+                .setUnit("bytes")
+                .build();
+            payloadBytesAfterCompressionCounter = meter.counterBuilder(PAYLOAD_BYTES_AFTER_COMPRESSION)
+                .setUnit("bytes")
+                .build();
+            payloadCompressionDuration = meter.histogramBuilder(PAYLOAD_COMPRESSION_DURATION).setUnit("ms").build();
         }
     }
 
@@ -55,6 +74,17 @@ public class ConnectionContext extends BaseSpanContext<IRootOffloaderContext>
         return getRootInstrumentationScope().getConnectionInstruments();
     }
 
+    /**
+     * The ratio of the two byte counters is the compression ratio.  Payloads that didn't shrink count the same
+     * toward both of them.
+     */
+    @Override
+    public void onPayloadCompressed(int uncompressedBytes, int storedBytes, long compressionNanos) {
+        meterIncrementEvent(getMetrics().payloadBytesBeforeCompressionCounter, uncompressedBytes);
+        meterIncrementEvent(getMetrics().payloadBytesAfterCompressionCounter, storedBytes);
+        meterHistogramMillis(getMetrics().payloadCompressionDuration, Duration.ofNanos(compressionNanos));
+    }
+
     @Override
     public void sendMeterEventsForEnd() {
         super.sendMeterEventsForEnd();
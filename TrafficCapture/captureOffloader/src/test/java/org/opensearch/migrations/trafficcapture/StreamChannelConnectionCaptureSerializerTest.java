@@ -1,5 +1,6 @@
 package org.opensearch.migrations.trafficcapture;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -9,9 +10,11 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.zip.InflaterInputStream;
 
 import org.opensearch.migrations.testutils.WrapWithNettyLeakDetection;
 import org.opensearch.migrations.trafficcapture.StreamChannelConnectionCaptureSerializerTest.StreamManager.NullStreamManager;
@@ -19,6 +22,7 @@ import org.opensearch.migrations.trafficcapture.protos.CloseObservation;
 import org.opensearch.migrations.trafficcapture.protos.ConnectionExceptionObservation;
 import org.opensearch.migrations.trafficcapture.protos.EndOfMessageIndication;
 import org.opensearch.migrations.trafficcapture.protos.EndOfSegmentsIndication;
+import org.opensearch.migrations.trafficcapture.protos.PayloadCodec;
 import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
@@ -541,6 +545,96 @@ class StreamChannelConnectionCaptureSerializerTest {
         Assertions.assertEquals(0, foundEndOfSegments);
     }
 
+    private static byte[] inflate(ByteString data) throws IOException {
+        try (var inflaterStream = new InflaterInputStream(data.newInput())) {
+            return inflaterStream.readAllBytes();
+        }
+    }
+
+    @Test
+    public void testCompressedPayloadIsWrittenAsOneObservationWhenItFits() throws IOException, ExecutionException,
+        InterruptedException {
+        var packetBytes = FAKE_READ_PACKET_DATA.repeat(500).getBytes(StandardCharsets.UTF_8);
+        var outputBuffersCreated = new ConcurrentLinkedQueue<ByteBuffer>();
+        var compressionSizes = new ArrayList<int[]>();
+        // The uncompressed payload would need to be split across streams
+        var serializer = new StreamChannelConnectionCaptureSerializer<>(
+            TEST_NODE_ID_STRING,
+            TEST_TRAFFIC_STREAM_ID_STRING,
+            new StreamManager(1024, outputBuffersCreated),
+            new PayloadCompressor(PayloadCodec.DEFLATE),
+            (uncompressed, stored, nanos) -> compressionSizes.add(new int[] { uncompressed, stored })
+        );
+
+        var bb = Unpooled.wrappedBuffer(packetBytes);
+        serializer.addReadEvent(REFERENCE_TIMESTAMP, bb);
+        serializer.flushCommitAndResetStream(true).get();
+        bb.release();
+
+        Assertions.assertEquals(1, outputBuffersCreated.size());
+        var trafficStream = TrafficStream.parseFrom(outputBuffersCreated.peek());
+        var read = trafficStream.getSubStream(0).getRead();
+        Assertions.assertEquals(PayloadCodec.DEFLATE, read.getCodec());
+        Assertions.assertArrayEquals(packetBytes, inflate(read.getData()));
+        Assertions.assertEquals(1, compressionSizes.size());
+        Assertions.assertEquals(packetBytes.length, compressionSizes.get(0)[0]);
+        Assertions.assertEquals(read.getData().size(), compressionSizes.get(0)[1]);
+    }
+
+    @Test
+    public void testCompressedSegmentsCanEachBeInflatedOnTheirOwn() throws IOException, ExecutionException,
+        InterruptedException {
+        // Compressible, but not enough to fit into a single stream
+        var random = new Random(1);
+        var packetBytes = new byte[20000];
+        for (int i = 0; i < packetBytes.length; ++i) {
+            packetBytes[i] = (byte) FAKE_READ_PACKET_DATA.charAt(random.nextInt(FAKE_READ_PACKET_DATA.length()));
+        }
+        var outputBuffersCreated = new ConcurrentLinkedQueue<ByteBuffer>();
+        var serializer = new StreamChannelConnectionCaptureSerializer<>(
+            TEST_NODE_ID_STRING,
+            TEST_TRAFFIC_STREAM_ID_STRING,
+            new StreamManager(2048, outputBuffersCreated),
+            new PayloadCompressor(PayloadCodec.DEFLATE),
+            null
+        );
+
+        var bb = Unpooled.wrappedBuffer(packetBytes);
+        serializer.addWriteEvent(REFERENCE_TIMESTAMP, bb);
+        serializer.flushCommitAndResetStream(true).get();
+        bb.release();
+
+        var trafficStreams = new ArrayList<TrafficStream>();
+        for (var buffer : outputBuffersCreated) {
+            trafficStreams.add(TrafficStream.parseFrom(buffer));
+        }
+        trafficStreams.sort(
+            Comparator.comparingInt(StreamChannelConnectionCaptureSerializerTest::getIndexForTrafficStream)
+        );
+        var reconstructedData = new ByteArrayOutputStream();
+        int compressedSegments = 0;
+        int foundEndOfSegments = 0;
+        for (var trafficStream : trafficStreams) {
+            for (var observation : trafficStream.getSubStreamList()) {
+                if (observation.hasSegmentEnd()) {
+                    foundEndOfSegments++;
+                } else if (observation.hasWriteSegment()) {
+                    var segment = observation.getWriteSegment();
+                    if (segment.getCodec() == PayloadCodec.DEFLATE) {
+                        compressedSegments++;
+                        reconstructedData.write(inflate(segment.getData()));
+                    } else {
+                        reconstructedData.write(segment.getData().toByteArray());
+                    }
+                }
+            }
+        }
+        Assertions.assertTrue(trafficStreams.size() > 1);
+        Assertions.assertTrue(compressedSegments > 0);
+        Assertions.assertEquals(1, foundEndOfSegments);
+        Assertions.assertArrayEquals(packetBytes, reconstructedData.toByteArray());
+    }
+
     @Test
     public void testAssertionErrorDuringInitializationWhenInitializeWithTooLargeId() {
         final String realNodeId = "b671d2f2-577b-414e-9eb4-8bc3e89ee182";
@@ -0,0 +1,12 @@
+package org.opensearch.migrations.trafficcapture.protos;
+
+/**
+ * How a Kafka record that holds a {@link TrafficStreamBatch} is told apart from one that holds a single
+ * {@link TrafficStream}.  The capture proxy sets the header and the replayer checks for it.
+ */
+public class TrafficStreamBatchRecords {
+    /** Set, with an empty value, on records whose value is a TrafficStreamBatch */
+    public static final String HEADER_NAME = "trafficStreamBatch";
+
+    private TrafficStreamBatchRecords() {}
+}
@@ -0,0 +1,198 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tests whether a whole CharSequence matches a regex, as Pattern.matcher(s).matches() would, but without
+ * allocating anything per call.  Patterns that are really just literals, or literals that start or end with
+ * ".*" (e.g. "GET", "/_cat/.*", ".*uploader.*"), along with alternations of those, are checked by comparing
+ * characters directly.  Anything else goes through a Matcher that each thread reuses.
+ */
+class CompiledPatternMatcher {
+    private enum Kind {
+        EQUALS,
+        PREFIX,
+        SUFFIX,
+        CONTAINS
+    }
+
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String ANY = ".*";
+
+    private final String regex;
+    /** The literal pieces of the pattern when it's simple enough, otherwise null */
+    private final Kind[] kinds;
+    private final String[] literals;
+    private final ThreadLocal<Matcher> matchers;
+
+    CompiledPatternMatcher(String regex) {
+        this.regex = regex;
+        var pattern = Pattern.compile(regex); // validates the pattern, even when it isn't needed for matching
+        var alternatives = splitSimpleAlternatives(regex);
+        var kindList = new ArrayList<Kind>();
+        var literalList = new ArrayList<String>();
+        for (var alternative : alternatives == null ? List.<String>of() : alternatives) {
+            if (!addLiteralPiece(alternative, kindList, literalList)) {
+                alternatives = null;
+                break;
+            }
+        }
+        if (alternatives != null) {
+            this.kinds = kindList.toArray(Kind[]::new);
+            this.literals = literalList.toArray(String[]::new);
+            this.matchers = null;
+        } else {
+            this.kinds = null;
+            this.literals = null;
+            this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        }
+    }
+
+    boolean isLiteral() {
+        return kinds != null;
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+
+    boolean matches(CharSequence input) {
+        if (kinds == null) {
+            var matcher = matchers.get();
+            var result = matcher.reset(input).matches();
+            matcher.reset(""); // don't hold onto the input
+            return result;
+        }
+        for (int i = 0; i < kinds.length; ++i) {
+            if (matchesPiece(kinds[i], literals[i], input)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesPiece(Kind kind, String literal, CharSequence input) {
+        int inputLength = input.length();
+        int literalLength = literal.length();
+        switch (kind) {
+            case EQUALS:
+                return inputLength == literalLength && regionMatches(input, 0, literal);
+            case PREFIX:
+                return inputLength >= literalLength
+                    && regionMatches(input, 0, literal)
+                    && hasNoLineTerminators(input, literalLength, inputLength);
+            case SUFFIX:
+                return inputLength >= literalLength
+                    && regionMatches(input, inputLength - literalLength, literal)
+                    && hasNoLineTerminators(input, 0, inputLength - literalLength);
+            case CONTAINS:
+                if (!hasNoLineTerminators(input, 0, inputLength)) {
+                    return false;
+                }
+                for (int start = 0; start + literalLength <= inputLength; ++start) {
+                    if (regionMatches(input, start, literal)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                throw new IllegalStateException("Unknown kind: " + kind);
+        }
+    }
+
+    private static boolean regionMatches(CharSequence input, int offset, String literal) {
+        for (int i = 0; i < literal.length(); ++i) {
+            if (input.charAt(offset + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** '.' doesn't match line terminators, so neither does ".*" */
+    private static boolean hasNoLineTerminators(CharSequence input, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            char c = input.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the alternatives of a pattern like "a|b" or "(a|b)", or null if the pattern has groups or
+     *         classes that would need to be understood
+     */
+    private static List<String> splitSimpleAlternatives(String regex) {
+        var body = regex;
+        if (body.length() >= 2 && body.charAt(0) == '(' && body.charAt(body.length() - 1) == ')') {
+            body = body.substring(1, body.length() - 1);
+        }
+        var alternatives = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i < body.length(); ++i) {
+            char c = body.charAt(i);
+            if (c == '\\') {
+                ++i;
+            } else if (c == '(' || c == ')' || c == '[' || c == ']' || c == '{' || c == '}') {
+                return null;
+            } else if (c == '|') {
+                alternatives.add(body.substring(start, i));
+                start = i + 1;
+            }
+        }
+        alternatives.add(body.substring(start));
+        return alternatives;
+    }
+
+    private static boolean addLiteralPiece(String piece, List<Kind> kinds, List<String> literals) {
+        boolean leadingAny = piece.startsWith(ANY);
+        var rest = leadingAny ? piece.substring(ANY.length()) : piece;
+        boolean trailingAny = rest.endsWith(ANY) && !rest.endsWith("\\" + ANY);
+        if (trailingAny) {
+            rest = rest.substring(0, rest.length() - ANY.length());
+        }
+        var literal = unescapeLiteral(rest);
+        if (literal == null) {
+            return false;
+        }
+        if (leadingAny && trailingAny) {
+            kinds.add(Kind.CONTAINS);
+        } else if (leadingAny) {
+            kinds.add(Kind.SUFFIX);
+        } else if (trailingAny) {
+            kinds.add(Kind.PREFIX);
+        } else {
+            kinds.add(Kind.EQUALS);
+        }
+        literals.add(literal);
+        return true;
+    }
+
+    /**
+     * @return the characters that s matches when it has no metacharacters other than escaped punctuation
+     *         (e.g. "\\."), otherwise null
+     */
+    private static String unescapeLiteral(String s) {
+        var sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= s.length() || Character.isLetterOrDigit(s.charAt(i + 1))) {
+                    return null;
+                }
+                sb.append(s.charAt(++i));
+            } else if (METACHARACTERS.indexOf(c) >= 0) {
+                return null;
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
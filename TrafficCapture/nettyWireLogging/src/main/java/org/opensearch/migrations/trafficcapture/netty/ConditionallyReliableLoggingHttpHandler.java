@@ -1,6 +1,11 @@
 package org.opensearch.migrations.trafficcapture.netty;
 
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 import org.opensearch.migrations.trafficcapture.IConnectionCaptureFactory;
@@ -8,8 +13,10 @@ import org.opensearch.migrations.trafficcapture.netty.tracing.IRootWireLoggingCo
 import org.opensearch.migrations.trafficcapture.netty.tracing.IWireCaptureContexts;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.util.ReferenceCountUtil;
+import lombok.AllArgsConstructor;
 import lombok.Lombok;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +24,24 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ConditionallyReliableLoggingHttpHandler<T> extends LoggingHttpHandler<T> {
     private final Predicate<HttpRequest> shouldBlockPredicate;
+    private final ReliableCapturePolicy reliableCapturePolicy;
+
+    // Everything below is only used in HOLD_RESPONSE mode, and only from the channel's event loop
+    /**
+     * Completes, with the failure of the most recent commit (if any), once every commit that responses are being
+     * held for has finished.  This is null when no responses need to be held.
+     */
+    private CompletableFuture<Throwable> pendingCommits;
+    private final ArrayDeque<HeldWrite> heldWrites = new ArrayDeque<>();
+    private boolean flushHeld;
+    private long holdStartNanos;
+    private IWireCaptureContexts.IResponseContext heldResponseContext;
+
+    @AllArgsConstructor
+    private static class HeldWrite {
+        final Object msg;
+        final ChannelPromise promise;
+    }
 
     public ConditionallyReliableLoggingHttpHandler(
         @NonNull IRootWireLoggingContext rootContext,
@@ -25,9 +50,30 @@ public class ConditionallyReliableLoggingHttpHandler<T> extends LoggingHttpHandl
         @NonNull IConnectionCaptureFactory<T> trafficOffloaderFactory,
         @NonNull RequestCapturePredicate requestCapturePredicate,
         @NonNull Predicate<HttpRequest> headerPredicateForWhenToBlock
+    ) throws IOException {
+        this(
+            rootContext,
+            nodeId,
+            connectionId,
+            trafficOffloaderFactory,
+            requestCapturePredicate,
+            headerPredicateForWhenToBlock,
+            ReliableCapturePolicy.DEFAULT
+        );
+    }
+
+    public ConditionallyReliableLoggingHttpHandler(
+        @NonNull IRootWireLoggingContext rootContext,
+        @NonNull String nodeId,
+        String connectionId,
+        @NonNull IConnectionCaptureFactory<T> trafficOffloaderFactory,
+        @NonNull RequestCapturePredicate requestCapturePredicate,
+        @NonNull Predicate<HttpRequest> headerPredicateForWhenToBlock,
+        @NonNull ReliableCapturePolicy reliableCapturePolicy
     ) throws IOException {
         super(rootContext, nodeId, connectionId, trafficOffloaderFactory, requestCapturePredicate);
         this.shouldBlockPredicate = headerPredicateForWhenToBlock;
+        this.reliableCapturePolicy = reliableCapturePolicy;
     }
 
     @Override
@@ -37,31 +83,130 @@ public class ConditionallyReliableLoggingHttpHandler<T> extends LoggingHttpHandl
         boolean shouldCapture,
         HttpRequest httpRequest
     ) throws Exception {
-        if (shouldCapture && shouldBlockPredicate.test(httpRequest)) {
-            ((IWireCaptureContexts.IRequestContext) messageContext).onBlockingRequest();
-            messageContext = messageContext.createBlockingContext();
-            trafficOffloader.flushCommitAndResetStream(false).whenComplete((result, t) -> {
-                log.atInfo().setMessage("Done flushing").log();
-
-                if (t != null) {
-                    // This is a spot where we would benefit from having a behavioral policy that different users
-                    // could set as needed. Some users may be fine with just logging a failed offloading of a request
-                    // where other users may want to stop entirely. JIRA here:
-                    // https://opensearch.atlassian.net/browse/MIGRATIONS-1276
-                    log.atWarn().setCause(t)
-                        .setMessage("Error offloading the request, but forwarding it to the service anyway").log();
-                    ReferenceCountUtil.release(msg);
-                    messageContext.addCaughtException(t);
-                }
-                try {
-                    super.channelFinishedReadingAnHttpMessage(ctx, msg, shouldCapture, httpRequest);
-                } catch (Exception e) {
-                    throw Lombok.sneakyThrow(e);
-                }
-            });
-        } else {
+        if (!shouldCapture || !shouldBlockPredicate.test(httpRequest)) {
             assert messageContext instanceof IWireCaptureContexts.IRequestContext;
             super.channelFinishedReadingAnHttpMessage(ctx, msg, shouldCapture, httpRequest);
+            return;
+        }
+        ((IWireCaptureContexts.IRequestContext) messageContext).onBlockingRequest();
+        var commitFuture = withCommitTimeout(trafficOffloader.flushCommitAndResetStream(false));
+        if (reliableCapturePolicy.getMode() == ReliableCapturePolicy.Mode.HOLD_RESPONSE) {
+            holdResponsesUntilCommitted(ctx, commitFuture);
+            super.channelFinishedReadingAnHttpMessage(ctx, msg, shouldCapture, httpRequest);
+            return;
+        }
+        messageContext = messageContext.createBlockingContext();
+        commitFuture.whenComplete((result, t) -> {
+            log.atInfo().setMessage("Done flushing").log();
+            if (t != null && !shouldForwardAfterFailedCommit(ctx, t)) {
+                ReferenceCountUtil.release(msg);
+                return;
+            }
+            try {
+                super.channelFinishedReadingAnHttpMessage(ctx, msg, shouldCapture, httpRequest);
+            } catch (Exception e) {
+                throw Lombok.sneakyThrow(e);
+            }
+        });
+    }
+
+    @Override
+    protected void forwardWrite(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (pendingCommits == null) {
+            super.forwardWrite(ctx, msg, promise);
+            return;
+        }
+        if (heldWrites.isEmpty()) {
+            holdStartNanos = System.nanoTime();
+            heldResponseContext = messageContext instanceof IWireCaptureContexts.IResponseContext
+                ? (IWireCaptureContexts.IResponseContext) messageContext
+                : null;
+        }
+        heldWrites.add(new HeldWrite(msg, promise));
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (pendingCommits == null) {
+            super.flush(ctx);
+        } else {
+            flushHeld = true;
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        discardHeldWrites(new ClosedChannelException());
+        super.handlerRemoved(ctx);
+    }
+
+    /**
+     * @return a future of its own, so that a timeout never completes the future that came from the offloader
+     */
+    private CompletableFuture<Void> withCommitTimeout(CompletableFuture<?> commitFuture) {
+        var committed = commitFuture.thenAccept(result -> {});
+        var timeout = reliableCapturePolicy.getCommitTimeout();
+        return timeout == null ? committed : committed.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void holdResponsesUntilCommitted(ChannelHandlerContext ctx, CompletableFuture<Void> commitFuture) {
+        var previousCommits = pendingCommits != null
+            ? pendingCommits
+            : CompletableFuture.<Throwable>completedFuture(null);
+        // a failure of an earlier commit was already dealt with when that commit finished
+        var allCommits = previousCommits.thenCombine(commitFuture.handle((v, t) -> t), (previousT, t) -> t);
+        pendingCommits = allCommits;
+        allCommits.thenAccept(t -> ctx.executor().execute(() -> onHeldCommitFinished(ctx, allCommits, t)));
+    }
+
+    private void onHeldCommitFinished(ChannelHandlerContext ctx, CompletableFuture<Throwable> commits, Throwable t) {
+        if (t != null && !shouldForwardAfterFailedCommit(ctx, t)) {
+            // pendingCommits stays set so that nothing else reaches the client before the channel is closed
+            discardHeldWrites(t);
+            return;
+        }
+        if (pendingCommits != commits) {
+            return;
+        }
+        pendingCommits = null;
+        if (heldResponseContext != null) {
+            heldResponseContext.onResponseHeldForCapture(Duration.ofNanos(System.nanoTime() - holdStartNanos));
+            heldResponseContext = null;
+        }
+        try {
+            while (!heldWrites.isEmpty()) {
+                var heldWrite = heldWrites.poll();
+                super.forwardWrite(ctx, heldWrite.msg, heldWrite.promise);
+            }
+            if (flushHeld) {
+                flushHeld = false;
+                super.flush(ctx);
+            }
+        } catch (Exception e) {
+            throw Lombok.sneakyThrow(e);
+        }
+    }
+
+    private void discardHeldWrites(Throwable cause) {
+        heldResponseContext = null;
+        flushHeld = false;
+        while (!heldWrites.isEmpty()) {
+            var heldWrite = heldWrites.poll();
+            ReferenceCountUtil.release(heldWrite.msg);
+            heldWrite.promise.tryFailure(cause);
+        }
+    }
+
+    private boolean shouldForwardAfterFailedCommit(ChannelHandlerContext ctx, Throwable t) {
+        messageContext.addCaughtException(t);
+        // See https://opensearch.atlassian.net/browse/MIGRATIONS-1276 for the discussion of these policies
+        if (reliableCapturePolicy.getFailureAction() == ReliableCapturePolicy.FailureAction.FORWARD) {
+            log.atWarn().setCause(t)
+                .setMessage("Error offloading the request, but forwarding it to the service anyway").log();
+            return true;
         }
+        log.atWarn().setCause(t).setMessage("Error offloading the request, closing the connection").log();
+        ctx.close();
+        return false;
     }
 }
@@ -1,64 +1,139 @@
 package org.opensearch.migrations.trafficcapture.netty;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Supplier;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 import io.netty.handler.codec.http.HttpRequest;
 import lombok.Builder;
 
+/**
+ * Suppresses the capture of requests whose method, path, protocol or headers match any of the configured
+ * patterns.  The patterns are compiled into CompiledPatternMatchers once, so that evaluating them for every
+ * request on the proxy doesn't need to allocate anything.  Each suppressed request is counted against the
+ * first rule that matched it and reported to the listener.
+ */
 public class HeaderValueFilteringCapturePredicate extends RequestCapturePredicate {
-    private final Pattern method;
-    private final Pattern path;
-    private final Pattern protocol;
-    private final Pattern methodAndPathPattern;
-    private final Map<String, Pattern> headerToPredicateRegexMap;
+    public interface IListener {
+        IListener NO_OP = new IListener() {};
+
+        /**
+         * @param ruleName the name of the first rule that matched the request, e.g. "method" or "header:User-Agent"
+         */
+        default void onCaptureSuppressed(String ruleName) {}
+    }
+
+    private static class Rule {
+        final String name;
+        final CompiledPatternMatcher matcher;
+        final LongAdder hits = new LongAdder();
+
+        Rule(String name, String pattern) {
+            this.name = name;
+            this.matcher = new CompiledPatternMatcher(pattern);
+        }
+
+        boolean matches(CharSequence value) {
+            return value != null && matcher.matches(value);
+        }
+    }
+
+    private final Rule method;
+    private final Rule path;
+    private final Rule protocol;
+    private final Rule methodAndPath;
+    private final String[] headerNames;
+    private final Rule[] headerRules;
+    private final IListener listener;
+    private final ThreadLocal<StringBuilder> methodAndPathBuilders = ThreadLocal.withInitial(StringBuilder::new);
 
     @Builder
     public HeaderValueFilteringCapturePredicate(String methodPattern,
                                                 String pathPattern,
                                                 String protocolPattern,
                                                 String methodAndPathPattern,
-                                                Map<String, String> suppressCaptureHeaderPairs) {
+                                                Map<String, String> suppressCaptureHeaderPairs,
+                                                IListener listener) {
         super(new PassThruHttpHeaders.HttpHeadersToPreserve(
             Optional.ofNullable(suppressCaptureHeaderPairs)
                 .map(m->m.keySet().toArray(String[]::new))
                 .orElse(null)
             ));
-        this.method               = methodPattern == null   ? null : Pattern.compile(methodPattern);
-        this.path                 = pathPattern == null     ? null : Pattern.compile(pathPattern);
-        this.protocol             = protocolPattern == null ? null : Pattern.compile(protocolPattern);
-        this.methodAndPathPattern = methodAndPathPattern == null ? null : Pattern.compile(methodAndPathPattern);
-        headerToPredicateRegexMap = suppressCaptureHeaderPairs == null ? null :
-            suppressCaptureHeaderPairs.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, kvp -> Pattern.compile(kvp.getValue())));
+        this.method        = methodPattern == null   ? null : new Rule("method", methodPattern);
+        this.path          = pathPattern == null     ? null : new Rule("path", pathPattern);
+        this.protocol      = protocolPattern == null ? null : new Rule("protocol", protocolPattern);
+        this.methodAndPath = methodAndPathPattern == null ? null : new Rule("methodAndPath", methodAndPathPattern);
+        this.listener = listener == null ? IListener.NO_OP : listener;
+        var headerPairs = Optional.ofNullable(suppressCaptureHeaderPairs).orElse(Map.of());
+        this.headerNames = headerPairs.keySet().toArray(String[]::new);
+        this.headerRules = new Rule[headerNames.length];
+        for (int i = 0; i < headerNames.length; ++i) {
+            headerRules[i] = new Rule("header:" + headerNames[i], headerPairs.get(headerNames[i]));
+        }
     }
 
     @Override
     public CaptureDirective apply(HttpRequest request) {
-        return
-            patternMatches(method,           () -> request.method().name()) ||
-            patternMatches(path,             request::uri) ||
-            patternMatches(protocol,         () -> request.protocolVersion().text()) ||
-            patternMatches(methodAndPathPattern, () -> request.method().name()+" "+request.uri()) ||
-            headersMatch(request) ?
-                CaptureDirective.DROP : CaptureDirective.CAPTURE;
+        var rule = findMatchingRule(request);
+        if (rule == null) {
+            return CaptureDirective.CAPTURE;
+        }
+        rule.hits.increment();
+        listener.onCaptureSuppressed(rule.name);
+        return CaptureDirective.DROP;
+    }
+
+    private Rule findMatchingRule(HttpRequest request) {
+        if (matches(method, request.method().name())) {
+            return method;
+        } else if (matches(path, request.uri())) {
+            return path;
+        } else if (matches(protocol, request.protocolVersion().text())) {
+            return protocol;
+        } else if (methodAndPathMatches(request)) {
+            return methodAndPath;
+        }
+        return findMatchingHeaderRule(request);
+    }
+
+    /**
+     * @return how many requests each rule has suppressed, keyed by the rule's name (e.g. "method" or
+     *         "header:User-Agent").  When several rules match a request, only the first one is counted.
+     */
+    public Map<String, Long> getRuleHitCounts() {
+        var counts = new LinkedHashMap<String, Long>();
+        for (var rule : new Rule[] { method, path, protocol, methodAndPath }) {
+            if (rule != null) {
+                counts.put(rule.name, rule.hits.sum());
+            }
+        }
+        for (var rule : headerRules) {
+            counts.put(rule.name, rule.hits.sum());
+        }
+        return counts;
+    }
+
+    private static boolean matches(Rule rule, CharSequence value) {
+        return rule != null && rule.matches(value);
     }
 
-    private static boolean patternMatches(Pattern pattern, Supplier<String> stringGetter) {
-        return Optional.ofNullable(pattern).map(p->p.matcher(stringGetter.get()).matches()).orElse(false);
+    private boolean methodAndPathMatches(HttpRequest request) {
+        if (methodAndPath == null) {
+            return false;
+        }
+        var sb = methodAndPathBuilders.get();
+        sb.setLength(0);
+        sb.append(request.method().name()).append(' ').append(request.uri());
+        return methodAndPath.matches(sb);
     }
 
-    private boolean headersMatch(HttpRequest request) {
-        return Optional.ofNullable(headerToPredicateRegexMap).map(m->m.entrySet()
-                .stream()
-                .anyMatch(
-                    kvp -> Optional.ofNullable(request.headers().get(kvp.getKey()))
-                        .map(v -> kvp.getValue().matcher(v).matches())
-                        .orElse(false)
-                ))
-            .orElse(false);
+    private Rule findMatchingHeaderRule(HttpRequest request) {
+        for (int i = 0; i < headerRules.length; ++i) {
+            if (headerRules[i].matches(request.headers().get(headerNames[i]))) {
+                return headerRules[i];
+            }
+        }
+        return null;
     }
 }
@@ -0,0 +1,476 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectDecoder;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ByteProcessor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Finds where each HTTP/1.1 request on a connection begins and ends, without copying or retaining any of the
+ * connection's buffers.  This does only what LoggingHttpHandler needs: it tracks the request line, the headers
+ * and the body (whether framed by Content-Length or by chunked transfer-encoding).  The only values that are
+ * kept are the request line and the headers that the RequestCapturePredicate asked for, which go into the
+ * HttpRequest that the predicate is applied to once the headers have been read.
+ *
+ * The lengths that are reported for the first line and the headers are computed the same way as netty's
+ * HttpObjectDecoder computes them (without line terminators), as are the limits on those sizes.  Once a
+ * request can't be framed, the rest of the connection is ignored.
+ */
+@Slf4j
+class HttpRequestFramer {
+    private static final int MAX_INITIAL_LINE_LENGTH = HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH;
+    private static final int MAX_HEADER_SIZE = HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final int CONTENT_LENGTH_INDEX = 0;
+    private static final int TRANSFER_ENCODING_INDEX = 1;
+    private static final int NOT_TRACKED = -1;
+
+    private enum State {
+        SKIP_CONTROL_CHARS,
+        INITIAL_LINE,
+        HEADER_LINE_START,
+        HEADER_NAME,
+        HEADER_VALUE,
+        HEADER_SKIP_LINE,
+        HEADERS_END,
+        FIXED_LENGTH_CONTENT,
+        CHUNK_SIZE,
+        CHUNK_EXTENSION,
+        CHUNK_CONTENT,
+        CHUNK_CONTENT_END,
+        TRAILER_LINE_START,
+        TRAILER_LINE,
+        BAD_MESSAGE
+    }
+
+    final LoggingHttpHandler.CaptureState captureState;
+    private final RequestCapturePredicate requestCapturePredicate;
+    /** Lower-cased names of the headers whose values are kept, with the two that are needed for framing first */
+    private final byte[][] trackedHeaderNames;
+    private final String[] trackedHeaderNameStrings;
+    private final ByteProcessor byteProcessor = this::processByte;
+
+    private State state = State.SKIP_CONTROL_CHARS;
+    private byte[] lineBytes = new byte[128];
+    private int lineLength;
+    private final byte[] nameBytes;
+    private int nameLength;
+    private int currentHeaderIndex;
+    private int pendingHeaderIndex = NOT_TRACKED;
+    private int initialLineLength;
+    private int headersLength;
+    private long contentLength;
+    private boolean isChunked;
+    private long bytesLeftInContent;
+    private int chunkSizeDigits;
+    private HttpRequest currentRequest;
+
+    /** The last request that was read in its entirety, which is held until resetCompletedRequest() is called */
+    private HttpRequest completedRequest;
+    @Getter
+    private int completedInitialLineLength;
+    @Getter
+    private int completedHeadersLength;
+
+    HttpRequestFramer(RequestCapturePredicate requestCapturePredicate, LoggingHttpHandler.CaptureState captureState) {
+        this.requestCapturePredicate = requestCapturePredicate;
+        this.captureState = captureState;
+        var names = new LinkedHashMap<String, String>();
+        names.put(HttpHeaderNames.CONTENT_LENGTH.toString(), HttpHeaderNames.CONTENT_LENGTH.toString());
+        names.put(HttpHeaderNames.TRANSFER_ENCODING.toString(), HttpHeaderNames.TRANSFER_ENCODING.toString());
+        for (var name : requestCapturePredicate.getHeadersRequiredForMatcher().getHeaderNames()) {
+            names.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+        }
+        this.trackedHeaderNames = names.keySet()
+            .stream()
+            .map(n -> n.getBytes(StandardCharsets.ISO_8859_1))
+            .toArray(byte[][]::new);
+        this.trackedHeaderNameStrings = names.values().toArray(String[]::new);
+        this.nameBytes = new byte[Arrays.stream(trackedHeaderNames).mapToInt(n -> n.length).max().orElse(0)];
+        resetMessage();
+    }
+
+    boolean haveParsedFullRequest() {
+        return completedRequest != null;
+    }
+
+    HttpRequest resetCompletedRequest() {
+        var old = completedRequest;
+        completedRequest = null;
+        return old;
+    }
+
+    /**
+     * Advances through the readable bytes of buf, without changing its indices or its reference count.
+     */
+    void feed(ByteBuf buf) {
+        if (captureState.captureIgnoreState == LoggingHttpHandler.CaptureIgnoreState.IGNORE_RESPONSE) {
+            captureState.captureIgnoreState = LoggingHttpHandler.CaptureIgnoreState.CAPTURE;
+        }
+        int index = buf.readerIndex();
+        final int end = buf.writerIndex();
+        while (index < end) {
+            if (state == State.FIXED_LENGTH_CONTENT || state == State.CHUNK_CONTENT) {
+                // Bodies are skipped over in bulk rather than being visited a byte at a time
+                int bytesToSkip = (int) Math.min(bytesLeftInContent, end - index);
+                index += bytesToSkip;
+                bytesLeftInContent -= bytesToSkip;
+                if (bytesLeftInContent == 0) {
+                    if (state == State.FIXED_LENGTH_CONTENT) {
+                        onMessageComplete();
+                    } else {
+                        state = State.CHUNK_CONTENT_END;
+                    }
+                }
+            } else if (state == State.BAD_MESSAGE) {
+                return;
+            } else {
+                // the processor stops after the byte that moves into a body (or into BAD_MESSAGE)
+                int stoppedAt = buf.forEachByte(index, end - index, byteProcessor);
+                if (stoppedAt < 0) {
+                    return;
+                }
+                index = stoppedAt + 1;
+            }
+        }
+    }
+
+    private boolean processByte(byte b) {
+        switch (state) {
+            case SKIP_CONTROL_CHARS:
+                if (!Character.isISOControl(b & 0xff) && !Character.isWhitespace(b & 0xff)) {
+                    state = State.INITIAL_LINE;
+                    lineLength = 0;
+                    return appendToLine(b, MAX_INITIAL_LINE_LENGTH);
+                }
+                return true;
+            case INITIAL_LINE:
+                if (b == LF) {
+                    return onInitialLine();
+                } else if (b == CR) {
+                    return true;
+                }
+                return appendToLine(b, MAX_INITIAL_LINE_LENGTH);
+            case HEADER_LINE_START:
+                return processHeaderLineStart(b);
+            case HEADER_NAME:
+                return processHeaderName(b);
+            case HEADER_VALUE:
+                if (b == LF) {
+                    while (lineLength > 0 && isSpaceOrTab(lineBytes[lineLength - 1])) {
+                        --lineLength;
+                    }
+                    pendingHeaderIndex = currentHeaderIndex;
+                    state = State.HEADER_LINE_START;
+                    return true;
+                } else if (b == CR) {
+                    return true;
+                } else if (!countHeaderByte()) {
+                    return false;
+                } else if (lineLength == 0 && isSpaceOrTab(b)) {
+                    return true;
+                }
+                return appendToLine(b, MAX_HEADER_SIZE);
+            case HEADER_SKIP_LINE:
+                if (b == LF) {
+                    state = State.HEADER_LINE_START;
+                    return true;
+                }
+                return b == CR || countHeaderByte();
+            case HEADERS_END:
+                if (b == LF) {
+                    return onHeadersComplete();
+                }
+                return markBadMessage("Expected a line feed after the headers");
+            case CHUNK_SIZE:
+                return processChunkSize(b);
+            case CHUNK_EXTENSION:
+                return b != LF || onChunkSizeLineEnd();
+            case CHUNK_CONTENT_END:
+                if (b == LF) {
+                    state = State.CHUNK_SIZE;
+                    chunkSizeDigits = 0;
+                    bytesLeftInContent = 0;
+                    return true;
+                }
+                return b == CR || markBadMessage("Expected a line break after chunk content");
+            case TRAILER_LINE_START:
+                if (b == LF) {
+                    onMessageComplete();
+                } else if (b != CR) {
+                    state = State.TRAILER_LINE;
+                }
+                return true;
+            case TRAILER_LINE:
+                if (b == LF) {
+                    state = State.TRAILER_LINE_START;
+                }
+                return true;
+            default:
+                throw new IllegalStateException("Unexpected state for a byte at a time: " + state);
+        }
+    }
+
+    private boolean processHeaderLineStart(byte b) {
+        if (isSpaceOrTab(b)) {
+            // an obsolete line folding, which continues the value of the previous header
+            if (!countHeaderByte()) {
+                return false;
+            }
+            if (pendingHeaderIndex == NOT_TRACKED) {
+                state = State.HEADER_SKIP_LINE;
+            } else {
+                currentHeaderIndex = pendingHeaderIndex;
+                pendingHeaderIndex = NOT_TRACKED;
+                if (!appendToLine((byte) ' ', MAX_HEADER_SIZE)) {
+                    return false;
+                }
+                state = State.HEADER_VALUE;
+            }
+            return true;
+        }
+        if (!commitPendingHeader()) {
+            return false;
+        }
+        if (b == CR) {
+            state = State.HEADERS_END;
+            return true;
+        } else if (b == LF) {
+            return onHeadersComplete();
+        }
+        state = State.HEADER_NAME;
+        nameLength = 0;
+        return processHeaderName(b);
+    }
+
+    private boolean processHeaderName(byte b) {
+        if (b == LF) {
+            // a line without a colon has no value that could be of any interest
+            state = State.HEADER_LINE_START;
+            return true;
+        } else if (b == CR) {
+            return true;
+        } else if (!countHeaderByte()) {
+            return false;
+        }
+        if (b == ':') {
+            while (nameLength > 0 && isSpaceOrTab(nameBytes[nameLength - 1])) {
+                --nameLength;
+            }
+            currentHeaderIndex = findTrackedHeader();
+            nameLength = 0;
+            lineLength = 0;
+            state = currentHeaderIndex == NOT_TRACKED ? State.HEADER_SKIP_LINE : State.HEADER_VALUE;
+        } else if (nameLength < nameBytes.length) {
+            nameBytes[nameLength++] = b;
+        } else if (!isSpaceOrTab(b)) {
+            // longer than any of the tracked names
+            state = State.HEADER_SKIP_LINE;
+        }
+        return true;
+    }
+
+    private boolean processChunkSize(byte b) {
+        int digit = Character.digit(b, 16);
+        if (digit >= 0) {
+            if (bytesLeftInContent > (Long.MAX_VALUE >> 4)) {
+                return markBadMessage("Chunk size is too large");
+            }
+            bytesLeftInContent = (bytesLeftInContent << 4) + digit;
+            ++chunkSizeDigits;
+            return true;
+        } else if (b == LF) {
+            return onChunkSizeLineEnd();
+        } else if (b == ';' || isSpaceOrTab(b)) {
+            state = State.CHUNK_EXTENSION;
+            return true;
+        }
+        return b == CR || markBadMessage("Invalid character in a chunk size");
+    }
+
+    private boolean onChunkSizeLineEnd() {
+        if (chunkSizeDigits == 0) {
+            return markBadMessage("Missing chunk size");
+        } else if (bytesLeftInContent == 0) {
+            state = State.TRAILER_LINE_START;
+            return true;
+        }
+        state = State.CHUNK_CONTENT;
+        return false;
+    }
+
+    private boolean onInitialLine() {
+        int methodStart = skipSpaces(0);
+        int methodEnd = findSpace(methodStart);
+        int uriStart = skipSpaces(methodEnd);
+        int uriEnd = findSpace(uriStart);
+        int versionStart = skipSpaces(uriEnd);
+        int versionEnd = lineLength;
+        while (versionEnd > versionStart && isSpaceOrTab(lineBytes[versionEnd - 1])) {
+            --versionEnd;
+        }
+        if (versionStart >= versionEnd) {
+            return markBadMessage("Invalid request line");
+        }
+        try {
+            currentRequest = new DefaultHttpRequest(
+                HttpVersion.valueOf(lineString(versionStart, versionEnd)),
+                HttpMethod.valueOf(lineString(methodStart, methodEnd)),
+                lineString(uriStart, uriEnd),
+                new PassThruHttpHeaders(requestCapturePredicate.getHeadersRequiredForMatcher())
+            );
+        } catch (IllegalArgumentException e) {
+            return markBadMessage("Invalid request line: " + e.getMessage());
+        }
+        initialLineLength = lineLength;
+        headersLength = 0;
+        state = State.HEADER_LINE_START;
+        return true;
+    }
+
+    private boolean commitPendingHeader() {
+        if (pendingHeaderIndex == NOT_TRACKED) {
+            return true;
+        }
+        var headerIndex = pendingHeaderIndex;
+        pendingHeaderIndex = NOT_TRACKED;
+        var value = lineString(0, lineLength);
+        if (headerIndex == CONTENT_LENGTH_INDEX) {
+            long parsedLength;
+            try {
+                parsedLength = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return markBadMessage("Invalid Content-Length: " + value);
+            }
+            if (parsedLength < 0 || (contentLength >= 0 && contentLength != parsedLength)) {
+                return markBadMessage("Invalid Content-Length: " + value);
+            }
+            contentLength = parsedLength;
+        } else if (headerIndex == TRANSFER_ENCODING_INDEX) {
+            // chunked only applies when it's the final encoding
+            var lastComma = value.lastIndexOf(',');
+            isChunked = value.substring(lastComma + 1).trim().equalsIgnoreCase("chunked");
+        }
+        // PassThruHttpHeaders only keeps what the predicate asked for
+        currentRequest.headers().add(trackedHeaderNameStrings[headerIndex], value);
+        return true;
+    }
+
+    private boolean onHeadersComplete() {
+        captureState.setShouldCaptureForRequest(
+            RequestCapturePredicate.CaptureDirective.CAPTURE == requestCapturePredicate.apply(currentRequest)
+        );
+        if (isChunked) {
+            state = State.CHUNK_SIZE;
+            chunkSizeDigits = 0;
+            bytesLeftInContent = 0;
+        } else if (contentLength > 0) {
+            state = State.FIXED_LENGTH_CONTENT;
+            bytesLeftInContent = contentLength;
+            return false;
+        } else {
+            // requests without a Content-Length or chunked encoding have no body
+            onMessageComplete();
+        }
+        return true;
+    }
+
+    private void onMessageComplete() {
+        completedRequest = currentRequest;
+        completedInitialLineLength = initialLineLength;
+        completedHeadersLength = headersLength;
+        resetMessage();
+    }
+
+    private void resetMessage() {
+        state = State.SKIP_CONTROL_CHARS;
+        currentRequest = null;
+        contentLength = -1;
+        isChunked = false;
+        bytesLeftInContent = 0;
+        pendingHeaderIndex = NOT_TRACKED;
+        lineLength = 0;
+    }
+
+    private boolean markBadMessage(String reason) {
+        log.atWarn().setMessage("Stopping the framing of requests for this connection: {}").addArgument(reason).log();
+        state = State.BAD_MESSAGE;
+        currentRequest = null;
+        return false;
+    }
+
+    private boolean countHeaderByte() {
+        if (++headersLength > MAX_HEADER_SIZE) {
+            return markBadMessage("HTTP headers are larger than " + MAX_HEADER_SIZE + " bytes");
+        }
+        return true;
+    }
+
+    private boolean appendToLine(byte b, int maxLength) {
+        if (lineLength >= maxLength) {
+            return markBadMessage("Line is longer than " + maxLength + " bytes");
+        }
+        if (lineLength == lineBytes.length) {
+            lineBytes = Arrays.copyOf(lineBytes, Math.min(maxLength, lineBytes.length * 2));
+        }
+        lineBytes[lineLength++] = b;
+        return true;
+    }
+
+    private int findTrackedHeader() {
+        for (int i = 0; i < trackedHeaderNames.length; ++i) {
+            var name = trackedHeaderNames[i];
+            if (name.length == nameLength && nameMatches(name)) {
+                return i;
+            }
+        }
+        return NOT_TRACKED;
+    }
+
+    private boolean nameMatches(byte[] lowerCaseName) {
+        for (int i = 0; i < nameLength; ++i) {
+            var b = nameBytes[i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerCaseName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String lineString(int start, int end) {
+        return new String(lineBytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private int skipSpaces(int i) {
+        while (i < lineLength && isSpaceOrTab(lineBytes[i])) {
+            ++i;
+        }
+        return i;
+    }
+
+    private int findSpace(int i) {
+        while (i < lineLength && !isSpaceOrTab(lineBytes[i])) {
+            ++i;
+        }
+        return i;
+    }
+
+    private static boolean isSpaceOrTab(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
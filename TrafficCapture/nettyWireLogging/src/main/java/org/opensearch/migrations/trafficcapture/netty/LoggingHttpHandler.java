@@ -11,19 +11,8 @@ import org.opensearch.migrations.trafficcapture.netty.tracing.IWireCaptureContex
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
-import io.netty.channel.embedded.EmbeddedChannel;
-import io.netty.handler.codec.http.DefaultHttpRequest;
-import io.netty.handler.codec.http.HttpContent;
-import io.netty.handler.codec.http.HttpMessage;
-import io.netty.handler.codec.http.HttpMessageDecoderResult;
-import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
-import io.netty.handler.codec.http.HttpRequestDecoder;
-import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.codec.http.LastHttpContent;
-import lombok.Getter;
 import lombok.Lombok;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -58,84 +47,11 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         }
     }
 
-    static class SimpleHttpRequestDecoder extends HttpRequestDecoder {
-        private final PassThruHttpHeaders.HttpHeadersToPreserve headersToPreserve;
-        private final CaptureState captureState;
-
-        public SimpleHttpRequestDecoder(
-            @NonNull PassThruHttpHeaders.HttpHeadersToPreserve headersToPreserve,
-            CaptureState captureState
-        ) {
-            this.headersToPreserve = headersToPreserve;
-            this.captureState = captureState;
-        }
-
-        /**
-         * Override this so that the HttpHeaders object can be a cheaper one.  PassThruHeaders
-         * only stores a handful of headers that are required for parsing the payload portion
-         * of an HTTP Message.
-         */
-        @Override
-        public HttpMessage createMessage(String[] initialLine) throws Exception {
-            return new DefaultHttpRequest(
-                HttpVersion.valueOf(initialLine[2]),
-                HttpMethod.valueOf(initialLine[0]),
-                initialLine[1],
-                new PassThruHttpHeaders(headersToPreserve)
-            );
-        }
-
-        @Override
-        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-            if (captureState.captureIgnoreState == CaptureIgnoreState.IGNORE_RESPONSE) {
-                captureState.captureIgnoreState = CaptureIgnoreState.CAPTURE;
-            }
-            super.channelRead(ctx, msg);
-        }
-    }
-
-    static class SimpleDecodedHttpRequestHandler extends ChannelInboundHandlerAdapter {
-        @Getter
-        private HttpRequest currentRequest;
-        final RequestCapturePredicate requestCapturePredicate;
-        boolean haveParsedFullRequest;
-        final CaptureState captureState;
-
-        SimpleDecodedHttpRequestHandler(RequestCapturePredicate requestCapturePredicate, CaptureState captureState) {
-            this.requestCapturePredicate = requestCapturePredicate;
-            this.currentRequest = null;
-            this.haveParsedFullRequest = false;
-            this.captureState = captureState;
-        }
-
-        @Override
-        public void channelRead(@NonNull ChannelHandlerContext ctx, @NonNull Object msg) throws Exception {
-            if (msg instanceof HttpRequest) {
-                currentRequest = (HttpRequest) msg;
-                captureState.setShouldCaptureForRequest(
-                    RequestCapturePredicate.CaptureDirective.CAPTURE == requestCapturePredicate.apply((HttpRequest) msg)
-                );
-            } else if (msg instanceof HttpContent) {
-                ((HttpContent) msg).release();
-                if (msg instanceof LastHttpContent) {
-                    haveParsedFullRequest = true;
-                }
-            } else {
-                super.channelRead(ctx, msg);
-            }
-        }
-
-        public HttpRequest resetCurrentRequest() {
-            this.haveParsedFullRequest = false;
-            var old = currentRequest;
-            this.currentRequest = null;
-            return old;
-        }
-    }
-
     protected final IChannelConnectionCaptureSerializer<T> trafficOffloader;
 
-    protected final EmbeddedChannel httpDecoderChannel;
+    protected final HttpRequestFramer requestFramer;
+
+    protected final RequestCapturePredicate requestCapturePredicate;
 
     protected IWireCaptureContexts.IHttpMessageContext messageContext;
 
@@ -150,21 +66,14 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         this.messageContext = parentContext.createInitialRequestContext();
 
         this.trafficOffloader = trafficOffloaderFactory.createOffloader(parentContext);
-        var captureState = new CaptureState();
-        httpDecoderChannel = new EmbeddedChannel(
-            new SimpleHttpRequestDecoder(httpHeadersCapturePredicate.getHeadersRequiredForMatcher(), captureState),
-            new SimpleDecodedHttpRequestHandler(httpHeadersCapturePredicate, captureState)
-        );
+        this.requestCapturePredicate = httpHeadersCapturePredicate;
+        this.requestFramer = new HttpRequestFramer(httpHeadersCapturePredicate, new CaptureState());
     }
 
     private IWireCaptureContexts.ICapturingConnectionContext getConnectionContext() {
         return messageContext.getLogicalEnclosingScope();
     }
 
-    private SimpleDecodedHttpRequestHandler getHandlerThatHoldsParsedHttpRequest() {
-        return (SimpleDecodedHttpRequestHandler) httpDecoderChannel.pipeline().last();
-    }
-
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
         trafficOffloader.addCloseEvent(Instant.now());
@@ -231,15 +140,15 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         }
 
         var timestamp = Instant.now();
-        var requestParsingHandler = getHandlerThatHoldsParsedHttpRequest();
         var bb = ((ByteBuf) msg);
-        httpDecoderChannel.writeInbound(bb.retainedDuplicate()); // the ByteBuf is consumed/release by this method
+        requestFramer.feed(bb); // only looks at the bytes, leaving bb's indices and reference count alone
 
-        var captureState = requestParsingHandler.captureState;
+        var captureState = requestFramer.captureState;
         var shouldCapture = captureState.shouldCapture();
         if (shouldCapture) {
             captureState.liveReadObservationsInOffloader = true;
             trafficOffloader.addReadEvent(timestamp, bb);
+            requestCapturePredicate.onBytesCaptured(bb.readableBytes());
         } else if (captureState.liveReadObservationsInOffloader) {
             requestContext.onCaptureSuppressed();
             trafficOffloader.cancelCaptureForCurrentRequest(timestamp);
@@ -248,19 +157,17 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
 
         requestContext.onBytesRead(bb.readableBytes());
 
-        if (requestParsingHandler.haveParsedFullRequest) {
+        if (requestFramer.haveParsedFullRequest()) {
             requestContext.onFullyParsedRequest();
-            var httpRequest = requestParsingHandler.resetCurrentRequest();
+            var initialLineLength = requestFramer.getCompletedInitialLineLength();
+            var headersLength = requestFramer.getCompletedHeadersLength();
+            var httpRequest = requestFramer.resetCompletedRequest();
             captureState.liveReadObservationsInOffloader = false;
             captureState.advanceStateModelIntoResponseGather();
 
             if (shouldCapture) {
-                var decoderResultLoose = httpRequest.decoderResult();
-                if (decoderResultLoose instanceof HttpMessageDecoderResult) {
-                    var decoderResult = (HttpMessageDecoderResult) decoderResultLoose;
-                    trafficOffloader.addEndOfFirstLineIndicator(decoderResult.initialLineLength());
-                    trafficOffloader.addEndOfHeadersIndicator(decoderResult.headerSize());
-                }
+                trafficOffloader.addEndOfFirstLineIndicator(initialLineLength);
+                trafficOffloader.addEndOfHeadersIndicator(headersLength);
                 trafficOffloader.commitEndOfHttpMessageIndicator(timestamp);
             }
             channelFinishedReadingAnHttpMessage(ctx, msg, shouldCapture, httpRequest);
@@ -279,11 +186,20 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
         }
 
         var bb = (ByteBuf) msg;
-        if (getHandlerThatHoldsParsedHttpRequest().captureState.shouldCapture()) {
+        if (requestFramer.captureState.shouldCapture()) {
             trafficOffloader.addWriteEvent(Instant.now(), bb);
+            requestCapturePredicate.onBytesCaptured(bb.readableBytes());
         }
         responseContext.onBytesWritten(bb.readableBytes());
 
+        forwardWrite(ctx, msg, promise);
+    }
+
+    /**
+     * Passes a write, which has already been captured, along toward the client.  Subclasses may override this to
+     * delay when the client receives a response, but they're responsible for the msg and promise once they do.
+     */
+    protected void forwardWrite(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         super.write(ctx, msg, promise);
     }
 
@@ -291,7 +207,6 @@ public class LoggingHttpHandler<T> extends ChannelDuplexHandler {
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         trafficOffloader.addExceptionCaughtEvent(Instant.now(), cause);
         messageContext.addCaughtException(cause);
-        httpDecoderChannel.close();
         super.exceptionCaught(ctx, cause);
     }
 
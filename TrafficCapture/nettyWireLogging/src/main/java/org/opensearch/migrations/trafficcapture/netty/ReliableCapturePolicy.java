@@ -0,0 +1,37 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.time.Duration;
+
+import lombok.Value;
+
+/**
+ * How ConditionallyReliableLoggingHttpHandler makes sure that a request has been committed to the capture stream
+ * before the client can consider it done, and what to do when that commit doesn't go through.
+ */
+@Value
+public class ReliableCapturePolicy {
+    public enum Mode {
+        /** Forward the request to the service only once its capture has been committed */
+        BLOCK_REQUEST,
+        /**
+         * Forward the request right away and hold back the response until the capture has been committed, so
+         * that the commit overlaps with the time that the service spends on the request
+         */
+        HOLD_RESPONSE
+    }
+
+    public enum FailureAction {
+        /** Log the failure and carry on as if the commit had succeeded */
+        FORWARD,
+        /** Close the client's connection without forwarding anything more */
+        CLOSE_CONNECTION
+    }
+
+    public static final ReliableCapturePolicy DEFAULT =
+        new ReliableCapturePolicy(Mode.BLOCK_REQUEST, null, FailureAction.FORWARD);
+
+    Mode mode;
+    /** How long to wait for a commit before treating it as failed, or null to wait for as long as it takes */
+    Duration commitTimeout;
+    FailureAction failureAction;
+}
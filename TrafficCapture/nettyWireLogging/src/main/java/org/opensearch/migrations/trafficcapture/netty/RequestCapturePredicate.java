@@ -1,5 +1,6 @@
 package org.opensearch.migrations.trafficcapture.netty;
 
+import java.net.InetSocketAddress;
 import java.util.function.Function;
 
 import io.netty.handler.codec.http.HttpRequest;
@@ -27,4 +28,18 @@ public class RequestCapturePredicate implements Function<HttpRequest, RequestCap
     public CaptureDirective apply(HttpRequest request) {
         return CaptureDirective.CAPTURE;
     }
+
+    /**
+     * Called once for each new connection.  Predicates that make decisions for a whole connection, or that keep
+     * state for one, return a predicate just for that connection.  By default, the same predicate is shared.
+     * @param clientAddress the address of the connecting client, which may be null
+     */
+    public RequestCapturePredicate forConnection(InetSocketAddress clientAddress) {
+        return this;
+    }
+
+    /**
+     * Called with the size of each chunk of request or response that was captured because of this predicate.
+     */
+    public void onBytesCaptured(int bytes) {}
 }
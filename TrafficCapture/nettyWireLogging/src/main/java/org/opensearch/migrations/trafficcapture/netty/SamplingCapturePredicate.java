@@ -0,0 +1,236 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Captures a sample of the traffic that another predicate (usually a HeaderValueFilteringCapturePredicate) lets
+ * through.  Whether a connection is sampled is decided once, when it's accepted, and requests on connections that
+ * weren't sampled are dropped.  Requests on sampled connections are also dropped while the bytes captured across
+ * the proxy, or from the same client address, have exceeded their per-second budgets.  Mutating requests (POST,
+ * PUT, DELETE and PATCH) can be captured regardless of sampling and budgets since a replay is likely to diverge
+ * without them, but their bytes still count against the budgets.
+ *
+ * <p>Budgets are charged for what is actually captured as it's captured, so a large request that's let through
+ * can overdraw a budget, and subsequent requests are dropped until it has been paid back.
+ */
+public class SamplingCapturePredicate extends RequestCapturePredicate {
+    /**
+     * Beyond this many client addresses, budgets that have no outstanding debt are forgotten when a new client
+     * connects.  Forgetting those loses nothing since a new budget starts out the same way.  When every tracked
+     * client is still in debt, new clients share one budget (of the same size as a single client's) until some
+     * of the tracked budgets can be forgotten.
+     */
+    static final int MAX_TRACKED_CLIENTS = 10_000;
+
+    public interface IListener {
+        IListener NO_OP = new IListener() {};
+
+        default void onConnectionSampled(boolean isCaptured) {}
+
+        default void onRequestSampledOut() {}
+
+        /**
+         * @param isClientLimit true when the client's budget, rather than the proxy-wide one, was exhausted
+         */
+        default void onRequestRateLimited(boolean isClientLimit) {}
+    }
+
+    /**
+     * A token bucket, denominated in bytes, that may go into debt.  Requests are let through while it has any
+     * bytes left and their actual sizes are charged afterward.
+     */
+    static class ByteBudget {
+        private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+        private final long bytesPerSecond;
+        private final LongSupplier nanoClock;
+        private double availableBytes;
+        private long lastRefillNanos;
+
+        ByteBudget(long bytesPerSecond, LongSupplier nanoClock) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.nanoClock = nanoClock;
+            this.availableBytes = bytesPerSecond;
+            this.lastRefillNanos = nanoClock.getAsLong();
+        }
+
+        synchronized boolean hasBytesAvailable() {
+            refill();
+            return availableBytes > 0;
+        }
+
+        synchronized void charge(int bytes) {
+            refill();
+            availableBytes -= bytes;
+        }
+
+        synchronized boolean isFull() {
+            refill();
+            return availableBytes >= bytesPerSecond;
+        }
+
+        private void refill() {
+            var now = nanoClock.getAsLong();
+            var elapsedNanos = now - lastRefillNanos;
+            lastRefillNanos = now;
+            // at most one second's worth accumulates, so an idle client can't save up an unbounded burst
+            availableBytes = Math.min(bytesPerSecond,
+                availableBytes + elapsedNanos * bytesPerSecond / NANOS_PER_SECOND);
+        }
+    }
+
+    private final RequestCapturePredicate suppressionPredicate;
+    private final double connectionSamplePercent;
+    private final long maxCaptureBytesPerSecondPerClient;
+    private final boolean alwaysCaptureMutatingRequests;
+    private final IListener listener;
+    private final LongSupplier nanoClock;
+    private final ByteBudget globalBudget;
+    private final ConcurrentHashMap<InetAddress, ByteBudget> clientBudgets = new ConcurrentHashMap<>();
+    /** Shared by the clients that connect while MAX_TRACKED_CLIENTS budgets are in debt */
+    private final ByteBudget untrackedClientsBudget;
+
+    /**
+     * @param suppressionPredicate requests that this drops are never captured
+     * @param connectionSamplePercent the percentage, from 0 to 100, of connections whose requests are captured
+     * @param maxCaptureBytesPerSecond the proxy-wide capture budget, or 0 for no limit
+     * @param maxCaptureBytesPerSecondPerClient the capture budget for each client address, or 0 for no limit
+     * @param alwaysCaptureMutatingRequests when true, mutating requests bypass sampling and the budgets
+     */
+    public SamplingCapturePredicate(
+        RequestCapturePredicate suppressionPredicate,
+        double connectionSamplePercent,
+        long maxCaptureBytesPerSecond,
+        long maxCaptureBytesPerSecondPerClient,
+        boolean alwaysCaptureMutatingRequests,
+        IListener listener
+    ) {
+        this(suppressionPredicate, connectionSamplePercent, maxCaptureBytesPerSecond,
+            maxCaptureBytesPerSecondPerClient, alwaysCaptureMutatingRequests, listener, System::nanoTime);
+    }
+
+    SamplingCapturePredicate(
+        RequestCapturePredicate suppressionPredicate,
+        double connectionSamplePercent,
+        long maxCaptureBytesPerSecond,
+        long maxCaptureBytesPerSecondPerClient,
+        boolean alwaysCaptureMutatingRequests,
+        IListener listener,
+        LongSupplier nanoClock
+    ) {
+        super(suppressionPredicate.getHeadersRequiredForMatcher());
+        if (connectionSamplePercent < 0 || connectionSamplePercent > 100) {
+            throw new IllegalArgumentException("connectionSamplePercent must be between 0 and 100, but was "
+                + connectionSamplePercent);
+        }
+        this.suppressionPredicate = suppressionPredicate;
+        this.connectionSamplePercent = connectionSamplePercent;
+        this.maxCaptureBytesPerSecondPerClient = maxCaptureBytesPerSecondPerClient;
+        this.alwaysCaptureMutatingRequests = alwaysCaptureMutatingRequests;
+        this.listener = listener;
+        this.nanoClock = nanoClock;
+        this.globalBudget = maxCaptureBytesPerSecond > 0 ? new ByteBudget(maxCaptureBytesPerSecond, nanoClock) : null;
+        this.untrackedClientsBudget = maxCaptureBytesPerSecondPerClient > 0
+            ? new ByteBudget(maxCaptureBytesPerSecondPerClient, nanoClock)
+            : null;
+    }
+
+    static boolean isMutating(HttpMethod method) {
+        return method.equals(HttpMethod.POST)
+            || method.equals(HttpMethod.PUT)
+            || method.equals(HttpMethod.DELETE)
+            || method.equals(HttpMethod.PATCH);
+    }
+
+    @Override
+    public RequestCapturePredicate forConnection(InetSocketAddress clientAddress) {
+        var isSampled = connectionSamplePercent >= 100
+            || ThreadLocalRandom.current().nextDouble(100) < connectionSamplePercent;
+        listener.onConnectionSampled(isSampled);
+        return new ConnectionCapturePredicate(isSampled, getClientBudget(clientAddress));
+    }
+
+    private ByteBudget getClientBudget(InetSocketAddress clientAddress) {
+        if (maxCaptureBytesPerSecondPerClient <= 0 || clientAddress == null || clientAddress.getAddress() == null) {
+            return null;
+        }
+        var clientBudget = clientBudgets.get(clientAddress.getAddress());
+        if (clientBudget != null) {
+            return clientBudget;
+        }
+        // the bound is approximate under contention, which is fine since it only exists to keep a flood of
+        // client addresses from growing the map without limit
+        if (clientBudgets.size() >= MAX_TRACKED_CLIENTS) {
+            clientBudgets.values().removeIf(ByteBudget::isFull);
+            if (clientBudgets.size() >= MAX_TRACKED_CLIENTS) {
+                return untrackedClientsBudget;
+            }
+        }
+        return clientBudgets.computeIfAbsent(clientAddress.getAddress(),
+            a -> new ByteBudget(maxCaptureBytesPerSecondPerClient, nanoClock));
+    }
+
+    int getTrackedClientCount() {
+        return clientBudgets.size();
+    }
+
+    /**
+     * Connections should always get their own predicate from forConnection().  This only applies the
+     * suppression rules, as if for a sampled connection that has no budgets.
+     */
+    @Override
+    public CaptureDirective apply(HttpRequest request) {
+        return suppressionPredicate.apply(request);
+    }
+
+    private class ConnectionCapturePredicate extends RequestCapturePredicate {
+        private final boolean isSampled;
+        private final ByteBudget clientBudget;
+
+        ConnectionCapturePredicate(boolean isSampled, ByteBudget clientBudget) {
+            super(SamplingCapturePredicate.this.getHeadersRequiredForMatcher());
+            this.isSampled = isSampled;
+            this.clientBudget = clientBudget;
+        }
+
+        @Override
+        public CaptureDirective apply(HttpRequest request) {
+            if (suppressionPredicate.apply(request) == CaptureDirective.DROP) {
+                return CaptureDirective.DROP;
+            }
+            if (alwaysCaptureMutatingRequests && isMutating(request.method())) {
+                return CaptureDirective.CAPTURE;
+            }
+            if (!isSampled) {
+                listener.onRequestSampledOut();
+                return CaptureDirective.DROP;
+            }
+            if (globalBudget != null && !globalBudget.hasBytesAvailable()) {
+                listener.onRequestRateLimited(false);
+                return CaptureDirective.DROP;
+            }
+            if (clientBudget != null && !clientBudget.hasBytesAvailable()) {
+                listener.onRequestRateLimited(true);
+                return CaptureDirective.DROP;
+            }
+            return CaptureDirective.CAPTURE;
+        }
+
+        @Override
+        public void onBytesCaptured(int bytes) {
+            if (globalBudget != null) {
+                globalBudget.charge(bytes);
+            }
+            if (clientBudget != null) {
+                clientBudget.charge(bytes);
+            }
+        }
+    }
+}
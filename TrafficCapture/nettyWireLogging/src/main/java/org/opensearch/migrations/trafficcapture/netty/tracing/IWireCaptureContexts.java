@@ -1,5 +1,7 @@
 package org.opensearch.migrations.trafficcapture.netty.tracing;
 
+import java.time.Duration;
+
 import org.opensearch.migrations.tracing.IWithStartTimeAndAttributes;
 import org.opensearch.migrations.tracing.IWithTypedEnclosingScope;
 import org.opensearch.migrations.tracing.commoncontexts.IHttpTransactionContext;
@@ -26,6 +28,7 @@ public interface IWireCaptureContexts {
         public static final String FULL_REQUEST = "fullRequest";
         public static final String BYTES_READ = "bytesRead";
         public static final String BYTES_WRITTEN = "bytesWritten";
+        public static final String RESPONSE_HELD_FOR_CAPTURE = "responseHeldForCapture";
     }
 
     interface ICapturingConnectionContext
@@ -92,5 +95,11 @@ public interface IWireCaptureContexts {
         }
 
         void onBytesWritten(int size);
+
+        /**
+         * @param heldDuration how long a response was kept from the client while its request's capture was
+         *                     being committed
+         */
+        void onResponseHeldForCapture(Duration heldDuration);
     }
 }
@@ -1,9 +1,12 @@
 package org.opensearch.migrations.trafficcapture.netty.tracing;
 
+import java.time.Duration;
+
 import org.opensearch.migrations.tracing.BaseNestedSpanContext;
 import org.opensearch.migrations.tracing.CommonScopedMetricInstruments;
 import org.opensearch.migrations.tracing.commoncontexts.IConnectionContext;
 
+import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.LongCounter;
 import io.opentelemetry.api.metrics.Meter;
 import lombok.Getter;
@@ -254,10 +257,14 @@ public interface WireCaptureContexts extends IWireCaptureContexts {
         public static class MetricInstruments extends CommonScopedMetricInstruments {
 
             private final LongCounter bytesWritten;
+            private final DoubleHistogram responseHeldForCaptureDuration;
 
             private MetricInstruments(Meter meter, String activityName) {
                 super(meter, activityName);
                 bytesWritten = meter.counterBuilder(MetricNames.BYTES_WRITTEN).setUnit(BYTES_UNIT).build();
+                responseHeldForCaptureDuration = meter.histogramBuilder(MetricNames.RESPONSE_HELD_FOR_CAPTURE)
+                    .setUnit("ms")
+                    .build();
             }
         }
 
@@ -274,5 +281,10 @@ public interface WireCaptureContexts extends IWireCaptureContexts {
         public void onBytesWritten(int size) {
             meterIncrementEvent(getMetrics().bytesWritten, size);
         }
+
+        @Override
+        public void onResponseHeldForCapture(Duration heldDuration) {
+            meterHistogramMillis(getMetrics().responseHeldForCaptureDuration, heldDuration);
+        }
     }
 }
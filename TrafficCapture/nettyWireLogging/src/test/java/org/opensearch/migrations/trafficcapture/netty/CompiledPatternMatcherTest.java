@@ -0,0 +1,62 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CompiledPatternMatcherTest {
+    private static final List<String> INPUTS = List.of(
+        "",
+        "GET",
+        "GETS",
+        "POST",
+        "HTTP/1.0",
+        "HTTP/1x0",
+        "HTTP/2.0",
+        "/_cat/indices",
+        "/_cat",
+        "GET /_cat/indices",
+        "PUT /ephemeral/thing",
+        "DELETE /ephemeral/",
+        "curl/uploader/1.0",
+        "uploader",
+        "line\nbreak uploader",
+        "uploader\r"
+    );
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "GET",
+        "/_cat/.*",
+        ".*uploader",
+        ".*uploader.*",
+        ".*",
+        "HTTP/1\\.0",
+        "HTTP/2.*",
+        "(.* /ephemeral/.*|GET /_cat/.*)",
+        "GET|POST|",
+        "HTTP/1.0",
+        "(?i)get",
+        "[A-Z]+",
+        "a\\.*",
+        "\\d+"
+    })
+    public void testMatchesTheSameAsARegex(String regex) {
+        var pattern = Pattern.compile(regex);
+        var matcher = new CompiledPatternMatcher(regex);
+        for (var input : INPUTS) {
+            Assertions.assertEquals(pattern.matcher(input).matches(), matcher.matches(input),
+                () -> "for " + regex + " and '" + input + "'");
+            Assertions.assertEquals(pattern.matcher(input).matches(), matcher.matches(new StringBuilder(input)));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "GET", "/_cat/.*", ".*uploader.*", "HTTP/1\\.0", "(.* /ephemeral/.*|GET /_cat/.*)" })
+    public void testSimplePatternsDontNeedARegex(String regex) {
+        Assertions.assertTrue(new CompiledPatternMatcher(regex).isLiteral());
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -15,6 +16,7 @@ import java.util.stream.Stream;
 
 import org.opensearch.migrations.testutils.TestUtilities;
 import org.opensearch.migrations.testutils.WrapWithNettyLeakDetection;
+import org.opensearch.migrations.trafficcapture.CodedOutputStreamHolder;
 import org.opensearch.migrations.trafficcapture.StreamChannelConnectionCaptureSerializer;
 import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
@@ -270,6 +272,72 @@ public class ConditionallyReliableLoggingHttpHandlerTest {
         }
     }
 
+    private static EmbeddedChannel makeHoldResponseChannel(
+        TestRootContext rootContext,
+        CompletableFuture<Object> commitFuture,
+        ReliableCapturePolicy.FailureAction failureAction
+    ) throws IOException {
+        var streamManager = new TestStreamManager() {
+            @Override
+            public CompletableFuture<Object> kickoffCloseStream(CodedOutputStreamHolder holder, int index) {
+                super.kickoffCloseStream(holder, index);
+                return commitFuture;
+            }
+        };
+        var offloader = new StreamChannelConnectionCaptureSerializer("Test", "c", streamManager);
+        return new EmbeddedChannel(
+            new ConditionallyReliableLoggingHttpHandler(
+                rootContext,
+                "n",
+                "c",
+                ctx -> offloader,
+                new RequestCapturePredicate(),
+                x -> true,
+                new ReliableCapturePolicy(ReliableCapturePolicy.Mode.HOLD_RESPONSE, null, failureAction)
+            )
+        );
+    }
+
+    @Test
+    public void testThatHoldResponseModeForwardsTheRequestButHoldsTheResponseUntilCommitted() throws IOException {
+        try (var rootContext = new TestRootContext()) {
+            var commitFuture = new CompletableFuture<Object>();
+            var channel = makeHoldResponseChannel(rootContext, commitFuture,
+                ReliableCapturePolicy.FailureAction.FORWARD);
+            var requestBytes = SimpleRequests.SMALL_POST.getBytes(StandardCharsets.UTF_8);
+            channel.writeInbound(Unpooled.wrappedBuffer(requestBytes));
+            Assertions.assertEquals(1, channel.inboundMessages().size(), "the request shouldn't wait for the commit");
+
+            channel.writeOutbound(Unpooled.wrappedBuffer("response".getBytes(StandardCharsets.UTF_8)));
+            channel.runPendingTasks();
+            Assertions.assertTrue(channel.outboundMessages().isEmpty());
+
+            commitFuture.complete(1);
+            channel.runPendingTasks();
+            Assertions.assertEquals(1, channel.outboundMessages().size());
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    public void testThatHoldResponseModeClosesTheConnectionWhenTheCommitFails() throws IOException {
+        try (var rootContext = new TestRootContext()) {
+            var commitFuture = new CompletableFuture<Object>();
+            var channel = makeHoldResponseChannel(rootContext, commitFuture,
+                ReliableCapturePolicy.FailureAction.CLOSE_CONNECTION);
+            channel.writeInbound(Unpooled.wrappedBuffer(SimpleRequests.SMALL_POST.getBytes(StandardCharsets.UTF_8)));
+            var responseWrite = channel.write(Unpooled.wrappedBuffer("response".getBytes(StandardCharsets.UTF_8)));
+            channel.flush();
+
+            commitFuture.completeExceptionally(new IOException("Kafka is unavailable"));
+            channel.runPendingTasks();
+            Assertions.assertFalse(channel.isOpen());
+            Assertions.assertTrue(channel.outboundMessages().isEmpty());
+            Assertions.assertFalse(responseWrite.isSuccess());
+            channel.releaseInbound();
+        }
+    }
+
     private static Stream<TrafficObservation> skipReadsBeforeDrop(List<TrafficObservation> observations) {
         var sawRequestDropped = new AtomicBoolean(false);
         return observations.stream().dropWhile(o -> {
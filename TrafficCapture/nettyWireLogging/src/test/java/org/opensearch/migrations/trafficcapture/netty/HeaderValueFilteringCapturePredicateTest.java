@@ -1,5 +1,8 @@
 package org.opensearch.migrations.trafficcapture.netty;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -40,6 +43,24 @@ class HeaderValueFilteringCapturePredicateTest {
             build(b->b.methodAndPathPattern("POST /thing/.*")).apply(req));
     }
 
+    @Test
+    public void countsTheRuleThatSuppressedEachRequest() {
+        var reportedRules = new ArrayList<String>();
+        var predicate = build(b->b.methodPattern("GET").suppressCaptureHeaderPairs(Map.of("User-Agent", ".*bot.*"))
+            .listener(new HeaderValueFilteringCapturePredicate.IListener() {
+                @Override
+                public void onCaptureSuppressed(String ruleName) {
+                    reportedRules.add(ruleName);
+                }
+            }));
+        var headers = new DefaultHttpHeaders().add("User-Agent", "a-bot/1.0");
+        predicate.apply(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/", headers));
+        predicate.apply(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/", headers));
+        predicate.apply(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "/", new DefaultHttpHeaders()));
+        Assertions.assertEquals(Map.of("method", 1L, "header:User-Agent", 1L), predicate.getRuleHitCounts());
+        Assertions.assertEquals(List.of("method", "header:User-Agent"), reportedRules);
+    }
+
     private static HeaderValueFilteringCapturePredicate
     build(Consumer<HeaderValueFilteringCapturePredicate.HeaderValueFilteringCapturePredicateBuilder> filler) {
         var b = HeaderValueFilteringCapturePredicate.builder();
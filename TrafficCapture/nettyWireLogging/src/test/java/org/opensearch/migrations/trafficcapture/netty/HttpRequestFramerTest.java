@@ -0,0 +1,134 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMessageDecoderResult;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HttpRequestFramerTest {
+    private static final String CHUNKED_POST = "POST /_bulk HTTP/1.1\r\n"
+        + "Host: localhost\r\n"
+        + "Transfer-Encoding: chunked\r\n"
+        + "User-Agent: framer-test\r\n"
+        + "\r\n"
+        + "5;ext=1\r\nhello\r\n"
+        + "1A\r\nabcdefghijklmnopqrstuvwxyz\r\n"
+        + "0\r\n"
+        + "X-Trailer: done\r\n"
+        + "\r\n";
+
+    private static class RecordingPredicate extends RequestCapturePredicate {
+        final List<HttpRequest> requestsSeen = new ArrayList<>();
+
+        RecordingPredicate(String... headerNames) {
+            super(new PassThruHttpHeaders.HttpHeadersToPreserve(headerNames));
+        }
+
+        @Override
+        public CaptureDirective apply(HttpRequest request) {
+            requestsSeen.add(request);
+            return "uploader".equals(request.headers().get("User-Agent"))
+                ? CaptureDirective.DROP
+                : CaptureDirective.CAPTURE;
+        }
+    }
+
+    private static List<HttpRequest> feedAll(HttpRequestFramer framer, String traffic, boolean oneByteAtATime) {
+        var bytes = traffic.getBytes(StandardCharsets.UTF_8);
+        var completed = new ArrayList<HttpRequest>();
+        int step = oneByteAtATime ? 1 : bytes.length;
+        for (int i = 0; i < bytes.length; i += step) {
+            var buf = Unpooled.wrappedBuffer(bytes, i, Math.min(step, bytes.length - i));
+            framer.feed(buf);
+            Assertions.assertEquals(0, buf.readerIndex());
+            if (framer.haveParsedFullRequest()) {
+                completed.add(framer.resetCompletedRequest());
+            }
+        }
+        return completed;
+    }
+
+    private static HttpMessageDecoderResult decodeWithNetty(String request) {
+        var channel = new EmbeddedChannel(new HttpRequestDecoder());
+        channel.writeInbound(Unpooled.wrappedBuffer(request.getBytes(StandardCharsets.UTF_8)));
+        HttpRequest decoded = channel.readInbound();
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+        channel.finishAndReleaseAll();
+        return (HttpMessageDecoderResult) decoded.decoderResult();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    public void testLengthsMatchNettysDecoder(boolean oneByteAtATime) {
+        for (var request : List.of(SimpleRequests.SMALL_POST, SimpleRequests.HEALTH_CHECK, CHUNKED_POST)) {
+            var framer = new HttpRequestFramer(new RecordingPredicate(), new LoggingHttpHandler.CaptureState());
+            var completed = feedAll(framer, request, oneByteAtATime);
+            Assertions.assertEquals(1, completed.size());
+            var expected = decodeWithNetty(request);
+            Assertions.assertEquals(expected.initialLineLength(), framer.getCompletedInitialLineLength());
+            Assertions.assertEquals(expected.headerSize(), framer.getCompletedHeadersLength());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    public void testPipelinedRequestsAreEachFramed(boolean oneByteAtATime) {
+        var predicate = new RecordingPredicate();
+        var framer = new HttpRequestFramer(predicate, new LoggingHttpHandler.CaptureState());
+        var completed = feedAll(framer, CHUNKED_POST + "GET / HTTP/1.1\r\n\r\n" + SimpleRequests.SMALL_POST,
+            oneByteAtATime);
+        if (oneByteAtATime) {
+            Assertions.assertEquals(3, completed.size());
+        } else {
+            // only the last request is held when several complete within the same buffer
+            Assertions.assertEquals(1, completed.size());
+        }
+        Assertions.assertEquals(3, predicate.requestsSeen.size());
+        Assertions.assertEquals("/_bulk", predicate.requestsSeen.get(0).uri());
+        Assertions.assertEquals("/", predicate.requestsSeen.get(1).uri());
+        Assertions.assertEquals("POST", predicate.requestsSeen.get(2).method().name());
+        Assertions.assertFalse(framer.haveParsedFullRequest());
+    }
+
+    @Test
+    public void testOnlyRequestedHeadersAreKept() {
+        var predicate = new RecordingPredicate("user-agent");
+        var framer = new HttpRequestFramer(predicate, new LoggingHttpHandler.CaptureState());
+        var request = feedAll(framer, CHUNKED_POST, false).get(0);
+        Assertions.assertEquals("framer-test", request.headers().get("User-Agent"));
+        Assertions.assertNull(request.headers().get("Host"));
+        Assertions.assertNull(request.headers().get("X-Trailer"));
+    }
+
+    @Test
+    public void testCaptureStateFollowsThePredicate() {
+        var captureState = new LoggingHttpHandler.CaptureState();
+        var framer = new HttpRequestFramer(new RecordingPredicate("User-Agent"), captureState);
+        feedAll(framer, SimpleRequests.HEALTH_CHECK, false);
+        Assertions.assertFalse(captureState.shouldCapture());
+        captureState.advanceStateModelIntoResponseGather();
+        feedAll(framer, SimpleRequests.SMALL_POST, false);
+        Assertions.assertTrue(captureState.shouldCapture());
+    }
+
+    @Test
+    public void testMalformedRequestStopsFraming() {
+        var framer = new HttpRequestFramer(new RecordingPredicate(), new LoggingHttpHandler.CaptureState());
+        var completed = feedAll(framer, "POST / HTTP/1.1\r\nContent-Length: nope\r\n\r\n" + SimpleRequests.SMALL_POST,
+            false);
+        Assertions.assertTrue(completed.isEmpty());
+    }
+}
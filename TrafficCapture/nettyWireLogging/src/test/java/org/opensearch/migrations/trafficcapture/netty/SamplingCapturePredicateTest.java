@@ -0,0 +1,142 @@
+package org.opensearch.migrations.trafficcapture.netty;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SamplingCapturePredicateTest {
+    private static final InetSocketAddress CLIENT_A = new InetSocketAddress("127.0.0.1", 1234);
+    private static final InetSocketAddress CLIENT_B = new InetSocketAddress("127.0.0.2", 1234);
+
+    private final AtomicLong nanoTime = new AtomicLong(1000);
+    private final AtomicInteger sampledOutCount = new AtomicInteger();
+    private final AtomicInteger clientRateLimitedCount = new AtomicInteger();
+    private final SamplingCapturePredicate.IListener listener = new SamplingCapturePredicate.IListener() {
+        @Override
+        public void onRequestSampledOut() {
+            sampledOutCount.incrementAndGet();
+        }
+
+        @Override
+        public void onRequestRateLimited(boolean isClientLimit) {
+            if (isClientLimit) {
+                clientRateLimitedCount.incrementAndGet();
+            }
+        }
+    };
+
+    private static HttpRequest makeRequest(HttpMethod method) {
+        return new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, "/", new DefaultHttpHeaders());
+    }
+
+    private SamplingCapturePredicate makePredicate(double samplePercent, long maxBytesPerSecond,
+                                                   long maxBytesPerSecondPerClient) {
+        return new SamplingCapturePredicate(new RequestCapturePredicate(), samplePercent, maxBytesPerSecond,
+            maxBytesPerSecondPerClient, true, listener, nanoTime::get);
+    }
+
+    @Test
+    void unsampledConnectionsOnlyCaptureMutatingRequests() {
+        var connectionPredicate = makePredicate(0, 0, 0).forConnection(CLIENT_A);
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.DROP,
+            connectionPredicate.apply(makeRequest(HttpMethod.GET)));
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.CAPTURE,
+            connectionPredicate.apply(makeRequest(HttpMethod.PUT)));
+        Assertions.assertEquals(1, sampledOutCount.get());
+
+        var sampledPredicate = makePredicate(100, 0, 0).forConnection(CLIENT_A);
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.CAPTURE,
+            sampledPredicate.apply(makeRequest(HttpMethod.GET)));
+    }
+
+    @Test
+    void suppressionRulesStillApply() {
+        var suppressGetsAndPuts = HeaderValueFilteringCapturePredicate.builder().methodPattern("GET|PUT").build();
+        var connectionPredicate = new SamplingCapturePredicate(suppressGetsAndPuts, 100, 0, 0, true, listener)
+            .forConnection(CLIENT_A);
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.DROP,
+            connectionPredicate.apply(makeRequest(HttpMethod.PUT)));
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.CAPTURE,
+            connectionPredicate.apply(makeRequest(HttpMethod.POST)));
+    }
+
+    @Test
+    void clientBudgetsAreKeptApartAndRefill() {
+        var predicate = makePredicate(100, 0, 1000);
+        var clientAPredicate = predicate.forConnection(CLIENT_A);
+        var clientBPredicate = predicate.forConnection(CLIENT_B);
+        var anotherClientAPredicate = predicate.forConnection(new InetSocketAddress("127.0.0.1", 5678));
+        Assertions.assertEquals(2, predicate.getTrackedClientCount());
+
+        clientAPredicate.onBytesCaptured(1500);
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.DROP,
+            anotherClientAPredicate.apply(makeRequest(HttpMethod.GET)));
+        Assertions.assertEquals(1, clientRateLimitedCount.get());
+        // mutating requests don't wait for the budget, but they are still charged for
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.CAPTURE,
+            clientAPredicate.apply(makeRequest(HttpMethod.POST)));
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.CAPTURE,
+            clientBPredicate.apply(makeRequest(HttpMethod.GET)));
+
+        // the 500 bytes of debt take half a second to pay back
+        nanoTime.addAndGet(400_000_000L);
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.DROP,
+            clientAPredicate.apply(makeRequest(HttpMethod.GET)));
+        nanoTime.addAndGet(300_000_000L);
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.CAPTURE,
+            clientAPredicate.apply(makeRequest(HttpMethod.GET)));
+    }
+
+    @Test
+    void clientsBeyondTheTrackedLimitShareABudget() throws UnknownHostException {
+        var predicate = makePredicate(100, 0, 1000);
+        for (int i = 0; i < SamplingCapturePredicate.MAX_TRACKED_CLIENTS; ++i) {
+            var address = InetAddress.getByAddress(new byte[] { 10, (byte) (i >> 16), (byte) (i >> 8), (byte) i });
+            predicate.forConnection(new InetSocketAddress(address, 1234)).onBytesCaptured(1);
+        }
+        Assertions.assertEquals(SamplingCapturePredicate.MAX_TRACKED_CLIENTS, predicate.getTrackedClientCount());
+
+        // every tracked client is in debt, so nothing can be forgotten to make room for new ones
+        var clientAPredicate = predicate.forConnection(CLIENT_A);
+        var clientBPredicate = predicate.forConnection(CLIENT_B);
+        Assertions.assertEquals(SamplingCapturePredicate.MAX_TRACKED_CLIENTS, predicate.getTrackedClientCount());
+        clientAPredicate.onBytesCaptured(1500);
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.DROP,
+            clientBPredicate.apply(makeRequest(HttpMethod.GET)));
+
+        // once the debts have been paid back, those budgets are forgotten when the next client connects
+        nanoTime.addAndGet(2_000_000_000L);
+        predicate.forConnection(CLIENT_A);
+        Assertions.assertEquals(1, predicate.getTrackedClientCount());
+    }
+
+    @Test
+    void globalBudgetIsSharedByAllClients() {
+        var predicate = makePredicate(100, 1000, 0);
+        var clientAPredicate = predicate.forConnection(CLIENT_A);
+        var clientBPredicate = predicate.forConnection(CLIENT_B);
+        clientAPredicate.onBytesCaptured(1000);
+        Assertions.assertEquals(RequestCapturePredicate.CaptureDirective.DROP,
+            clientBPredicate.apply(makeRequest(HttpMethod.GET)));
+        Assertions.assertEquals(0, clientRateLimitedCount.get());
+    }
+
+    @Test
+    void budgetsDontAccumulateMoreThanOneSecondOfBytes() {
+        var budget = new SamplingCapturePredicate.ByteBudget(1000, nanoTime::get);
+        nanoTime.addAndGet(60_000_000_000L);
+        Assertions.assertTrue(budget.isFull());
+        budget.charge(1001);
+        Assertions.assertFalse(budget.hasBytesAvailable());
+    }
+}
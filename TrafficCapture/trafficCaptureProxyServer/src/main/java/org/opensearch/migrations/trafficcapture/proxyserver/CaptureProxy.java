@@ -37,12 +37,16 @@ import org.opensearch.migrations.trafficcapture.kafkaoffloader.KafkaCaptureFacto
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.KafkaConfig;
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.KafkaConfig.KafkaParameters;
 import org.opensearch.migrations.trafficcapture.netty.HeaderValueFilteringCapturePredicate;
+import org.opensearch.migrations.trafficcapture.netty.ReliableCapturePolicy;
 import org.opensearch.migrations.trafficcapture.netty.RequestCapturePredicate;
+import org.opensearch.migrations.trafficcapture.netty.SamplingCapturePredicate;
+import org.opensearch.migrations.trafficcapture.proxyserver.netty.BacksideCircuitBreaker;
 import org.opensearch.migrations.trafficcapture.proxyserver.netty.BacksideConnectionPool;
 import org.opensearch.migrations.trafficcapture.proxyserver.netty.HeaderAdderHandler;
 import org.opensearch.migrations.trafficcapture.proxyserver.netty.HeaderRemoverHandler;
 import org.opensearch.migrations.trafficcapture.proxyserver.netty.NettyScanningHttpProxy;
 import org.opensearch.migrations.trafficcapture.proxyserver.netty.ProxyChannelInitializer;
+import org.opensearch.migrations.utils.NettyTransport;
 import org.opensearch.migrations.utils.ProcessHelpers;
 import org.opensearch.security.ssl.DefaultSecurityKeyStore;
 import org.opensearch.security.ssl.util.SSLConfigConstants;
@@ -61,6 +65,8 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
 import lombok.Lombok;
 import lombok.NonNull;
 import lombok.SneakyThrows;
@@ -128,6 +134,26 @@ public class CaptureProxy {
                 + "how long after connection should the be recycled "
                 + "(closed with a new connection taking its place)")
         public String destinationConnectionPoolTimeout = "PT30S";
+        @Parameter(required = false,
+            names = { "--destinationConnectionHealthCheckInterval" },
+            arity = 1,
+            description = "How often (as an ISO-8601 duration) the destination connection pool checks for "
+                + "connections that the destination has closed so that they can be replaced before a client "
+                + "gets one of them.")
+        public String destinationConnectionHealthCheckInterval = "PT5S";
+        @Parameter(required = false,
+            names = { "--destinationCircuitBreakerFailureThreshold" },
+            arity = 1,
+            description = "After this many connection attempts to the destination fail in a row, new client "
+                + "connections are closed immediately for destinationCircuitBreakerOpenDuration.  "
+                + "0 disables the circuit breaker.")
+        public int destinationCircuitBreakerFailureThreshold = 5;
+        @Parameter(required = false,
+            names = { "--destinationCircuitBreakerOpenDuration" },
+            arity = 1,
+            description = "How long (as an ISO-8601 duration) new client connections are rejected once the "
+                + "destination circuit breaker has opened.")
+        public String destinationCircuitBreakerOpenDuration = "PT5S";
         @Parameter(required = false,
             names = { "--otelCollectorEndpoint" },
             arity = 1,
@@ -172,11 +198,66 @@ public class CaptureProxy {
                 "E.g. '(.* /ephemeral/*|GET /_cat/.*)' to ignore capturing all traffic for '/ephemeral' AND " +
                 "all GET requests to /_cat/.*")
         public String suppressMethodAndPath;
+        @Parameter(required = false,
+            names = "--captureConnectionSamplePercent",
+            arity = 1,
+            description = "The percentage (0-100) of client connections whose requests are captured.  Requests on "
+                + "the other connections are passed through to the service without being captured, except for "
+                + "mutating requests unless --sampleMutatingRequests is set.")
+        public double captureConnectionSamplePercent = 100;
+        @Parameter(required = false,
+            names = "--maxCaptureBytesPerSecond",
+            arity = 1,
+            description = "Once this many bytes per second are being captured across all connections, new requests "
+                + "are passed through without being captured until the rate falls.  0 means no limit.")
+        public long maxCaptureBytesPerSecond = 0;
+        @Parameter(required = false,
+            names = "--maxCaptureBytesPerSecondPerClient",
+            arity = 1,
+            description = "Like --maxCaptureBytesPerSecond, but for the connections from each client address.  "
+                + "0 means no limit.")
+        public long maxCaptureBytesPerSecondPerClient = 0;
+        @Parameter(required = false,
+            names = "--sampleMutatingRequests",
+            arity = 0,
+            description = "If enabled, mutating requests (POST, PUT, DELETE and PATCH) are sampled and rate limited "
+                + "like any other request.  Otherwise they are always captured unless a suppression rule matches.")
+        public boolean sampleMutatingRequests;
         @Parameter(required = false,
             names = { "--kafkaTopic" },
             arity = 1,
             description = "Name of the topic to write captured traffic to.")
         public String kafakTopicName = KafkaCaptureFactory.DEFAULT_TOPIC_NAME_FOR_TRAFFIC;
+        @Parameter(required = false,
+            names = { "--nettyTransport" },
+            arity = 1,
+            description = "I/O transport for client and destination connections: AUTO, EPOLL, KQUEUE or NIO.  "
+                + "AUTO uses a native transport (epoll on Linux, kqueue on macOS) when it's available and NIO "
+                + "otherwise.")
+        public NettyTransport nettyTransport = NettyTransport.AUTO;
+        @Parameter(required = false,
+            names = { "--reliableCaptureMode" },
+            arity = 1,
+            description = "How mutating requests (e.g. POST, PUT, DELETE) are kept from completing before their "
+                + "capture has been committed.  BLOCK_REQUEST waits for the commit before forwarding the request "
+                + "to the destination.  HOLD_RESPONSE forwards the request immediately and only holds back the "
+                + "response to the client, overlapping the commit with the destination's processing time.")
+        public ReliableCapturePolicy.Mode reliableCaptureMode = ReliableCapturePolicy.Mode.BLOCK_REQUEST;
+        @Parameter(required = false,
+            names = { "--reliableCaptureTimeout" },
+            arity = 1,
+            description = "How long (as an ISO-8601 duration, e.g. PT5S) to wait for the capture of a mutating "
+                + "request to be committed before treating the commit as failed.  When this is not set, the "
+                + "proxy waits for as long as it takes.")
+        public String reliableCaptureTimeout;
+        @Parameter(required = false,
+            names = { "--reliableCaptureFailureAction" },
+            arity = 1,
+            description = "What to do when the capture of a mutating request couldn't be committed.  FORWARD "
+                + "logs the failure and carries on.  CLOSE_CONNECTION closes the client's connection without "
+                + "forwarding anything more on it.")
+        public ReliableCapturePolicy.FailureAction reliableCaptureFailureAction =
+            ReliableCapturePolicy.FailureAction.FORWARD;
         @ParametersDelegate
         public KafkaParameters kafkaParameters = new KafkaParameters();
     }
@@ -273,13 +354,18 @@ public class CaptureProxy {
         if (params.traceDirectory != null) {
             return new FileConnectionCaptureFactory(nodeId, params.traceDirectory, params.maximumTrafficStreamSize);
         } else if (params.kafkaParameters.kafkaConnection != null) {
-            return new KafkaCaptureFactory(
-                rootContext,
-                nodeId,
-                new KafkaProducer<>(KafkaConfig.buildKafkaProperties(params.kafkaParameters)),
-                params.kafakTopicName,
-                params.maximumTrafficStreamSize
-            );
+            var producer = new KafkaProducer<String, byte[]>(KafkaConfig.buildKafkaProperties(params.kafkaParameters));
+            return KafkaCaptureFactory.builder()
+                .rootScope(rootContext)
+                .nodeId(nodeId)
+                .producer(producer)
+                .topicNameForTraffic(params.kafakTopicName)
+                .messageSize(params.maximumTrafficStreamSize)
+                .maxBatchBytes(params.kafkaParameters.kafkaBatchMaxBytes)
+                .batchLinger(Duration.ofMillis(params.kafkaParameters.kafkaBatchLingerMs))
+                .payloadCompressor(KafkaConfig.buildPayloadCompressor(params.kafkaParameters))
+                .spillBuffer(KafkaConfig.buildSpillBuffer(params.kafkaParameters, producer, rootContext))
+                .build();
         } else if (params.noCapture) {
             return getNullConnectionCaptureFactory();
         } else {
@@ -341,10 +427,13 @@ public class CaptureProxy {
 
         var params = parseArgs(args);
         var backsideUri = convertStringToUri(params.backsideUriString);
+        var nettyTransport = params.nettyTransport.resolve();
+        log.atInfo().setMessage("Using the {} netty transport").addArgument(nettyTransport).log();
 
         var ctx = new RootCaptureContext(
             RootOtelContext.initializeOpenTelemetryWithCollectorOrAsNoop(params.otelCollectorEndpoint, "capture",
-                ProcessHelpers.getNodeInstanceName()),
+                ProcessHelpers.getNodeInstanceName(),
+                Attributes.of(AttributeKey.stringKey(NettyTransport.RESOURCE_ATTRIBUTE_NAME), nettyTransport.name())),
             new CompositeContextTracker(new ActiveContextTracker(), new ActiveContextTrackerByActivityType())
         );
 
@@ -355,7 +444,8 @@ public class CaptureProxy {
             .filter(sks -> sks.sslHTTPProvider != null);
 
         sksOp.ifPresent(DefaultSecurityKeyStore::initHttpSSLConfig);
-        var proxy = new NettyScanningHttpProxy(params.frontsidePort);
+        var proxy = new NettyScanningHttpProxy(params.frontsidePort, nettyTransport);
+        final IConnectionCaptureFactory<?> connectionCaptureFactory;
         try {
             var pooledConnectionTimeout = params.destinationConnectionPoolSize == 0
                 ? Duration.ZERO
@@ -364,7 +454,13 @@ public class CaptureProxy {
                 backsideUri,
                 loadBacksideSslContext(backsideUri, params.allowInsecureConnectionsToBackside),
                 params.destinationConnectionPoolSize,
-                pooledConnectionTimeout
+                pooledConnectionTimeout,
+                Duration.parse(params.destinationConnectionHealthCheckInterval),
+                new BacksideCircuitBreaker(
+                    params.destinationCircuitBreakerFailureThreshold,
+                    Duration.parse(params.destinationCircuitBreakerOpenDuration)
+                ),
+                ctx
             );
             Supplier<SSLEngine> sslEngineSupplier = sksOp.map(sks -> (Supplier<SSLEngine>) () -> {
                 try {
@@ -379,10 +475,14 @@ public class CaptureProxy {
                 .methodAndPathPattern(params.suppressMethodAndPath)
                 .protocolPattern("HTTP/2.*")
                 .suppressCaptureHeaderPairs(convertPairListToMap(params.suppressCaptureHeaderPairs))
+                .listener(ctx)
                 .build();
+            connectionCaptureFactory = getConnectionCaptureFactory(params, ctx);
             var proxyChannelInitializer =
-                buildProxyChannelInitializer(ctx, backsideConnectionPool, sslEngineSupplier, headerCapturePredicate,
-                    params.headerOverrides, getConnectionCaptureFactory(params, ctx));
+                buildProxyChannelInitializer(ctx, backsideConnectionPool, sslEngineSupplier,
+                    buildSamplingCapturePredicate(params, headerCapturePredicate, ctx),
+                    params.headerOverrides, connectionCaptureFactory,
+                    buildReliableCapturePolicy(params));
             proxy.start(proxyChannelInitializer, params.numThreads);
         } catch (Exception e) {
             log.atError().setCause(e).setMessage("Caught exception while setting up the server and rethrowing").log();
@@ -393,9 +493,15 @@ public class CaptureProxy {
                 System.err.println("Received shutdown signal.  Trying to shutdown cleanly");
                 proxy.stop();
                 System.err.println("Done stopping the proxy.");
+                // e.g. to send the streams that are still waiting to be batched
+                if (connectionCaptureFactory instanceof AutoCloseable) {
+                    ((AutoCloseable) connectionCaptureFactory).close();
+                }
             } catch (InterruptedException e) {
                 System.err.println("Caught InterruptedException while shutting down, resetting interrupt status: " + e);
                 Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("Caught exception while closing the connection capture factory: " + e);
             }
         }));
         // This loop just gives the main() function something to do while the netty event loops
@@ -403,13 +509,43 @@ public class CaptureProxy {
         proxy.waitForClose();
     }
 
+    /**
+     * @return suppressionPredicate itself when every connection is sampled and there are no capture budgets
+     */
+    static RequestCapturePredicate buildSamplingCapturePredicate(Parameters params,
+                                                                 RequestCapturePredicate suppressionPredicate,
+                                                                 SamplingCapturePredicate.IListener listener) {
+        if (params.captureConnectionSamplePercent >= 100
+            && params.maxCaptureBytesPerSecond <= 0
+            && params.maxCaptureBytesPerSecondPerClient <= 0) {
+            return suppressionPredicate;
+        }
+        return new SamplingCapturePredicate(
+            suppressionPredicate,
+            params.captureConnectionSamplePercent,
+            params.maxCaptureBytesPerSecond,
+            params.maxCaptureBytesPerSecondPerClient,
+            !params.sampleMutatingRequests,
+            listener
+        );
+    }
+
+    static ReliableCapturePolicy buildReliableCapturePolicy(Parameters params) {
+        return new ReliableCapturePolicy(
+            params.reliableCaptureMode,
+            Optional.ofNullable(params.reliableCaptureTimeout).map(Duration::parse).orElse(null),
+            params.reliableCaptureFailureAction
+        );
+    }
+
     @SuppressWarnings("java:S4030") // Collections removeStrings and addBufs are incorrectly reported as being unused
     static <T> ProxyChannelInitializer<T> buildProxyChannelInitializer(RootCaptureContext rootContext,
                                                                 BacksideConnectionPool backsideConnectionPool,
                                                                 Supplier<SSLEngine> sslEngineSupplier,
                                                                 @NonNull RequestCapturePredicate headerCapturePredicate,
                                                                 List<String> headerOverridesArgs,
-                                                                IConnectionCaptureFactory<T> connectionFactory)
+                                                                IConnectionCaptureFactory<T> connectionFactory,
+                                                                ReliableCapturePolicy reliableCapturePolicy)
     {
         var headers = new ArrayList<>(convertPairListToMap(headerOverridesArgs).entrySet());
         Collections.reverse(headers);
@@ -429,7 +565,8 @@ public class CaptureProxy {
             backsideConnectionPool,
             sslEngineSupplier,
             connectionFactory,
-            headerCapturePredicate
+            headerCapturePredicate,
+            reliableCapturePolicy
         ) {
             @Override
             protected void initChannel(@NonNull SocketChannel ch) throws IOException {
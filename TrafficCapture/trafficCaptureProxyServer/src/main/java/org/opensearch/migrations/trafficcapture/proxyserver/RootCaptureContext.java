@@ -1,18 +1,127 @@
 package org.opensearch.migrations.trafficcapture.proxyserver;
 
+import java.time.Duration;
+
 import org.opensearch.migrations.tracing.IContextTracker;
+import org.opensearch.migrations.trafficcapture.kafkaoffloader.KafkaSpillBuffer;
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.tracing.IRootKafkaOffloaderContext;
 import org.opensearch.migrations.trafficcapture.kafkaoffloader.tracing.KafkaRecordContext;
+import org.opensearch.migrations.trafficcapture.netty.HeaderValueFilteringCapturePredicate;
+import org.opensearch.migrations.trafficcapture.netty.SamplingCapturePredicate;
 import org.opensearch.migrations.trafficcapture.netty.tracing.RootWireLoggingContext;
+import org.opensearch.migrations.trafficcapture.proxyserver.netty.BacksideConnectionPool;
 
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
+import io.opentelemetry.api.metrics.Meter;
 import lombok.Getter;
 
-public class RootCaptureContext extends RootWireLoggingContext implements IRootKafkaOffloaderContext {
+public class RootCaptureContext extends RootWireLoggingContext
+    implements
+        IRootKafkaOffloaderContext,
+        BacksideConnectionPool.IListener,
+        KafkaSpillBuffer.IListener,
+        SamplingCapturePredicate.IListener,
+        HeaderValueFilteringCapturePredicate.IListener {
 
     public static final String SCOPE_NAME = "captureProxy";
     @Getter
     public final KafkaRecordContext.MetricInstruments kafkaOffloadingInstruments;
+    @Getter
+    public final BacksideConnectionInstruments backsideConnectionInstruments;
+    @Getter
+    public final KafkaSpillInstruments kafkaSpillInstruments;
+    @Getter
+    public final CaptureSamplingInstruments captureSamplingInstruments;
+    @Getter
+    public final CaptureSuppressionInstruments captureSuppressionInstruments;
+
+    public static class BacksideConnectionInstruments {
+        public static final String POOLED_CONNECTION_HITS = "backsidePooledConnectionHits";
+        public static final String POOLED_CONNECTION_MISSES = "backsidePooledConnectionMisses";
+        public static final String CONNECT_DURATION = "backsideConnectDuration";
+        public static final String CONNECT_FAILURES = "backsideConnectFailures";
+        public static final String IDLE_CONNECTIONS_EVICTED = "backsideIdleConnectionsEvicted";
+        public static final String CONNECTIONS_REJECTED = "backsideConnectionsRejectedByCircuitBreaker";
+
+        private final LongCounter pooledConnectionHits;
+        private final LongCounter pooledConnectionMisses;
+        private final DoubleHistogram connectDuration;
+        private final LongCounter connectFailures;
+        private final LongCounter idleConnectionsEvicted;
+        private final LongCounter connectionsRejected;
+
+        private BacksideConnectionInstruments(Meter meter) {
+            pooledConnectionHits = meter.counterBuilder(POOLED_CONNECTION_HITS).build();
+            pooledConnectionMisses = meter.counterBuilder(POOLED_CONNECTION_MISSES).build();
+            connectDuration = meter.histogramBuilder(CONNECT_DURATION).setUnit("ms").build();
+            connectFailures = meter.counterBuilder(CONNECT_FAILURES).build();
+            idleConnectionsEvicted = meter.counterBuilder(IDLE_CONNECTIONS_EVICTED).build();
+            connectionsRejected = meter.counterBuilder(CONNECTIONS_REJECTED).build();
+        }
+    }
+
+    public static class KafkaSpillInstruments {
+        public static final String RECORDS_SPILLED = "kafkaRecordsSpilled";
+        public static final String RECORDS_DRAINED = "kafkaSpilledRecordsSent";
+        public static final String RECORDS_DROPPED = "kafkaRecordsDroppedWithFullSpill";
+        public static final String RECORDS_REJECTED = "kafkaRecordsRejected";
+        public static final String SPILL_BYTES = "kafkaSpillBytes";
+        public static final String SPILL_LAG = "kafkaSpillLag";
+
+        private final LongCounter recordsSpilled;
+        private final LongCounter recordsDrained;
+        private final LongCounter recordsDropped;
+        private final LongCounter recordsRejected;
+        private final LongUpDownCounter spillBytes;
+        private final DoubleHistogram spillLag;
+
+        private KafkaSpillInstruments(Meter meter) {
+            recordsSpilled = meter.counterBuilder(RECORDS_SPILLED).build();
+            recordsDrained = meter.counterBuilder(RECORDS_DRAINED).build();
+            recordsDropped = meter.counterBuilder(RECORDS_DROPPED).build();
+            recordsRejected = meter.counterBuilder(RECORDS_REJECTED).build();
+            spillBytes = meter.upDownCounterBuilder(SPILL_BYTES).setUnit("bytes").build();
+            spillLag = meter.histogramBuilder(SPILL_LAG).setUnit("ms").build();
+        }
+    }
+
+    public static class CaptureSamplingInstruments {
+        public static final String CONNECTIONS_SAMPLED = "captureConnectionsSampled";
+        public static final String CONNECTIONS_NOT_SAMPLED = "captureConnectionsNotSampled";
+        public static final String REQUESTS_NOT_SAMPLED = "captureRequestsNotSampled";
+        public static final String REQUESTS_RATE_LIMITED = "captureRequestsRateLimited";
+        public static final String REQUESTS_RATE_LIMITED_FOR_CLIENT = "captureRequestsRateLimitedForClient";
+
+        private final LongCounter connectionsSampled;
+        private final LongCounter connectionsNotSampled;
+        private final LongCounter requestsNotSampled;
+        private final LongCounter requestsRateLimited;
+        private final LongCounter requestsRateLimitedForClient;
+
+        private CaptureSamplingInstruments(Meter meter) {
+            connectionsSampled = meter.counterBuilder(CONNECTIONS_SAMPLED).build();
+            connectionsNotSampled = meter.counterBuilder(CONNECTIONS_NOT_SAMPLED).build();
+            requestsNotSampled = meter.counterBuilder(REQUESTS_NOT_SAMPLED).build();
+            requestsRateLimited = meter.counterBuilder(REQUESTS_RATE_LIMITED).build();
+            requestsRateLimitedForClient = meter.counterBuilder(REQUESTS_RATE_LIMITED_FOR_CLIENT).build();
+        }
+    }
+
+    public static class CaptureSuppressionInstruments {
+        public static final String REQUESTS_SUPPRESSED = "captureRequestsSuppressed";
+        public static final AttributeKey<String> RULE_ATTR = AttributeKey.stringKey("rule");
+
+        private final LongCounter requestsSuppressed;
+
+        private CaptureSuppressionInstruments(Meter meter) {
+            requestsSuppressed = meter.counterBuilder(REQUESTS_SUPPRESSED).build();
+        }
+    }
 
     public RootCaptureContext(OpenTelemetry openTelemetry, IContextTracker contextTracker) {
         this(openTelemetry, contextTracker, SCOPE_NAME);
@@ -22,5 +131,90 @@ public class RootCaptureContext extends RootWireLoggingContext implements IRootK
         super(openTelemetry, contextTracker, scopeName);
         var meter = this.getMeterProvider().get(scopeName);
         kafkaOffloadingInstruments = KafkaRecordContext.makeMetrics(meter);
+        backsideConnectionInstruments = new BacksideConnectionInstruments(meter);
+        kafkaSpillInstruments = new KafkaSpillInstruments(meter);
+        captureSamplingInstruments = new CaptureSamplingInstruments(meter);
+        captureSuppressionInstruments = new CaptureSuppressionInstruments(meter);
+    }
+
+    @Override
+    public void onPooledConnectionUsed() {
+        meterIncrementEvent(backsideConnectionInstruments.pooledConnectionHits);
+    }
+
+    @Override
+    public void onPooledConnectionMissed() {
+        meterIncrementEvent(backsideConnectionInstruments.pooledConnectionMisses);
+    }
+
+    @Override
+    public void onConnected(Duration connectDuration) {
+        meterHistogramMillis(backsideConnectionInstruments.connectDuration, connectDuration);
+    }
+
+    @Override
+    public void onConnectFailed(Duration connectDuration) {
+        meterIncrementEvent(backsideConnectionInstruments.connectFailures);
+    }
+
+    @Override
+    public void onIdleConnectionEvicted() {
+        meterIncrementEvent(backsideConnectionInstruments.idleConnectionsEvicted);
+    }
+
+    @Override
+    public void onConnectionRejected() {
+        meterIncrementEvent(backsideConnectionInstruments.connectionsRejected);
+    }
+
+    @Override
+    public void onRecordSpilled(int bytes) {
+        meterIncrementEvent(kafkaSpillInstruments.recordsSpilled);
+    }
+
+    @Override
+    public void onRecordDrained(Duration timeInSpill) {
+        meterIncrementEvent(kafkaSpillInstruments.recordsDrained);
+        meterHistogramMillis(kafkaSpillInstruments.spillLag, timeInSpill);
+    }
+
+    @Override
+    public void onRecordDropped() {
+        meterIncrementEvent(kafkaSpillInstruments.recordsDropped);
+    }
+
+    @Override
+    public void onRecordRejected() {
+        meterIncrementEvent(kafkaSpillInstruments.recordsRejected);
+    }
+
+    @Override
+    public void onSpillSizeChanged(long deltaBytes) {
+        meterDeltaEvent(kafkaSpillInstruments.spillBytes, deltaBytes);
+    }
+
+    @Override
+    public void onConnectionSampled(boolean isCaptured) {
+        meterIncrementEvent(isCaptured
+            ? captureSamplingInstruments.connectionsSampled
+            : captureSamplingInstruments.connectionsNotSampled);
+    }
+
+    @Override
+    public void onRequestSampledOut() {
+        meterIncrementEvent(captureSamplingInstruments.requestsNotSampled);
+    }
+
+    @Override
+    public void onRequestRateLimited(boolean isClientLimit) {
+        meterIncrementEvent(isClientLimit
+            ? captureSamplingInstruments.requestsRateLimitedForClient
+            : captureSamplingInstruments.requestsRateLimited);
+    }
+
+    @Override
+    public void onCaptureSuppressed(String ruleName) {
+        meterIncrementEvent(captureSuppressionInstruments.requestsSuppressed, 1,
+            Attributes.builder().put(CaptureSuppressionInstruments.RULE_ATTR, ruleName));
     }
 }
@@ -0,0 +1,69 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.netty;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import lombok.Getter;
+
+/**
+ * Stops the proxy from trying to connect to the destination once several connection attempts in a row have
+ * failed.  While the breaker is open, new client connections are closed right away instead of waiting on a
+ * connection attempt that will most likely fail too.  Once openDuration has passed, connections are allowed
+ * again, and the next failure opens the breaker again until a connection succeeds.
+ *
+ * This is shared by all of the event loops, so it only uses atomics.
+ */
+public class BacksideCircuitBreaker {
+    /** A breaker that never opens */
+    public static final BacksideCircuitBreaker DISABLED = new BacksideCircuitBreaker(0, Duration.ZERO);
+
+    @Getter
+    private final int failureThreshold;
+    @Getter
+    private final Duration openDuration;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openUntilNanos = new AtomicLong();
+    private volatile boolean isOpen;
+
+    /**
+     * @param failureThreshold how many connection attempts in a row need to fail to open the breaker, or 0 to
+     *                         never open it
+     */
+    public BacksideCircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    BacksideCircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.nanoClock = nanoClock;
+    }
+
+    public boolean allowsConnections() {
+        return !isOpen || nanoClock.getAsLong() - openUntilNanos.get() >= 0;
+    }
+
+    public void onConnectionSucceeded() {
+        consecutiveFailures.set(0);
+        isOpen = false;
+    }
+
+    /**
+     * @return true iff this failure opened the breaker
+     */
+    public boolean onConnectionFailed() {
+        if (failureThreshold <= 0) {
+            return false;
+        }
+        var failures = consecutiveFailures.incrementAndGet();
+        if (failures < failureThreshold || (isOpen && !allowsConnections())) {
+            return false;
+        }
+        openUntilNanos.set(nanoClock.getAsLong() + openDuration.toNanos());
+        isOpen = true;
+        return true;
+    }
+}
@@ -6,6 +6,8 @@ import java.net.URI;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
+import org.opensearch.migrations.utils.NettyTransport;
+
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
@@ -13,39 +15,131 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelPromise;
 import io.netty.channel.EventLoop;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.EventLoopGroup;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.FastThreadLocal;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.event.Level;
 
 @Slf4j
 public class BacksideConnectionPool {
+    public static final Duration DEFAULT_HEALTH_CHECK_INTERVAL = Duration.ofSeconds(5);
+
+    /**
+     * Callbacks for the metrics of the pool.  These may be called from any of the event loops.
+     */
+    public interface IListener {
+        IListener NO_OP = new IListener() {};
+
+        /** A client connection got a connection that was already established */
+        default void onPooledConnectionUsed() {}
+
+        /** A client connection had to wait for a connection to be established */
+        default void onPooledConnectionMissed() {}
+
+        /** A connection (including its TLS handshake) was established */
+        default void onConnected(Duration connectDuration) {}
+
+        default void onConnectFailed(Duration connectDuration) {}
+
+        /** A pooled connection was closed by the destination before anything used it */
+        default void onIdleConnectionEvicted() {}
+
+        /** A client connection was closed because the circuit breaker was open */
+        default void onConnectionRejected() {}
+    }
+
     private final URI backsideUri;
     private final SslContext backsideSslContext;
     private final FastThreadLocal<ExpiringSubstitutableItemPool<ChannelFuture, Void>> connectionCacheForEachThread;
     private final Duration inactivityTimeout;
     private final int poolSize;
+    private final Duration healthCheckInterval;
+    @Getter
+    private final BacksideCircuitBreaker circuitBreaker;
+    private final IListener listener;
 
     public BacksideConnectionPool(
         URI backsideUri,
         SslContext backsideSslContext,
         int poolSize,
         Duration inactivityTimeout
+    ) {
+        this(
+            backsideUri,
+            backsideSslContext,
+            poolSize,
+            inactivityTimeout,
+            DEFAULT_HEALTH_CHECK_INTERVAL,
+            BacksideCircuitBreaker.DISABLED,
+            IListener.NO_OP
+        );
+    }
+
+    /**
+     * @param healthCheckInterval how often each event loop evicts its pooled connections that the destination
+     *                            has closed
+     */
+    public BacksideConnectionPool(
+        URI backsideUri,
+        SslContext backsideSslContext,
+        int poolSize,
+        Duration inactivityTimeout,
+        Duration healthCheckInterval,
+        BacksideCircuitBreaker circuitBreaker,
+        IListener listener
     ) {
         this.backsideUri = backsideUri;
         this.backsideSslContext = backsideSslContext;
         this.connectionCacheForEachThread = new FastThreadLocal<>();
         this.inactivityTimeout = inactivityTimeout;
         this.poolSize = poolSize;
+        this.healthCheckInterval = healthCheckInterval;
+        this.circuitBreaker = circuitBreaker;
+        this.listener = listener;
+    }
+
+    /**
+     * Fills the pool of each of the event loops in the group now, rather than waiting for the first client
+     * connection on each one, so that the first clients don't pay for setting up the destination connections.
+     */
+    public void warmup(EventLoopGroup eventLoopGroup) {
+        if (poolSize == 0) {
+            return;
+        }
+        for (var executor : eventLoopGroup) {
+            if (executor instanceof EventLoop) {
+                var eventLoop = (EventLoop) executor;
+                eventLoop.execute(() -> getExpiringWarmChannelPool(eventLoop));
+            }
+        }
+    }
+
+    /**
+     * @return false when the circuit breaker is open, in which case the caller shouldn't ask for a connection
+     */
+    public boolean allowsConnections() {
+        if (circuitBreaker.allowsConnections()) {
+            return true;
+        }
+        listener.onConnectionRejected();
+        return false;
     }
 
     public ChannelFuture getOutboundConnectionFuture(EventLoop eventLoop) {
         if (poolSize == 0) {
             return buildConnectionFuture(eventLoop);
         }
-        return getExpiringWarmChannelPool(eventLoop).getAvailableOrNewItem();
+        var connectionFuture = getExpiringWarmChannelPool(eventLoop).getAvailableOrNewItem();
+        // pooled connections are only ever handed out once they've been established
+        if (connectionFuture.isSuccess()) {
+            listener.onPooledConnectionUsed();
+        } else {
+            listener.onPooledConnectionMissed();
+        }
+        return connectionFuture;
     }
 
     private ExpiringSubstitutableItemPool<ChannelFuture, Void> getExpiringWarmChannelPool(EventLoop eventLoop) {
@@ -55,19 +149,44 @@ public class BacksideConnectionPool {
                 inactivityTimeout,
                 eventLoop,
                 () -> buildConnectionFuture(eventLoop),
-                x -> x.channel().close(),
+                this::closePooledConnection,
                 poolSize,
-                Duration.ZERO
+                Duration.ZERO,
+                BacksideConnectionPool::isConnectionUsable
             );
             if (log.isInfoEnabled()) {
                 logProgressAtInterval(Level.INFO, eventLoop, thisContextsConnectionCache, Duration.ofSeconds(30));
             }
+            scheduleHealthChecks(eventLoop, thisContextsConnectionCache);
             connectionCacheForEachThread.set(thisContextsConnectionCache);
         }
 
         return thisContextsConnectionCache;
     }
 
+    private void closePooledConnection(ChannelFuture connectionFuture) {
+        if (connectionFuture.isDone() && !connectionFuture.channel().isActive()) {
+            listener.onIdleConnectionEvicted();
+        }
+        connectionFuture.channel().close();
+    }
+
+    private static boolean isConnectionUsable(ChannelFuture connectionFuture) {
+        return !connectionFuture.isDone() || connectionFuture.channel().isActive();
+    }
+
+    private void scheduleHealthChecks(EventLoop eventLoop, ExpiringSubstitutableItemPool<ChannelFuture, Void> pool) {
+        if (healthCheckInterval.isZero()) {
+            return;
+        }
+        eventLoop.scheduleAtFixedRate(
+            pool::evictUnusableItems,
+            healthCheckInterval.toMillis(),
+            healthCheckInterval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
     private void logProgressAtInterval(
         Level logLevel,
         EventLoop eventLoop,
@@ -83,10 +202,12 @@ public class BacksideConnectionPool {
     }
 
     private ChannelFuture buildConnectionFuture(EventLoop eventLoop) {
+        var startNanos = System.nanoTime();
         // Start the connection attempt.
         Bootstrap b = new Bootstrap();
         b.group(eventLoop)
-            .channel(NioSocketChannel.class)
+            // the backside channel has to use the same transport as the frontside's event loop
+            .channel(NettyTransport.socketChannelClassFor(eventLoop))
             .handler(new ChannelDuplexHandler())
             .option(ChannelOption.AUTO_READ, false);
         var f = b.connect(backsideUri.getHost(), backsideUri.getPort());
@@ -115,6 +236,26 @@ public class BacksideConnectionPool {
                 rval.setFailure(connectFuture.cause());
             }
         });
+        rval.addListener((ChannelFutureListener) connectionFuture -> {
+            var connectDuration = Duration.ofNanos(System.nanoTime() - startNanos);
+            if (connectionFuture.isSuccess()) {
+                circuitBreaker.onConnectionSucceeded();
+                listener.onConnected(connectDuration);
+                // An idle connection doesn't read, so it would never notice that the destination closed it.
+                // With a read pending, the close is seen right away and the connection can be evicted.
+                connectionFuture.channel().read();
+            } else {
+                if (circuitBreaker.onConnectionFailed()) {
+                    log.atWarn().setCause(connectionFuture.cause())
+                        .setMessage("Opening the circuit breaker to {} for {} after {} failed connection attempts")
+                        .addArgument(backsideUri)
+                        .addArgument(circuitBreaker.getOpenDuration())
+                        .addArgument(circuitBreaker.getFailureThreshold())
+                        .log();
+                }
+                listener.onConnectFailed(connectDuration);
+            }
+        });
         return rval;
     }
 }
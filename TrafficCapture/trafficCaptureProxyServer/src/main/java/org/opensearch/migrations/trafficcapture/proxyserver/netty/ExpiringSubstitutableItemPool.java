@@ -9,6 +9,7 @@ import java.util.StringJoiner;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import io.netty.channel.EventLoop;
@@ -24,6 +25,10 @@ import lombok.extern.slf4j.Slf4j;
  * specified expiration callback.  Callers can retrieve items from the cache or built on-demand
  * if no items are available within the cache that are ready to go.
  *
+ * Items that stop being usable while they wait in the pool (e.g. connections that the other side closed) are
+ * evicted, either when a caller would have gotten them or when evictUnusableItems() is called.  When building
+ * an item fails, the next attempt is delayed by an exponential backoff.
+ *
  * This class does not use locking.  Instead, it is assumed that one of these will be created for
  * each netty event loop.
  */
@@ -47,12 +52,17 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
 
     public static class PoolClosedException extends RuntimeException {}
 
+    private static final Duration INITIAL_RETRY_DELAY = Duration.ofMillis(100);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(10);
+
     public static class Stats {
         @Getter
         private long nItemsCreated;
         @Getter
         private long nItemsExpired;
         @Getter
+        private long nItemsEvicted;
+        @Getter
         private long nHotGets; // cache hits
         @Getter
         private long nColdGets; // cache misses
@@ -88,6 +98,7 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
                 o.totalDurationBuildingItems,
                 o.totalWaitTimeForCallers
             );
+            this.nItemsEvicted = o.nItemsEvicted;
         }
 
         @Override
@@ -96,6 +107,7 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
                 .add("nHotGets=" + nHotGets)
                 .add("nColdGets=" + nColdGets)
                 .add("nExpiredItems=" + nItemsExpired)
+                .add("nEvictedItems=" + nItemsEvicted)
                 .add("avgDurationBuildingItems=" + averageBuildTime())
                 .add("avgWaitTimeForCallers=" + averageWaitTime())
                 .toString();
@@ -143,6 +155,10 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
         private void addExpiredItem() {
             nItemsExpired++;
         }
+
+        private void addEvictedItem() {
+            nItemsEvicted++;
+        }
     }
 
     // Store in-progress futures that were the result of item builds in their "in-order"
@@ -152,12 +168,14 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
     private final Queue<Entry<F>> readyItems;
     private final Supplier<F> itemSupplier;
     private final Consumer<F> onExpirationConsumer;
+    private final Predicate<F> isItemUsable;
     @Getter
     private final EventLoop eventLoop;
     private final Duration inactivityTimeout;
     private final GenericFutureListener<F> shuffleInProgressToReady;
     private final Stats stats;
     private int poolSize;
+    private Duration nextRetryDelay = Duration.ZERO;
 
     public ExpiringSubstitutableItemPool(
         @NonNull Duration inactivityTimeout,
@@ -167,7 +185,20 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
         int numItemsToLoad,
         @NonNull Duration initialItemLoadInterval
     ) {
-        this(inactivityTimeout, eventLoop, itemSupplier, onExpirationConsumer);
+        this(inactivityTimeout, eventLoop, itemSupplier, onExpirationConsumer, numItemsToLoad,
+            initialItemLoadInterval, f -> true);
+    }
+
+    public ExpiringSubstitutableItemPool(
+        @NonNull Duration inactivityTimeout,
+        @NonNull EventLoop eventLoop,
+        @NonNull Supplier<F> itemSupplier,
+        @NonNull Consumer<F> onExpirationConsumer,
+        int numItemsToLoad,
+        @NonNull Duration initialItemLoadInterval,
+        @NonNull Predicate<F> isItemUsable
+    ) {
+        this(inactivityTimeout, eventLoop, itemSupplier, onExpirationConsumer, isItemUsable);
         increaseCapacityWithSchedule(numItemsToLoad, initialItemLoadInterval);
     }
 
@@ -176,6 +207,20 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
         @NonNull EventLoop eventLoop,
         @NonNull Supplier<F> itemSupplier,
         @NonNull Consumer<F> onExpirationConsumer
+    ) {
+        this(inactivityTimeout, eventLoop, itemSupplier, onExpirationConsumer, f -> true);
+    }
+
+    /**
+     * @param isItemUsable checked before an item from the pool is handed out, and by evictUnusableItems().
+     *                     Items that fail the check are passed to onExpirationConsumer and replaced.
+     */
+    public ExpiringSubstitutableItemPool(
+        @NonNull Duration inactivityTimeout,
+        @NonNull EventLoop eventLoop,
+        @NonNull Supplier<F> itemSupplier,
+        @NonNull Consumer<F> onExpirationConsumer,
+        @NonNull Predicate<F> isItemUsable
     ) {
         assert inactivityTimeout.multipliedBy(-1).isNegative() : "inactivityTimeout must be > 0";
         this.inProgressItems = new LinkedHashSet<>();
@@ -183,6 +228,7 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
         this.eventLoop = eventLoop;
         this.inactivityTimeout = inactivityTimeout;
         this.onExpirationConsumer = onExpirationConsumer;
+        this.isItemUsable = isItemUsable;
         this.stats = new Stats();
         this.itemSupplier = () -> {
             var startTime = Instant.now();
@@ -195,12 +241,16 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
         this.shuffleInProgressToReady = f -> {
             inProgressItems.remove(f);
             if (f.isSuccess()) {
+                nextRetryDelay = Duration.ZERO;
                 readyItems.add(new Entry<>(f));
                 scheduleNextExpirationSweep(inactivityTimeout);
             } else {
                 // the calling context should track failures too - no reason to log
-                // TODO - add some backoff here
-                beginLoadingNewItemIfNecessary();
+                nextRetryDelay = nextRetryDelay.isZero()
+                    ? INITIAL_RETRY_DELAY
+                    : min(nextRetryDelay.multipliedBy(2), MAX_RETRY_DELAY);
+                eventLoop.schedule(this::beginLoadingNewItemIfNecessary, nextRetryDelay.toMillis(),
+                    TimeUnit.MILLISECONDS);
             }
         };
     }
@@ -241,6 +291,10 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
         var startTime = Instant.now();
         log.atTrace().setMessage("getAvailableOrNewItem: readyItems.size()={}").addArgument(readyItems::size).log();
         var item = readyItems.poll();
+        while (item != null && !isItemUsable.test(item.future)) {
+            evict(item);
+            item = readyItems.poll();
+        }
         log.atTrace().setMessage("getAvailableOrNewItem: item={} remaining readyItems.size()={}")
             .addArgument(item).addArgument(readyItems::size).log();
         if (item != null) {
@@ -269,6 +323,39 @@ public class ExpiringSubstitutableItemPool<F extends Future<U>, U> {
         return durationTrackingDecoratedItem.apply(itemSupplier.get(), "FRESH: ");
     }
 
+    /**
+     * Removes (and replaces) every item in the pool that is no longer usable.  This must be called from the
+     * pool's event loop.
+     */
+    public void evictUnusableItems() {
+        assert eventLoop.inEventLoop() : "evictUnusableItems() must be called from the pool's event loop";
+        var it = readyItems.iterator();
+        int numEvicted = 0;
+        while (it.hasNext()) {
+            var item = it.next();
+            if (!isItemUsable.test(item.future)) {
+                it.remove();
+                stats.addEvictedItem();
+                onExpirationConsumer.accept(item.future);
+                ++numEvicted;
+            }
+        }
+        for (int i = 0; i < numEvicted; ++i) {
+            beginLoadingNewItemIfNecessary();
+        }
+    }
+
+    private void evict(Entry<F> item) {
+        log.atDebug().setMessage("Evicting unusable item {}").addArgument(item).log();
+        stats.addEvictedItem();
+        onExpirationConsumer.accept(item.future);
+        beginLoadingNewItemIfNecessary();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
     private void scheduleItemLoadsRecurse(int itemsToLoad, Duration gapBetweenLoads) {
         eventLoop.schedule(() -> {
             beginLoadingNewItemIfNecessary();
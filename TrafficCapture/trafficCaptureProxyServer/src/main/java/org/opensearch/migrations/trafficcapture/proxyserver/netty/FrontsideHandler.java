@@ -28,6 +28,12 @@ public class FrontsideHandler extends ChannelInboundHandlerAdapter {
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
         final Channel inboundChannel = ctx.channel();
+        if (!backsideConnectionPool.allowsConnections()) {
+            log.atDebug().setMessage("Closing {} because the circuit breaker for the destination is open")
+                .addArgument(inboundChannel).log();
+            inboundChannel.close();
+            return;
+        }
         var outboundChannelFuture = backsideConnectionPool.getOutboundConnectionFuture(inboundChannel.eventLoop());
         log.debug("Active - setting up backend connection with channel " + outboundChannelFuture.channel());
         outboundChannelFuture.addListener((ChannelFutureListener) (future -> {
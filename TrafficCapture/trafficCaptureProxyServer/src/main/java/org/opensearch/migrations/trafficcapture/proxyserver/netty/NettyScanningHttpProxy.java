@@ -1,15 +1,14 @@
 package org.opensearch.migrations.trafficcapture.proxyserver.netty;
 
-
+import org.opensearch.migrations.utils.NettyTransport;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.Getter;
+import lombok.NonNull;
 
 public class NettyScanningHttpProxy {
     @Getter
@@ -17,25 +16,35 @@ public class NettyScanningHttpProxy {
     protected Channel mainChannel;
     protected EventLoopGroup workerGroup;
     protected EventLoopGroup bossGroup;
+    @Getter
+    protected final NettyTransport nettyTransport;
 
     public NettyScanningHttpProxy(int proxyPort) {
+        this(proxyPort, NettyTransport.NIO);
+    }
+
+    public NettyScanningHttpProxy(int proxyPort, @NonNull NettyTransport nettyTransport) {
         this.proxyPort = proxyPort;
+        this.nettyTransport = nettyTransport.resolve();
     }
 
     public void start(ProxyChannelInitializer<?> proxyChannelInitializer, int numThreads)
         throws InterruptedException
     {
-        bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("captureProxyPoolBoss"));
-        workerGroup = new NioEventLoopGroup(numThreads, new DefaultThreadFactory("captureProxyPoolWorker"));
+        bossGroup = nettyTransport.newEventLoopGroup(1, new DefaultThreadFactory("captureProxyPoolBoss"));
+        workerGroup = nettyTransport.newEventLoopGroup(numThreads, new DefaultThreadFactory("captureProxyPoolWorker"));
         ServerBootstrap serverBootstrap = new ServerBootstrap();
         try {
             mainChannel = serverBootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(nettyTransport.getServerSocketChannelClass())
                 .childHandler(proxyChannelInitializer)
                 .childOption(ChannelOption.AUTO_READ, false)
                 .bind(proxyPort)
                 .sync()
                 .channel();
+            if (proxyChannelInitializer.backsideConnectionPool != null) {
+                proxyChannelInitializer.backsideConnectionPool.warmup(workerGroup);
+            }
         } catch (Exception e) {
             workerGroup.shutdownGracefully();
             bossGroup.shutdownGracefully();
@@ -7,6 +7,7 @@ import java.util.function.Supplier;
 
 import org.opensearch.migrations.trafficcapture.IConnectionCaptureFactory;
 import org.opensearch.migrations.trafficcapture.netty.ConditionallyReliableLoggingHttpHandler;
+import org.opensearch.migrations.trafficcapture.netty.ReliableCapturePolicy;
 import org.opensearch.migrations.trafficcapture.netty.RequestCapturePredicate;
 import org.opensearch.migrations.trafficcapture.netty.tracing.IRootWireLoggingContext;
 
@@ -25,6 +26,7 @@ public class ProxyChannelInitializer<T> extends ChannelInitializer<SocketChannel
     protected final IRootWireLoggingContext rootContext;
     protected final BacksideConnectionPool backsideConnectionPool;
     protected final RequestCapturePredicate requestCapturePredicate;
+    protected final ReliableCapturePolicy reliableCapturePolicy;
 
     public ProxyChannelInitializer(
         IRootWireLoggingContext rootContext,
@@ -32,12 +34,31 @@ public class ProxyChannelInitializer<T> extends ChannelInitializer<SocketChannel
         Supplier<SSLEngine> sslEngineSupplier,
         IConnectionCaptureFactory<T> connectionCaptureFactory,
         @NonNull RequestCapturePredicate requestCapturePredicate
+    ) {
+        this(
+            rootContext,
+            backsideConnectionPool,
+            sslEngineSupplier,
+            connectionCaptureFactory,
+            requestCapturePredicate,
+            ReliableCapturePolicy.DEFAULT
+        );
+    }
+
+    public ProxyChannelInitializer(
+        IRootWireLoggingContext rootContext,
+        BacksideConnectionPool backsideConnectionPool,
+        Supplier<SSLEngine> sslEngineSupplier,
+        IConnectionCaptureFactory<T> connectionCaptureFactory,
+        @NonNull RequestCapturePredicate requestCapturePredicate,
+        @NonNull ReliableCapturePolicy reliableCapturePolicy
     ) {
         this.rootContext = rootContext;
         this.backsideConnectionPool = backsideConnectionPool;
         this.sslEngineProvider = sslEngineSupplier;
         this.connectionCaptureFactory = connectionCaptureFactory;
         this.requestCapturePredicate = requestCapturePredicate;
+        this.reliableCapturePolicy = reliableCapturePolicy;
     }
 
     public boolean shouldGuaranteeMessageOffloading(HttpRequest httpRequest) {
@@ -63,8 +84,9 @@ public class ProxyChannelInitializer<T> extends ChannelInitializer<SocketChannel
                     "",
                     connectionId,
                     connectionCaptureFactory,
-                    requestCapturePredicate,
-                    this::shouldGuaranteeMessageOffloading
+                    requestCapturePredicate.forConnection(ch.remoteAddress()),
+                    this::shouldGuaranteeMessageOffloading,
+                    reliableCapturePolicy
                 )
             );
         ch.pipeline().addLast(new FrontsideHandler(backsideConnectionPool));
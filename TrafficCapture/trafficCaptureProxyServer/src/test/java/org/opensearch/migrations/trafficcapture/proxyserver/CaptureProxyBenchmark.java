@@ -0,0 +1,239 @@
+package org.opensearch.migrations.trafficcapture.proxyserver;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.opensearch.migrations.testutils.PortFinder;
+import org.opensearch.migrations.testutils.SimpleHttpResponse;
+import org.opensearch.migrations.testutils.SimpleNettyHttpServer;
+import org.opensearch.migrations.tracing.IContextTracker;
+import org.opensearch.migrations.tracing.RootOtelContext;
+import org.opensearch.migrations.trafficcapture.FileConnectionCaptureFactory;
+import org.opensearch.migrations.trafficcapture.IConnectionCaptureFactory;
+import org.opensearch.migrations.trafficcapture.kafkaoffloader.KafkaCaptureFactory;
+import org.opensearch.migrations.trafficcapture.netty.RequestCapturePredicate;
+import org.opensearch.migrations.trafficcapture.proxyserver.netty.BacksideConnectionPool;
+import org.opensearch.migrations.trafficcapture.proxyserver.netty.NettyScanningHttpProxy;
+import org.opensearch.migrations.trafficcapture.proxyserver.netty.ProxyChannelInitializer;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import lombok.Lombok;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what the capture proxy costs a client.  Each benchmark sends requests over keep-alive connections
+ * to a local SimpleNettyHttpServer, either directly (DIRECT) or through a NettyScanningHttpProxy that captures
+ * nothing (NO_CAPTURE), captures to files (FILE) or offloads to an in-memory Kafka producer (KAFKA).
+ *
+ * <p>SampleTime reports the p50/p99/p999 latencies and Throughput reports requests per millisecond for each
+ * pipeline.  The latency that the proxy adds is the difference between a pipeline's percentiles and those of
+ * DIRECT for the same benchmark.  The gc profiler, which the jmh task enables, reports the allocation per request
+ * as gc.alloc.rate.norm.  Run it with <code>./gradlew :TrafficCapture:trafficCaptureProxyServer:jmh</code>.
+ */
+@BenchmarkMode({ Mode.SampleTime, Mode.Throughput })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(4)
+public class CaptureProxyBenchmark {
+    public static final int BULK_REQUEST_EVERY_N_REQUESTS = 10;
+    private static final int BULK_DOCUMENT_COUNT = 200;
+    private static final int MAX_BULK_REQUEST_BYTES = 1024 * 1024;
+    private static final int CAPTURE_BUFFER_BYTES = 1024 * 1024;
+    private static final String TOPIC = "logging-traffic-topic";
+
+    private static final byte[] SMALL_RESPONSE_BODY = "{\"_index\":\"index\",\"_id\":\"1\",\"found\":true}"
+        .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BULK_REQUEST_BODY = IntStream.range(0, BULK_DOCUMENT_COUNT)
+        .mapToObj(i -> "{\"index\":{\"_index\":\"index\",\"_id\":\"" + i + "\"}}\n"
+            + "{\"title\":\"document " + i + "\",\"body\":\"" + "lorem ipsum dolor sit amet ".repeat(16) + "\"}\n")
+        .collect(Collectors.joining())
+        .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BULK_RESPONSE_BODY = ("{\"took\":5,\"errors\":false,\"items\":["
+        + IntStream.range(0, BULK_DOCUMENT_COUNT)
+            .mapToObj(i -> "{\"index\":{\"_index\":\"index\",\"_id\":\"" + i + "\",\"status\":201}}")
+            .collect(Collectors.joining(","))
+        + "]}").getBytes(StandardCharsets.UTF_8);
+
+    public enum Pipeline {
+        DIRECT,
+        NO_CAPTURE,
+        FILE,
+        KAFKA
+    }
+
+    @State(Scope.Benchmark)
+    public static class Harness {
+        @Param({ "DIRECT", "NO_CAPTURE", "FILE", "KAFKA" })
+        public Pipeline pipeline;
+
+        private SimpleNettyHttpServer server;
+        private NettyScanningHttpProxy proxy;
+        private MockProducer<String, byte[]> producer;
+        private Path captureDirectory;
+        private HttpClient client;
+        private HttpRequest smallGetRequest;
+        private HttpRequest bulkPostRequest;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            server = SimpleNettyHttpServer.makeNettyServer(false, null, MAX_BULK_REQUEST_BYTES,
+                CaptureProxyBenchmark::makeResponse);
+            var endpoint = pipeline == Pipeline.DIRECT ? server.localhostEndpoint() : startProxy();
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            smallGetRequest = HttpRequest.newBuilder(endpoint.resolve("/index/_doc/1")).GET().build();
+            bulkPostRequest = HttpRequest.newBuilder(endpoint.resolve("/_bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(BULK_REQUEST_BODY))
+                .build();
+        }
+
+        private URI startProxy() throws Exception {
+            var rootContext = new RootCaptureContext(
+                RootOtelContext.initializeNoopOpenTelemetry(),
+                IContextTracker.DO_NOTHING_TRACKER
+            );
+            var connectionPool = new BacksideConnectionPool(server.localhostEndpoint(), null, 10,
+                Duration.ofSeconds(30));
+            var proxyChannelInitializer = new ProxyChannelInitializer<>(rootContext, connectionPool, null,
+                makeCaptureFactory(rootContext), new RequestCapturePredicate());
+            var proxyRef = new AtomicReference<NettyScanningHttpProxy>();
+            PortFinder.retryWithNewPortUntilNoThrow(port -> {
+                proxyRef.set(new NettyScanningHttpProxy(port));
+                try {
+                    proxyRef.get().start(proxyChannelInitializer, Runtime.getRuntime().availableProcessors());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw Lombok.sneakyThrow(e);
+                }
+            });
+            proxy = proxyRef.get();
+            return new URI("http://" + SimpleNettyHttpServer.LOCALHOST + ":" + proxy.getProxyPort() + "/");
+        }
+
+        private IConnectionCaptureFactory<?> makeCaptureFactory(RootCaptureContext rootContext) throws IOException {
+            switch (pipeline) {
+                case NO_CAPTURE:
+                    return CaptureProxy.getNullConnectionCaptureFactory();
+                case FILE:
+                    captureDirectory = Files.createTempDirectory("captureProxyBenchmark");
+                    return new FileConnectionCaptureFactory("benchmark", CAPTURE_BUFFER_BYTES, captureDirectory);
+                case KAFKA:
+                    producer = new MockProducer<>(true, null, new StringSerializer(), new ByteArraySerializer());
+                    return new KafkaCaptureFactory(rootContext, "benchmark", producer, TOPIC, CAPTURE_BUFFER_BYTES);
+                default:
+                    throw new IllegalStateException("No capture factory for " + pipeline);
+            }
+        }
+
+        /**
+         * The mock producer keeps every record that it's sent, so drop them between iterations rather than
+         * measuring an ever-growing heap.
+         */
+        @TearDown(Level.Iteration)
+        public void clearSentRecords() {
+            if (producer != null) {
+                producer.clear();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            if (proxy != null) {
+                proxy.stop();
+            }
+            server.close();
+            if (captureDirectory != null) {
+                try (var files = Files.walk(captureDirectory)) {
+                    files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            }
+        }
+
+        int send(HttpRequest request) throws IOException, InterruptedException {
+            var response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Unexpected response status " + response.statusCode()
+                    + " for " + request.uri());
+            }
+            return response.body().length;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RequestMix {
+        private int requestsSent;
+    }
+
+    private static SimpleHttpResponse makeResponse(FullHttpRequest request) {
+        var body = request.method().equals(HttpMethod.POST) ? BULK_RESPONSE_BODY : SMALL_RESPONSE_BODY;
+        var headers = Map.of("Content-Type", "application/json", "Content-Length", Integer.toString(body.length));
+        return new SimpleHttpResponse(headers, body, "OK", 200);
+    }
+
+    @Benchmark
+    public int smallGet(Harness harness) throws IOException, InterruptedException {
+        return harness.send(harness.smallGetRequest);
+    }
+
+    @Benchmark
+    public int bulkPost(Harness harness) throws IOException, InterruptedException {
+        return harness.send(harness.bulkPostRequest);
+    }
+
+    @Benchmark
+    public int mixed(Harness harness, RequestMix mix) throws IOException, InterruptedException {
+        var isBulk = ++mix.requestsSent % BULK_REQUEST_EVERY_N_REQUESTS == 0;
+        return harness.send(isBulk ? harness.bulkPostRequest : harness.smallGetRequest);
+    }
+
+    /**
+     * Keeps the harness working between benchmark runs by sending one of each request through every pipeline.
+     */
+    @ParameterizedTest
+    @EnumSource(Pipeline.class)
+    void eachPipelineForwardsRequests(Pipeline pipeline) throws Exception {
+        var harness = new Harness();
+        harness.pipeline = pipeline;
+        harness.setup();
+        try {
+            Assertions.assertEquals(SMALL_RESPONSE_BODY.length, smallGet(harness));
+            Assertions.assertEquals(BULK_RESPONSE_BODY.length, bulkPost(harness));
+        } finally {
+            harness.tearDown();
+        }
+    }
+}
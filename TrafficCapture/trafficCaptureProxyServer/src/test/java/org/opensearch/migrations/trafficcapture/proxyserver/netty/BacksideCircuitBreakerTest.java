@@ -0,0 +1,59 @@
+package org.opensearch.migrations.trafficcapture.proxyserver.netty;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BacksideCircuitBreakerTest {
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(5);
+
+    private final AtomicLong nanoTime = new AtomicLong(1000);
+    private final BacksideCircuitBreaker breaker = new BacksideCircuitBreaker(3, OPEN_DURATION, nanoTime::get);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        Assertions.assertFalse(breaker.onConnectionFailed());
+        Assertions.assertFalse(breaker.onConnectionFailed());
+        Assertions.assertTrue(breaker.allowsConnections());
+        Assertions.assertTrue(breaker.onConnectionFailed());
+        Assertions.assertFalse(breaker.allowsConnections());
+        // failures from attempts that were already in flight don't extend the open period
+        Assertions.assertFalse(breaker.onConnectionFailed());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        breaker.onConnectionFailed();
+        breaker.onConnectionFailed();
+        breaker.onConnectionSucceeded();
+        Assertions.assertFalse(breaker.onConnectionFailed());
+        Assertions.assertFalse(breaker.onConnectionFailed());
+        Assertions.assertTrue(breaker.allowsConnections());
+    }
+
+    @Test
+    void reopensWhenTheFirstAttemptAfterTheOpenPeriodFails() {
+        for (int i = 0; i < 3; ++i) {
+            breaker.onConnectionFailed();
+        }
+        nanoTime.addAndGet(OPEN_DURATION.toNanos());
+        Assertions.assertTrue(breaker.allowsConnections());
+        Assertions.assertTrue(breaker.onConnectionFailed());
+        Assertions.assertFalse(breaker.allowsConnections());
+
+        nanoTime.addAndGet(OPEN_DURATION.toNanos());
+        breaker.onConnectionSucceeded();
+        Assertions.assertTrue(breaker.allowsConnections());
+        Assertions.assertFalse(breaker.onConnectionFailed());
+    }
+
+    @Test
+    void disabledBreakerNeverOpens() {
+        for (int i = 0; i < 100; ++i) {
+            Assertions.assertFalse(BacksideCircuitBreaker.DISABLED.onConnectionFailed());
+        }
+        Assertions.assertTrue(BacksideCircuitBreaker.DISABLED.allowsConnections());
+    }
+}
@@ -3,7 +3,10 @@ package org.opensearch.migrations.trafficcapture.proxyserver.netty;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -160,6 +163,44 @@ class ExpiringSubstitutableItemPoolTest {
         eventLoop.shutdownGracefully().sync();
     }
 
+    @Test
+    void unusableItemsAreEvictedAndReplaced() throws Exception {
+        var eventLoop = new NioEventLoopGroup(1, new DefaultThreadFactory("testPool"));
+        var builtItemCursor = new AtomicInteger();
+        var initialItemsLatch = new CountDownLatch(3);
+        var deadItems = ConcurrentHashMap.<Integer>newKeySet();
+        var expiredItems = new ArrayList<Integer>();
+        var pool = new ExpiringSubstitutableItemPool<Future<Integer>, Integer>(
+            Duration.ofMinutes(1),
+            eventLoop.next(),
+            () -> {
+                var rval = new DefaultPromise<Integer>(eventLoop.next());
+                rval.setSuccess(builtItemCursor.incrementAndGet());
+                initialItemsLatch.countDown();
+                return rval;
+            },
+            item -> expiredItems.add(item.getNow()),
+            3,
+            Duration.ZERO,
+            item -> !deadItems.contains(item.getNow())
+        );
+        initialItemsLatch.await();
+        deadItems.addAll(Set.of(1, 2));
+        pool.getEventLoop().submit(pool::evictUnusableItems).get();
+
+        Assertions.assertEquals(List.of(1, 2), expiredItems);
+        Assertions.assertEquals(2, pool.getStats().getNItemsEvicted());
+        Assertions.assertEquals(3, getNextItem(pool));
+        Assertions.assertEquals(1, pool.getStats().getNHotGets());
+
+        deadItems.add(4);
+        Assertions.assertEquals(5, getNextItem(pool));
+        Assertions.assertEquals(List.of(1, 2, 4), expiredItems);
+        Assertions.assertEquals(3, pool.getStats().getNItemsEvicted());
+
+        eventLoop.shutdownGracefully().sync();
+    }
+
     private static Integer getNextItem(ExpiringSubstitutableItemPool<Future<Integer>, Integer> pool)
         throws InterruptedException, ExecutionException {
         return pool.getEventLoop()
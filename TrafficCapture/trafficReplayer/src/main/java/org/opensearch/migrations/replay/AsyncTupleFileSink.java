@@ -0,0 +1,502 @@
+package org.opensearch.migrations.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.transform.JsonKeysForHttpMessage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+/**
+ * An alternative to running a TupleParserChainConsumer into a ResultsToLogsConsumer that keeps the replay
+ * threads from paying for tuple serialization.  On the calling thread, only the start lines and headers of
+ * the four messages are parsed (enough to fill in the tuple's metrics and to write the transaction summary)
+ * and the bodies are captured by reference.  A dedicated writer thread then streams each tuple as one line
+ * of JSON through a JsonGenerator into gzipped files that are rolled over once they've taken
+ * maxUncompressedBytesPerFile bytes.
+ *
+ * The output is the same shape as the tuples from ResultsToLogsConsumer, except that bodies are never
+ * decoded here.  Each body is written as an inlinedBase64Body (de-chunked, but otherwise exactly as it was
+ * sent or received), so that anything reading the tuples can decide for itself whether a body is worth
+ * parsing.  Tuple transformations are not supported.
+ *
+ * The queue between the two is bounded.  Once it fills, accept() blocks, which pushes back on the replayer
+ * rather than letting pending output grow without limit.
+ */
+@Slf4j
+public class AsyncTupleFileSink implements Consumer<SourceTargetCaptureTuple>, AutoCloseable {
+    public static final String FILE_NAME_PREFIX = "tuples_";
+    public static final String FILE_NAME_SUFFIX = ".log.gz";
+    private static final DateTimeFormatter FILE_TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final String UNPARSEABLE_MESSAGE = "Message couldn't be parsed as a full http message";
+    private static final Duration IDLE_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final ObjectMapper PLAIN_MAPPER = new ObjectMapper()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final PendingTuple END_OF_TUPLES = new PendingTuple(null, null, null, null, null, null, 0, 0);
+
+    private final Path outputDirectory;
+    private final long maxUncompressedBytesPerFile;
+    private final Logger progressLogger;
+    private final BlockingQueue<PendingTuple> pendingTuples;
+    private final AtomicInteger tupleCounter;
+    private final Thread writerThread;
+    /**
+     * accept() holds the read lock from its closed check until its tuple is queued and close() holds the
+     * write lock to set closed and queue END_OF_TUPLES, so that nothing can be queued after END_OF_TUPLES
+     */
+    private final ReadWriteLock closeLock;
+    private volatile boolean closed;
+
+    private int filesWritten;
+    private CountingOutputStream currentFileStream;
+    private JsonGenerator currentGenerator;
+
+    /**
+     * A message whose head has already been converted into its output fields and whose bytes are still held
+     * until the writer thread gets to it.
+     */
+    private static class PendingMessage {
+        final Map<String, Object> fields;
+        final ByteBuf message;
+        final RawHttpMessageHead head;
+
+        PendingMessage(Map<String, Object> fields, ByteBuf message, RawHttpMessageHead head) {
+            this.fields = fields;
+            this.message = message;
+            this.head = head;
+        }
+
+        void release() {
+            ReferenceCountUtil.release(message);
+        }
+    }
+
+    private static class PendingTuple {
+        final PendingMessage sourceRequest;
+        final PendingMessage sourceResponse;
+        final PendingMessage targetRequest;
+        final List<PendingMessage> targetResponses;
+        final String connectionId;
+        final String error;
+        final int numRequests;
+        final long numErrors;
+
+        PendingTuple(
+            PendingMessage sourceRequest,
+            PendingMessage sourceResponse,
+            PendingMessage targetRequest,
+            List<PendingMessage> targetResponses,
+            String connectionId,
+            String error,
+            int numRequests,
+            long numErrors
+        ) {
+            this.sourceRequest = sourceRequest;
+            this.sourceResponse = sourceResponse;
+            this.targetRequest = targetRequest;
+            this.targetResponses = targetResponses;
+            this.connectionId = connectionId;
+            this.error = error;
+            this.numRequests = numRequests;
+            this.numErrors = numErrors;
+        }
+
+        void release() {
+            Optional.ofNullable(sourceRequest).ifPresent(PendingMessage::release);
+            Optional.ofNullable(sourceResponse).ifPresent(PendingMessage::release);
+            Optional.ofNullable(targetRequest).ifPresent(PendingMessage::release);
+            targetResponses.forEach(PendingMessage::release);
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    public AsyncTupleFileSink(Path outputDirectory, int queueCapacity, long maxUncompressedBytesPerFile)
+        throws IOException {
+        this(outputDirectory, queueCapacity, maxUncompressedBytesPerFile, null);
+    }
+
+    public AsyncTupleFileSink(
+        Path outputDirectory,
+        int queueCapacity,
+        long maxUncompressedBytesPerFile,
+        Logger progressLogger
+    ) throws IOException {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        if (maxUncompressedBytesPerFile <= 0) {
+            throw new IllegalArgumentException("maxUncompressedBytesPerFile must be positive");
+        }
+        this.outputDirectory = Files.createDirectories(outputDirectory);
+        this.maxUncompressedBytesPerFile = maxUncompressedBytesPerFile;
+        this.progressLogger = progressLogger != null ? progressLogger
+            : ResultsToLogsConsumer.makeTransactionSummaryLogger();
+        this.pendingTuples = new ArrayBlockingQueue<>(queueCapacity);
+        this.tupleCounter = new AtomicInteger();
+        this.closeLock = new ReentrantReadWriteLock();
+        this.writerThread = new Thread(this::runWriter, "tupleFileWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    @SneakyThrows
+    public void accept(SourceTargetCaptureTuple tuple) {
+        // Checked first so that a tuple that will be refused isn't captured, then again under the lock
+        throwIfClosed();
+        var pendingTuple = capture(tuple);
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                pendingTuple.release();
+            }
+            throwIfClosed();
+            pendingTuples.put(pendingTuple);
+        } catch (InterruptedException e) {
+            pendingTuple.release();
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void throwIfClosed() {
+        if (closed) {
+            throw new IllegalStateException("Tuples cannot be accepted after the sink has been closed");
+        }
+    }
+
+    /**
+     * Everything that reads from the tuple happens here, since the tuple (and its context) are closed as soon
+     * as accept() returns.
+     */
+    private PendingTuple capture(SourceTargetCaptureTuple tuple) {
+        var context = tuple.context;
+        var sourcePairOp = Optional.ofNullable(tuple.sourcePair);
+        var sourceRequest = sourcePairOp
+            .flatMap(p -> Optional.ofNullable(p.requestData))
+            .flatMap(d -> Optional.ofNullable(d.packetBytes))
+            .map(d -> captureRequest(context, wrap(d)))
+            .orElse(null);
+        // There's no source latency for a source response without a source request
+        var sourceLatency = sourcePairOp
+            .filter(p -> p.requestData != null && p.responseData != null)
+            .map(p -> Duration.between(
+                p.requestData.getLastPacketTimestamp(),
+                p.responseData.getLastPacketTimestamp()
+            ))
+            .orElse(null);
+        var sourceResponse = sourcePairOp
+            .flatMap(p -> Optional.ofNullable(p.responseData))
+            .flatMap(d -> Optional.ofNullable(d.packetBytes))
+            .map(d -> captureResponse(context, wrap(d), sourceLatency))
+            .orElse(null);
+        var targetRequest = Optional.ofNullable(tuple.targetRequestData)
+            .map(d -> captureRequest(context, d.asCompositeByteBufRetained()))
+            .orElse(null);
+        var targetResponses = tuple.responseList.stream()
+            .map(r -> captureResponse(context, wrap(r.targetResponseData), r.targetResponseDuration))
+            .collect(Collectors.toList());
+
+        var parsed = new ParsedHttpMessagesAsDicts(
+            context,
+            Optional.ofNullable(sourceRequest).map(m -> m.fields),
+            Optional.ofNullable(sourceResponse).map(m -> m.fields),
+            Optional.ofNullable(targetRequest).map(m -> m.fields),
+            targetResponses.stream().map(m -> m.fields).collect(Collectors.toList())
+        );
+        final var index = tupleCounter.getAndIncrement();
+        progressLogger.atInfo().setMessage("{}")
+            .addArgument(() -> ResultsToLogsConsumer.toTransactionSummaryString(index, tuple, parsed))
+            .log();
+
+        var requestKey = tuple.getRequestKey();
+        return new PendingTuple(
+            sourceRequest,
+            sourceResponse,
+            targetRequest,
+            targetResponses,
+            requestKey.getTrafficStreamKey().getConnectionId() + "." + requestKey.getSourceRequestIndex(),
+            Optional.ofNullable(tuple.topLevelErrorCause).map(Object::toString).orElse(null),
+            tuple.responseList.size(),
+            tuple.responseList.stream().filter(r -> r.errorCause != null).count()
+        );
+    }
+
+    private static ByteBuf wrap(List<byte[]> packets) {
+        return packets == null ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(packets.toArray(byte[][]::new));
+    }
+
+    private static PendingMessage captureRequest(IReplayContexts.ITupleHandlingContext context, ByteBuf message) {
+        var head = RawHttpMessageHead.parse(message);
+        if (head == null) {
+            return new PendingMessage(
+                Map.of(ParsedHttpMessagesAsDicts.EXCEPTION_KEY_STRING, UNPARSEABLE_MESSAGE), message, null);
+        }
+        var fields = new LinkedHashMap<String, Object>(head.getHeaders());
+        fields.put(ParsedHttpMessagesAsDicts.REQUEST_URI_KEY, head.getSecondToken());
+        fields.put(ParsedHttpMessagesAsDicts.METHOD_KEY, head.getFirstToken());
+        fields.put(ParsedHttpMessagesAsDicts.HTTP_VERSION_KEY, head.getThirdToken());
+        context.setMethod(head.getFirstToken());
+        context.setEndpoint(head.getSecondToken());
+        context.setHttpVersion(head.getThirdToken());
+        return new PendingMessage(fields, message, head);
+    }
+
+    private static PendingMessage captureResponse(
+        IReplayContexts.ITupleHandlingContext context,
+        ByteBuf message,
+        Duration latency
+    ) {
+        var head = RawHttpMessageHead.parse(message);
+        Integer statusCode = null;
+        try {
+            statusCode = head == null ? null : Integer.valueOf(head.getSecondToken());
+        } catch (NumberFormatException e) {
+            log.atWarn().setCause(e).setMessage("Unparseable status line in the response for {}")
+                .addArgument(context)
+                .log();
+        }
+        if (statusCode == null) {
+            return new PendingMessage(
+                Map.of(ParsedHttpMessagesAsDicts.EXCEPTION_KEY_STRING, UNPARSEABLE_MESSAGE), message, null);
+        }
+        var fields = new LinkedHashMap<String, Object>(head.getHeaders());
+        fields.put(ParsedHttpMessagesAsDicts.HTTP_VERSION_KEY, head.getFirstToken());
+        fields.put(ParsedHttpMessagesAsDicts.STATUS_CODE_KEY, statusCode);
+        fields.put("Reason-Phrase", head.getThirdToken());
+        if (latency != null) {
+            fields.put(ParsedHttpMessagesAsDicts.RESPONSE_TIME_MS_KEY, latency.toMillis());
+        }
+        context.setHttpVersion(head.getFirstToken());
+        return new PendingMessage(fields, message, head);
+    }
+
+    private void runWriter() {
+        try {
+            while (true) {
+                var pendingTuple = pendingTuples.poll(IDLE_FLUSH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                if (pendingTuple == END_OF_TUPLES) {
+                    break;
+                } else if (pendingTuple == null) {
+                    flushQuietly();
+                    continue;
+                }
+                try {
+                    writeTuple(pendingTuple);
+                } catch (IOException | RuntimeException e) {
+                    // Keep the writer running whatever went wrong, since accept() and close() block on it
+                    log.atError().setCause(e).setMessage("Dropping tuple {} and abandoning the current output file")
+                        .addArgument(pendingTuple.connectionId)
+                        .log();
+                    closeCurrentFileQuietly();
+                } finally {
+                    pendingTuple.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            log.atWarn().setMessage("Tuple writer was interrupted.  {} pending tuples will not be written.")
+                .addArgument(pendingTuples::size)
+                .log();
+            Thread.currentThread().interrupt();
+        } finally {
+            closeCurrentFileQuietly();
+            pendingTuples.forEach(t -> {
+                if (t != END_OF_TUPLES) {
+                    t.release();
+                }
+            });
+        }
+    }
+
+    private void writeTuple(PendingTuple t) throws IOException {
+        if (currentGenerator == null) {
+            openNextFile();
+        }
+        var g = currentGenerator;
+        g.writeStartObject();
+        if (t.sourceRequest != null) {
+            writeMessage(g, "sourceRequest", t.sourceRequest);
+        }
+        if (t.sourceResponse != null) {
+            writeMessage(g, "sourceResponse", t.sourceResponse);
+        }
+        if (t.targetRequest != null) {
+            writeMessage(g, "targetRequest", t.targetRequest);
+        }
+        g.writeArrayFieldStart("targetResponses");
+        for (var r : t.targetResponses) {
+            writeMessageBody(g, r);
+        }
+        g.writeEndArray();
+        g.writeStringField("connectionId", t.connectionId);
+        if (t.error != null) {
+            g.writeStringField("error", t.error);
+        }
+        g.writeNumberField("numRequests", t.numRequests);
+        g.writeNumberField("numErrors", t.numErrors);
+        g.writeEndObject();
+        g.writeRaw('\n');
+
+        if (currentFileStream.count >= maxUncompressedBytesPerFile) {
+            closeCurrentFile();
+        }
+    }
+
+    private static void writeMessage(JsonGenerator g, String fieldName, PendingMessage m) throws IOException {
+        g.writeFieldName(fieldName);
+        writeMessageBody(g, m);
+    }
+
+    private static void writeMessageBody(JsonGenerator g, PendingMessage m) throws IOException {
+        g.writeStartObject();
+        for (var kvp : m.fields.entrySet()) {
+            g.writeObjectField(kvp.getKey(), kvp.getValue());
+        }
+        if (m.head != null) {
+            var body = m.head.getBody(m.message);
+            try {
+                if (body.isReadable()) {
+                    g.writeObjectFieldStart(ParsedHttpMessagesAsDicts.PAYLOAD_KEY);
+                    g.writeFieldName(JsonKeysForHttpMessage.INLINED_BASE64_BODY_DOCUMENT_KEY);
+                    var length = body.readableBytes();
+                    try (var bodyStream = new ByteBufInputStream(body)) {
+                        g.writeBinary(bodyStream, length);
+                    }
+                    g.writeEndObject();
+                }
+            } finally {
+                body.release();
+            }
+        }
+        g.writeEndObject();
+    }
+
+    private void openNextFile() throws IOException {
+        var fileName = FILE_NAME_PREFIX
+            + LocalDateTime.now().format(FILE_TIMESTAMP_FORMATTER)
+            + "_"
+            + String.format("%05d", filesWritten)
+            + FILE_NAME_SUFFIX;
+        var path = outputDirectory.resolve(fileName);
+        log.atInfo().setMessage("Writing tuples to {}").addArgument(path).log();
+        var gzipStream = new GZIPOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(path), GZIP_BUFFER_SIZE), GZIP_BUFFER_SIZE, true);
+        currentFileStream = new CountingOutputStream(gzipStream);
+        currentGenerator = PLAIN_MAPPER.getFactory().createGenerator(currentFileStream);
+        filesWritten++;
+    }
+
+    private void closeCurrentFile() throws IOException {
+        if (currentGenerator != null) {
+            try {
+                currentGenerator.close();
+            } finally {
+                currentGenerator = null;
+                try {
+                    currentFileStream.close();
+                } finally {
+                    currentFileStream = null;
+                }
+            }
+        }
+    }
+
+    private void closeCurrentFileQuietly() {
+        try {
+            closeCurrentFile();
+        } catch (IOException e) {
+            log.atError().setCause(e).setMessage("Error closing the tuple output file").log();
+        }
+    }
+
+    /**
+     * Push whatever has been generated so far through the compressor so that the files can be followed while
+     * the replayer is quiet.  This isn't done for every tuple because each sync flush costs compression ratio.
+     */
+    private void flushQuietly() {
+        if (currentGenerator != null) {
+            try {
+                currentGenerator.flush();
+            } catch (IOException e) {
+                log.atWarn().setCause(e).setMessage("Error flushing the tuple output file").log();
+            }
+        }
+    }
+
+    /**
+     * Waits for every tuple that has already been accepted to be written and closes the current file.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pendingTuples.put(END_OF_TUPLES);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        writerThread.join();
+        // Only reachable if the writer stopped early (e.g. it was interrupted) and left tuples behind
+        PendingTuple leftOver;
+        while ((leftOver = pendingTuples.poll()) != null) {
+            if (leftOver != END_OF_TUPLES) {
+                leftOver.release();
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.function.BiFunction;
 import org.opensearch.migrations.NettyFutureBinders;
 import org.opensearch.migrations.replay.datatypes.ConnectionReplaySession;
 import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.utils.NettyTransport;
 import org.opensearch.migrations.utils.TextTrackedFuture;
 import org.opensearch.migrations.utils.TrackedFuture;
 
@@ -16,7 +17,7 @@ import com.google.common.cache.LoadingCache;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoop;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.ScheduledFuture;
 import lombok.AllArgsConstructor;
@@ -30,8 +31,13 @@ public class ClientConnectionPool {
 
     private final BiFunction<EventLoop, IReplayContexts.ITargetRequestContext, TrackedFuture<String, ChannelFuture>>
         channelCreator;
-    private final NioEventLoopGroup eventLoopGroup;
+    private final EventLoopGroup eventLoopGroup;
     private final LoadingCache<Key, ConnectionReplaySession> connectionId2ChannelCache;
+    /**
+     * When null, every source connection gets its own target connection(s).  Otherwise, target connections
+     * are returned to this pool when their source connection closes so that other connections can reuse them.
+     */
+    private final ReusableTargetChannelPool reusableTargetChannelPool;
 
     @EqualsAndHashCode
     @AllArgsConstructor
@@ -49,8 +55,22 @@ public class ClientConnectionPool {
         @NonNull String targetConnectionPoolName,
         int numThreads
     ) {
-        this.channelCreator = channelCreator;
-        this.eventLoopGroup = new NioEventLoopGroup(numThreads, new DefaultThreadFactory(targetConnectionPoolName));
+        this(channelCreator, targetConnectionPoolName, numThreads, NettyTransport.NIO, null);
+    }
+
+    public ClientConnectionPool(
+        BiFunction<EventLoop, IReplayContexts.ITargetRequestContext, TrackedFuture<String, ChannelFuture>> channelCreator,
+        @NonNull String targetConnectionPoolName,
+        int numThreads,
+        @NonNull NettyTransport nettyTransport,
+        ReusableTargetChannelPool reusableTargetChannelPool
+    ) {
+        this.reusableTargetChannelPool = reusableTargetChannelPool;
+        this.channelCreator = reusableTargetChannelPool == null
+            ? channelCreator
+            : (eventLoop, ctx) -> reusableTargetChannelPool.leaseOrCreate(eventLoop, ctx, channelCreator);
+        this.eventLoopGroup = nettyTransport.newEventLoopGroup(numThreads,
+            new DefaultThreadFactory(targetConnectionPoolName));
 
         connectionId2ChannelCache = CacheBuilder.newBuilder().build(CacheLoader.from(key -> {
             throw new UnsupportedOperationException("Use Cache.get(key, callable) instead");
@@ -98,10 +118,15 @@ public class ClientConnectionPool {
     public void closeConnection(IReplayContexts.IChannelKeyContext ctx, int sessionNumber) {
         var connId = ctx.getConnectionId();
         log.atTrace().setMessage("closing connection for {}").addArgument(connId).log();
-        var connectionReplaySession = connectionId2ChannelCache.getIfPresent(getKey(connId, sessionNumber));
+        var key = getKey(connId, sessionNumber);
+        var connectionReplaySession = connectionId2ChannelCache.getIfPresent(key);
         if (connectionReplaySession != null) {
-            closeClientConnectionChannel(connectionReplaySession);
-            connectionId2ChannelCache.invalidate(connId);
+            if (reusableTargetChannelPool != null) {
+                releaseClientConnectionChannelForReuse(connectionReplaySession);
+            } else {
+                closeClientConnectionChannel(connectionReplaySession);
+            }
+            connectionId2ChannelCache.invalidate(key);
         } else {
             log.atTrace()
                 .setMessage("No ChannelFuture for {} in closeConnection.  " +
@@ -118,6 +143,41 @@ public class ClientConnectionPool {
         return rval;
     }
 
+    /**
+     * Detach the channel from the session and offer it to the reusable pool.  The channel is only closed
+     * if the pool declines it (it's already full, the channel isn't healthy, or it's still in use).
+     */
+    private TrackedFuture<String, Channel> releaseClientConnectionChannelForReuse(ConnectionReplaySession session) {
+        return session.detachChannelFuture()
+            .thenCompose(channelFuture -> {
+                // Anything left in the schedule would otherwise open a new channel for a session that's
+                // no longer tracked, or run on the channel after another session has leased it
+                clearRemainingWork(session);
+                if (channelFuture == null || !channelFuture.isDone()) {
+                    log.atTrace().setMessage("No established channel for {} to release for reuse")
+                        .addArgument(session::getChannelKeyContext)
+                        .log();
+                    return TextTrackedFuture.completedFuture(null, () -> "");
+                }
+                var channel = channelFuture.channel();
+                var offeredFuture = new TextTrackedFuture<Boolean>("offering channel to the reusable pool");
+                channel.eventLoop().execute(() ->
+                    offeredFuture.future.complete(reusableTargetChannelPool.offer(channel)));
+                return offeredFuture.thenCompose(wasPooled -> {
+                    if (Boolean.TRUE.equals(wasPooled)) {
+                        return TextTrackedFuture.completedFuture(channel, () -> "channel was pooled");
+                    }
+                    log.atTrace().setMessage("closing channel {} ({}) that couldn't be pooled")
+                        .addArgument(channel)
+                        .addArgument(session::getChannelKeyContext)
+                        .log();
+                    return NettyFutureBinders.bindNettyFutureToTrackableFuture(
+                            channel.close(), "calling channel.close()")
+                        .thenApply(v -> channel, () -> "returning closed channel");
+                }, () -> "closing the channel if it wasn't pooled");
+            }, () -> "releasing the retrieved channel from the session");
+    }
+
     private TrackedFuture<String, Channel> closeClientConnectionChannel(ConnectionReplaySession session) {
         return session
             .getChannelFutureInAnyState() // this could throw, especially if the even loop has begun to shut down
@@ -141,16 +201,20 @@ public class ClientConnectionPool {
                             .addArgument(session::getChannelKeyContext)
                             .addArgument(v)
                             .log();
-                        if (session.hasWorkRemaining()) {
-                            log.atWarn().setMessage("Work items are still remaining for this connection session " +
-                                    "(last associated with connection={}). {} requests that were enqueued won't be run")
-                                .addArgument(session::getChannelKeyContext)
-                                .addArgument(session::calculateSizeSlowly)
-                                .log();
-                        }
-                        session.schedule.clear();
+                        clearRemainingWork(session);
                         return channelFuture.channel();
                     }, () -> "clearing work");
             }, () -> "composing close through retrieved channel from the session");
     }
+
+    private static void clearRemainingWork(ConnectionReplaySession session) {
+        if (session.hasWorkRemaining()) {
+            log.atWarn().setMessage("Work items are still remaining for this connection session " +
+                    "(last associated with connection={}). {} requests that were enqueued won't be run")
+                .addArgument(session::getChannelKeyContext)
+                .addArgument(session::calculateSizeSlowly)
+                .log();
+        }
+        session.schedule.clear();
+    }
 }
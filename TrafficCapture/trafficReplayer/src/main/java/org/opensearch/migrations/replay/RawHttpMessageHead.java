@@ -0,0 +1,126 @@
+package org.opensearch.migrations.replay;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ByteProcessor;
+import lombok.Getter;
+
+/**
+ * The start line and headers of a raw HTTP/1.x message, parsed without running the message through a netty
+ * decoder pipeline and without touching the body.  This is for consumers (like the AsyncTupleFileSink) that
+ * only need the message's metadata right away and can leave the body as bytes, or decode it later.
+ *
+ * Header names keep their original case and map to every value that was present, in order, which matches
+ * how the headers are rendered by ParsedHttpMessagesAsDicts.
+ */
+@Getter
+public class RawHttpMessageHead {
+    private final String firstToken;
+    private final String secondToken;
+    private final String thirdToken;
+    private final Map<String, List<String>> headers;
+    /** Index of the first body byte, relative to the readerIndex of the buffer that was parsed */
+    private final int bodyOffset;
+    private final boolean chunked;
+
+    private RawHttpMessageHead(
+        String firstToken,
+        String secondToken,
+        String thirdToken,
+        Map<String, List<String>> headers,
+        int bodyOffset
+    ) {
+        this.firstToken = firstToken;
+        this.secondToken = secondToken;
+        this.thirdToken = thirdToken;
+        this.headers = headers;
+        this.bodyOffset = bodyOffset;
+        this.chunked = headers.entrySet().stream()
+            .filter(kvp -> kvp.getKey().equalsIgnoreCase("transfer-encoding"))
+            .flatMap(kvp -> kvp.getValue().stream())
+            .anyMatch(v -> v.toLowerCase().contains("chunked"));
+    }
+
+    /**
+     * @return the parsed head or null if the buffer doesn't contain a complete start line and header block
+     */
+    public static RawHttpMessageHead parse(ByteBuf message) {
+        int lineStart = message.readerIndex();
+        final int end = message.writerIndex();
+        String startLine = null;
+        var headers = new LinkedHashMap<String, List<String>>();
+        while (lineStart < end) {
+            int lf = message.forEachByte(lineStart, end - lineStart, ByteProcessor.FIND_LF);
+            if (lf < 0) {
+                return null;
+            }
+            int lineEnd = (lf > lineStart && message.getByte(lf - 1) == '\r') ? lf - 1 : lf;
+            var line = message.toString(lineStart, lineEnd - lineStart, StandardCharsets.ISO_8859_1);
+            lineStart = lf + 1;
+            if (startLine == null) {
+                startLine = line;
+            } else if (line.isEmpty()) {
+                var tokens = startLine.split(" ", 3);
+                return new RawHttpMessageHead(
+                    tokens[0],
+                    tokens.length > 1 ? tokens[1] : "",
+                    tokens.length > 2 ? tokens[2] : "",
+                    headers,
+                    lineStart - message.readerIndex()
+                );
+            } else {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    headers.computeIfAbsent(line.substring(0, colon).trim(), k -> new ArrayList<>())
+                        .add(line.substring(colon + 1).trim());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a retained view (not a copy) over the body of the message, which the caller must release.
+     * Chunked bodies are reassembled into a composite of the chunks' contents.
+     */
+    public ByteBuf getBody(ByteBuf message) {
+        var bodyStart = message.readerIndex() + bodyOffset;
+        if (!chunked) {
+            return message.retainedSlice(bodyStart, message.writerIndex() - bodyStart);
+        }
+        CompositeByteBuf body = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        int idx = bodyStart;
+        final int end = message.writerIndex();
+        while (idx < end) {
+            int lf = message.forEachByte(idx, end - idx, ByteProcessor.FIND_LF);
+            if (lf < 0) {
+                break;
+            }
+            var sizeLine = message.toString(idx, lf - idx, StandardCharsets.ISO_8859_1).trim();
+            int extensionStart = sizeLine.indexOf(';');
+            var sizeStr = extensionStart >= 0 ? sizeLine.substring(0, extensionStart) : sizeLine;
+            int chunkSize;
+            try {
+                chunkSize = Integer.parseInt(sizeStr.trim(), 16);
+            } catch (NumberFormatException e) {
+                break;
+            }
+            idx = lf + 1;
+            if (chunkSize == 0) {
+                break;
+            }
+            int available = Math.min(chunkSize, end - idx);
+            body.addComponent(true, message.retainedSlice(idx, available));
+            // skip the chunk's data and its trailing CRLF
+            idx += chunkSize + 2;
+        }
+        return body;
+    }
+}
@@ -59,7 +59,7 @@ public class ResultsToLogsConsumer implements BiConsumer<SourceTargetCaptureTupl
 
     // set this up so that the preamble prints out once, right after we have a logger
     // if it's configured to output at all
-    private static Logger makeTransactionSummaryLogger() {
+    static Logger makeTransactionSummaryLogger() {
         var logger = LoggerFactory.getLogger(TRANSACTION_SUMMARY_LOGGER);
         logger.atDebug().setMessage("{}").addArgument(ResultsToLogsConsumer::getTransactionSummaryStringPreamble).log();
         return logger;
@@ -191,13 +191,15 @@ public class ResultsToLogsConsumer implements BiConsumer<SourceTargetCaptureTupl
             // Original request timestamp
             .add(
                 Optional.ofNullable(tuple.sourcePair)
-                    .map(sp -> sp.requestData.getLastPacketTimestamp().toString())
+                    .flatMap(sp -> Optional.ofNullable(sp.requestData))
+                    .map(rd -> rd.getLastPacketTimestamp().toString())
                     .orElse(MISSING_STR)
             )
             // SOURCE/TARGET REQUEST_SIZE_BYTES
             .add(
                 Optional.ofNullable(tuple.sourcePair)
-                    .map(sp -> sp.requestData.stream().mapToInt(bArr -> bArr.length).sum() + "")
+                    .flatMap(sp -> Optional.ofNullable(sp.requestData))
+                    .map(rd -> rd.stream().mapToInt(bArr -> bArr.length).sum() + "")
                     .orElse(MISSING_STR)
                     + "/"
                     + Optional.ofNullable(tuple.targetRequestData)
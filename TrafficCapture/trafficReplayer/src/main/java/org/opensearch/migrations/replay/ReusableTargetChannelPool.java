@@ -0,0 +1,193 @@
+package org.opensearch.migrations.replay;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.opensearch.migrations.replay.datahandlers.NettyPacketToHttpConsumer;
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.utils.TextTrackedFuture;
+import org.opensearch.migrations.utils.TrackedFuture;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An opt-in pool of idle keep-alive connections to the target, bounded per EventLoop.  When exact
+ * connection fidelity with the source isn't required, the ClientConnectionPool hands a session's channel
+ * back here when the source connection closes instead of closing it.  Sessions that are later bound to
+ * the same EventLoop lease those channels rather than opening (and TLS handshaking) a new socket.
+ *
+ * Each EventLoop's idle list is only ever touched from that EventLoop's thread, which is also the thread
+ * that every channel within the list is registered to, so no further synchronization is necessary.
+ */
+@Slf4j
+public class ReusableTargetChannelPool {
+    public static final String IDLE_CHANNEL_WATCHER_HANDLER_NAME = "IDLE_TARGET_CHANNEL_WATCHER_HANDLER";
+
+    @Getter
+    private final int maxIdleChannelsPerEventLoop;
+    @Getter
+    private final Duration maxIdleTime;
+    private final ConcurrentHashMap<EventLoop, ArrayDeque<IdleChannel>> idleChannelsByEventLoop;
+
+    private static class IdleChannel {
+        final Channel channel;
+        ScheduledFuture<?> expirationFuture;
+
+        IdleChannel(Channel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * While a channel sits in the pool, it is kept reading so that a server-side close or reset is noticed
+     * right away rather than when the next request is written to it.  Since nobody has a request outstanding
+     * on an idle channel, any bytes that arrive mean that the connection can't be trusted anymore.
+     */
+    private static class IdleChannelWatcherHandler extends ChannelInboundHandlerAdapter {
+        private final ArrayDeque<IdleChannel> idleChannels;
+        private final IdleChannel idleChannel;
+
+        IdleChannelWatcherHandler(ArrayDeque<IdleChannel> idleChannels, IdleChannel idleChannel) {
+            this.idleChannels = idleChannels;
+            this.idleChannel = idleChannel;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+            log.atWarn().setMessage("Unsolicited data was received on idle target channel {}.  Closing it.")
+                .addArgument(ctx::channel)
+                .log();
+            ctx.close();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            evict();
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.atDebug().setCause(cause).setMessage("Closing idle target channel {} due to exception")
+                .addArgument(ctx::channel)
+                .log();
+            ctx.close();
+        }
+
+        private void evict() {
+            if (idleChannels.remove(idleChannel) && idleChannel.expirationFuture != null) {
+                idleChannel.expirationFuture.cancel(false);
+            }
+        }
+    }
+
+    public ReusableTargetChannelPool(int maxIdleChannelsPerEventLoop, Duration maxIdleTime) {
+        if (maxIdleChannelsPerEventLoop <= 0) {
+            throw new IllegalArgumentException("maxIdleChannelsPerEventLoop must be positive");
+        }
+        if (maxIdleTime.isNegative() || maxIdleTime.isZero()) {
+            throw new IllegalArgumentException("maxIdleTime must be positive");
+        }
+        this.maxIdleChannelsPerEventLoop = maxIdleChannelsPerEventLoop;
+        this.maxIdleTime = maxIdleTime;
+        this.idleChannelsByEventLoop = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Hand a channel that is no longer associated with any source connection to the pool.  This must be
+     * called from the channel's EventLoop.
+     * @return true if the pool took ownership of the channel.  When false, the caller is still responsible
+     * for closing it.
+     */
+    public boolean offer(Channel channel) {
+        var eventLoop = channel.eventLoop();
+        assert eventLoop.inEventLoop() : "Channels can only be returned from their own EventLoop";
+        if (!channel.isActive() || NettyPacketToHttpConsumer.channelIsInUse(channel)) {
+            return false;
+        }
+        var idleChannels = idleChannelsByEventLoop.computeIfAbsent(eventLoop, k -> new ArrayDeque<>());
+        if (idleChannels.size() >= maxIdleChannelsPerEventLoop) {
+            log.atTrace().setMessage("Not pooling {} because {} idle channels are already held for its EventLoop")
+                .addArgument(channel)
+                .addArgument(idleChannels::size)
+                .log();
+            return false;
+        }
+        NettyPacketToHttpConsumer.detachChannelFromConnection(channel);
+        var idleChannel = new IdleChannel(channel);
+        var watcher = new IdleChannelWatcherHandler(idleChannels, idleChannel);
+        idleChannel.expirationFuture = eventLoop.schedule(() -> {
+            if (idleChannels.remove(idleChannel)) {
+                log.atTrace().setMessage("Closing target channel {} after being idle for {}")
+                    .addArgument(channel)
+                    .addArgument(maxIdleTime)
+                    .log();
+                channel.close();
+            }
+        }, maxIdleTime.toMillis(), TimeUnit.MILLISECONDS);
+        idleChannels.addLast(idleChannel);
+        channel.pipeline().addLast(IDLE_CHANNEL_WATCHER_HANDLER_NAME, watcher);
+        channel.config().setAutoRead(true);
+        log.atTrace().setMessage("Pooled idle target channel {}").addArgument(channel).log();
+        return true;
+    }
+
+    /**
+     * @return the most recently pooled channel for this EventLoop that is still healthy, or null if there
+     * weren't any.  This must be called from the EventLoop that is passed in.
+     */
+    public Channel lease(EventLoop eventLoop) {
+        assert eventLoop.inEventLoop() : "Channels can only be leased from their own EventLoop";
+        var idleChannels = idleChannelsByEventLoop.get(eventLoop);
+        if (idleChannels == null) {
+            return null;
+        }
+        while (!idleChannels.isEmpty()) {
+            var idleChannel = idleChannels.pollLast();
+            idleChannel.expirationFuture.cancel(false);
+            var channel = idleChannel.channel;
+            if (!channel.isActive()) {
+                continue;
+            }
+            channel.config().setAutoRead(false);
+            channel.pipeline().remove(IDLE_CHANNEL_WATCHER_HANDLER_NAME);
+            return channel;
+        }
+        return null;
+    }
+
+    /**
+     * Reuse a healthy idle channel from the EventLoop when one is available and fall back to the
+     * channelCreator otherwise.
+     */
+    public TrackedFuture<String, ChannelFuture> leaseOrCreate(
+        EventLoop eventLoop,
+        IReplayContexts.ITargetRequestContext ctx,
+        BiFunction<EventLoop, IReplayContexts.ITargetRequestContext, TrackedFuture<String, ChannelFuture>> channelCreator
+    ) {
+        var channel = lease(eventLoop);
+        if (channel == null) {
+            return channelCreator.apply(eventLoop, ctx);
+        }
+        var channelKeyCtx = ctx.getLogicalEnclosingScope().getChannelKeyContext();
+        NettyPacketToHttpConsumer.attachChannelToConnection(channel, channelKeyCtx);
+        channelKeyCtx.addReusedTargetChannel();
+        log.atDebug().setMessage("Reusing idle target channel {} for {}")
+            .addArgument(channel)
+            .addArgument(channelKeyCtx)
+            .log();
+        return TextTrackedFuture.completedFuture(channel.newSucceededFuture(), () -> "reusing an idle target channel");
+    }
+}
@@ -0,0 +1,319 @@
+package org.opensearch.migrations.replay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides which tuples are worth passing on, in full, to the tuple consumer (the OutputTupleJsonLogger
+ * chain or the AsyncTupleFileSink) so that high-rate replays don't have to write and analyze every body.
+ *
+ * A tuple is a mismatch when the source and the (last) target status codes differ, when any of the
+ * comparedResponseHeaders have different values, when the target never responded, or when there was an
+ * error.  It's also a mismatch when a value at any of the comparedResponseBodyFields (JSON pointers, e.g.
+ * /hits/total/value or /errors) differs between the two response bodies.  Bodies are only parsed for those
+ * fields, and only for tuples that would otherwise have matched.  Mismatches are always passed on.  Matching
+ * tuples are passed on at sampleRate, and only when their endpoint matches endpointPattern (if one was
+ * given).  In diff-only mode, the sample rate is 0.
+ *
+ * Every tuple, whether or not it was passed on, is counted against its endpoint ("METHOD /path", without the
+ * query string).  Those counters are written as one JSON line per endpoint to the TupleEndpointSummaryLogger
+ * whenever logAndResetEndpointSummaries() is called and when this is closed.  Unless body fields are being
+ * compared, only the heads of the messages are parsed here, so the cost of a dropped tuple is small.
+ */
+@Slf4j
+public class SamplingTupleConsumer implements Consumer<SourceTargetCaptureTuple>, AutoCloseable {
+    public static final String ENDPOINT_SUMMARY_LOGGER = "TupleEndpointSummaryLogger";
+    public static final String OTHER_ENDPOINTS_KEY = "(other)";
+    private static final String UNKNOWN = "-";
+    private static final ObjectMapper PLAIN_MAPPER = new ObjectMapper();
+
+    private final Consumer<SourceTargetCaptureTuple> fullTupleConsumer;
+    private final double sampleRate;
+    private final Pattern endpointPattern;
+    private final List<String> comparedResponseHeaders;
+    private final List<JsonPointer> comparedResponseBodyFields;
+    private final int maxTrackedEndpoints;
+    private final Logger summaryLogger;
+    private final DoubleSupplier randomSupplier;
+    private final ConcurrentHashMap<String, EndpointCounters> endpointCounters;
+
+    private static class EndpointCounters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder mismatches = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder emitted = new LongAdder();
+        private final LongAdder sourceLatencyMillis = new LongAdder();
+        private final LongAdder targetLatencyMillis = new LongAdder();
+
+        Map<String, Object> toMapAndReset(String endpoint) {
+            // Take every sum before computing anything so that all of them cover (nearly) the same window and
+            // nothing that's added while the summary is being built is left over for the next one
+            var numRequests = requests.sumThenReset();
+            var numMismatches = mismatches.sumThenReset();
+            var numErrors = errors.sumThenReset();
+            var numEmitted = emitted.sumThenReset();
+            var totalSourceLatencyMillis = sourceLatencyMillis.sumThenReset();
+            var totalTargetLatencyMillis = targetLatencyMillis.sumThenReset();
+
+            var map = new LinkedHashMap<String, Object>();
+            map.put("endpoint", endpoint);
+            map.put("requests", numRequests);
+            map.put("mismatches", numMismatches);
+            map.put("errors", numErrors);
+            map.put("emitted", numEmitted);
+            map.put("avgSourceLatencyMs", numRequests == 0 ? 0 : totalSourceLatencyMillis / numRequests);
+            map.put("avgTargetLatencyMs", numRequests == 0 ? 0 : totalTargetLatencyMillis / numRequests);
+            return map;
+        }
+    }
+
+    public SamplingTupleConsumer(
+        Consumer<SourceTargetCaptureTuple> fullTupleConsumer,
+        double sampleRate,
+        Pattern endpointPattern,
+        List<String> comparedResponseHeaders,
+        List<String> comparedResponseBodyFields,
+        int maxTrackedEndpoints
+    ) {
+        this(fullTupleConsumer, sampleRate, endpointPattern, comparedResponseHeaders, comparedResponseBodyFields,
+            maxTrackedEndpoints, LoggerFactory.getLogger(ENDPOINT_SUMMARY_LOGGER),
+            () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    SamplingTupleConsumer(
+        Consumer<SourceTargetCaptureTuple> fullTupleConsumer,
+        double sampleRate,
+        Pattern endpointPattern,
+        List<String> comparedResponseHeaders,
+        List<String> comparedResponseBodyFields,
+        int maxTrackedEndpoints,
+        Logger summaryLogger,
+        DoubleSupplier randomSupplier
+    ) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        this.fullTupleConsumer = fullTupleConsumer;
+        this.sampleRate = sampleRate;
+        this.endpointPattern = endpointPattern;
+        this.comparedResponseHeaders = Optional.ofNullable(comparedResponseHeaders).orElse(List.of());
+        // compile() throws an IllegalArgumentException for a malformed pointer, so those fail at startup
+        this.comparedResponseBodyFields = Optional.ofNullable(comparedResponseBodyFields).orElse(List.of())
+            .stream()
+            .map(JsonPointer::compile)
+            .collect(Collectors.toList());
+        this.maxTrackedEndpoints = maxTrackedEndpoints;
+        this.summaryLogger = summaryLogger;
+        this.randomSupplier = randomSupplier;
+        this.endpointCounters = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void accept(SourceTargetCaptureTuple tuple) {
+        var sourceRequestHead = Optional.ofNullable(tuple.sourcePair)
+            .flatMap(p -> Optional.ofNullable(p.requestData))
+            .map(d -> parseHead(d.packetBytes))
+            .orElse(null);
+        var sourceResponsePackets = Optional.ofNullable(tuple.sourcePair)
+            .flatMap(p -> Optional.ofNullable(p.responseData))
+            .map(d -> d.packetBytes)
+            .orElse(null);
+        var sourceResponseHead = parseHead(sourceResponsePackets);
+        var lastTargetResponse = tuple.responseList.isEmpty() ? null
+            : tuple.responseList.get(tuple.responseList.size() - 1);
+        var targetResponseHead = Optional.ofNullable(lastTargetResponse)
+            .map(r -> parseHead(r.targetResponseData))
+            .orElse(null);
+
+        var sourceStatus = parseStatus(sourceResponseHead);
+        var targetStatus = parseStatus(targetResponseHead);
+        boolean hadError = tuple.topLevelErrorCause != null
+            || tuple.responseList.stream().anyMatch(r -> r.errorCause != null);
+        boolean isMismatch = hadError
+            || targetStatus == null
+            || !Objects.equals(sourceStatus, targetStatus)
+            || !comparedHeadersMatch(sourceResponseHead, targetResponseHead)
+            || !comparedBodyFieldsMatch(sourceResponseHead, sourceResponsePackets,
+                targetResponseHead, lastTargetResponse.targetResponseData);
+
+        var path = Optional.ofNullable(sourceRequestHead).map(RawHttpMessageHead::getSecondToken).orElse(UNKNOWN);
+        var queryStart = path.indexOf('?');
+        var endpoint = Optional.ofNullable(sourceRequestHead).map(RawHttpMessageHead::getFirstToken).orElse(UNKNOWN)
+            + " " + (queryStart >= 0 ? path.substring(0, queryStart) : path);
+        boolean emit = isMismatch || isSampled(endpoint);
+
+        var counters = getCountersForEndpoint(endpoint);
+        counters.requests.increment();
+        if (isMismatch) {
+            counters.mismatches.increment();
+        }
+        if (hadError) {
+            counters.errors.increment();
+        }
+        if (tuple.sourcePair != null && tuple.sourcePair.requestData != null
+            && tuple.sourcePair.responseData != null) {
+            counters.sourceLatencyMillis.add(Duration.between(
+                tuple.sourcePair.requestData.getLastPacketTimestamp(),
+                tuple.sourcePair.responseData.getLastPacketTimestamp()).toMillis());
+        }
+        if (lastTargetResponse != null && lastTargetResponse.targetResponseDuration != null) {
+            counters.targetLatencyMillis.add(lastTargetResponse.targetResponseDuration.toMillis());
+        }
+
+        if (emit) {
+            counters.emitted.increment();
+            fullTupleConsumer.accept(tuple);
+        } else {
+            // the full consumer would have set these while parsing the messages
+            var context = tuple.context;
+            Optional.ofNullable(sourceRequestHead).ifPresent(h -> {
+                context.setMethod(h.getFirstToken());
+                context.setEndpoint(h.getSecondToken());
+                context.setHttpVersion(h.getThirdToken());
+            });
+            Optional.ofNullable(sourceStatus).ifPresent(context::setSourceStatus);
+            Optional.ofNullable(targetStatus).ifPresent(context::setTargetStatus);
+        }
+    }
+
+    private boolean isSampled(String endpoint) {
+        if (sampleRate <= 0) {
+            return false;
+        }
+        if (endpointPattern != null && !endpointPattern.matcher(endpoint).find()) {
+            return false;
+        }
+        return sampleRate >= 1 || randomSupplier.getAsDouble() < sampleRate;
+    }
+
+    private EndpointCounters getCountersForEndpoint(String endpoint) {
+        var counters = endpointCounters.get(endpoint);
+        if (counters != null) {
+            return counters;
+        }
+        // the bound is approximate under contention, which is fine since it only exists to stop
+        // high-cardinality paths (e.g. ones with document ids) from growing the map without limit
+        var key = endpointCounters.size() < maxTrackedEndpoints ? endpoint : OTHER_ENDPOINTS_KEY;
+        return endpointCounters.computeIfAbsent(key, k -> new EndpointCounters());
+    }
+
+    private boolean comparedHeadersMatch(RawHttpMessageHead source, RawHttpMessageHead target) {
+        if (comparedResponseHeaders.isEmpty()) {
+            return true;
+        }
+        if (source == null || target == null) {
+            return source == target;
+        }
+        return comparedResponseHeaders.stream()
+            .allMatch(h -> Objects.equals(getHeaderValues(source, h), getHeaderValues(target, h)));
+    }
+
+    private boolean comparedBodyFieldsMatch(
+        RawHttpMessageHead sourceHead,
+        List<byte[]> sourcePackets,
+        RawHttpMessageHead targetHead,
+        List<byte[]> targetPackets
+    ) {
+        if (comparedResponseBodyFields.isEmpty()) {
+            return true;
+        }
+        if (sourceHead == null || targetHead == null) {
+            return sourceHead == targetHead;
+        }
+        var sourceBody = readJsonBody(sourceHead, sourcePackets);
+        var targetBody = readJsonBody(targetHead, targetPackets);
+        return comparedResponseBodyFields.stream().allMatch(p -> sourceBody.at(p).equals(targetBody.at(p)));
+    }
+
+    /**
+     * @return the body as a tree, or a MissingNode when it's empty or isn't JSON, so that every field of it
+     * compares as missing
+     */
+    private static JsonNode readJsonBody(RawHttpMessageHead head, List<byte[]> packets) {
+        var isGzipped = getHeaderValues(head, "Content-Encoding").stream().anyMatch(v -> v.equalsIgnoreCase("gzip"));
+        try (var bodyStream = new ByteBufInputStream(head.getBody(wrap(packets)), true);
+             InputStream jsonStream = isGzipped ? new GZIPInputStream(bodyStream) : bodyStream) {
+            return Optional.ofNullable(PLAIN_MAPPER.readTree(jsonStream)).orElse(MissingNode.getInstance());
+        } catch (IOException e) {
+            log.atDebug().setCause(e).setMessage("Couldn't read a response body as JSON to compare its fields").log();
+            return MissingNode.getInstance();
+        }
+    }
+
+    private static List<String> getHeaderValues(RawHttpMessageHead head, String headerName) {
+        return head.getHeaders().entrySet().stream()
+            .filter(kvp -> kvp.getKey().equalsIgnoreCase(headerName))
+            .flatMap(kvp -> kvp.getValue().stream())
+            .collect(Collectors.toList());
+    }
+
+    private static RawHttpMessageHead parseHead(List<byte[]> packets) {
+        if (packets == null || packets.isEmpty()) {
+            return null;
+        }
+        return RawHttpMessageHead.parse(wrap(packets));
+    }
+
+    private static ByteBuf wrap(List<byte[]> packets) {
+        return Unpooled.wrappedBuffer(packets.toArray(byte[][]::new));
+    }
+
+    private static Integer parseStatus(RawHttpMessageHead responseHead) {
+        if (responseHead == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(responseHead.getSecondToken());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void logAndResetEndpointSummaries() {
+        endpointCounters.forEach((endpoint, counters) -> {
+            if (counters.requests.sum() == 0) {
+                return;
+            }
+            try {
+                summaryLogger.atInfo().setMessage("{}")
+                    .addArgument(PLAIN_MAPPER.writeValueAsString(counters.toMapAndReset(endpoint)))
+                    .log();
+            } catch (JsonProcessingException e) {
+                log.atError().setCause(e).setMessage("Couldn't serialize the summary for {}")
+                    .addArgument(endpoint)
+                    .log();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        logAndResetEndpointSummaries();
+    }
+}
@@ -3,6 +3,7 @@ package org.opensearch.migrations.replay;
 import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
@@ -12,6 +13,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import org.opensearch.migrations.arguments.ArgLogUtils;
@@ -31,6 +34,7 @@ import org.opensearch.migrations.transform.StaticAuthTransformerFactory;
 import org.opensearch.migrations.transform.TransformationLoader;
 import org.opensearch.migrations.transform.TransformerConfigUtils;
 import org.opensearch.migrations.transform.TransformerParams;
+import org.opensearch.migrations.utils.NettyTransport;
 import org.opensearch.migrations.utils.ProcessHelpers;
 import org.opensearch.migrations.utils.TrackedFutureJsonFormatter;
 
@@ -39,6 +43,8 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.ParametersDelegate;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.LoggerFactory;
@@ -53,6 +59,10 @@ public class TrafficReplayer {
     public static final String AUTH_HEADER_VALUE_ARG = "--auth-header-value";
     public static final String REMOVE_AUTH_HEADER_VALUE_ARG = "--remove-auth-header";
     public static final String PACKET_TIMEOUT_SECONDS_PARAMETER_NAME = "--packet-timeout-seconds";
+    public static final String REUSE_TARGET_CONNECTIONS_ARG = "--reuse-target-connections";
+    public static final String TUPLE_OUTPUT_DIRECTORY_ARG = "--tuple-output-directory";
+    public static final String TUPLE_DIFF_RESPONSE_HEADERS_ARG = "--tuple-diff-response-headers";
+    public static final String TUPLE_DIFF_RESPONSE_BODY_FIELDS_ARG = "--tuple-diff-response-body-fields";
 
     public static final String LOOKAHEAD_TIME_WINDOW_PARAMETER_NAME = "--lookahead-time-window";
     private static final long ACTIVE_WORK_MONITOR_CADENCE_MS = 30 * 1000L;
@@ -182,12 +192,128 @@ public class TrafficReplayer {
             arity = 1,
             description = "Maximum number of requests at a time that can be outstanding")
         int maxConcurrentRequests = 1024;
+        @Parameter(
+            required = false,
+            names = { "--fairness-quantum-bytes", "--fairnessQuantumBytes" },
+            arity = 1,
+            description = "Request bytes credited to each source connection per round when admitting queued requests "
+                + "(up to --max-concurrent-requests) round-robin.  Connections sending large requests get fewer "
+                + "turns so that they can't hold back connections that send small ones.")
+        long fairnessQuantumBytes = TrafficStreamLimiter.DEFAULT_QUANTUM_SIZE;
+        @Parameter(
+            required = false,
+            names = { "--small-request-bypass-bytes", "--smallRequestBypassBytes" },
+            arity = 1,
+            description = "Requests of at most this many bytes are admitted ahead of the round-robin as soon as there "
+                + "is capacity for them.  A negative value disables the bypass.")
+        long smallRequestBypassBytes = -1;
         @Parameter(
             required = false,
             names = { "--num-client-threads", "--numClientThreads" },
             arity = 1,
             description = "Number of threads to use to send requests from.")
         int numClientThreads = 0;
+        @Parameter(
+            required = false,
+            names = { REUSE_TARGET_CONNECTIONS_ARG, "--reuseTargetConnections" },
+            arity = 0,
+            description = "Share keep-alive connections to the target across source connections instead of "
+                + "opening a new target connection for every source connection.  This avoids connection setup "
+                + "(including TLS handshakes) at the expense of exact connection fidelity.")
+        boolean reuseTargetConnections;
+        @Parameter(
+            required = false,
+            names = { "--max-idle-target-connections-per-thread", "--maxIdleTargetConnectionsPerThread" },
+            arity = 1,
+            description = "Maximum number of idle target connections to keep for each client thread when "
+                + REUSE_TARGET_CONNECTIONS_ARG + " is set.")
+        int maxIdleTargetConnectionsPerThread = 64;
+        @Parameter(
+            required = false,
+            names = { "--target-connection-max-idle-seconds", "--targetConnectionMaxIdleSeconds" },
+            arity = 1,
+            description = "Seconds that an idle target connection will be kept for reuse when "
+                + REUSE_TARGET_CONNECTIONS_ARG + " is set.  This should be lower than the target's keep-alive "
+                + "timeout.")
+        int targetConnectionMaxIdleSeconds = 30;
+        @Parameter(
+            required = false,
+            names = { "--netty-transport", "--nettyTransport" },
+            arity = 1,
+            description = "I/O transport for the connections to the target: AUTO, EPOLL, KQUEUE or NIO.  AUTO uses a "
+                + "native transport (epoll on Linux, kqueue on macOS) when it's available and NIO otherwise.")
+        NettyTransport nettyTransport = NettyTransport.AUTO;
+
+        @Parameter(
+            required = false,
+            names = { TUPLE_OUTPUT_DIRECTORY_ARG, "--tupleOutputDirectory" },
+            arity = 1,
+            description = "Directory to write gzipped tuple files to from a background thread instead of sending "
+                + "tuples through the OutputTupleJsonLogger.  Bodies are written as base64 without being parsed.  "
+                + "This cannot be combined with a tuple transformer.")
+        String tupleOutputDirectory;
+        @Parameter(
+            required = false,
+            names = { "--tuple-output-queue-capacity", "--tupleOutputQueueCapacity" },
+            arity = 1,
+            description = "Number of tuples that may be waiting to be written to " + TUPLE_OUTPUT_DIRECTORY_ARG
+                + " before replaying is held back.")
+        int tupleOutputQueueCapacity = 4096;
+        @Parameter(
+            required = false,
+            names = { "--tuple-output-max-file-megabytes", "--tupleOutputMaxFileMegabytes" },
+            arity = 1,
+            description = "Uncompressed size at which the current file in " + TUPLE_OUTPUT_DIRECTORY_ARG
+                + " is closed and a new one is started.")
+        int tupleOutputMaxFileMegabytes = 256;
+
+        @Parameter(
+            required = false,
+            names = { "--tuple-sample-rate", "--tupleSampleRate" },
+            arity = 1,
+            description = "Fraction (0.0-1.0) of matching source/target tuples to output in full.  Tuples whose "
+                + "status codes (or " + TUPLE_DIFF_RESPONSE_HEADERS_ARG + " or " + TUPLE_DIFF_RESPONSE_BODY_FIELDS_ARG
+                + ") differ, or that had errors, are always output.  Per-endpoint counters are logged for all tuples when sampling is enabled.")
+        double tupleSampleRate = 1.0;
+        @Parameter(
+            required = false,
+            names = { "--tuple-sample-endpoint-regex", "--tupleSampleEndpointRegex" },
+            arity = 1,
+            description = "Only sample matching tuples whose \"METHOD /path\" contains a match for this regex.")
+        String tupleSampleEndpointRegex;
+        @Parameter(
+            required = false,
+            names = { "--tuple-diff-only", "--tupleDiffOnly" },
+            arity = 0,
+            description = "Only output full tuples for mismatches and errors.  Everything else is summarized by the "
+                + "per-endpoint counters.  This is the same as a --tuple-sample-rate of 0.")
+        boolean tupleDiffOnly;
+        @Parameter(
+            required = false,
+            names = { TUPLE_DIFF_RESPONSE_HEADERS_ARG, "--tupleDiffResponseHeaders" },
+            description = "Comma-separated response header names whose values must also match between the source "
+                + "and target for a tuple to be considered a match.")
+        List<String> tupleDiffResponseHeaders = new ArrayList<>();
+        @Parameter(
+            required = false,
+            names = { TUPLE_DIFF_RESPONSE_BODY_FIELDS_ARG, "--tupleDiffResponseBodyFields" },
+            description = "Comma-separated JSON pointers (e.g. /hits/total/value,/errors) to values in the response "
+                + "bodies that must also match between the source and target for a tuple to be considered a match.  "
+                + "Bodies are only parsed for tuples that match otherwise.")
+        List<String> tupleDiffResponseBodyFields = new ArrayList<>();
+        @Parameter(
+            required = false,
+            names = { "--tuple-summary-interval-seconds", "--tupleSummaryIntervalSeconds" },
+            arity = 1,
+            description = "How often the per-endpoint tuple counters are logged and reset when sampling is enabled.")
+        int tupleSummaryIntervalSeconds = 60;
+        @Parameter(
+            required = false,
+            names = { "--tuple-max-tracked-endpoints", "--tupleMaxTrackedEndpoints" },
+            arity = 1,
+            description = "Maximum number of distinct endpoints to keep counters for.  Any others are counted "
+                + "together as \"" + SamplingTupleConsumer.OTHER_ENDPOINTS_KEY + "\".")
+        int tupleMaxTrackedEndpoints = 1000;
 
         // https://github.com/opensearch-project/opensearch-java/blob/main/java-client/src/main/java/org/opensearch/client/transport/httpclient5/ApacheHttpClient5TransportBuilder.java#L49-L54
         @Parameter(
@@ -394,10 +520,14 @@ public class TrafficReplayer {
             new DefaultThreadFactory("activeWorkMonitorThread")
         );
         var contextTrackers = new CompositeContextTracker(globalContextTracker, perContextTracker);
+        var nettyTransport = params.nettyTransport.resolve();
+        log.atInfo().setMessage("Using the {} netty transport for target connections").addArgument(nettyTransport)
+            .log();
         var topContext = new RootReplayerContext(
             RootOtelContext.initializeOpenTelemetryWithCollectorOrAsNoop(params.otelCollectorEndpoint,
                 "replay",
-                ProcessHelpers.getNodeInstanceName()),
+                ProcessHelpers.getNodeInstanceName(),
+                Attributes.of(AttributeKey.stringKey(NettyTransport.RESOURCE_ATTRIBUTE_NAME), nettyTransport.name())),
             contextTrackers
         );
 
@@ -409,7 +539,9 @@ public class TrafficReplayer {
                 Duration.ofSeconds(params.lookaheadTimeSeconds)
             );
             var authTransformer = buildAuthTransformerFactory(params);
-            var trafficStreamLimiter = new TrafficStreamLimiter(params.maxConcurrentRequests)
+            var trafficStreamLimiter = new TrafficStreamLimiter(params.maxConcurrentRequests,
+                params.fairnessQuantumBytes,
+                params.smallRequestBypassBytes)
         ) {
             var timeShifter = new TimeShifter(params.speedupFactor);
             var serverTimeout = Duration.ofSeconds(params.targetServerResponseTimeoutSeconds);
@@ -425,6 +557,10 @@ public class TrafficReplayer {
                 log.atInfo().setMessage("Tuple Transformations config string: {}")
                     .addArgument(tupleTransformerConfig).log();
             }
+            if (params.tupleOutputDirectory != null && tupleTransformerConfig != null) {
+                throw new ParameterException("Tuple transformations are not supported with "
+                    + TUPLE_OUTPUT_DIRECTORY_ARG);
+            }
 
             final var orderedRequestTracker = new OrderedWorkerTracker<Void>();
             final var hostname = uri.getHost();
@@ -438,7 +574,13 @@ public class TrafficReplayer {
                 TrafficReplayerTopLevel.makeNettyPacketConsumerConnectionPool(
                     uri,
                     params.allowInsecureConnections,
-                    params.numClientThreads
+                    params.numClientThreads,
+                    null,
+                    nettyTransport,
+                    params.reuseTargetConnections
+                        ? new ReusableTargetChannelPool(params.maxIdleTargetConnectionsPerThread,
+                            Duration.ofSeconds(params.targetConnectionMaxIdleSeconds))
+                        : null
                 ),
                 trafficStreamLimiter,
                 orderedRequestTracker
@@ -461,16 +603,27 @@ public class TrafficReplayer {
             }, ACTIVE_WORK_MONITOR_CADENCE_MS, ACTIVE_WORK_MONITOR_CADENCE_MS, TimeUnit.MILLISECONDS);
 
             setupShutdownHookForReplayer(tr);
-            var resultsToLogsConsumer = new ResultsToLogsConsumer(null, null,
-                    () -> transformationLoader.getTransformerFactoryLoader(tupleTransformerConfig));
-            var tupleWriter = new TupleParserChainConsumer(resultsToLogsConsumer);
-            tr.setupRunAndWaitForReplayWithShutdownChecks(
-                Duration.ofSeconds(params.observedPacketConnectionTimeout),
-                serverTimeout,
-                blockingTrafficSource,
-                timeShifter,
-                tupleWriter
-            );
+            try (var tupleSink = params.tupleOutputDirectory == null ? null
+                : new AsyncTupleFileSink(Path.of(params.tupleOutputDirectory),
+                    params.tupleOutputQueueCapacity,
+                    params.tupleOutputMaxFileMegabytes * 1024L * 1024L)) {
+                Consumer<SourceTargetCaptureTuple> tupleWriter = tupleSink != null ? tupleSink
+                    : new TupleParserChainConsumer(new ResultsToLogsConsumer(null, null,
+                        () -> transformationLoader.getTransformerFactoryLoader(tupleTransformerConfig)));
+                try (var tupleSampler = buildTupleSamplerIfEnabled(params, tupleWriter)) {
+                    if (tupleSampler != null) {
+                        scheduledExecutorService.scheduleAtFixedRate(tupleSampler::logAndResetEndpointSummaries,
+                            params.tupleSummaryIntervalSeconds, params.tupleSummaryIntervalSeconds, TimeUnit.SECONDS);
+                    }
+                    tr.setupRunAndWaitForReplayWithShutdownChecks(
+                        Duration.ofSeconds(params.observedPacketConnectionTimeout),
+                        serverTimeout,
+                        blockingTrafficSource,
+                        timeShifter,
+                        tupleSampler != null ? tupleSampler : tupleWriter
+                    );
+                }
+            }
             log.info("Done processing TrafficStreams");
         } finally {
             scheduledExecutorService.shutdown();
@@ -485,6 +638,27 @@ public class TrafficReplayer {
         }
     }
 
+    private static SamplingTupleConsumer buildTupleSamplerIfEnabled(
+        Parameters params,
+        Consumer<SourceTargetCaptureTuple> tupleWriter
+    ) {
+        if (!params.tupleDiffOnly
+            && params.tupleSampleRate >= 1.0
+            && params.tupleSampleEndpointRegex == null
+            && params.tupleDiffResponseHeaders.isEmpty()
+            && params.tupleDiffResponseBodyFields.isEmpty()) {
+            return null;
+        }
+        return new SamplingTupleConsumer(
+            tupleWriter,
+            params.tupleDiffOnly ? 0 : params.tupleSampleRate,
+            Optional.ofNullable(params.tupleSampleEndpointRegex).map(Pattern::compile).orElse(null),
+            params.tupleDiffResponseHeaders,
+            params.tupleDiffResponseBodyFields,
+            params.tupleMaxTrackedEndpoints
+        );
+    }
+
     private static void setupShutdownHookForReplayer(TrafficReplayerTopLevel tr) {
         var weakTrafficReplayer = new WeakReference<>(tr);
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -16,6 +16,7 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+import org.opensearch.migrations.replay.datatypes.ISourceTrafficChannelKey;
 import org.opensearch.migrations.replay.datatypes.ITrafficStreamKey;
 import org.opensearch.migrations.replay.datatypes.UniqueReplayerRequestKey;
 import org.opensearch.migrations.replay.http.retries.IRetryVisitorFactory;
@@ -150,7 +151,18 @@ public abstract class TrafficReplayerCore extends RequestTransformerAndSender<Tr
             var workDequeuedByLimiterFuture = new TextTrackedFuture<TrafficStreamLimiter.WorkItem>(
                 () -> "waiting for " + ctx + " to be queued and run through TrafficStreamLimiter"
             );
-            var wi = liveTrafficStreamLimiter.queueWork(1, ctx, workDequeuedByLimiterFuture.future::complete);
+            var channelKey = ctx.getChannelKey();
+            ctx.onQueuedInTrafficStreamLimiter();
+            var wi = liveTrafficStreamLimiter.queueWork(
+                1,
+                request.stream().mapToLong(b -> b.length).sum(),
+                new ISourceTrafficChannelKey.PojoImpl(channelKey.getNodeId(), channelKey.getConnectionId()),
+                ctx,
+                admittedWorkItem -> {
+                    ctx.onAdmittedByTrafficStreamLimiter(admittedWorkItem.getTimeInQueue());
+                    workDequeuedByLimiterFuture.future.complete(admittedWorkItem);
+                }
+            );
             var httpSentRequestFuture = workDequeuedByLimiterFuture.thenCompose(
                     ignored -> transformAndSendRequest(replayEngine, request, finishedAccumulatingResponseFuture, ctx),
                     () -> "Waiting to get response from target"
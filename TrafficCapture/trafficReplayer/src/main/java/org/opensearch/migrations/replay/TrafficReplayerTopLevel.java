@@ -26,6 +26,7 @@ import org.opensearch.migrations.replay.traffic.source.BlockingTrafficSource;
 import org.opensearch.migrations.replay.traffic.source.TrafficStreamLimiter;
 import org.opensearch.migrations.transform.IAuthTransformerFactory;
 import org.opensearch.migrations.transform.IJsonTransformer;
+import org.opensearch.migrations.utils.NettyTransport;
 import org.opensearch.migrations.utils.TextTrackedFuture;
 import org.opensearch.migrations.utils.TrackedFuture;
 
@@ -117,6 +118,23 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
         boolean allowInsecureConnections,
         int numSendingThreads,
         String connectionPoolName
+    ) {
+        return makeNettyPacketConsumerConnectionPool(serverUri, allowInsecureConnections, numSendingThreads,
+            connectionPoolName, NettyTransport.NIO, null);
+    }
+
+    /**
+     * @param nettyTransport the transport that the connection pool's event loops (and their channels) will use
+     * @param reusableTargetChannelPool when non-null, target connections are shared across source connections
+     *                                  rather than being opened and closed in lockstep with them
+     */
+    public static ClientConnectionPool makeNettyPacketConsumerConnectionPool(
+        URI serverUri,
+        boolean allowInsecureConnections,
+        int numSendingThreads,
+        String connectionPoolName,
+        NettyTransport nettyTransport,
+        ReusableTargetChannelPool reusableTargetChannelPool
     ) {
         return new ClientConnectionPool(
             NettyPacketToHttpConsumer.createClientConnectionFactory(
@@ -124,7 +142,9 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
             connectionPoolName != null
                 ? connectionPoolName
                 : getTargetConnectionPoolName(targetConnectionPoolUniqueCounter.getAndIncrement()),
-            numSendingThreads
+            numSendingThreads,
+            nettyTransport,
+            reusableTargetChannelPool
         );
     }
 
@@ -265,7 +285,7 @@ public class TrafficReplayerTopLevel extends TrafficReplayerCore implements Auto
 
         if (!liveTrafficStreamLimiter.isStopped()) {
             var streamLimiterHasRunEverything = new CompletableFuture<Void>();
-            liveTrafficStreamLimiter.queueWork(1, null, wi -> {
+            liveTrafficStreamLimiter.queueBarrier(wi -> {
                 streamLimiterHasRunEverything.complete(null);
                 liveTrafficStreamLimiter.doneProcessing(wi);
             });
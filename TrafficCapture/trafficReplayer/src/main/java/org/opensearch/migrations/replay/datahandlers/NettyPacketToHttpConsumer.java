@@ -21,6 +21,7 @@ import org.opensearch.migrations.replay.netty.BacksideSnifferHandler;
 import org.opensearch.migrations.replay.tracing.IReplayContexts;
 import org.opensearch.migrations.tracing.IScopedInstrumentationAttributes;
 import org.opensearch.migrations.tracing.IWithTypedEnclosingScope;
+import org.opensearch.migrations.utils.NettyTransport;
 import org.opensearch.migrations.utils.TextTrackedFuture;
 import org.opensearch.migrations.utils.TrackedFuture;
 
@@ -34,7 +35,6 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoop;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.HttpResponseDecoder;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
@@ -88,6 +88,10 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
             super.channelInactive(ctx);
         }
 
+        void detach() {
+            socketContext.close();
+        }
+
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
             socketContext.addTraceException(cause, true);
@@ -204,7 +208,7 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
                 ch.pipeline()
                     .addFirst(CONNECTION_CLOSE_HANDLER_NAME, new ConnectionClosedListenerHandler(channelKeyCtx));
             }
-        }).channel(NioSocketChannel.class).option(ChannelOption.AUTO_READ, false);
+        }).channel(NettyTransport.socketChannelClassFor(eventLoop)).option(ChannelOption.AUTO_READ, false);
 
         var outboundChannelFuture = b.connect(host, port);
 
@@ -261,7 +265,24 @@ public class NettyPacketToHttpConsumer implements IPacketFinalizingConsumer<Aggr
         }
     }
 
-    private static boolean channelIsInUse(Channel c) {
+    /**
+     * Disassociate a live channel from the source connection that it was created for so that it can be
+     * pooled and later handed to another connection via attachChannelToConnection.  This closes the
+     * socket context for the original connection, just as if the channel had been closed.
+     */
+    public static void detachChannelFromConnection(Channel c) {
+        var handler = c.pipeline().get(CONNECTION_CLOSE_HANDLER_NAME);
+        if (handler instanceof ConnectionClosedListenerHandler) {
+            c.pipeline().remove(handler);
+            ((ConnectionClosedListenerHandler) handler).detach();
+        }
+    }
+
+    public static void attachChannelToConnection(Channel c, IReplayContexts.IChannelKeyContext channelKeyContext) {
+        c.pipeline().addFirst(CONNECTION_CLOSE_HANDLER_NAME, new ConnectionClosedListenerHandler(channelKeyContext));
+    }
+
+    public static boolean channelIsInUse(Channel c) {
         var pipeline = c.pipeline();
         var lastHandler = pipeline.last();
         if (lastHandler instanceof ConnectionClosedListenerHandler || lastHandler instanceof SslHandler) {
@@ -57,6 +57,21 @@ public class ConnectionReplaySession {
         return trigger;
     }
 
+    /**
+     * Like getChannelFutureInAnyState, but the session also forgets about the channel so that it will never
+     * be used by this session again.  This is used when the channel is being handed off for reuse by another
+     * session.
+     */
+    public TrackedFuture<String, ChannelFuture> detachChannelFuture() {
+        TextTrackedFuture<ChannelFuture> trigger = new TextTrackedFuture<>("detaching the connection");
+        eventLoop.submit(() -> {
+            var channelFuture = cachedChannel;
+            cachedChannel = null;
+            trigger.future.complete(channelFuture);
+        });
+        return trigger;
+    }
+
     public TrackedFuture<String, ChannelFuture>
     getChannelFutureInActiveState(IReplayContexts.ITargetRequestContext ctx)
     {
@@ -6,9 +6,9 @@ import java.io.InputStream;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
@@ -28,7 +28,10 @@ import org.opensearch.migrations.replay.tracing.ReplayContexts;
 import org.opensearch.migrations.replay.tracing.RootReplayerContext;
 import org.opensearch.migrations.replay.traffic.source.ISimpleTrafficCaptureSource;
 import org.opensearch.migrations.replay.traffic.source.ITrafficStreamWithKey;
+import org.opensearch.migrations.replay.traffic.source.TrafficStreamPayloadInflater;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatch;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatchRecords;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.util.concurrent.DefaultThreadFactory;
@@ -37,6 +40,7 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 
 /**
@@ -234,39 +238,61 @@ public class KafkaTrafficCaptureSource implements ISimpleTrafficCaptureSource {
         try {
             return trackingKafkaConsumer.getNextBatchOfRecords(context, (offsetData, kafkaRecord) -> {
                 try {
-                    TrafficStream ts = TrafficStream.parseFrom(kafkaRecord.value());
-                    var trafficStreamsSoFar = trafficStreamsRead.incrementAndGet();
-                    log.atTrace().setMessage("Parsed traffic stream #{}: {} {}")
-                        .addArgument(trafficStreamsSoFar)
+                    if (kafkaRecord.headers().lastHeader(TrafficStreamBatchRecords.HEADER_NAME) == null) {
+                        var ts = TrafficStreamPayloadInflater.inflatePayloads(
+                            TrafficStream.parseFrom(kafkaRecord.value())
+                        );
+                        return List.of(makeTrafficStreamWithKey(offsetData, kafkaRecord, ts,
+                            kafkaRecord.serializedKeySize() + kafkaRecord.serializedValueSize()));
+                    }
+                    var batch = TrafficStreamBatch.parseFrom(kafkaRecord.value());
+                    log.atDebug().setMessage("Unpacking {} traffic streams from batch record {} {}")
+                        .addArgument(batch::getTrafficStreamsCount)
+                        .addArgument(kafkaRecord::key)
                         .addArgument(offsetData)
-                        .addArgument(ts)
                         .log();
-                    var key = new TrafficStreamKeyWithKafkaRecordId(tsk -> {
-                        var channelKeyCtx = channelContextManager.retainOrCreateContext(tsk);
-                        return channelContextManager.getGlobalContext()
-                            .createTrafficStreamContextForKafkaSource(
-                                channelKeyCtx,
-                                kafkaRecord.key(),
-                                kafkaRecord.serializedKeySize() + kafkaRecord.serializedValueSize()
-                            );
-                    }, ts, offsetData);
-                    return (ITrafficStreamWithKey) new PojoTrafficStreamAndKey(ts, key);
+                    var trafficStreams = new ArrayList<ITrafficStreamWithKey>(batch.getTrafficStreamsCount());
+                    for (var ts : batch.getTrafficStreamsList()) {
+                        trafficStreams.add(makeTrafficStreamWithKey(offsetData, kafkaRecord,
+                            TrafficStreamPayloadInflater.inflatePayloads(ts), ts.getSerializedSize()));
+                    }
+                    return trafficStreams;
                 } catch (InvalidProtocolBufferException e) {
                     // Assume the behavioralPolicy instance does any logging that the host may be interested in
                     RuntimeException recordError = behavioralPolicy.onInvalidKafkaRecord(kafkaRecord, e);
                     if (recordError != null) {
                         throw recordError;
                     } else {
-                        return null;
+                        return List.<ITrafficStreamWithKey>of();
                     }
                 }
-            }).filter(Objects::nonNull).collect(Collectors.<ITrafficStreamWithKey>toList());
+            }).collect(Collectors.<ITrafficStreamWithKey>toList());
         } catch (Exception e) {
             log.atError().setCause(e).setMessage("Terminating Kafka traffic stream due to exception").log();
             throw e;
         }
     }
 
+    private ITrafficStreamWithKey makeTrafficStreamWithKey(
+        KafkaCommitOffsetData offsetData,
+        ConsumerRecord<String, byte[]> kafkaRecord,
+        TrafficStream ts,
+        int sizeInBytes
+    ) {
+        var trafficStreamsSoFar = trafficStreamsRead.incrementAndGet();
+        log.atTrace().setMessage("Parsed traffic stream #{}: {} {}")
+            .addArgument(trafficStreamsSoFar)
+            .addArgument(offsetData)
+            .addArgument(ts)
+            .log();
+        var key = new TrafficStreamKeyWithKafkaRecordId(tsk -> {
+            var channelKeyCtx = channelContextManager.retainOrCreateContext(tsk);
+            return channelContextManager.getGlobalContext()
+                .createTrafficStreamContextForKafkaSource(channelKeyCtx, kafkaRecord.key(), sizeInBytes);
+        }, ts, offsetData);
+        return new PojoTrafficStreamAndKey(ts, key);
+    }
+
     @Override
     public CommitResult commitTrafficStream(ITrafficStreamKey trafficStreamKey) {
         if (!(trafficStreamKey instanceof TrafficStreamKeyWithKafkaRecordId)) {
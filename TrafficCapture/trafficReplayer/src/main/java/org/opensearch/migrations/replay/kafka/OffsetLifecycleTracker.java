@@ -1,5 +1,7 @@
 package org.opensearch.migrations.replay.kafka;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.PriorityQueue;
 import java.util.StringJoiner;
@@ -12,11 +14,15 @@ import lombok.extern.slf4j.Slf4j;
  * removeAndReturnNewHead may be called in any order.  removeAndReturnNewHead returns
  * the new commit offset for the partition that this object is associated with.
  * It's also assumed that callers MUST call removeAndReturnNewHead for every offset
- * that was previously added for commit points to be advanced.
+ * that was previously added for commit points to be advanced.  When a record holds more than one
+ * TrafficStream (a batch), addReferences() declares the additional streams and the offset is only released
+ * once removeAndReturnNewHead has been called once for every one of them.
  */
 @Slf4j
 class OffsetLifecycleTracker {
     private final PriorityQueue<Long> pQueue = new PriorityQueue<>();
+    /** Removals still expected for an offset, beyond the one that finally releases it */
+    private final Map<Long, Integer> additionalReferences = new HashMap<>();
     private long cursorHighWatermark;
     final int consumerConnectionGeneration;
 
@@ -39,8 +45,28 @@ class OffsetLifecycleTracker {
         }
     }
 
+    void addReferences(long offset, int count) {
+        synchronized (pQueue) {
+            if (count > 0) {
+                additionalReferences.merge(offset, count, Integer::sum);
+            }
+        }
+    }
+
     Optional<Long> removeAndReturnNewHead(long offsetToRemove) {
         synchronized (pQueue) {
+            var referencesLeft = additionalReferences.get(offsetToRemove);
+            if (referencesLeft != null) {
+                if (referencesLeft == 1) {
+                    additionalReferences.remove(offsetToRemove);
+                } else {
+                    additionalReferences.put(offsetToRemove, referencesLeft - 1);
+                }
+                log.atDebug().setMessage("Commit called for {}, but other traffic streams of that record remain")
+                    .addArgument(offsetToRemove)
+                    .log();
+                return Optional.empty();
+            }
             var topCursor = pQueue.peek();
             if (topCursor == null) {
                 throw new IllegalStateException(
@@ -77,6 +103,7 @@ class OffsetLifecycleTracker {
             return new StringJoiner(", ", OffsetLifecycleTracker.class.getSimpleName() + "[", "]").add(
                 "pQueue=" + pQueue
             )
+                .add("additionalReferences=" + additionalReferences)
                 .add("cursorHighWatermark=" + cursorHighWatermark)
                 .add("consumerConnectionGeneration=" + consumerConnectionGeneration)
                 .toString();
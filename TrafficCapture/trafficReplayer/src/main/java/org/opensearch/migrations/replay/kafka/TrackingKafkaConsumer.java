@@ -6,6 +6,7 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.PriorityQueue;
@@ -286,9 +287,13 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
             .collect(Collectors.toList());
     }
 
+    /**
+     * The builder may return any number of items for a record.  When it returns more than one, each of them must
+     * be committed before the record's offset can be.
+     */
     public <T> Stream<T> getNextBatchOfRecords(
         ITrafficSourceContexts.IReadChunkContext context,
-        BiFunction<KafkaCommitOffsetData, ConsumerRecord<String, byte[]>, T> builder
+        BiFunction<KafkaCommitOffsetData, ConsumerRecord<String, byte[]>, List<T>> builder
     ) {
         safeCommit(context::createCommitContext);
         var records = safePollWithSwallowedRuntimeExceptions(context);
@@ -297,10 +302,10 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
     }
 
     private <T> Stream<T> applyBuilder(
-        BiFunction<KafkaCommitOffsetData, ConsumerRecord<String, byte[]>, T> builder,
+        BiFunction<KafkaCommitOffsetData, ConsumerRecord<String, byte[]>, List<T>> builder,
         ConsumerRecords<String, byte[]> records
     ) {
-        return StreamSupport.stream(records.spliterator(), false).map(kafkaRecord -> {
+        return StreamSupport.stream(records.spliterator(), false).flatMap(kafkaRecord -> {
             var offsetTracker = partitionToOffsetLifecycleTrackerMap.get(kafkaRecord.partition());
             var offsetDetails = new PojoKafkaCommitOffsetData(
                 offsetTracker.consumerConnectionGeneration,
@@ -310,7 +315,9 @@ public class TrackingKafkaConsumer implements ConsumerRebalanceListener {
             offsetTracker.add(offsetDetails.getOffset());
             kafkaRecordsLeftToCommitEventually.incrementAndGet();
             log.atTrace().setMessage("records in flight={}").addArgument(kafkaRecordsLeftToCommitEventually::get).log();
-            return builder.apply(offsetDetails, kafkaRecord);
+            var builtItems = builder.apply(offsetDetails, kafkaRecord);
+            offsetTracker.addReferences(offsetDetails.getOffset(), builtItems.size() - 1);
+            return builtItems.stream();
         });
     }
 
@@ -1,5 +1,6 @@
 package org.opensearch.migrations.replay.tracing;
 
+import java.time.Duration;
 import java.time.Instant;
 
 import org.opensearch.migrations.replay.datatypes.ISourceTrafficChannelKey;
@@ -60,12 +61,15 @@ public interface IReplayContexts {
         public static final String TRANSFORM_CHUNKS_OUT = "transformChunksOut";
         public static final String NETTY_SCHEDULE_LAG = "scheduleLag";
         public static final String NUM_REQUEST_RETRIES = "numRetriedRequests";
+        public static final String TRAFFIC_STREAM_LIMITER_QUEUE_DEPTH = "trafficStreamLimiterQueueDepth";
+        public static final String TRAFFIC_STREAM_LIMITER_WAIT = "trafficStreamLimiterWait";
         public static final String SOURCE_TO_TARGET_REQUEST_LAG = "lagBetweenSourceAndTargetRequests";
         public static final String ACTIVE_CHANNELS_YET_TO_BE_FULLY_DISCARDED = "activeReplayerChannels";
         public static final String NONRETRYABLE_CONNECTION_FAILURES = "nonRetryableConnectionFailures";
         public static final String ACTIVE_TARGET_CONNECTIONS = "activeTargetConnections";
         public static final String CONNECTIONS_OPENED = "connectionsOpened";
         public static final String CONNECTIONS_CLOSED = "connectionsClosedCount";
+        public static final String TARGET_CONNECTIONS_REUSED = "targetConnectionsReused";
         public static final String BYTES_WRITTEN_TO_TARGET = "bytesWrittenToTarget";
         public static final String BYTES_READ_FROM_TARGET = "bytesReadFromTarget";
         public static final String TUPLE_COMPARISON = "tupleComparison";
@@ -99,6 +103,8 @@ public interface IReplayContexts {
         ISocketContext createSocketContext();
 
         void addFailedChannelCreation();
+
+        void addReusedTargetChannel();
     }
 
     interface ISocketContext extends IAccumulationScope, IWithTypedEnclosingScope<IChannelKeyContext> {
@@ -179,6 +185,10 @@ public interface IReplayContexts {
 
         Instant getTimeOfOriginalRequest();
 
+        void onQueuedInTrafficStreamLimiter();
+
+        void onAdmittedByTrafficStreamLimiter(Duration timeInQueue);
+
         default String getConnectionId() {
             return getChannelKey().getConnectionId();
         }
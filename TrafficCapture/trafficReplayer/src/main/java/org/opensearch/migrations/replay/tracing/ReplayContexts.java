@@ -98,12 +98,15 @@ public interface ReplayContexts extends IReplayContexts {
         public static class MetricInstruments extends CommonScopedMetricInstruments {
             final LongUpDownCounter activeChannelCounter;
             final LongCounter unretryableConnectionFailures;
+            final LongCounter reusedTargetChannels;
 
             private MetricInstruments(Meter meter, String activityName) {
                 super(meter, activityName);
                 activeChannelCounter = meter.upDownCounterBuilder(MetricNames.ACTIVE_CHANNELS_YET_TO_BE_FULLY_DISCARDED)
                     .build();
                 unretryableConnectionFailures = meter.counterBuilder(MetricNames.NONRETRYABLE_CONNECTION_FAILURES).build();
+                reusedTargetChannels = meter.counterBuilder(MetricNames.TARGET_CONNECTIONS_REUSED)
+                    .setUnit(COUNT_UNIT_STR).build();
             }
         }
 
@@ -130,6 +133,11 @@ public interface ReplayContexts extends IReplayContexts {
         public void addFailedChannelCreation() {
             meterIncrementEvent(getMetrics().unretryableConnectionFailures);
         }
+
+        @Override
+        public void addReusedTargetChannel() {
+            meterIncrementEvent(getMetrics().reusedTargetChannels);
+        }
     }
 
     class KafkaRecordContext extends BaseNestedSpanContext<RootReplayerContext, IChannelKeyContext>
@@ -274,10 +282,16 @@ public interface ReplayContexts extends IReplayContexts {
 
         public static class MetricInstruments extends CommonScopedMetricInstruments {
             final LongCounter numRetries;
+            final LongUpDownCounter limiterQueueDepth;
+            final DoubleHistogram limiterWait;
 
             private MetricInstruments(Meter meter, String activityName) {
                 super(meter, activityName);
                 numRetries = meter.counterBuilder(MetricNames.NUM_REQUEST_RETRIES).setUnit(COUNT_UNIT_STR).build();
+                limiterQueueDepth = meter.upDownCounterBuilder(MetricNames.TRAFFIC_STREAM_LIMITER_QUEUE_DEPTH)
+                    .setUnit(COUNT_UNIT_STR)
+                    .build();
+                limiterWait = meter.histogramBuilder(MetricNames.TRAFFIC_STREAM_LIMITER_WAIT).setUnit("ms").build();
             }
 
         }
@@ -294,6 +308,17 @@ public interface ReplayContexts extends IReplayContexts {
             return getLogicalEnclosingScope();
         }
 
+        @Override
+        public void onQueuedInTrafficStreamLimiter() {
+            meterDeltaEvent(getMetrics().limiterQueueDepth, 1);
+        }
+
+        @Override
+        public void onAdmittedByTrafficStreamLimiter(Duration timeInQueue) {
+            meterDeltaEvent(getMetrics().limiterQueueDepth, -1);
+            meterHistogramMillis(getMetrics().limiterWait, timeInQueue);
+        }
+
         @Override
         public UniqueReplayerRequestKey getReplayerRequestKey() {
             return replayerRequestKey;
@@ -73,7 +73,9 @@ public class InputStreamOfTraffic implements ISimpleTrafficCaptureSource, AutoCl
                 if (line == null) {
                     throw new EOFException();
                 }
-                ts = TrafficStream.parseFrom(Base64.getDecoder().decode(line));
+                ts = TrafficStreamPayloadInflater.inflatePayloads(
+                    TrafficStream.parseFrom(Base64.getDecoder().decode(line))
+                );
             } catch (Exception e) {
                 throw Lombok.sneakyThrow(e);
             }
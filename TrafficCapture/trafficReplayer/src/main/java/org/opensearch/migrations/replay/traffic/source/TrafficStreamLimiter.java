@@ -1,95 +1,310 @@
 package org.opensearch.migrations.replay.traffic.source;
 
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import org.opensearch.migrations.tracing.commoncontexts.IHttpTransactionContext;
 
-import lombok.AllArgsConstructor;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
 import lombok.NonNull;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Limits the total cost of the work that the replayer has outstanding at once.  Admission never blocks a
+ * thread.  Work is queued in queueWork(), and whenever capacity frees up (in doneProcessing()), the next items
+ * are admitted and their tasks are run, in the order that they were admitted, on the requestFeederThread.
+ *
+ * Queued work is grouped into flows (the replayer uses one flow per source connection).  Each flow is FIFO,
+ * which keeps requests for a connection from holding capacity while they wait for earlier requests of the same
+ * connection that haven't been admitted yet.  Between flows, admission uses deficit round-robin over the size
+ * of each item, so a flow sending large items (e.g. _bulk requests) can't starve flows with small ones.  Items
+ * at the head of their flow whose size is at most bypassMaxSize skip the round-robin entirely and are
+ * admitted as soon as there's capacity.  Since those are always preferred, the bypass threshold should be kept
+ * small enough that bypassing items can't take up all of the capacity on their own.
+ *
+ * With the single argument constructor, all work goes through one flow and is admitted in FIFO order.
+ */
 @Slf4j
 public class TrafficStreamLimiter implements AutoCloseable {
+    public static final Object DEFAULT_FLOW = "defaultFlow";
+    public static final long DEFAULT_QUANTUM_SIZE = 64 * 1024L;
 
-    @AllArgsConstructor
     public static class WorkItem {
         private final @NonNull Consumer<WorkItem> task;
         private final IHttpTransactionContext context;
         private final int cost;
+        private final long size;
+        private final long sequenceNumber;
+        private final long enqueuedNanos;
+        /** How long the item waited before being admitted.  This is set right before the task is run. */
+        @Getter
+        private Duration timeInQueue;
+
+        private WorkItem(
+            @NonNull Consumer<WorkItem> task,
+            IHttpTransactionContext context,
+            int cost,
+            long size,
+            long sequenceNumber
+        ) {
+            this.task = task;
+            this.context = context;
+            this.cost = cost;
+            this.size = size;
+            this.sequenceNumber = sequenceNumber;
+            this.enqueuedNanos = System.nanoTime();
+        }
+    }
+
+    private static class Flow {
+        final Object key;
+        final ArrayDeque<WorkItem> items = new ArrayDeque<>();
+        long deficit;
+
+        Flow(Object key) {
+            this.key = key;
+        }
     }
 
-    public final Semaphore liveTrafficStreamCostGate;
-    private final LinkedTransferQueue<WorkItem> workQueue;
-    private final Thread consumerThread;
-    private final AtomicBoolean stopped;
+    private final int maxConcurrentCost;
+    private final long quantumSize;
+    private final long bypassMaxSize;
+    private final ExecutorService feederExecutor;
+    private volatile boolean stopped;
+
+    // everything below is guarded by 'this'
+    private int availableCost;
+    private long nextSequenceNumber;
+    private int queuedItemCount;
+    private final HashMap<Object, Flow> flowsByKey;
+    /** Flows that have queued items, in the order that they'll be offered their next round */
+    private final ArrayDeque<Flow> roundRobinFlows;
+    /** Flows whose next item is small enough to bypass the round-robin */
+    private final LinkedHashSet<Flow> flowsWithSmallHeads;
+    private final ArrayDeque<WorkItem> barriers;
 
     public TrafficStreamLimiter(int maxConcurrentCost) {
-        this.liveTrafficStreamCostGate = new Semaphore(maxConcurrentCost);
-        this.workQueue = new LinkedTransferQueue<>();
-        this.stopped = new AtomicBoolean();
-        this.consumerThread = new Thread(this::consumeFromQueue, "requestFeederThread");
-        this.consumerThread.start();
+        this(maxConcurrentCost, DEFAULT_QUANTUM_SIZE, -1);
+    }
+
+    /**
+     * @param quantumSize the amount of size that each flow is credited with for every round-robin round
+     * @param bypassMaxSize items with a size at or below this are admitted ahead of the round-robin.  Use a
+     *                      negative value to disable the bypass.
+     */
+    public TrafficStreamLimiter(int maxConcurrentCost, long quantumSize, long bypassMaxSize) {
+        if (maxConcurrentCost <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCost must be positive");
+        }
+        if (quantumSize <= 0) {
+            throw new IllegalArgumentException("quantumSize must be positive");
+        }
+        this.maxConcurrentCost = maxConcurrentCost;
+        this.quantumSize = quantumSize;
+        this.bypassMaxSize = bypassMaxSize;
+        this.availableCost = maxConcurrentCost;
+        this.flowsByKey = new HashMap<>();
+        this.roundRobinFlows = new ArrayDeque<>();
+        this.flowsWithSmallHeads = new LinkedHashSet<>();
+        this.barriers = new ArrayDeque<>();
+        this.feederExecutor = Executors.newSingleThreadExecutor(new DefaultThreadFactory("requestFeederThread"));
     }
 
     public boolean isStopped() {
-        return stopped.get();
+        return stopped;
     }
 
-    @SneakyThrows
-    private void consumeFromQueue() {
-        WorkItem workItem = null;
-        try {
-            while (!stopped.get()) {
-                workItem = workQueue.take();
-                log.atDebug().setMessage("liveTrafficStreamCostGate.permits: {} acquiring: {}")
-                    .addArgument(liveTrafficStreamCostGate::availablePermits)
-                    .addArgument(workItem.cost)
-                    .log();
-                liveTrafficStreamCostGate.acquire(workItem.cost);
-                WorkItem finalWorkItem = workItem;
-                log.atDebug().setMessage("Acquired liveTrafficStreamCostGate (available={}) to process {}")
-                    .addArgument(finalWorkItem.context)
-                    .addArgument(liveTrafficStreamCostGate::availablePermits)
-                    .log();
-                workItem.task.accept(workItem);
-                workItem = null;
-            }
-        } catch (InterruptedException e) {
-            if (!stopped.get()) {
-                WorkItem finalWorkItem = workItem;
-                log.atError().setMessage("consumeFromQueue() was interrupted with {} enqueued items")
-                    .addArgument(() -> (finalWorkItem != null ? "an active task and " : ""))
-                    .addArgument(workQueue::size)
-                    .log();
+    public synchronized int getAvailableCost() {
+        return availableCost;
+    }
+
+    public synchronized int getQueuedItemCount() {
+        return queuedItemCount;
+    }
+
+    public WorkItem queueWork(int cost, IHttpTransactionContext context, @NonNull Consumer<WorkItem> task) {
+        return queueWork(cost, 0, DEFAULT_FLOW, context, task);
+    }
+
+    /**
+     * @param cost the amount of the concurrency budget that the item holds from being admitted until
+     *             doneProcessing() is called for it
+     * @param size the amount that the item counts against its flow's fair share
+     */
+    public WorkItem queueWork(
+        int cost,
+        long size,
+        @NonNull Object flowKey,
+        IHttpTransactionContext context,
+        @NonNull Consumer<WorkItem> task
+    ) {
+        if (cost > maxConcurrentCost) {
+            throw new IllegalArgumentException("cost (" + cost + ") exceeds the maximum concurrent cost ("
+                + maxConcurrentCost + ") and could never be admitted");
+        }
+        WorkItem workItem;
+        synchronized (this) {
+            workItem = new WorkItem(task, context, cost, size, nextSequenceNumber++);
+            var flow = flowsByKey.computeIfAbsent(flowKey, Flow::new);
+            flow.items.addLast(workItem);
+            if (flow.items.size() == 1) {
+                roundRobinFlows.addLast(flow);
+                updateSmallHead(flow);
             }
-            throw e;
+            ++queuedItemCount;
         }
+        dispatchAdmittedWork();
+        return workItem;
     }
 
-    public WorkItem queueWork(int cost, IHttpTransactionContext context, @NonNull Consumer<WorkItem> task) {
-        var workItem = new WorkItem(task, context, cost);
-        var rval = workQueue.offer(workItem);
-        assert rval;
+    /**
+     * Queue a task that will only be admitted once everything that was queued before it has been admitted.
+     * Like any other work item, doneProcessing() must be called for it.
+     */
+    public WorkItem queueBarrier(@NonNull Consumer<WorkItem> task) {
+        WorkItem workItem;
+        synchronized (this) {
+            workItem = new WorkItem(task, null, 1, 0, nextSequenceNumber++);
+            barriers.addLast(workItem);
+            ++queuedItemCount;
+        }
+        dispatchAdmittedWork();
         return workItem;
     }
 
     public void doneProcessing(@NonNull WorkItem workItem) {
-        liveTrafficStreamCostGate.release(workItem.cost);
-        log.atDebug().setMessage("released {} liveTrafficStreamCostGate.availablePermits={} for {}")
+        synchronized (this) {
+            availableCost += workItem.cost;
+        }
+        log.atDebug().setMessage("released {} availableCost={} for {}")
             .addArgument(workItem.cost)
-            .addArgument(liveTrafficStreamCostGate::availablePermits)
+            .addArgument(this::getAvailableCost)
+            .addArgument(workItem.context)
+            .log();
+        dispatchAdmittedWork();
+    }
+
+    private void dispatchAdmittedWork() {
+        List<WorkItem> admitted;
+        synchronized (this) {
+            admitted = new ArrayList<>();
+            WorkItem next;
+            while ((next = pollNextAdmissible()) != null) {
+                availableCost -= next.cost;
+                --queuedItemCount;
+                admitted.add(next);
+            }
+            if (admitted.isEmpty()) {
+                return;
+            }
+            // submitted while still holding the lock so that tasks run in the order that they were admitted
+            for (var workItem : admitted) {
+                workItem.timeInQueue = Duration.ofNanos(System.nanoTime() - workItem.enqueuedNanos);
+                try {
+                    feederExecutor.execute(() -> runTask(workItem));
+                } catch (RejectedExecutionException e) {
+                    if (!stopped) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    private void runTask(WorkItem workItem) {
+        log.atDebug().setMessage("Admitted {} after {} (availableCost={})")
             .addArgument(workItem.context)
+            .addArgument(workItem.timeInQueue)
+            .addArgument(this::getAvailableCost)
             .log();
+        try {
+            workItem.task.accept(workItem);
+        } catch (Exception e) {
+            log.atError().setCause(e).setMessage("Task for {} threw an exception").addArgument(workItem.context)
+                .log();
+        }
+    }
+
+    private WorkItem pollNextAdmissible() {
+        if (!barriers.isEmpty() && barriers.peekFirst().cost <= availableCost
+            && roundRobinFlows.stream().allMatch(f -> f.items.peekFirst().sequenceNumber > barriers.peekFirst()
+                .sequenceNumber)) {
+            return barriers.pollFirst();
+        }
+        if (!flowsWithSmallHeads.isEmpty()) {
+            var flow = flowsWithSmallHeads.iterator().next();
+            return flow.items.peekFirst().cost <= availableCost ? pollFromFlow(flow) : null;
+        }
+        if (roundRobinFlows.isEmpty()) {
+            return null;
+        }
+        // Deficit round-robin.  A flow keeps its turn for as long as its credit covers its next item.  If no
+        // flow can afford its next item, every flow is credited with as many whole rounds as it takes for the
+        // first one of them to get there, rather than spinning through those rounds one at a time.
+        while (true) {
+            for (int i = roundRobinFlows.size(); i > 0; --i) {
+                var flow = roundRobinFlows.peekFirst();
+                var head = flow.items.peekFirst();
+                if (head.size <= flow.deficit) {
+                    return head.cost <= availableCost ? pollFromFlow(flow) : null;
+                }
+                roundRobinFlows.addLast(roundRobinFlows.pollFirst());
+            }
+            long roundsNeeded = Long.MAX_VALUE;
+            for (var flow : roundRobinFlows) {
+                var shortfall = flow.items.peekFirst().size - flow.deficit;
+                roundsNeeded = Math.min(roundsNeeded, (shortfall + quantumSize - 1) / quantumSize);
+            }
+            for (var flow : roundRobinFlows) {
+                flow.deficit += roundsNeeded * quantumSize;
+            }
+        }
+    }
+
+    private WorkItem pollFromFlow(Flow flow) {
+        var workItem = flow.items.pollFirst();
+        flow.deficit = Math.max(0, flow.deficit - workItem.size);
+        if (flow.items.isEmpty()) {
+            roundRobinFlows.remove(flow);
+            flowsWithSmallHeads.remove(flow);
+            flowsByKey.remove(flow.key);
+        } else {
+            updateSmallHead(flow);
+        }
+        return workItem;
+    }
+
+    private void updateSmallHead(Flow flow) {
+        if (bypassMaxSize >= 0 && flow.items.peekFirst().size <= bypassMaxSize) {
+            flowsWithSmallHeads.add(flow);
+        } else {
+            flowsWithSmallHeads.remove(flow);
+        }
     }
 
     @Override
     public void close() throws Exception {
-        stopped.set(true);
-        this.consumerThread.interrupt();
-        this.consumerThread.join();
+        stopped = true;
+        feederExecutor.shutdownNow();
+        if (!feederExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.atWarn().setMessage("The requestFeederThread didn't terminate").log();
+        }
+        synchronized (this) {
+            if (queuedItemCount > 0) {
+                log.atWarn().setMessage("TrafficStreamLimiter was closed with {} items that were never admitted")
+                    .addArgument(queuedItemCount)
+                    .log();
+            }
+        }
     }
 }
@@ -0,0 +1,139 @@
+package org.opensearch.migrations.replay.traffic.source;
+
+import java.io.IOException;
+import java.util.zip.InflaterInputStream;
+
+import org.opensearch.migrations.trafficcapture.protos.PayloadCodec;
+import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
+import org.opensearch.migrations.trafficcapture.protos.ReadSegmentObservation;
+import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.WriteObservation;
+import org.opensearch.migrations.trafficcapture.protos.WriteSegmentObservation;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * Undoes the payload compression that a capture proxy may have applied to the read and write observations of a
+ * TrafficStream, so that nothing downstream of the traffic sources needs to know about it.  Each observation
+ * (and each segment) was compressed on its own, so each one is inflated on its own too.
+ */
+public class TrafficStreamPayloadInflater {
+    /**
+     * The most that the inflated observations of one TrafficStream may take up: 64 times the default maximum
+     * size of a Kafka message, and so of a captured TrafficStream.  This keeps a corrupt or malicious payload
+     * (a "deflate bomb") from exhausting the replayer's memory.
+     */
+    public static final long DEFAULT_MAX_INFLATED_BYTES = 64L * 1024 * 1024;
+    private static final int INFLATE_CHUNK_SIZE = 8 * 1024;
+
+    private TrafficStreamPayloadInflater() {}
+
+    /**
+     * @return trafficStream itself when none of its observations are compressed.  Otherwise, a copy whose
+     *         compressed observations have been replaced with uncompressed ones.
+     * @throws InvalidProtocolBufferException if a payload uses an unknown codec or can't be decompressed, or if
+     *         the inflated observations would take up more than DEFAULT_MAX_INFLATED_BYTES
+     */
+    public static TrafficStream inflatePayloads(TrafficStream trafficStream) throws InvalidProtocolBufferException {
+        return inflatePayloads(trafficStream, DEFAULT_MAX_INFLATED_BYTES);
+    }
+
+    /**
+     * @param maxInflatedBytes the most that all the inflated observations of trafficStream may take up
+     */
+    public static TrafficStream inflatePayloads(TrafficStream trafficStream, long maxInflatedBytes)
+        throws InvalidProtocolBufferException {
+        TrafficStream.Builder builder = null;
+        long inflatedBytesLeft = maxInflatedBytes;
+        for (int i = 0; i < trafficStream.getSubStreamCount(); ++i) {
+            var observation = trafficStream.getSubStream(i);
+            var inflatedObservation = inflateObservation(observation, inflatedBytesLeft);
+            if (inflatedObservation != observation) {
+                inflatedBytesLeft -= inflatedObservation.getSerializedSize();
+                if (builder == null) {
+                    builder = trafficStream.toBuilder();
+                }
+                builder.setSubStream(i, inflatedObservation);
+            }
+        }
+        return builder == null ? trafficStream : builder.build();
+    }
+
+    private static TrafficObservation inflateObservation(TrafficObservation observation, long maxInflatedBytes)
+        throws InvalidProtocolBufferException {
+        switch (observation.getCaptureCase()) {
+            case READ:
+                if (observation.getRead().getCodec() == PayloadCodec.NONE) {
+                    return observation;
+                }
+                return observation.toBuilder()
+                    .setRead(ReadObservation.newBuilder().setData(inflate(
+                        observation.getRead().getCodec(),
+                        observation.getRead().getData(),
+                        maxInflatedBytes
+                    )))
+                    .build();
+            case READSEGMENT:
+                if (observation.getReadSegment().getCodec() == PayloadCodec.NONE) {
+                    return observation;
+                }
+                return observation.toBuilder()
+                    .setReadSegment(ReadSegmentObservation.newBuilder().setData(inflate(
+                        observation.getReadSegment().getCodec(),
+                        observation.getReadSegment().getData(),
+                        maxInflatedBytes
+                    )))
+                    .build();
+            case WRITE:
+                if (observation.getWrite().getCodec() == PayloadCodec.NONE) {
+                    return observation;
+                }
+                return observation.toBuilder()
+                    .setWrite(WriteObservation.newBuilder().setData(inflate(
+                        observation.getWrite().getCodec(),
+                        observation.getWrite().getData(),
+                        maxInflatedBytes
+                    )))
+                    .build();
+            case WRITESEGMENT:
+                if (observation.getWriteSegment().getCodec() == PayloadCodec.NONE) {
+                    return observation;
+                }
+                return observation.toBuilder()
+                    .setWriteSegment(WriteSegmentObservation.newBuilder().setData(inflate(
+                        observation.getWriteSegment().getCodec(),
+                        observation.getWriteSegment().getData(),
+                        maxInflatedBytes
+                    )))
+                    .build();
+            default:
+                return observation;
+        }
+    }
+
+    private static ByteString inflate(PayloadCodec codec, ByteString data, long maxInflatedBytes)
+        throws InvalidProtocolBufferException {
+        if (codec != PayloadCodec.DEFLATE) {
+            throw new InvalidProtocolBufferException("Unsupported payload codec: " + codec);
+        }
+        try (var inflaterStream = new InflaterInputStream(data.newInput())) {
+            var inflatedOutput = ByteString.newOutput();
+            var chunk = new byte[INFLATE_CHUNK_SIZE];
+            int bytesRead;
+            while ((bytesRead = inflaterStream.read(chunk)) != -1) {
+                if (inflatedOutput.size() + (long) bytesRead > maxInflatedBytes) {
+                    throw new InvalidProtocolBufferException("A compressed payload inflates past the size limit "
+                        + "for its TrafficStream, which only had " + maxInflatedBytes + " bytes left");
+                }
+                inflatedOutput.write(chunk, 0, bytesRead);
+            }
+            return inflatedOutput.toByteString();
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidProtocolBufferException(e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.opensearch.migrations.replay;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.opensearch.migrations.replay.datatypes.ByteBufList;
+import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.testutils.WrapWithNettyLeakDetection;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+@WrapWithNettyLeakDetection(repetitions = 2)
+class AsyncTupleFileSinkTest extends InstrumentationTest {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final String REQUEST_STRING = "POST /test HTTP/1.1\r\n"
+        + "Host: localhost\r\n"
+        + "Content-Type: application/json\r\n"
+        + "Content-Length: 10\r\n"
+        + "\r\n"
+        + "{\"a\": \"b\"}";
+
+    @TempDir
+    Path tempDir;
+
+    private SourceTargetCaptureTuple makeTuple(
+        IReplayContexts.ITupleHandlingContext tupleContext,
+        int requestIndex,
+        ByteBufList targetRequest
+    ) {
+        var trafficStreamKey = PojoTrafficStreamKeyAndContext.build(
+            "n",
+            "c",
+            0,
+            rootContext::createTrafficStreamContextForTest
+        );
+        var sourcePair = new RequestResponsePacketPair(trafficStreamKey, Instant.EPOCH, requestIndex, 0);
+        var requestBytes = REQUEST_STRING.getBytes(StandardCharsets.UTF_8);
+        sourcePair.addRequestData(Instant.EPOCH, requestBytes);
+        var responseBytes = ResultsToLogsConsumerTest.EXPECTED_RESPONSE_STRING.getBytes(StandardCharsets.UTF_8);
+        sourcePair.addResponseData(Instant.EPOCH.plusMillis(5), responseBytes);
+
+        targetRequest.add(Unpooled.wrappedBuffer(requestBytes));
+        var targetResponse = new ArrayList<AbstractMap.SimpleEntry<Instant, byte[]>>();
+        targetResponse.add(new AbstractMap.SimpleEntry<>(Instant.now(), responseBytes));
+        var aggregatedResponse = new AggregatedRawResponse(null, 13, Duration.ofMillis(267), targetResponse, null);
+        return new SourceTargetCaptureTuple(
+            tupleContext,
+            sourcePair,
+            new TransformedTargetRequestAndResponseList(
+                targetRequest,
+                HttpRequestTransformationStatus.skipped(),
+                aggregatedResponse
+            ),
+            null
+        );
+    }
+
+    private static List<JsonNode> readAllTuples(Path dir) throws IOException {
+        var tuples = new ArrayList<JsonNode>();
+        List<Path> files;
+        try (var fileStream = Files.list(dir)) {
+            files = fileStream.sorted().collect(Collectors.toList());
+        }
+        for (var file : files) {
+            try (var reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    tuples.add(mapper.readTree(line));
+                }
+            }
+        }
+        return tuples;
+    }
+
+    private static String decodeBody(JsonNode message) {
+        var encoded = message.get(ParsedHttpMessagesAsDicts.PAYLOAD_KEY).get("inlinedBase64Body").asText();
+        return new String(Base64.getDecoder().decode(encoded), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    public void testTuplesAreWrittenWithUndecodedBodies() throws Exception {
+        var targetRequest = new ByteBufList();
+        try (var sink = new AsyncTupleFileSink(tempDir, 4, 1024 * 1024);
+             var tupleContext = rootContext.getTestTupleContext("c", 1);
+             var tuple = makeTuple(tupleContext, 1, targetRequest)) {
+            sink.accept(tuple);
+        }
+
+        var tuples = readAllTuples(tempDir);
+        Assertions.assertEquals(1, tuples.size());
+        var tuple = tuples.get(0);
+        var sourceRequest = tuple.get("sourceRequest");
+        Assertions.assertEquals("POST", sourceRequest.get(ParsedHttpMessagesAsDicts.METHOD_KEY).asText());
+        Assertions.assertEquals("/test", sourceRequest.get(ParsedHttpMessagesAsDicts.REQUEST_URI_KEY).asText());
+        Assertions.assertEquals("10", sourceRequest.get("Content-Length").get(0).asText());
+        Assertions.assertEquals("{\"a\": \"b\"}", decodeBody(sourceRequest));
+        Assertions.assertEquals("{\"a\": \"b\"}", decodeBody(tuple.get("targetRequest")));
+
+        var sourceResponse = tuple.get("sourceResponse");
+        Assertions.assertEquals(200, sourceResponse.get(ParsedHttpMessagesAsDicts.STATUS_CODE_KEY).asInt());
+        Assertions.assertEquals(5, sourceResponse.get(ParsedHttpMessagesAsDicts.RESPONSE_TIME_MS_KEY).asInt());
+        Assertions.assertEquals("I should be decrypted tester!\r", decodeBody(sourceResponse));
+
+        var targetResponse = tuple.get("targetResponses").get(0);
+        Assertions.assertEquals(267, targetResponse.get(ParsedHttpMessagesAsDicts.RESPONSE_TIME_MS_KEY).asInt());
+        Assertions.assertEquals("I should be decrypted tester!\r", decodeBody(targetResponse));
+        Assertions.assertEquals("c.1", tuple.get("connectionId").asText());
+        Assertions.assertEquals(1, tuple.get("numRequests").asInt());
+        Assertions.assertEquals(0, tuple.get("numErrors").asInt());
+        Assertions.assertEquals(0, targetRequest.refCnt());
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    public void testFilesRollOverOnceTheyReachTheirLimit() throws Exception {
+        final int numTuples = 5;
+        try (var sink = new AsyncTupleFileSink(tempDir, 2, 1)) {
+            for (int i = 0; i < numTuples; ++i) {
+                try (var tupleContext = rootContext.getTestTupleContext("c", i);
+                     var tuple = makeTuple(tupleContext, i, new ByteBufList())) {
+                    sink.accept(tuple);
+                }
+            }
+        }
+        try (var files = Files.list(tempDir)) {
+            Assertions.assertEquals(numTuples, files.count());
+        }
+        var connectionIds = readAllTuples(tempDir).stream()
+            .map(t -> t.get("connectionId").asText())
+            .collect(Collectors.toList());
+        Assertions.assertEquals(List.of("c.0", "c.1", "c.2", "c.3", "c.4"), connectionIds);
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    public void testSourceResponseWithoutASourceRequestHasNoResponseTime() throws Exception {
+        try (var sink = new AsyncTupleFileSink(tempDir, 4, 1024 * 1024);
+             var tupleContext = rootContext.getTestTupleContext("c", 1)) {
+            var trafficStreamKey = PojoTrafficStreamKeyAndContext.build(
+                "n",
+                "c",
+                0,
+                rootContext::createTrafficStreamContextForTest
+            );
+            var sourcePair = new RequestResponsePacketPair(trafficStreamKey, Instant.EPOCH, 1, 0);
+            sourcePair.addResponseData(Instant.EPOCH.plusMillis(5),
+                ResultsToLogsConsumerTest.EXPECTED_RESPONSE_STRING.getBytes(StandardCharsets.UTF_8));
+            try (var tuple = new SourceTargetCaptureTuple(tupleContext, sourcePair, null, null)) {
+                sink.accept(tuple);
+            }
+        }
+
+        var tuples = readAllTuples(tempDir);
+        Assertions.assertEquals(1, tuples.size());
+        Assertions.assertNull(tuples.get(0).get("sourceRequest"));
+        var sourceResponse = tuples.get(0).get("sourceResponse");
+        Assertions.assertEquals(200, sourceResponse.get(ParsedHttpMessagesAsDicts.STATUS_CODE_KEY).asInt());
+        Assertions.assertNull(sourceResponse.get(ParsedHttpMessagesAsDicts.RESPONSE_TIME_MS_KEY));
+    }
+
+    @Test
+    public void testAcceptAfterCloseThrows() throws Exception {
+        var sink = new AsyncTupleFileSink(tempDir, 1, 1024);
+        sink.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> sink.accept(null));
+    }
+}
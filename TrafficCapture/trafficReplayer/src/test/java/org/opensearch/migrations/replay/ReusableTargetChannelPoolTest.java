@@ -0,0 +1,77 @@
+package org.opensearch.migrations.replay;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.opensearch.migrations.replay.datahandlers.NettyPacketToHttpConsumer;
+import org.opensearch.migrations.testutils.WrapWithNettyLeakDetection;
+import org.opensearch.migrations.tracing.TestContext;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@WrapWithNettyLeakDetection
+class ReusableTargetChannelPoolTest {
+
+    private static EmbeddedChannel makeIdleTargetChannel(TestContext rootContext) {
+        var channel = new EmbeddedChannel();
+        channel.config().setAutoRead(false);
+        NettyPacketToHttpConsumer.attachChannelToConnection(channel,
+            rootContext.getTestConnectionRequestContext(0).getChannelKeyContext());
+        return channel;
+    }
+
+    @Test
+    public void testPooledChannelIsLeasedBack() {
+        try (var rootContext = TestContext.noOtelTracking()) {
+            var pool = new ReusableTargetChannelPool(2, Duration.ofMinutes(1));
+            var channel = makeIdleTargetChannel(rootContext);
+            Assertions.assertNull(pool.lease(channel.eventLoop()));
+            Assertions.assertTrue(pool.offer(channel));
+            Assertions.assertTrue(channel.config().isAutoRead());
+
+            var leased = pool.lease(channel.eventLoop());
+            Assertions.assertSame(channel, leased);
+            Assertions.assertFalse(leased.config().isAutoRead());
+            Assertions.assertNull(leased.pipeline().get(ReusableTargetChannelPool.IDLE_CHANNEL_WATCHER_HANDLER_NAME));
+            Assertions.assertNull(pool.lease(channel.eventLoop()));
+            channel.close();
+        }
+    }
+
+    @Test
+    public void testChannelsAreOnlyLeasedToTheirOwnEventLoop() {
+        try (var rootContext = TestContext.noOtelTracking()) {
+            var pool = new ReusableTargetChannelPool(1, Duration.ofMinutes(1));
+            // each EmbeddedChannel has its own EventLoop, so each gets its own bound
+            var first = makeIdleTargetChannel(rootContext);
+            var second = makeIdleTargetChannel(rootContext);
+            Assertions.assertTrue(pool.offer(first));
+            Assertions.assertTrue(pool.offer(second));
+            Assertions.assertSame(second, pool.lease(second.eventLoop()));
+            Assertions.assertSame(first, pool.lease(first.eventLoop()));
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void testClosedOrChattyChannelsAreNotLeased() {
+        try (var rootContext = TestContext.noOtelTracking()) {
+            var pool = new ReusableTargetChannelPool(2, Duration.ofMinutes(1));
+            var closedChannel = makeIdleTargetChannel(rootContext);
+            var chattyChannel = makeIdleTargetChannel(rootContext);
+            Assertions.assertTrue(pool.offer(closedChannel));
+            Assertions.assertTrue(pool.offer(chattyChannel));
+
+            closedChannel.close();
+            chattyChannel.writeInbound(Unpooled.wrappedBuffer("unexpected".getBytes(StandardCharsets.UTF_8)));
+            Assertions.assertFalse(chattyChannel.isActive());
+
+            Assertions.assertNull(pool.lease(closedChannel.eventLoop()));
+            Assertions.assertNull(pool.lease(chattyChannel.eventLoop()));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.opensearch.migrations.replay;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.opensearch.migrations.replay.datatypes.HttpRequestTransformationStatus;
+import org.opensearch.migrations.replay.datatypes.PojoTrafficStreamKeyAndContext;
+import org.opensearch.migrations.replay.tracing.IReplayContexts;
+import org.opensearch.migrations.testutils.CloseableLogSetup;
+import org.opensearch.migrations.tracing.InstrumentationTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+class SamplingTupleConsumerTest extends InstrumentationTest {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static String makeResponse(int status, String etag) {
+        return "HTTP/1.1 " + status + " X\r\n" + "ETag: " + etag + "\r\n" + "Content-Length: 0\r\n\r\n";
+    }
+
+    private static String makeJsonResponse(String body) {
+        return "HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.length() + "\r\n\r\n"
+            + body;
+    }
+
+    private SourceTargetCaptureTuple makeTuple(
+        IReplayContexts.ITupleHandlingContext tupleContext,
+        String path,
+        String sourceResponse,
+        String targetResponse
+    ) {
+        var trafficStreamKey = PojoTrafficStreamKeyAndContext.build(
+            "n",
+            "c",
+            0,
+            rootContext::createTrafficStreamContextForTest
+        );
+        var sourcePair = new RequestResponsePacketPair(trafficStreamKey, Instant.EPOCH, 0, 0);
+        sourcePair.addRequestData(Instant.EPOCH,
+            ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        sourcePair.addResponseData(Instant.EPOCH.plusMillis(10), sourceResponse.getBytes(StandardCharsets.UTF_8));
+        var targetPackets = new ArrayList<AbstractMap.SimpleEntry<Instant, byte[]>>();
+        targetPackets.add(new AbstractMap.SimpleEntry<>(Instant.now(),
+            targetResponse.getBytes(StandardCharsets.UTF_8)));
+        return new SourceTargetCaptureTuple(
+            tupleContext,
+            sourcePair,
+            new TransformedTargetRequestAndResponseList(
+                null,
+                HttpRequestTransformationStatus.skipped(),
+                new AggregatedRawResponse(null, 0, Duration.ofMillis(20), targetPackets, null)
+            ),
+            null
+        );
+    }
+
+    private void acceptTuple(SamplingTupleConsumer sampler, String path, String sourceResp, String targetResp) {
+        try (var tupleContext = rootContext.getTestTupleContext();
+             var tuple = makeTuple(tupleContext, path, sourceResp, targetResp)) {
+            sampler.accept(tuple);
+        }
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    public void testDiffOnlyEmitsMismatchesAndCountsEverything() throws Exception {
+        var emitted = new ArrayList<SourceTargetCaptureTuple>();
+        try (var logSetup = new CloseableLogSetup(ResultsToLogsConsumerTest.calculateLoggerName(this.getClass()))) {
+            var sampler = new SamplingTupleConsumer(emitted::add, 0, null, List.of("etag"), List.of(), 10,
+                logSetup.getTestLogger(), () -> 0.0);
+            acceptTuple(sampler, "/idx/_search?q=a", makeResponse(200, "a"), makeResponse(200, "a"));
+            acceptTuple(sampler, "/idx/_search?q=b", makeResponse(200, "a"), makeResponse(404, "a"));
+            acceptTuple(sampler, "/idx/_search", makeResponse(200, "a"), makeResponse(200, "b"));
+            Assertions.assertEquals(2, emitted.size());
+
+            sampler.close();
+            Assertions.assertEquals(1, logSetup.getLogEvents().size());
+            var summary = mapper.readTree(logSetup.getLogEvents().get(0));
+            Assertions.assertEquals("GET /idx/_search", summary.get("endpoint").asText());
+            Assertions.assertEquals(3, summary.get("requests").asInt());
+            Assertions.assertEquals(2, summary.get("mismatches").asInt());
+            Assertions.assertEquals(2, summary.get("emitted").asInt());
+            Assertions.assertEquals(10, summary.get("avgSourceLatencyMs").asInt());
+            Assertions.assertEquals(20, summary.get("avgTargetLatencyMs").asInt());
+        }
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    public void testComparedBodyFieldsMustMatch() throws Exception {
+        var emitted = new ArrayList<SourceTargetCaptureTuple>();
+        try (var logSetup = new CloseableLogSetup(ResultsToLogsConsumerTest.calculateLoggerName(this.getClass()))) {
+            var sampler = new SamplingTupleConsumer(emitted::add, 0, null, List.of(),
+                List.of("/hits/total/value", "/errors"), 10, logSetup.getTestLogger(), () -> 0.0);
+            var source = makeJsonResponse("{\"took\":5,\"errors\":false,\"hits\":{\"total\":{\"value\":3}}}");
+            acceptTuple(sampler, "/idx/_search", source,
+                makeJsonResponse("{\"took\":9,\"errors\":false,\"hits\":{\"total\":{\"value\":3}}}"));
+            Assertions.assertEquals(0, emitted.size());
+            acceptTuple(sampler, "/idx/_search", source,
+                makeJsonResponse("{\"took\":5,\"errors\":false,\"hits\":{\"total\":{\"value\":4}}}"));
+            Assertions.assertEquals(1, emitted.size());
+            acceptTuple(sampler, "/idx/_search", source, makeJsonResponse("not json"));
+            Assertions.assertEquals(2, emitted.size());
+        }
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    public void testMatchingTuplesAreSampledByRateAndEndpoint() throws Exception {
+        var emitted = new ArrayList<SourceTargetCaptureTuple>();
+        var nextRandom = new double[] { 0.0 };
+        try (var logSetup = new CloseableLogSetup(ResultsToLogsConsumerTest.calculateLoggerName(this.getClass()))) {
+            var sampler = new SamplingTupleConsumer(emitted::add, 0.5, Pattern.compile("_bulk"), List.of(), List.of(),
+                10, logSetup.getTestLogger(), () -> nextRandom[0]);
+            var ok = makeResponse(200, "a");
+            acceptTuple(sampler, "/_bulk", ok, ok);
+            nextRandom[0] = 0.9;
+            acceptTuple(sampler, "/_bulk", ok, ok);
+            nextRandom[0] = 0.0;
+            acceptTuple(sampler, "/_search", ok, ok);
+            Assertions.assertEquals(1, emitted.size());
+        }
+    }
+
+    @Test
+    @ResourceLock("TestContext")
+    public void testEndpointsBeyondTheLimitAreCountedTogether() throws Exception {
+        try (var logSetup = new CloseableLogSetup(ResultsToLogsConsumerTest.calculateLoggerName(this.getClass()))) {
+            var sampler = new SamplingTupleConsumer(t -> {}, 0, null, List.of(), List.of(), 2,
+                logSetup.getTestLogger(), () -> 0.0);
+            var ok = makeResponse(200, "a");
+            for (int i = 0; i < 5; ++i) {
+                acceptTuple(sampler, "/doc/" + i, ok, ok);
+            }
+            sampler.close();
+            Assertions.assertEquals(3, logSetup.getLogEvents().size());
+            var otherSummary = logSetup.getLogEvents().stream()
+                .filter(e -> e.contains(SamplingTupleConsumer.OTHER_ENDPOINTS_KEY))
+                .findFirst()
+                .orElseThrow();
+            Assertions.assertEquals(3, mapper.readTree(otherSummary).get("requests").asInt());
+        }
+    }
+}
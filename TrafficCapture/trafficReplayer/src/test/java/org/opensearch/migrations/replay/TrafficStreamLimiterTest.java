@@ -0,0 +1,115 @@
+package org.opensearch.migrations.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.opensearch.migrations.replay.traffic.source.TrafficStreamLimiter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TrafficStreamLimiterTest {
+
+    private static class Admissions {
+        final BlockingQueue<String> admittedLabels = new LinkedBlockingQueue<>();
+        final BlockingQueue<TrafficStreamLimiter.WorkItem> admittedItems = new LinkedBlockingQueue<>();
+
+        void queue(TrafficStreamLimiter limiter, String flow, long size, String label) {
+            limiter.queueWork(1, size, flow, null, wi -> {
+                admittedLabels.add(label);
+                admittedItems.add(wi);
+            });
+        }
+
+        void queueBarrier(TrafficStreamLimiter limiter, String label) {
+            limiter.queueBarrier(wi -> {
+                admittedLabels.add(label);
+                admittedItems.add(wi);
+            });
+        }
+
+        /**
+         * With a capacity of 1, releases each admitted item as soon as it's seen, returning the admission order
+         */
+        List<String> drainInOrder(TrafficStreamLimiter limiter, int count) throws InterruptedException {
+            var order = new ArrayList<String>();
+            for (int i = 0; i < count; ++i) {
+                var label = admittedLabels.poll(10, TimeUnit.SECONDS);
+                Assertions.assertNotNull(label, "Timed out waiting for an admission after " + order);
+                order.add(label);
+                limiter.doneProcessing(admittedItems.take());
+            }
+            return order;
+        }
+    }
+
+    @Test
+    public void testSingleFlowIsFifo() throws Exception {
+        try (var limiter = new TrafficStreamLimiter(1)) {
+            var admissions = new Admissions();
+            for (int i = 0; i < 5; ++i) {
+                var label = "item" + i;
+                limiter.queueWork(1, null, wi -> {
+                    admissions.admittedLabels.add(label);
+                    admissions.admittedItems.add(wi);
+                });
+            }
+            Assertions.assertEquals(List.of("item0", "item1", "item2", "item3", "item4"),
+                admissions.drainInOrder(limiter, 5));
+            Assertions.assertEquals(1, limiter.getAvailableCost());
+            Assertions.assertEquals(0, limiter.getQueuedItemCount());
+        }
+    }
+
+    @Test
+    public void testSmallRequestsAreNotStuckBehindLargeOnes() throws Exception {
+        try (var limiter = new TrafficStreamLimiter(1, 64 * 1024, -1)) {
+            var admissions = new Admissions();
+            admissions.queue(limiter, "bulk", 1024 * 1024, "A1");
+            admissions.queue(limiter, "bulk", 1024 * 1024, "A2");
+            admissions.queue(limiter, "bulk", 1024 * 1024, "A3");
+            admissions.queue(limiter, "search", 1024, "B1");
+            admissions.queue(limiter, "search", 1024, "B2");
+            admissions.queue(limiter, "search", 1024, "B3");
+            Assertions.assertEquals(List.of("A1", "B1", "B2", "B3", "A2", "A3"),
+                admissions.drainInOrder(limiter, 6));
+        }
+    }
+
+    @Test
+    public void testSmallRequestsBypassTheRoundRobin() throws Exception {
+        try (var limiter = new TrafficStreamLimiter(1, 1, 100)) {
+            var admissions = new Admissions();
+            admissions.queue(limiter, "a", 1000, "A1");
+            admissions.queue(limiter, "a", 1000, "A2");
+            admissions.queue(limiter, "b", 2000, "B1");
+            admissions.queue(limiter, "c", 10, "C1");
+            admissions.queue(limiter, "c", 10, "C2");
+            var order = admissions.drainInOrder(limiter, 5);
+            Assertions.assertEquals(List.of("A1", "C1", "C2"), order.subList(0, 3));
+        }
+    }
+
+    @Test
+    public void testBarrierWaitsForEverythingQueuedBeforeIt() throws Exception {
+        try (var limiter = new TrafficStreamLimiter(1, 64 * 1024, 1024 * 1024)) {
+            var admissions = new Admissions();
+            admissions.queue(limiter, "x", 1, "X");
+            admissions.queue(limiter, "y", 1, "Y");
+            admissions.queueBarrier(limiter, "barrier");
+            admissions.queue(limiter, "z", 1, "Z");
+            Assertions.assertEquals(List.of("X", "Y", "barrier", "Z"), admissions.drainInOrder(limiter, 4));
+        }
+    }
+
+    @Test
+    public void testCostsLargerThanTheLimitAreRejected() throws Exception {
+        try (var limiter = new TrafficStreamLimiter(2)) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                () -> limiter.queueWork(3, null, wi -> {}));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.opensearch.migrations.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+
+import org.opensearch.migrations.replay.traffic.source.TrafficStreamPayloadInflater;
+import org.opensearch.migrations.trafficcapture.protos.CloseObservation;
+import org.opensearch.migrations.trafficcapture.protos.PayloadCodec;
+import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
+import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.WriteSegmentObservation;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TrafficStreamPayloadInflaterTest {
+    private static final String REQUEST = "POST /_bulk HTTP/1.1\r\n\r\n" + "{\"index\":{}}\n{\"a\":1}\n".repeat(50);
+    private static final String RESPONSE_PART = "HTTP/1.1 200 OK\r\n";
+
+    private static ByteString deflate(String s) throws IOException {
+        var bytesOut = new ByteArrayOutputStream();
+        try (var deflaterStream = new DeflaterOutputStream(bytesOut)) {
+            deflaterStream.write(s.getBytes(StandardCharsets.UTF_8));
+        }
+        return ByteString.copyFrom(bytesOut.toByteArray());
+    }
+
+    private static TrafficStream.Builder makeStreamBuilder() {
+        return TrafficStream.newBuilder().setNodeId("n").setConnectionId("c").setNumberOfThisLastChunk(1);
+    }
+
+    @Test
+    public void testCompressedObservationsAreInflatedAndOthersAreLeftAlone() throws IOException {
+        var close = TrafficObservation.newBuilder().setClose(CloseObservation.getDefaultInstance()).build();
+        var trafficStream = makeStreamBuilder()
+            .addSubStream(TrafficObservation.newBuilder()
+                .setRead(ReadObservation.newBuilder().setData(deflate(REQUEST)).setCodec(PayloadCodec.DEFLATE)))
+            .addSubStream(TrafficObservation.newBuilder()
+                .setWriteSegment(WriteSegmentObservation.newBuilder().setData(ByteString.copyFromUtf8(RESPONSE_PART))))
+            .addSubStream(close)
+            .build();
+
+        var inflated = TrafficStreamPayloadInflater.inflatePayloads(trafficStream);
+        Assertions.assertEquals(PayloadCodec.NONE, inflated.getSubStream(0).getRead().getCodec());
+        Assertions.assertEquals(REQUEST, inflated.getSubStream(0).getRead().getData().toStringUtf8());
+        Assertions.assertSame(trafficStream.getSubStream(1), inflated.getSubStream(1));
+        Assertions.assertEquals(close, inflated.getSubStream(2));
+        Assertions.assertEquals("c", inflated.getConnectionId());
+        Assertions.assertEquals(1, inflated.getNumberOfThisLastChunk());
+    }
+
+    @Test
+    public void testStreamsWithoutCompressedObservationsAreReturnedAsTheyAre() throws IOException {
+        var trafficStream = makeStreamBuilder()
+            .addSubStream(TrafficObservation.newBuilder()
+                .setRead(ReadObservation.newBuilder().setData(ByteString.copyFromUtf8(REQUEST))))
+            .build();
+        Assertions.assertSame(trafficStream, TrafficStreamPayloadInflater.inflatePayloads(trafficStream));
+    }
+
+    @Test
+    public void testCorruptPayloadsAreInvalid() {
+        var trafficStream = makeStreamBuilder()
+            .addSubStream(TrafficObservation.newBuilder()
+                .setRead(ReadObservation.newBuilder()
+                    .setData(ByteString.copyFromUtf8(REQUEST))
+                    .setCodec(PayloadCodec.DEFLATE)))
+            .build();
+        Assertions.assertThrows(InvalidProtocolBufferException.class,
+            () -> TrafficStreamPayloadInflater.inflatePayloads(trafficStream));
+    }
+
+    @Test
+    public void testPayloadsThatInflatePastTheLimitAreInvalid() throws IOException {
+        var readObservation = TrafficObservation.newBuilder()
+            .setRead(ReadObservation.newBuilder().setData(deflate(REQUEST)).setCodec(PayloadCodec.DEFLATE))
+            .build();
+        var oneRead = makeStreamBuilder().addSubStream(readObservation).build();
+        Assertions.assertEquals(REQUEST,
+            TrafficStreamPayloadInflater.inflatePayloads(oneRead, 2L * REQUEST.length())
+                .getSubStream(0).getRead().getData().toStringUtf8());
+        Assertions.assertThrows(InvalidProtocolBufferException.class,
+            () -> TrafficStreamPayloadInflater.inflatePayloads(oneRead, REQUEST.length() - 1L));
+
+        // each payload fits on its own, but the limit is for the whole stream
+        var twoReads = makeStreamBuilder().addSubStream(readObservation).addSubStream(readObservation).build();
+        var e = Assertions.assertThrows(InvalidProtocolBufferException.class,
+            () -> TrafficStreamPayloadInflater.inflatePayloads(twoReads, 2L * REQUEST.length()));
+        Assertions.assertTrue(e.getMessage().contains("size limit"));
+    }
+}
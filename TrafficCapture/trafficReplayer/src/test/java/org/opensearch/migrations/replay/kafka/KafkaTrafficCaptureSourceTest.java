@@ -17,11 +17,14 @@ import java.util.function.Supplier;
 
 import org.opensearch.migrations.replay.tracing.ChannelContextManager;
 import org.opensearch.migrations.replay.tracing.ReplayContexts;
+import org.opensearch.migrations.replay.traffic.source.ITrafficCaptureSource;
 import org.opensearch.migrations.replay.traffic.source.ITrafficStreamWithKey;
 import org.opensearch.migrations.tracing.InstrumentationTest;
 import org.opensearch.migrations.trafficcapture.protos.ReadObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficObservation;
 import org.opensearch.migrations.trafficcapture.protos.TrafficStream;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatch;
+import org.opensearch.migrations.trafficcapture.protos.TrafficStreamBatchRecords;
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Timestamp;
@@ -176,6 +179,51 @@ class KafkaTrafficCaptureSourceTest extends InstrumentationTest {
         }
     }
 
+    @Test
+    public void testBatchRecordsAreUnpackedAndCommittedOnceEveryStreamIsDone() throws Exception {
+        MockConsumer<String, byte[]> mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        try (
+            var protobufConsumer = new KafkaTrafficCaptureSource(
+                rootContext,
+                mockConsumer,
+                TEST_TOPIC_NAME,
+                Duration.ofHours(1)
+            )
+        ) {
+            initializeMockConsumerTopic(mockConsumer);
+            var batch = TrafficStreamBatch.newBuilder()
+                .addTrafficStreams(makeTrafficStream(Instant.now(), "a", 1).toBuilder().setConnectionId("c1"))
+                .addTrafficStreams(makeTrafficStream(Instant.now(), "b", 2).toBuilder().setConnectionId("c2"))
+                .build();
+            mockConsumer.schedulePollTask(() -> {
+                mockConsumer.rebalance(Collections.singletonList(new TopicPartition(TEST_TOPIC_NAME, 0)));
+                var record = new ConsumerRecord<>(TEST_TOPIC_NAME, 0, 1, "n.batch.1", batch.toByteArray());
+                record.headers().add(TrafficStreamBatchRecords.HEADER_NAME, new byte[0]);
+                mockConsumer.addRecord(record);
+            });
+
+            var streams = new ArrayList<ITrafficStreamWithKey>();
+            Assertions.assertTimeoutPreemptively(TEST_TIMEOUT, () -> {
+                while (streams.size() < 2) {
+                    streams.addAll(protobufConsumer.readNextTrafficStreamChunk(rootContext::createReadChunkContext)
+                        .get());
+                }
+            });
+            Assertions.assertEquals(2, streams.size());
+            Assertions.assertEquals("c1", streams.get(0).getStream().getConnectionId());
+            Assertions.assertEquals(2, streams.get(1).getStream().getSubStreamCount());
+
+            Assertions.assertEquals(
+                ITrafficCaptureSource.CommitResult.BLOCKED_BY_OTHER_COMMITS,
+                protobufConsumer.commitTrafficStream(streams.get(1).getKey())
+            );
+            Assertions.assertEquals(
+                ITrafficCaptureSource.CommitResult.AFTER_NEXT_READ,
+                protobufConsumer.commitTrafficStream(streams.get(0).getKey())
+            );
+        }
+    }
+
     @Test
     public void testBuildPropertiesBaseCase() throws IOException {
         Properties props = KafkaTrafficCaptureSource.buildKafkaProperties("brokers", "groupId", false, null);
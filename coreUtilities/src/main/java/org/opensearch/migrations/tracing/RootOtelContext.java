@@ -8,6 +8,7 @@ import java.util.stream.Stream;
 import org.opensearch.migrations.Utils;
 
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.metrics.MeterProvider;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanBuilder;
@@ -36,6 +37,20 @@ public class RootOtelContext implements IRootOtelContext {
         @NonNull String collectorEndpoint,
         @NonNull String serviceName,
         @NonNull String nodeName
+    ) {
+        return initializeOpenTelemetryForCollector(collectorEndpoint, serviceName, nodeName, Attributes.empty());
+    }
+
+    /**
+     * @param extraResourceAttributes - attributes that describe how this process is running (e.g. which
+     *                                netty transport it selected) so that all of its metrics and traces
+     *                                can be compared across those configurations
+     */
+    public static OpenTelemetry initializeOpenTelemetryForCollector(
+        @NonNull String collectorEndpoint,
+        @NonNull String serviceName,
+        @NonNull String nodeName,
+        @NonNull Attributes extraResourceAttributes
     ) {
         final var spanProcessor = BatchSpanProcessor.builder(
             OtlpGrpcSpanExporter.builder().setEndpoint(collectorEndpoint).setTimeout(2, TimeUnit.SECONDS).build()
@@ -56,6 +71,7 @@ public class RootOtelContext implements IRootOtelContext {
                         .toBuilder()
                         .put(ResourceAttributes.SERVICE_NAME, serviceName)
                         .put(ResourceAttributes.SERVICE_INSTANCE_ID, nodeName)
+                        .putAll(extraResourceAttributes)
                         .build())
                     .addSpanProcessor(spanProcessor)
                     .build()
@@ -65,6 +81,7 @@ public class RootOtelContext implements IRootOtelContext {
                     .setResource(Resource.getDefault()
                         .toBuilder()
                         .put(ResourceAttributes.SERVICE_NAME, serviceName)
+                        .putAll(extraResourceAttributes)
                         .build())
                     .registerMetricReader(metricReader).build()
             )
@@ -90,9 +107,20 @@ public class RootOtelContext implements IRootOtelContext {
         String collectorEndpoint,
         @NonNull String serviceName,
         @NonNull String instanceName
+    ) {
+        return initializeOpenTelemetryWithCollectorOrAsNoop(collectorEndpoint, serviceName, instanceName,
+            Attributes.empty());
+    }
+
+    public static OpenTelemetry initializeOpenTelemetryWithCollectorOrAsNoop(
+        String collectorEndpoint,
+        @NonNull String serviceName,
+        @NonNull String instanceName,
+        @NonNull Attributes extraResourceAttributes
     ) {
         return Optional.ofNullable(collectorEndpoint)
-            .map(endpoint -> initializeOpenTelemetryForCollector(endpoint, serviceName, instanceName))
+            .map(endpoint ->
+                initializeOpenTelemetryForCollector(endpoint, serviceName, instanceName, extraResourceAttributes))
             .orElseGet(() -> {
                 if (serviceName != null) {
                     log.atWarn().setMessage("Collector endpoint=null, so serviceName parameter '{}'" +
@@ -0,0 +1,127 @@
+package org.opensearch.migrations.utils;
+
+import java.util.concurrent.ThreadFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.kqueue.KQueue;
+import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.kqueue.KQueueServerSocketChannel;
+import io.netty.channel.kqueue.KQueueSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * The Netty I/O transports that the proxy and the replayer can run their event loops with.  The native
+ * transports (epoll on Linux, kqueue on macOS) avoid the JDK selector's garbage and extra syscalls, but
+ * they're only usable when the matching native library loads on the current platform.  AUTO picks the
+ * best one that's available and falls back to NIO, which works everywhere.
+ *
+ * Netty requires channels to be of the same family as the EventLoop that they're registered to, so
+ * anything that bootstraps a channel onto an existing loop should use socketChannelClassFor().
+ */
+public enum NettyTransport {
+    AUTO,
+    EPOLL,
+    KQUEUE,
+    NIO;
+
+    public static final String RESOURCE_ATTRIBUTE_NAME = "netty.transport";
+
+    public boolean isAvailable() {
+        switch (this) {
+            case EPOLL:
+                return Epoll.isAvailable();
+            case KQUEUE:
+                return KQueue.isAvailable();
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return the concrete transport to use.  AUTO is resolved to a native transport when possible.  An
+     * explicitly requested native transport that can't be loaded causes an IllegalStateException rather
+     * than a silent fallback.
+     */
+    public NettyTransport resolve() {
+        switch (this) {
+            case AUTO:
+                if (EPOLL.isAvailable()) {
+                    return EPOLL;
+                }
+                return KQUEUE.isAvailable() ? KQUEUE : NIO;
+            case EPOLL:
+                if (!Epoll.isAvailable()) {
+                    throw new IllegalStateException("The epoll transport was requested but isn't available",
+                        Epoll.unavailabilityCause());
+                }
+                return this;
+            case KQUEUE:
+                if (!KQueue.isAvailable()) {
+                    throw new IllegalStateException("The kqueue transport was requested but isn't available",
+                        KQueue.unavailabilityCause());
+                }
+                return this;
+            default:
+                return this;
+        }
+    }
+
+    public EventLoopGroup newEventLoopGroup(int numThreads, ThreadFactory threadFactory) {
+        switch (resolve()) {
+            case EPOLL:
+                return new EpollEventLoopGroup(numThreads, threadFactory);
+            case KQUEUE:
+                return new KQueueEventLoopGroup(numThreads, threadFactory);
+            default:
+                return new NioEventLoopGroup(numThreads, threadFactory);
+        }
+    }
+
+    public Class<? extends SocketChannel> getSocketChannelClass() {
+        switch (resolve()) {
+            case EPOLL:
+                return EpollSocketChannel.class;
+            case KQUEUE:
+                return KQueueSocketChannel.class;
+            default:
+                return NioSocketChannel.class;
+        }
+    }
+
+    public Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+        switch (resolve()) {
+            case EPOLL:
+                return EpollServerSocketChannel.class;
+            case KQUEUE:
+                return KQueueServerSocketChannel.class;
+            default:
+                return NioServerSocketChannel.class;
+        }
+    }
+
+    /**
+     * @return the transport that an already-created group (or one of its EventLoops' parent) runs with
+     */
+    public static NettyTransport of(EventLoopGroup group) {
+        if (group instanceof EpollEventLoopGroup) {
+            return EPOLL;
+        } else if (group instanceof KQueueEventLoopGroup) {
+            return KQUEUE;
+        } else {
+            return NIO;
+        }
+    }
+
+    public static Class<? extends SocketChannel> socketChannelClassFor(EventLoopGroup group) {
+        var parent = group.next().parent();
+        return of(parent != null ? parent : group).getSocketChannelClass();
+    }
+}
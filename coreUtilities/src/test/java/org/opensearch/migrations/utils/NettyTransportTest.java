@@ -0,0 +1,38 @@
+package org.opensearch.migrations.utils;
+
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class NettyTransportTest {
+
+    @Test
+    void testAutoResolvesToAnAvailableConcreteTransport() {
+        var resolved = NettyTransport.AUTO.resolve();
+        Assertions.assertNotEquals(NettyTransport.AUTO, resolved);
+        Assertions.assertTrue(resolved.isAvailable());
+    }
+
+    @Test
+    void testNioIsAlwaysAvailable() {
+        Assertions.assertEquals(NettyTransport.NIO, NettyTransport.NIO.resolve());
+        Assertions.assertEquals(NioSocketChannel.class, NettyTransport.NIO.getSocketChannelClass());
+        Assertions.assertEquals(NioServerSocketChannel.class, NettyTransport.NIO.getServerSocketChannelClass());
+    }
+
+    @Test
+    void testSocketChannelClassMatchesTheGroupsTransport() throws Exception {
+        var transport = NettyTransport.AUTO.resolve();
+        var group = transport.newEventLoopGroup(1, new DefaultThreadFactory("nettyTransportTest"));
+        try {
+            Assertions.assertEquals(transport, NettyTransport.of(group));
+            Assertions.assertEquals(transport.getSocketChannelClass(), NettyTransport.socketChannelClassFor(group));
+            Assertions.assertEquals(transport.getSocketChannelClass(),
+                NettyTransport.socketChannelClassFor(group.next()));
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.opensearch.migrations.testutils;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.SneakyThrows;
+
+/**
+ * Proves that calls run concurrently without sleeping and hoping that they overlap.  Every call that goes through
+ * {@link #run(Callable)} holds until the expected number of calls are running at once, so code that can run that
+ * many calls together always will, and {@link #getMaxActiveCalls()} reaches the expected number.  Code that runs
+ * the calls one at a time only holds the first call until the timeout and then never reaches it.
+ */
+public class ConcurrencyProbe {
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final int expectedConcurrentCalls;
+    private final CountDownLatch allCallsStarted;
+    private final Duration timeout;
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    private final AtomicInteger maxActiveCalls = new AtomicInteger();
+
+    public ConcurrencyProbe(int expectedConcurrentCalls) {
+        this(expectedConcurrentCalls, DEFAULT_TIMEOUT);
+    }
+
+    public ConcurrencyProbe(int expectedConcurrentCalls, Duration timeout) {
+        this.expectedConcurrentCalls = expectedConcurrentCalls;
+        this.allCallsStarted = new CountDownLatch(expectedConcurrentCalls);
+        this.timeout = timeout;
+    }
+
+    @SneakyThrows
+    public <T> T run(Callable<T> call) {
+        maxActiveCalls.accumulateAndGet(activeCalls.incrementAndGet(), Math::max);
+        try {
+            allCallsStarted.countDown();
+            allCallsStarted.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return call.call();
+        } finally {
+            activeCalls.decrementAndGet();
+        }
+    }
+
+    public int getMaxActiveCalls() {
+        return maxActiveCalls.get();
+    }
+
+    public boolean callsOverlapped() {
+        return maxActiveCalls.get() >= expectedConcurrentCalls;
+    }
+}
@@ -49,6 +49,7 @@ import lombok.extern.slf4j.Slf4j;
 public class SimpleNettyHttpServer implements AutoCloseable {
 
     public static final String LOCALHOST = "localhost";
+    public static final int DEFAULT_MAX_CONTENT_LENGTH = 16 * 1024;
 
     EventLoopGroup bossGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("simpleServerBoss"));
     EventLoopGroup workerGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("simpleServerWorkerPool"));
@@ -86,13 +87,26 @@ public class SimpleNettyHttpServer implements AutoCloseable {
         Duration readTimeout,
         Function<HttpRequest, SimpleHttpResponse> makeContext
     ) throws Exception {
-        return makeNettyServerWithSSL(sslEngineSupplier, readTimeout, r -> makeContext.apply(new RequestToAdapter(r)));
+        return makeNettyServerWithSSL(sslEngineSupplier, readTimeout, DEFAULT_MAX_CONTENT_LENGTH,
+            r -> makeContext.apply(new RequestToAdapter(r)));
     }
 
     public static SimpleNettyHttpServer makeNettyServer(
         boolean useTls,
         Duration readTimeout,
         Function<FullHttpRequest, SimpleHttpResponse> makeContext
+    ) throws Exception {
+        return makeNettyServer(useTls, readTimeout, DEFAULT_MAX_CONTENT_LENGTH, makeContext);
+    }
+
+    /**
+     * @param maxContentLength the largest request body that will be aggregated and passed to makeContext
+     */
+    public static SimpleNettyHttpServer makeNettyServer(
+        boolean useTls,
+        Duration readTimeout,
+        int maxContentLength,
+        Function<FullHttpRequest, SimpleHttpResponse> makeContext
     ) throws Exception {
         SSLEngineSupplier sslEngineSupplier = null;
         if (useTls) {
@@ -106,6 +120,7 @@ public class SimpleNettyHttpServer implements AutoCloseable {
         return makeNettyServerWithSSL(
             sslEngineSupplier,
             readTimeout,
+            maxContentLength,
             makeContext
         );
     }
@@ -113,12 +128,14 @@ public class SimpleNettyHttpServer implements AutoCloseable {
     private static SimpleNettyHttpServer makeNettyServerWithSSL(
         SSLEngineSupplier sslEngineSupplier,
         Duration readTimeout,
+        int maxContentLength,
         Function<FullHttpRequest, SimpleHttpResponse> makeContext
     ) throws PortFinder.ExceededMaxPortAssigmentAttemptException {
         var testServerRef = new AtomicReference<SimpleNettyHttpServer>();
         PortFinder.retryWithNewPortUntilNoThrow(port -> {
             try {
-                testServerRef.set(new SimpleNettyHttpServer(port, readTimeout, makeContext, sslEngineSupplier));
+                testServerRef.set(new SimpleNettyHttpServer(port, readTimeout, makeContext, sslEngineSupplier,
+                    maxContentLength));
             } catch (Exception e) {
                 throw Lombok.sneakyThrow(e);
             }
@@ -208,7 +225,8 @@ public class SimpleNettyHttpServer implements AutoCloseable {
         int port,
         Duration timeout,
         Function<FullHttpRequest, SimpleHttpResponse> responseBuilder,
-        SSLEngineSupplier sslEngineSupplier
+        SSLEngineSupplier sslEngineSupplier,
+        int maxContentLength
     ) throws Exception {
         this.port = port;
         this.timeout = timeout;
@@ -231,7 +249,7 @@ public class SimpleNettyHttpServer implements AutoCloseable {
                     pipeline.addLast(new LoggingHandler("A"));
                     pipeline.addLast(new HttpRequestDecoder());
                     pipeline.addLast(new LoggingHandler("B"));
-                    pipeline.addLast(new HttpObjectAggregator(16 * 1024));
+                    pipeline.addLast(new HttpObjectAggregator(maxContentLength));
                     pipeline.addLast(new LoggingHandler("C"));
                     pipeline.addLast(new HttpResponseEncoder());
                     pipeline.addLast(makeHandlerFromNettyResponseContext(responseBuilder));
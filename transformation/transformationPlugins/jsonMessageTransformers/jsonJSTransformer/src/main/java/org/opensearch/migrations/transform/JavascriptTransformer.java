@@ -5,16 +5,19 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.Engine;
-import org.graalvm.polyglot.HostAccess;
-import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
 import org.graalvm.polyglot.proxy.ProxyExecutable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,35 +31,43 @@ import org.slf4j.event.Level;
  * may result in unpredictable behavior or errors. Each thread should use its own instance of {@code JavascriptTransformer}.
  *
  * <p><strong>Thread Safety:</strong>
- * The {@code JavascriptTransformer} relies on an underlying {@code Context} and JavaScript engine
- * that are not designed to handle concurrent operations. Ensure that instances are not shared
+ * The {@code JavascriptTransformer} relies on an underlying {@code Context} that is not designed to handle
+ * concurrent operations. Ensure that instances are not shared
  * across multiple threads or synchronize access externally if required.
+ *
+ * <p>The JavaScript engine behind every {@code Context}, and the code that it has compiled, is shared through
+ * {@link SharedJavascriptEngine}, so creating one instance per thread is cheap once the first one has warmed up.
+ *
+ * <p>{@link #transformJsonBatch(List)} calls the transformation function for every document from within
+ * JavaScript, so a batch crosses between Java and JavaScript once rather than once per document.
  */
 @Slf4j
 public class JavascriptTransformer implements IJsonTransformer {
     private static final String JS_TRANSFORM_LOGGER_NAME = "JavascriptTransformer";
+    private static final String BATCH_RUNNER_SCRIPT = "((transform, documents) => {"
+        + "  const results = new Array(documents.length);"
+        + "  let hasPromises = false;"
+        + "  for (let i = 0; i < documents.length; i++) {"
+        + "    results[i] = transform(documents[i]);"
+        + "    hasPromises = hasPromises || results[i] instanceof Promise;"
+        + "  }"
+        + "  return hasPromises ? Promise.all(results) : results;"
+        + "})";
     private Value mainJavascriptTransformFunction;
+    private Value batchRunnerFunction;
 
     private final Context polyglotContext;
     private final OutputStream infoStream;
     private final OutputStream errorStream;
+    private boolean hasTransformed;
 
     public JavascriptTransformer(String script,
                                  Object context) {
-        var sourceCode = Source.create("js", script);
-        var engine = Engine.newBuilder("js")
-            .option("engine.WarnInterpreterOnly", "false")
-            .build();
+        var startNanos = System.nanoTime();
+        var sourceCode = SharedJavascriptEngine.getSource(script);
         var builder = Context.newBuilder()
-            .engine(engine)
-            .allowHostAccess(HostAccess.newBuilder()
-                .allowAccessAnnotatedBy(HostAccess.Export.class)
-                .allowArrayAccess(true)
-                .allowMapAccess(true)
-                .allowListAccess(true)
-                .allowIterableAccess(true)
-                .allowBufferAccess(true) // Support replayer binary data buffer
-                .build());
+            .engine(SharedJavascriptEngine.getEngine())
+            .allowHostAccess(SharedJavascriptEngine.HOST_ACCESS);
         var jsLogger = LoggerFactory.getLogger(JS_TRANSFORM_LOGGER_NAME);
         this.infoStream = new LoggingOutputStream(jsLogger, Level.INFO);
         this.errorStream = new LoggingOutputStream(jsLogger, Level.ERROR);
@@ -71,12 +82,15 @@ public class JavascriptTransformer implements IJsonTransformer {
         } else {
             this.mainJavascriptTransformFunction = sourceCodeValue;
         }
+        SharedJavascriptEngine.onContextStarted(Duration.ofNanos(System.nanoTime() - startNanos));
     }
 
     @Override
     public void close() throws Exception {
         this.mainJavascriptTransformFunction = null;
+        this.batchRunnerFunction = null;
         this.polyglotContext.close();
+        SharedJavascriptEngine.onContextClosed();
         this.infoStream.close();
         this.errorStream.close();
     }
@@ -87,9 +101,44 @@ public class JavascriptTransformer implements IJsonTransformer {
     }
 
     @Override
-    @SneakyThrows
     public Object transformJson(Object incomingJson) {
-        return transformJsonFuture(incomingJson).get();
+        return timeFirstTransform(() -> transformJsonFuture(incomingJson));
+    }
+
+    @Override
+    public List<Object> transformJsonBatch(List<?> incomingJsonObjects) {
+        if (incomingJsonObjects.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (batchRunnerFunction == null) {
+            batchRunnerFunction = polyglotContext.eval(SharedJavascriptEngine.getSource(BATCH_RUNNER_SCRIPT));
+        }
+        var documents = ProxyArray.fromArray(incomingJsonObjects.stream()
+            .map(o -> convertObject(o, polyglotContext))
+            .toArray());
+        return timeFirstTransform(() -> fromPromise(
+            batchRunnerFunction.execute(mainJavascriptTransformFunction, documents),
+            JavascriptTransformer::toJavaList));
+    }
+
+    private static List<Object> toJavaList(Value results) {
+        var convertedResults = new ArrayList<>((int) results.getArraySize());
+        for (long i = 0; i < results.getArraySize(); ++i) {
+            convertedResults.add(jsValueToJavaObject(results.getArrayElement(i)));
+        }
+        return convertedResults;
+    }
+
+    @SneakyThrows
+    private <T> T timeFirstTransform(Supplier<CompletableFuture<T>> transformation) {
+        if (hasTransformed) {
+            return transformation.get().get();
+        }
+        var startNanos = System.nanoTime();
+        var result = transformation.get().get();
+        hasTransformed = true;
+        SharedJavascriptEngine.onFirstTransform(Duration.ofNanos(System.nanoTime() - startNanos));
+        return result;
     }
 
     public static class LoggingOutputStream extends FilterOutputStream {
@@ -137,19 +186,19 @@ public class JavascriptTransformer implements IJsonTransformer {
         return context.asValue(o);
     }
 
+    @SuppressWarnings("unchecked")
     public <T> CompletableFuture<T> runScriptAsFuture(Object... args) {
-        return fromPromise(runScript(mainJavascriptTransformFunction, args));
+        return fromPromise(runScript(mainJavascriptTransformFunction, args), v -> (T) jsValueToJavaObject(v));
     }
 
-    @SuppressWarnings("unchecked")
-    <T> CompletableFuture<T> fromPromise(Value value) {
+    <T> CompletableFuture<T> fromPromise(Value value, Function<Value, T> resultConverter) {
         CompletableFuture<T> future = new CompletableFuture<>();
         if (value.canInvokeMember("then")) {
             // It's a Promise - handle with then()
             // https://developer.mozilla.org/en-US/docs/Web/JavaScript/Reference/Global_Objects/Promise/then
             value.invokeMember("then",
                 (ProxyExecutable) onFulfilledArg -> {
-                    T result = (T) jsValueToJavaObject(onFulfilledArg[0]);
+                    T result = resultConverter.apply(onFulfilledArg[0]);
                     future.complete(result);
                     return null;
                 },
@@ -161,7 +210,7 @@ public class JavascriptTransformer implements IJsonTransformer {
             );
         } else {
             // It's a direct value - complete immediately
-            T result = (T) jsValueToJavaObject(value);
+            T result = resultConverter.apply(value);
             future.complete(result);
         }
         return future;
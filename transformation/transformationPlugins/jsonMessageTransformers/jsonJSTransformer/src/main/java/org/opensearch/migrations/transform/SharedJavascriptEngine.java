@@ -0,0 +1,137 @@
+package org.opensearch.migrations.transform;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.Source;
+
+/**
+ * Holds the one GraalJS {@link Engine} that every {@link JavascriptTransformer} in the process creates its
+ * {@code Context} from, along with the {@link Source}s that have been evaluated with it.  Contexts that share an
+ * engine and evaluate the same Source share its parsed and compiled code, so a transformer that's created for a
+ * new thread skips parsing and starts with whatever the other threads' transformers have already warmed up.
+ *
+ * <p>Every context of a shared engine must use the same host access policy, which is why it lives here.
+ */
+@Slf4j
+public final class SharedJavascriptEngine {
+    static final HostAccess HOST_ACCESS = HostAccess.newBuilder()
+        .allowAccessAnnotatedBy(HostAccess.Export.class)
+        .allowArrayAccess(true)
+        .allowMapAccess(true)
+        .allowListAccess(true)
+        .allowIterableAccess(true)
+        .allowBufferAccess(true) // Support replayer binary data buffer
+        .build();
+
+    private static final ConcurrentHashMap<String, Source> SOURCES = new ConcurrentHashMap<>();
+    private static final StartupTotals STARTUP_TOTALS = new StartupTotals();
+
+    private SharedJavascriptEngine() {}
+
+    private static class EngineHolder {
+        static final Engine ENGINE = Engine.newBuilder("js")
+            .option("engine.WarnInterpreterOnly", "false")
+            .build();
+    }
+
+    private static class StartupTotals {
+        final LongAdder contextsStarted = new LongAdder();
+        final LongAdder contextStartupNanos = new LongAdder();
+        final LongAdder firstTransforms = new LongAdder();
+        final LongAdder firstTransformNanos = new LongAdder();
+        final AtomicInteger openContexts = new AtomicInteger();
+    }
+
+    /**
+     * How long the JavascriptTransformers created so far took to start up and to run their first transformation.
+     * The first transformation runs in the interpreter unless another transformer has already warmed up the
+     * shared code, so its duration is a measure of how cold a new transformer is.
+     */
+    @AllArgsConstructor
+    @Getter
+    static class Stats {
+        private final long contextsStarted;
+        private final Duration totalContextStartupTime;
+        private final long firstTransforms;
+        private final Duration totalFirstTransformTime;
+        private final int cachedSources;
+        private final int openContexts;
+
+        Duration averageContextStartupTime() {
+            return contextsStarted == 0 ? Duration.ZERO : totalContextStartupTime.dividedBy(contextsStarted);
+        }
+
+        Duration averageFirstTransformTime() {
+            return firstTransforms == 0 ? Duration.ZERO : totalFirstTransformTime.dividedBy(firstTransforms);
+        }
+    }
+
+    static Engine getEngine() {
+        return EngineHolder.ENGINE;
+    }
+
+    /**
+     * Sources are named after their contents so that every transformer that runs the same script, on whichever
+     * thread, evaluates the one Source that the engine has already compiled.
+     */
+    static Source getSource(String script) {
+        return SOURCES.computeIfAbsent(script,
+            s -> Source.newBuilder("js", s, "transform-" + Integer.toHexString(s.hashCode()) + ".js").buildLiteral());
+    }
+
+    static void onContextStarted(Duration startupTime) {
+        STARTUP_TOTALS.contextsStarted.increment();
+        STARTUP_TOTALS.contextStartupNanos.add(startupTime.toNanos());
+        STARTUP_TOTALS.openContexts.incrementAndGet();
+        log.atDebug().setMessage("Started a JavaScript context on {} in {}")
+            .addArgument(() -> Thread.currentThread().getName())
+            .addArgument(startupTime)
+            .log();
+    }
+
+    static void onFirstTransform(Duration transformTime) {
+        STARTUP_TOTALS.firstTransforms.increment();
+        STARTUP_TOTALS.firstTransformNanos.add(transformTime.toNanos());
+        log.atDebug().setMessage("First JavaScript transformation on {} took {}")
+            .addArgument(() -> Thread.currentThread().getName())
+            .addArgument(transformTime)
+            .log();
+    }
+
+    /**
+     * Once the last open context has been closed (e.g. when every worker thread has finished with its
+     * transformer), the startup and first transformation times of every transformer so far are logged.
+     */
+    static void onContextClosed() {
+        if (STARTUP_TOTALS.openContexts.decrementAndGet() == 0) {
+            var stats = getStats();
+            log.atInfo().setMessage("Closed every JavaScript context.  {} contexts took {} on average to start "
+                    + "and {} first transformations took {} on average, for {} distinct scripts")
+                .addArgument(stats.getContextsStarted())
+                .addArgument(stats.averageContextStartupTime())
+                .addArgument(stats.getFirstTransforms())
+                .addArgument(stats.averageFirstTransformTime())
+                .addArgument(stats.getCachedSources())
+                .log();
+        }
+    }
+
+    static Stats getStats() {
+        return new Stats(
+            STARTUP_TOTALS.contextsStarted.sum(),
+            Duration.ofNanos(STARTUP_TOTALS.contextStartupNanos.sum()),
+            STARTUP_TOTALS.firstTransforms.sum(),
+            Duration.ofNanos(STARTUP_TOTALS.firstTransformNanos.sum()),
+            SOURCES.size(),
+            STARTUP_TOTALS.openContexts.get()
+        );
+    }
+}
@@ -4,6 +4,7 @@ import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import lombok.extern.slf4j.Slf4j;
 import org.graalvm.polyglot.HostAccess;
@@ -52,6 +53,41 @@ public class JavascriptTransformerTest {
         }
     }
 
+    @Test
+    public void transformersShareTheEngineAndCompiledSource() throws Exception {
+        var script = "((context) => (document) => ({sharedEngineTest: context.value}))";
+        var statsBefore = SharedJavascriptEngine.getStats();
+        for (int i = 0; i < 2; ++i) {
+            // each transformer gets its own thread, as it would from ThreadSafeTransformerWrapper
+            CompletableFuture.runAsync(() -> {
+                try (var testTransformer = new JavascriptTransformer(script, Map.of("value", "x"))) {
+                    Assertions.assertEquals(Map.of("sharedEngineTest", "x"), testTransformer.transformJson(Map.of()));
+                    testTransformer.transformJson(Map.of());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).join();
+        }
+        var statsAfter = SharedJavascriptEngine.getStats();
+        Assertions.assertEquals(statsBefore.getCachedSources() + 1, statsAfter.getCachedSources());
+        Assertions.assertEquals(statsBefore.getContextsStarted() + 2, statsAfter.getContextsStarted());
+        Assertions.assertEquals(statsBefore.getFirstTransforms() + 2, statsAfter.getFirstTransforms());
+        Assertions.assertEquals(statsBefore.getOpenContexts(), statsAfter.getOpenContexts());
+    }
+
+    @Test
+    public void batchesAreTransformedInOneCallWithResultsInOrder() throws Exception {
+        var syncScript = "((context) => (document) => ({id: document.id, tag: context.tag}))";
+        var asyncScript = "((context) => async (document) => ({id: document.id, tag: context.tag}))";
+        for (var script : List.of(syncScript, asyncScript)) {
+            try (var testTransformer = new JavascriptTransformer(script, Map.of("tag", "t"))) {
+                var results = testTransformer.transformJsonBatch(List.of(Map.of("id", 1), Map.of("id", 2)));
+                Assertions.assertEquals(List.of(Map.of("id", 1, "tag", "t"), Map.of("id", 2, "tag", "t")), results);
+                Assertions.assertEquals(List.of(), testTransformer.transformJsonBatch(List.of()));
+            }
+        }
+    }
+
     private static class CustomMapAlwaysContainsKey extends HashMap<String, Object> {
         @Override
         public boolean containsKey(Object key) {
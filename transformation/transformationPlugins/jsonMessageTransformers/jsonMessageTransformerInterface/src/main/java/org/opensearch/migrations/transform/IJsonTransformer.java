@@ -1,5 +1,8 @@
 package org.opensearch.migrations.transform;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This is a simple interface to convert a JSON object (String, Map, or Array) into another
  * JSON object.  Any changes to datastructures, nesting, order, etc should be intentional.
@@ -7,6 +10,19 @@ package org.opensearch.migrations.transform;
 public interface IJsonTransformer extends AutoCloseable {
     Object transformJson(Object incomingJson);
 
+    /**
+     * Transforms each of the given objects as {@link #transformJson(Object)} would and returns the results in
+     * the same order.  Transformers that pay a fixed cost for every call, such as crossing into a scripting
+     * engine, should override this to handle the whole batch in one call.
+     */
+    default List<Object> transformJsonBatch(List<?> incomingJsonObjects) {
+        var results = new ArrayList<>(incomingJsonObjects.size());
+        for (var incomingJson : incomingJsonObjects) {
+            results.add(transformJson(incomingJson));
+        }
+        return results;
+    }
+
     @Override
     default void close() throws Exception {}
 }
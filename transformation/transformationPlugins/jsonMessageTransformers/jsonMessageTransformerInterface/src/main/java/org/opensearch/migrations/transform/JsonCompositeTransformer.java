@@ -1,5 +1,6 @@
 package org.opensearch.migrations.transform;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -17,4 +18,16 @@ public class JsonCompositeTransformer implements IJsonTransformer {
         return lastOutput.get();
     }
 
+    /**
+     * Passes the whole batch through each transformer in turn, so every transformer sees one call per batch.
+     */
+    @Override
+    public List<Object> transformJsonBatch(List<?> incomingJsonObjects) {
+        List<?> lastOutputs = incomingJsonObjects;
+        for (var t : jsonTransformerList) {
+            lastOutputs = t.transformJsonBatch(lastOutputs);
+        }
+        return new ArrayList<>(lastOutputs);
+    }
+
 }
@@ -1,5 +1,8 @@
 package org.opensearch.migrations.transform;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class JsonConditionalTransformer implements IJsonTransformer {
     IJsonPredicate jsonPredicate;
     IJsonTransformer jsonTransformer;
@@ -16,4 +19,28 @@ public class JsonConditionalTransformer implements IJsonTransformer {
         }
         return incomingJson;
     }
+
+    /**
+     * Sends the objects that match the predicate to the wrapped transformer as one batch and leaves the rest
+     * as they were.
+     */
+    @Override
+    public List<Object> transformJsonBatch(List<?> incomingJsonObjects) {
+        var results = new ArrayList<Object>(incomingJsonObjects);
+        var matchingIndices = new ArrayList<Integer>();
+        var matchingObjects = new ArrayList<>();
+        for (int i = 0; i < incomingJsonObjects.size(); ++i) {
+            if (jsonPredicate.test(incomingJsonObjects.get(i))) {
+                matchingIndices.add(i);
+                matchingObjects.add(incomingJsonObjects.get(i));
+            }
+        }
+        if (!matchingObjects.isEmpty()) {
+            var transformedObjects = jsonTransformer.transformJsonBatch(matchingObjects);
+            for (int i = 0; i < matchingIndices.size(); ++i) {
+                results.set(matchingIndices.get(i), transformedObjects.get(i));
+            }
+        }
+        return results;
+    }
 }
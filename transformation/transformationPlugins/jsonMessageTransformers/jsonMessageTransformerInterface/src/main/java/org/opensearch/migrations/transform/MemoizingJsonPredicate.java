@@ -0,0 +1,143 @@
+package org.opensearch.migrations.transform;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers the results of another predicate, keyed by the values of a few declared fields of the incoming
+ * object.  Routing predicates usually only look at low-cardinality fields like the method, the URI or an index
+ * name, so most objects can be answered from the cache without evaluating the predicate again.
+ *
+ * <p>The declared fields must include everything that the wrapped predicate depends upon.  Fields are given as
+ * dotted paths (e.g. "operation._index") into nested Maps.  Objects that aren't Maps, or whose key fields aren't
+ * Strings, numbers, booleans or missing, are passed straight to the wrapped predicate.  Once the cache holds
+ * maxCacheSize keys, the least recently used key is evicted for every new one.
+ */
+@Slf4j
+public class MemoizingJsonPredicate implements IJsonPredicate {
+    public static final int DEFAULT_MAX_CACHE_SIZE = 1024;
+    private static final long STATS_LOG_INTERVAL = 100_000;
+
+    private final IJsonPredicate jsonPredicate;
+    private final List<String[]> keyPaths;
+    private final Map<List<Object>, Boolean> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+
+    public MemoizingJsonPredicate(IJsonPredicate jsonPredicate, List<String> keyFields) {
+        this(jsonPredicate, keyFields, DEFAULT_MAX_CACHE_SIZE);
+    }
+
+    public MemoizingJsonPredicate(IJsonPredicate jsonPredicate, List<String> keyFields, int maxCacheSize) {
+        if (keyFields.isEmpty()) {
+            throw new IllegalArgumentException("At least one key field must be specified to memoize a predicate");
+        }
+        if (maxCacheSize <= 0) {
+            throw new IllegalArgumentException("maxCacheSize must be positive, but was " + maxCacheSize);
+        }
+        this.jsonPredicate = jsonPredicate;
+        this.keyPaths = keyFields.stream().map(f -> f.split("\\.")).toList();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Boolean> eldest) {
+                return size() > maxCacheSize;
+            }
+        };
+    }
+
+    @Override
+    public boolean test(Object incomingJson) {
+        var key = extractKey(incomingJson);
+        if (key == null) {
+            uncacheable.increment();
+            return jsonPredicate.test(incomingJson);
+        }
+        Boolean cachedResult;
+        synchronized (cache) {
+            cachedResult = cache.get(key);
+        }
+        if (cachedResult != null) {
+            hits.increment();
+            maybeLogStats();
+            return cachedResult;
+        }
+        misses.increment();
+        maybeLogStats();
+        var result = jsonPredicate.test(incomingJson);
+        synchronized (cache) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the values of the key fields, or null if the result for this object can't be cached
+     */
+    private List<Object> extractKey(Object incomingJson) {
+        var values = new Object[keyPaths.size()];
+        for (int i = 0; i < values.length; ++i) {
+            Object value = incomingJson;
+            for (var field : keyPaths.get(i)) {
+                if (!(value instanceof Map)) {
+                    return null;
+                }
+                value = ((Map<?, ?>) value).get(field);
+                if (value == null) {
+                    break;
+                }
+            }
+            if (value != null && !(value instanceof String || value instanceof Number || value instanceof Boolean)) {
+                return null;
+            }
+            values[i] = value;
+        }
+        return Arrays.asList(values);
+    }
+
+    private void maybeLogStats() {
+        var lookups = hits.sum() + misses.sum();
+        if (lookups % STATS_LOG_INTERVAL == 0) {
+            log.atInfo().setMessage("Predicate cache hit rate after {} lookups is {} ({} uncacheable objects)")
+                .addArgument(lookups)
+                .addArgument(this::getHitRate)
+                .addArgument(uncacheable::sum)
+                .log();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return how many objects were passed to the wrapped predicate because their keys couldn't be extracted
+     */
+    public long getUncacheableCount() {
+        return uncacheable.sum();
+    }
+
+    /**
+     * @return the fraction of cacheable objects that were answered from the cache, or 0 before any were seen
+     */
+    public double getHitRate() {
+        var hitCount = hits.sum();
+        var lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
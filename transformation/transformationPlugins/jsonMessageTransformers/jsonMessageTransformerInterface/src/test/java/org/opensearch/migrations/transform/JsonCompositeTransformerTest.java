@@ -0,0 +1,60 @@
+package org.opensearch.migrations.transform;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JsonCompositeTransformerTest {
+
+    /**
+     * Appends a suffix to Strings and records the size of every batch that it's called with.
+     */
+    static class SuffixingBatchTransformer implements IJsonTransformer {
+        final List<Integer> batchSizes = new ArrayList<>();
+        private final String suffix;
+
+        SuffixingBatchTransformer(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public Object transformJson(Object incomingJson) {
+            return incomingJson + suffix;
+        }
+
+        @Override
+        public List<Object> transformJsonBatch(List<?> incomingJsonObjects) {
+            batchSizes.add(incomingJsonObjects.size());
+            return IJsonTransformer.super.transformJsonBatch(incomingJsonObjects);
+        }
+    }
+
+    @Test
+    public void batchesArePassedThroughTheChainWhole() {
+        var first = new SuffixingBatchTransformer("-a");
+        var second = new SuffixingBatchTransformer("-b");
+        var composite = new JsonCompositeTransformer(first, second);
+
+        var results = composite.transformJsonBatch(List.of("x", "y", "z"));
+
+        Assertions.assertEquals(List.of("x-a-b", "y-a-b", "z-a-b"), results);
+        Assertions.assertEquals(List.of(3), first.batchSizes);
+        Assertions.assertEquals(List.of(3), second.batchSizes);
+        Assertions.assertEquals("x-a-b", composite.transformJson("x"));
+    }
+
+    @Test
+    public void conditionalTransformerOnlyBatchesMatchingObjects() {
+        var inner = new SuffixingBatchTransformer("-matched");
+        var conditional = new JsonConditionalTransformer(o -> ((String) o).startsWith("m"), inner);
+
+        var results = conditional.transformJsonBatch(List.of("m1", "other", "m2"));
+
+        Assertions.assertEquals(List.of("m1-matched", "other", "m2-matched"), results);
+        Assertions.assertEquals(List.of(2), inner.batchSizes);
+        Assertions.assertEquals(List.of("other"), conditional.transformJsonBatch(List.of("other")));
+        Assertions.assertEquals(List.of(2), inner.batchSizes);
+    }
+}
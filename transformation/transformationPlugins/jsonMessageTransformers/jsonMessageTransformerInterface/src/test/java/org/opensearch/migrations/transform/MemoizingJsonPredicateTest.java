@@ -0,0 +1,80 @@
+package org.opensearch.migrations.transform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MemoizingJsonPredicateTest {
+
+    /**
+     * Matches objects whose operation._index starts with "logs" and records every object that it's called with.
+     */
+    static class RecordingPredicate implements IJsonPredicate {
+        final List<Object> evaluated = new ArrayList<>();
+
+        @Override
+        public boolean test(Object incomingJson) {
+            evaluated.add(incomingJson);
+            var operation = ((Map<?, ?>) incomingJson).get("operation");
+            return operation instanceof Map
+                && String.valueOf(((Map<?, ?>) operation).get("_index")).startsWith("logs");
+        }
+    }
+
+    private static Map<String, Object> document(String index, String id) {
+        return Map.of("operation", Map.of("_index", index, "_id", id));
+    }
+
+    @Test
+    public void resultsAreCachedByTheKeyFields() {
+        var inner = new RecordingPredicate();
+        var predicate = new MemoizingJsonPredicate(inner, List.of("operation._index"));
+
+        Assertions.assertTrue(predicate.test(document("logs-1", "a")));
+        Assertions.assertTrue(predicate.test(document("logs-1", "b")));
+        Assertions.assertFalse(predicate.test(document("metrics", "c")));
+        Assertions.assertFalse(predicate.test(document("metrics", "d")));
+        Assertions.assertTrue(predicate.test(document("logs-1", "e")));
+
+        Assertions.assertEquals(2, inner.evaluated.size());
+        Assertions.assertEquals(3, predicate.getHitCount());
+        Assertions.assertEquals(2, predicate.getMissCount());
+        Assertions.assertEquals(0.6, predicate.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void missingKeyFieldsAreCachedAndUnsupportedValuesAreNot() {
+        var inner = new RecordingPredicate();
+        var predicate = new MemoizingJsonPredicate(inner, List.of("operation._index"));
+
+        Assertions.assertFalse(predicate.test(Map.of("other", "value")));
+        Assertions.assertFalse(predicate.test(Map.of("other", "value2")));
+        Assertions.assertFalse(predicate.test(Map.of("operation", Map.of("_index", List.of("logs")))));
+        Assertions.assertFalse(predicate.test(Map.of("operation", "logs")));
+
+        Assertions.assertEquals(1, predicate.getHitCount());
+        Assertions.assertEquals(1, predicate.getMissCount());
+        Assertions.assertEquals(2, predicate.getUncacheableCount());
+        Assertions.assertEquals(3, inner.evaluated.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedKeysAreEvicted() {
+        var inner = new RecordingPredicate();
+        var predicate = new MemoizingJsonPredicate(inner, List.of("operation._index"), 2);
+
+        predicate.test(document("a", "1"));
+        predicate.test(document("b", "1"));
+        predicate.test(document("a", "2"));
+        predicate.test(document("c", "1"));
+        Assertions.assertEquals(2, predicate.getCacheSize());
+
+        predicate.test(document("a", "3"));
+        Assertions.assertEquals(3, inner.evaluated.size());
+        predicate.test(document("b", "2"));
+        Assertions.assertEquals(4, inner.evaluated.size());
+    }
+}
@@ -1,6 +1,7 @@
 package org.opensearch.migrations.transform;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import lombok.SneakyThrows;
@@ -8,6 +9,8 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class JsonConditionalTransformerProvider implements IJsonTransformerProvider {
+    public static final String MEMOIZE_ON_KEY = "memoizeOn";
+    public static final String MAX_CACHE_SIZE_KEY = "maxCacheSize";
 
     @Override
     @SneakyThrows
@@ -15,13 +18,16 @@ public class JsonConditionalTransformerProvider implements IJsonTransformerProvi
         if(jsonConfig instanceof List) {
             @SuppressWarnings("unchecked")
             var configs = (List<Object>) jsonConfig;
-            if (configs.size() != 2) {
+            if (configs.size() != 2 && configs.size() != 3) {
                 throw new IllegalArgumentException(getConfigUsageStr());
             }
             var predicateConfig = configs.get(0);
             var transformerConfig = configs.get(1);
             IJsonPredicate predicate = new PredicateLoader()
                 .getPredicateFactoryFromServiceLoaderParsed(predicateConfig);
+            if (configs.size() == 3) {
+                predicate = memoize(predicate, configs.get(2));
+            }
             @SuppressWarnings("unchecked")
             List<IJsonTransformer> transformer = new TransformationLoader()
                 .getTransformerFactoryFromServiceLoaderParsed((List<Object>) transformerConfig)
@@ -34,11 +40,32 @@ public class JsonConditionalTransformerProvider implements IJsonTransformerProvi
         throw new IllegalArgumentException(getConfigUsageStr());
     }
 
+    private IJsonPredicate memoize(IJsonPredicate predicate, Object memoizationConfig) {
+        if (!(memoizationConfig instanceof Map)) {
+            throw new IllegalArgumentException(getConfigUsageStr());
+        }
+        var configMap = (Map<?, ?>) memoizationConfig;
+        var keyFields = configMap.get(MEMOIZE_ON_KEY);
+        var maxCacheSize = configMap.get(MAX_CACHE_SIZE_KEY);
+        if (!(keyFields instanceof List) || ((List<?>) keyFields).stream().anyMatch(f -> !(f instanceof String))
+            || (maxCacheSize != null && !(maxCacheSize instanceof Integer))) {
+            throw new IllegalArgumentException(getConfigUsageStr());
+        }
+        @SuppressWarnings("unchecked")
+        var keyFieldNames = (List<String>) keyFields;
+        log.atInfo().setMessage("Memoizing predicate results on {}").addArgument(keyFieldNames).log();
+        return new MemoizingJsonPredicate(predicate, keyFieldNames,
+            maxCacheSize == null ? MemoizingJsonPredicate.DEFAULT_MAX_CACHE_SIZE : (Integer) maxCacheSize);
+    }
+
     private String getConfigUsageStr() {
         return this.getClass().getName()
             + " expects the incoming configuration "
-            + "to be a List<Object> with length 2.  "
+            + "to be a List<Object> with length 2 or 3.  "
             + "Script values should be a fully-formed inlined JsonPath queries encoded as a json value.  "
-            + "All of the values within a configuration will be concatenated into one chained transformation.";
+            + "All of the values within a configuration will be concatenated into one chained transformation.  "
+            + "The optional third value memoizes the predicate's results, as "
+            + "{\"" + MEMOIZE_ON_KEY + "\": [\"URI\", \"method\"], \"" + MAX_CACHE_SIZE_KEY + "\": 1024}, where "
+            + MEMOIZE_ON_KEY + " lists every (dotted) field that the predicate depends upon.";
     }
 }
@@ -60,6 +60,35 @@ public class MultipleJoltScriptsTest {
         Assertions.assertEquals("newValue", headers.get("newHeader"));
     }
 
+    @Test
+    public void testAddGzipWithMemoizedPredicate() throws Exception {
+        final var addGzip = "["
+            + "{\"JsonConditionalTransformerProvider\": ["
+            + "   {\"JsonJMESPathPredicateProvider\": { \"script\": \"" + "URI == '/testindex/_search'" + "\"}},"
+            + "   [{\"JsonJoltTransformerProvider\": { \"canned\": \"ADD_GZIP\" }}],"
+            + "   {\"memoizeOn\": [\"URI\"], \"maxCacheSize\": 16}"
+            + "]}"
+            + "]";
+        var transformer = new TransformationLoader().getTransformerFactoryLoader(
+            "testhostname",
+            null,
+            addGzip
+        );
+        var origDocStr = SampleContents.loadSampleJsonRequestAsString();
+        for (int i = 0; i < 3; ++i) {
+            var matchingDoc = parseAsMap(origDocStr);
+            var otherDoc = parseAsMap(origDocStr);
+            otherDoc.put(JsonKeysForHttpMessage.URI_KEY, "/otherindex/_search");
+
+            var matchingHeaders = (Map) ((Map) transformer.transformJson(matchingDoc))
+                .get(JsonKeysForHttpMessage.HEADERS_KEY);
+            var otherHeaders = (Map) ((Map) transformer.transformJson(otherDoc))
+                .get(JsonKeysForHttpMessage.HEADERS_KEY);
+            Assertions.assertEquals("gzip", matchingHeaders.get("content-encoding"));
+            Assertions.assertNull(otherHeaders.get("content-encoding"));
+        }
+    }
+
     @Test
     public void testExciseWhenPresent() throws Exception {
         var script =
@@ -0,0 +1,218 @@
+package org.opensearch.migrations.transform.replay;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.opensearch.migrations.transform.IJsonTransformer;
+import org.opensearch.migrations.transform.JsonKeysForHttpMessage;
+import org.opensearch.migrations.transform.TransformationLoader;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares what the transformer providers that TransformationLoader can load cost on the shapes that they're
+ * given in a migration: a single document from a backfill (DOCUMENT), a batch of 100 of them passed to
+ * transformJsonBatch (BATCH), and a _bulk request envelope from the replayer (REQUEST).
+ *
+ * <p>JAVASCRIPT runs typeMappingsSanitizer.js from standardJavascriptTransforms through JsonJSTransformerProvider
+ * and TYPE_MAPPINGS_SANITIZATION runs the same mappings through TypeMappingSanitizationTransformerProvider, which
+ * handles these shapes without calling into the script.  JOLT and JMESPATH retarget documents in the same way and
+ * apply the sample request transformations from MultipleJoltScriptsTest and MultipleJMESPathScriptsTest to
+ * requests.  Transformations modify their inputs, so every invocation transforms a fresh copy of the input.
+ * NONE only makes that copy, which is the baseline to subtract from the others.
+ *
+ * <p>{@link #transform} reports the steady-state throughput.  {@link #firstTransforms} times each of the first
+ * transformations in a new JVM, which is the warmup curve.  The gc profiler, which the jmh task enables, reports
+ * the allocation per transformation as gc.alloc.rate.norm.  Run it with
+ * <code>./gradlew :transformation:transformationPlugins:jsonMessageTransformers:jsonMessageTransformerLoaders:jmh</code>.
+ */
+public class TransformerProviderBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final int BULK_REQUEST_DOCUMENT_COUNT = 10;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String TYPE_MAPPINGS_BINDINGS = "{"
+        + "\"index_mappings\": {}, "
+        + "\"regex_mappings\": ["
+        + "  {\"sourceIndexPattern\": \"(.+)\", \"sourceTypePattern\": \"_doc\", \"targetIndexPattern\": \"$1\"}, "
+        + "  {\"sourceIndexPattern\": \"(.+)\", \"sourceTypePattern\": \"(.+)\", \"targetIndexPattern\": \"$1_$2\"}"
+        + "], "
+        + "\"source_properties\": {\"version\": {\"major\": 6, \"minor\": 8}}"
+        + "}";
+
+    public enum Provider {
+        NONE(null, null),
+        JOLT("[{\"JsonJoltTransformerProvider\": ["
+            + "  {\"script\": {\"operation\": \"modify-overwrite-beta\", \"spec\": "
+            + "    {\"operation\": {\"_index\": \"=concat(@(1,_index),'_',@(1,_type))\"}}}}, "
+            + "  {\"script\": {\"operation\": \"remove\", \"spec\": {\"operation\": {\"_type\": \"\"}}}}"
+            + "]}]",
+            "[{\"JsonJoltTransformerProvider\": { \"canned\": \"ADD_GZIP\" }}]"),
+        JMESPATH("[{\"JsonJMESPathTransformerProvider\": { \"script\": "
+            + "\"{schema: schema, operation: {_index: join('_', [operation._index, operation._type]), "
+            + "_id: operation._id}, document: document}\"}}]",
+            "[{\"JsonJMESPathTransformerProvider\": { \"script\": "
+            + "\"{method: method, URI: URI, headers: {host: 'localhost'}, payload: payload}\"}}]"),
+        JAVASCRIPT(javascriptConfig(), javascriptConfig()),
+        TYPE_MAPPINGS_SANITIZATION(typeMappingsConfig(), typeMappingsConfig());
+
+        final String documentConfig;
+        final String requestConfig;
+
+        Provider(String documentConfig, String requestConfig) {
+            this.documentConfig = documentConfig;
+            this.requestConfig = requestConfig;
+        }
+
+        private static String javascriptConfig() {
+            return "[{\"JsonJSTransformerProvider\": {"
+                + "\"initializationResourcePath\": \"js/typeMappingsSanitizer.js\", "
+                + "\"bindingsObject\": \"" + TYPE_MAPPINGS_BINDINGS.replace("\"", "\\\"") + "\"}}]";
+        }
+
+        private static String typeMappingsConfig() {
+            return "[{\"TypeMappingSanitizationTransformerProvider\": {"
+                + "\"sourceProperties\": {\"version\": {\"major\": 6, \"minor\": 8}}}}]";
+        }
+    }
+
+    public enum Payload {
+        DOCUMENT,
+        BATCH,
+        REQUEST
+    }
+
+    @State(Scope.Thread)
+    public static class Harness {
+        @Param({ "NONE", "JOLT", "JMESPATH", "JAVASCRIPT", "TYPE_MAPPINGS_SANITIZATION" })
+        public Provider provider;
+
+        @Param({ "DOCUMENT", "BATCH", "REQUEST" })
+        public Payload payload;
+
+        private IJsonTransformer transformer;
+        private Object input;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            var config = payload == Payload.REQUEST ? provider.requestConfig : provider.documentConfig;
+            transformer = config == null ? null : new TransformationLoader().getTransformerFactoryLoader(config);
+            switch (payload) {
+                case DOCUMENT:
+                    input = makeBackfillDocument(0);
+                    break;
+                case BATCH:
+                    input = IntStream.range(0, BATCH_SIZE)
+                        .mapToObj(TransformerProviderBenchmark::makeBackfillDocument)
+                        .collect(Collectors.toList());
+                    break;
+                case REQUEST:
+                    input = makeBulkRequest();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown payload " + payload);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            if (transformer != null) {
+                transformer.close();
+            }
+        }
+
+        Object transformCopyOfInput() {
+            var copy = deepCopy(input);
+            if (transformer == null) {
+                return copy;
+            } else if (payload == Payload.BATCH) {
+                return transformer.transformJsonBatch((List<?>) copy);
+            } else {
+                return transformer.transformJson(copy);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public Object transform(Harness harness) {
+        return harness.transformCopyOfInput();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 200)
+    public Object firstTransforms(Harness harness) {
+        return harness.transformCopyOfInput();
+    }
+
+    private static Map<String, Object> makeBackfillDocument(int i) {
+        var document = new LinkedHashMap<String, Object>();
+        document.put("schema", "rfs-opensearch-bulk-v1");
+        document.put("operation", new LinkedHashMap<>(Map.of("_index", "logs-" + (i % 4), "_type", "event",
+            "_id", Integer.toString(i))));
+        document.put("document", makeSource(i));
+        return document;
+    }
+
+    private static Map<String, Object> makeSource(int i) {
+        var source = new LinkedHashMap<String, Object>();
+        source.put("title", "document " + i);
+        source.put("timestamp", 1_700_000_000_000L + i);
+        source.put("tags", List.of("alpha", "beta", "gamma"));
+        source.put("body", "lorem ipsum dolor sit amet ".repeat(16));
+        return source;
+    }
+
+    private static Map<String, Object> makeBulkRequest() throws Exception {
+        var request = OBJECT_MAPPER.readValue(SampleContents.loadSampleJsonRequestAsString(),
+            new TypeReference<LinkedHashMap<String, Object>>() {});
+        request.put(JsonKeysForHttpMessage.METHOD_KEY, "POST");
+        request.put(JsonKeysForHttpMessage.URI_KEY, "/logs-0/event/_bulk");
+        var lines = new ArrayList<Object>();
+        for (int i = 0; i < BULK_REQUEST_DOCUMENT_COUNT; ++i) {
+            lines.add(Map.of("index", Map.of("_id", Integer.toString(i))));
+            lines.add(makeSource(i));
+        }
+        request.put(JsonKeysForHttpMessage.PAYLOAD_KEY,
+            Map.of(JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY, lines));
+        return request;
+    }
+
+    private static Object deepCopy(Object o) {
+        if (o instanceof Map) {
+            var copy = new LinkedHashMap<Object, Object>();
+            ((Map<?, ?>) o).forEach((k, v) -> copy.put(k, deepCopy(v)));
+            return copy;
+        } else if (o instanceof List) {
+            var list = (List<?>) o;
+            var copy = new ArrayList<>(list.size());
+            list.forEach(v -> copy.add(deepCopy(v)));
+            return copy;
+        }
+        return o;
+    }
+}
@@ -2,28 +2,87 @@ package org.opensearch.migrations.transform;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.opensearch.migrations.transform.typemappings.NativeTypeMappingsSanitizer;
 import org.opensearch.migrations.transform.typemappings.SourceProperties;
+import org.opensearch.migrations.transform.typemappings.TypeMappingsIndexRouter;
 
 import com.google.common.io.Resources;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Runs typeMappingsSanitizer.js.  Document backfill items and the replayer's _bulk and document requests, which
+ * make up nearly everything that goes through this transformer, are sanitized by a
+ * {@link NativeTypeMappingsSanitizer} instead, which gives the same results without calling into JavaScript.
+ * Everything else, and every document when a regex mapping can't be evaluated natively, goes to the script.
+ */
 @Slf4j
 public class TypeMappingsSanitizationTransformer extends JavascriptTransformer {
 
     public static final String INIT_SCRIPT_RESOURCE_NAME = "js/typeMappingsSanitizer.js";
 
+    private final NativeTypeMappingsSanitizer nativeSanitizer;
+
     public TypeMappingsSanitizationTransformer(
         Map<String, Map<String, String>> indexMappings,
         List<Map<String, String>> regexMappings,
         SourceProperties sourceProperties,
         Map<String, Object> featureFlags)
         throws IOException {
+        this(indexMappings, regexMappings, sourceProperties, featureFlags, true);
+    }
+
+    TypeMappingsSanitizationTransformer(
+        Map<String, Map<String, String>> indexMappings,
+        List<Map<String, String>> regexMappings,
+        SourceProperties sourceProperties,
+        Map<String, Object> featureFlags,
+        boolean allowNativeSanitizer)
+        throws IOException {
         super(getScripts(),
             makeContext(sourceProperties, featureFlags, indexMappings, regexMappings));
+        this.nativeSanitizer = !allowNativeSanitizer ? null
+            : TypeMappingsIndexRouter.create(getIndexMappings(indexMappings), getRegexMappings(regexMappings))
+                .map(NativeTypeMappingsSanitizer::new)
+                .orElse(null);
+    }
+
+    @Override
+    public Object transformJson(Object incomingJson) {
+        var sanitized = nativeSanitizer == null ? null : nativeSanitizer.sanitize(incomingJson);
+        return sanitized != null ? sanitized : super.transformJson(incomingJson);
+    }
+
+    /**
+     * Only the documents that can't be sanitized natively are passed to the script, as one batch.
+     */
+    @Override
+    public List<Object> transformJsonBatch(List<?> incomingJsonObjects) {
+        if (nativeSanitizer == null) {
+            return super.transformJsonBatch(incomingJsonObjects);
+        }
+        var results = new ArrayList<>(incomingJsonObjects.size());
+        var scriptIndices = new ArrayList<Integer>();
+        var scriptInputs = new ArrayList<>();
+        for (var incomingJson : incomingJsonObjects) {
+            var sanitized = nativeSanitizer.sanitize(incomingJson);
+            if (sanitized == null) {
+                scriptIndices.add(results.size());
+                scriptInputs.add(incomingJson);
+            }
+            results.add(sanitized);
+        }
+        if (!scriptInputs.isEmpty()) {
+            var scriptResults = super.transformJsonBatch(scriptInputs);
+            for (int i = 0; i < scriptIndices.size(); ++i) {
+                results.set(scriptIndices.get(i), scriptResults.get(i));
+            }
+        }
+        return results;
     }
 
     private static Object
@@ -32,10 +91,30 @@ public class TypeMappingsSanitizationTransformer extends JavascriptTransformer {
                 Map<String, Map<String, String>> staticMappingsIncoming,
                 List<Map<String, String>> regexMappingsIncoming) {
         var featureFlags = featureFlagsIncoming != null ? featureFlagsIncoming : Map.of();
-        var indexMappings = staticMappingsIncoming != null ? staticMappingsIncoming : Map.of();
+        var indexMappings = getIndexMappings(staticMappingsIncoming);
+        var regexMappings = getRegexMappings(regexMappingsIncoming);
+
+        return Map.of(
+            "index_mappings", indexMappings,
+            "regex_mappings", regexMappings,
+            "featureFlags", featureFlags,
+            "source_properties", (sourceProperties == null) ?
+                Map.of() :
+                Map.of("version",
+                    Map.of("major", sourceProperties.getVersion().getMajor(),
+                        "minor", sourceProperties.getVersion().getMinor())
+                ));
+    }
+
+    private static Map<String, Map<String, String>>
+    getIndexMappings(Map<String, Map<String, String>> staticMappingsIncoming) {
+        return staticMappingsIncoming != null ? staticMappingsIncoming : Map.of();
+    }
+
+    private static List<Map<String, String>> getRegexMappings(List<Map<String, String>> regexMappingsIncoming) {
         // Regex  mappings apply if an index is not found in the index mappings
         // The default is to map each type to its own index, mapping _doc type to the same input index
-        var regexMappings = Optional.ofNullable(regexMappingsIncoming)
+        return Optional.ofNullable(regexMappingsIncoming)
             .orElse(
                     List.of(
                         Map.of(
@@ -50,17 +129,6 @@ public class TypeMappingsSanitizationTransformer extends JavascriptTransformer {
                         )
                     )
             );
-
-        return Map.of(
-            "index_mappings", indexMappings,
-            "regex_mappings", regexMappings,
-            "featureFlags", featureFlags,
-            "source_properties", (sourceProperties == null) ?
-                Map.of() :
-                Map.of("version",
-                    Map.of("major", sourceProperties.getVersion().getMajor(),
-                        "minor", sourceProperties.getVersion().getMinor())
-                ));
     }
 
     public static String getScripts() throws IOException {
@@ -0,0 +1,266 @@
+package org.opensearch.migrations.transform.typemappings;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.opensearch.migrations.transform.JsonKeysForHttpMessage;
+
+/**
+ * A Java implementation of the parts of typeMappingsSanitizer.js that run for every document: the RFS backfill
+ * items (schema rfs-opensearch-bulk-v1) and the replayer's _bulk and single document requests.  It produces the
+ * same output as the script does for those inputs.
+ *
+ * <p>{@link #sanitize(Object)} returns null for anything else (index metadata, create index requests, unexpected
+ * shapes), and for inputs whose handling by the script is hard to pin down, such as a bulk command that's missing
+ * an index.  Those should be passed to the script instead.  Nothing is modified when null is returned.
+ */
+public class NativeTypeMappingsSanitizer {
+    public static final String BACKFILL_SCHEMA = "rfs-opensearch-bulk-v1";
+    private static final String DEFAULT_TYPE = "_doc";
+    private static final String SCHEMA_KEY = "schema";
+    private static final String OPERATION_KEY = "operation";
+    private static final String INDEX_KEY = "_index";
+    private static final String TYPE_KEY = "_type";
+    private static final String DELETE_COMMAND = "delete";
+
+    // The routes from typeMappingsSanitizer.js, in the same order
+    private static final Pattern INDEX_TYPE_BULK_REQUEST_REGEX = Pattern.compile("(?:PUT|POST) /([^/]+)/([^/]+)/_bulk");
+    private static final Pattern INDEX_BULK_REQUEST_REGEX = Pattern.compile("(?:PUT|POST) /([^/]+)/_bulk");
+    private static final Pattern BULK_REQUEST_REGEX = Pattern.compile("(?:PUT|POST) /_bulk");
+    private static final Pattern PUT_POST_DOC_REGEX = Pattern.compile("(?:PUT|POST) /([^/]*)/([^/]*)/(.*)");
+    private static final Pattern GET_DOC_REGEX = Pattern.compile("GET /(?!\\.{1,2}(?:/|$))([^-_+][^A-Z/*?\"<>|,# ]*)"
+        + "/(?!\\.{1,2}(?:/|$))([^-_+][^A-Z/*?\"<>|,# ]*)/([^/]+)$");
+    private static final Pattern CREATE_INDEX_REGEX = Pattern.compile("(?:PUT|POST) /([^/]*)");
+    private static final Pattern BULK_URI_INDEX_PATTERN_REGEX = Pattern.compile("^.+/(?:[^/]+/)?_bulk");
+
+    private final TypeMappingsIndexRouter router;
+
+    public NativeTypeMappingsSanitizer(TypeMappingsIndexRouter router) {
+        this.router = router;
+    }
+
+    /**
+     * A bulk command whose target has been worked out but that hasn't been applied yet.
+     */
+    private static class PlannedCommand {
+        final String commandType;
+        final Map<String, Object> parameters;
+        final Object document;
+        final String targetIndex;
+
+        PlannedCommand(String commandType, Map<String, Object> parameters, Object document, String targetIndex) {
+            this.commandType = commandType;
+            this.parameters = parameters;
+            this.document = document;
+            this.targetIndex = targetIndex;
+        }
+    }
+
+    /**
+     * @return the sanitized document, or null if it should be sanitized by the script instead
+     */
+    @SuppressWarnings("unchecked")
+    public Object sanitize(Object document) {
+        if (document instanceof List) {
+            var items = (List<Object>) document;
+            for (var item : items) {
+                if (!(item instanceof Map) || !isBackfillItemOrPassThrough((Map<String, Object>) item)) {
+                    return null;
+                }
+            }
+            var results = new ArrayList<>(items.size());
+            for (var item : items) {
+                var itemMap = (Map<String, Object>) item;
+                results.add(isBackfillItem(itemMap) ? sanitizeBackfillItem(itemMap) : itemMap);
+            }
+            return results;
+        } else if (document instanceof Map) {
+            var documentMap = (Map<String, Object>) document;
+            if (isMetadata(documentMap)) {
+                return null;
+            } else if (isHttpRequest(documentMap)) {
+                return sanitizeHttpRequest(documentMap);
+            } else if (isBackfillItem(documentMap)) {
+                return isSupportedBackfillItem(documentMap) ? sanitizeBackfillItem(documentMap) : null;
+            }
+            return document;
+        }
+        return null;
+    }
+
+    private static boolean isMetadata(Map<String, Object> document) {
+        return document.containsKey("type") && document.containsKey("name") && document.containsKey("body");
+    }
+
+    private static boolean isHttpRequest(Map<String, Object> document) {
+        return document.containsKey(JsonKeysForHttpMessage.METHOD_KEY)
+            && document.containsKey(JsonKeysForHttpMessage.URI_KEY);
+    }
+
+    private static boolean isBackfillItem(Map<String, Object> document) {
+        return !isMetadata(document) && !isHttpRequest(document) && BACKFILL_SCHEMA.equals(document.get(SCHEMA_KEY));
+    }
+
+    private static boolean isBackfillItemOrPassThrough(Map<String, Object> document) {
+        if (isMetadata(document) || isHttpRequest(document)) {
+            return false;
+        }
+        return !isBackfillItem(document) || isSupportedBackfillItem(document);
+    }
+
+    private static boolean isSupportedBackfillItem(Map<String, Object> document) {
+        if (!(document.get(OPERATION_KEY) instanceof Map)) {
+            return false;
+        }
+        var operation = (Map<?, ?>) document.get(OPERATION_KEY);
+        var type = operation.get(TYPE_KEY);
+        return operation.get(INDEX_KEY) instanceof String && (type == null || type instanceof String);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object sanitizeBackfillItem(Map<String, Object> document) {
+        var operation = (Map<String, Object>) document.get(OPERATION_KEY);
+        var type = (String) operation.get(TYPE_KEY);
+        var targetIndex = router.getTargetIndex((String) operation.get(INDEX_KEY), type != null ? type : DEFAULT_TYPE);
+        if (isNullOrEmpty(targetIndex)) {
+            return new ArrayList<>();
+        }
+        retargetCommandParameters(operation, targetIndex);
+        return document;
+    }
+
+    private static void retargetCommandParameters(Map<String, Object> parameters, String targetIndex) {
+        parameters.remove(TYPE_KEY);
+        if (targetIndex != null) {
+            parameters.put(INDEX_KEY, targetIndex);
+        } else {
+            parameters.remove(INDEX_KEY);
+        }
+    }
+
+    private Object sanitizeHttpRequest(Map<String, Object> request) {
+        var method = request.get(JsonKeysForHttpMessage.METHOD_KEY);
+        var uri = request.get(JsonKeysForHttpMessage.URI_KEY);
+        if (!(method instanceof String && uri instanceof String)) {
+            return null;
+        }
+        var methodAndUri = method + " " + uri;
+        Matcher match;
+        if ((match = INDEX_TYPE_BULK_REQUEST_REGEX.matcher(methodAndUri)).find()) {
+            return rewriteBulk(request, match.group(1), match.group(2));
+        } else if ((match = INDEX_BULK_REQUEST_REGEX.matcher(methodAndUri)).find()) {
+            return rewriteBulk(request, match.group(1), DEFAULT_TYPE);
+        } else if (BULK_REQUEST_REGEX.matcher(methodAndUri).find()) {
+            return rewriteBulk(request, null, DEFAULT_TYPE);
+        } else if ((match = PUT_POST_DOC_REGEX.matcher(methodAndUri)).find()
+            || (match = GET_DOC_REGEX.matcher(methodAndUri)).find()) {
+            return rewriteDocRequest(request, match);
+        } else if (CREATE_INDEX_REGEX.matcher(methodAndUri).find()) {
+            // creating an index merges the mappings for every type, which is left to the script
+            return null;
+        }
+        return request;
+    }
+
+    private Object rewriteDocRequest(Map<String, Object> request, Matcher match) {
+        var targetIndex = router.getTargetIndex(match.group(1), match.group(2));
+        if (isNullOrEmpty(targetIndex)) {
+            var noopRequest = new LinkedHashMap<String, Object>();
+            noopRequest.put(JsonKeysForHttpMessage.METHOD_KEY, "GET");
+            noopRequest.put(JsonKeysForHttpMessage.URI_KEY, "/");
+            noopRequest.put(JsonKeysForHttpMessage.PROTOCOL_KEY, "HTTP/1.0");
+            return noopRequest;
+        }
+        request.put(JsonKeysForHttpMessage.URI_KEY, "/" + targetIndex + "/_doc/" + match.group(3));
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object rewriteBulk(Map<String, Object> request, String defaultSourceIndex, String defaultType) {
+        if (!(request.get(JsonKeysForHttpMessage.PAYLOAD_KEY) instanceof Map)) {
+            return null;
+        }
+        var payload = (Map<String, Object>) request.get(JsonKeysForHttpMessage.PAYLOAD_KEY);
+        if (!(payload.get(JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY) instanceof List)) {
+            return null;
+        }
+        var lines = (List<Object>) payload.get(JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY);
+        var defaultTargetIndex = defaultSourceIndex == null ? null
+            : router.getTargetIndex(defaultSourceIndex, defaultType);
+        if (defaultTargetIndex != null && defaultTargetIndex.indexOf('$') >= 0) {
+            // the script substitutes the target into the URI as a replacement pattern
+            return null;
+        }
+
+        // Work out every command before changing anything so that the whole request can still go to the script
+        var plannedCommands = new ArrayList<PlannedCommand>();
+        for (int ndi = 0; ndi < lines.size();) {
+            if (!(lines.get(ndi) instanceof Map) || ((Map<?, ?>) lines.get(ndi)).isEmpty()) {
+                return null;
+            }
+            var command = (Map<String, Object>) lines.get(ndi++);
+            var commandType = command.keySet().iterator().next();
+            if (!(command.get(commandType) instanceof Map)) {
+                return null;
+            }
+            var parameters = (Map<String, Object>) command.get(commandType);
+            var document = !DELETE_COMMAND.equals(commandType) && ndi < lines.size() ? lines.get(ndi++) : null;
+
+            var index = parameters.get(INDEX_KEY);
+            var sourceIndex = isTruthy(index) ? index : defaultSourceIndex;
+            var type = parameters.get(TYPE_KEY);
+            if (!(sourceIndex instanceof String) || (type != null && !(type instanceof String))) {
+                return null;
+            }
+            var targetIndex = router.getTargetIndex((String) sourceIndex, type != null ? (String) type : defaultType);
+            if (!isNullOrEmpty(targetIndex)) {
+                plannedCommands.add(new PlannedCommand(commandType, parameters, document, targetIndex));
+            }
+        }
+
+        if (defaultSourceIndex != null) {
+            var replacement = isNullOrEmpty(defaultTargetIndex) ? "/_bulk" : "/" + defaultTargetIndex + "/_bulk";
+            request.put(JsonKeysForHttpMessage.URI_KEY, BULK_URI_INDEX_PATTERN_REGEX
+                .matcher((String) request.get(JsonKeysForHttpMessage.URI_KEY))
+                .replaceFirst(Matcher.quoteReplacement(replacement)));
+        }
+        var newLines = new ArrayList<>(lines.size());
+        for (var planned : plannedCommands) {
+            var targetIndexInBulk = planned.targetIndex.equals(defaultTargetIndex) ? null : planned.targetIndex;
+            retargetCommandParameters(planned.parameters, targetIndexInBulk);
+            var updatedCommand = new LinkedHashMap<String, Object>();
+            updatedCommand.put(planned.commandType, planned.parameters);
+            newLines.add(updatedCommand);
+            if (isTruthy(planned.document)) {
+                newLines.add(planned.document);
+            }
+        }
+        payload.put(JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY, newLines);
+        return request;
+    }
+
+    private static boolean isNullOrEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+
+    /**
+     * Whether JavaScript would consider the value true, for the types that can come from parsed JSON.
+     */
+    private static boolean isTruthy(Object value) {
+        if (value == null) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value instanceof String) {
+            return !((String) value).isEmpty();
+        } else if (value instanceof Number) {
+            var d = ((Number) value).doubleValue();
+            return d != 0 && !Double.isNaN(d);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+package org.opensearch.migrations.transform.typemappings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides which target index a source index and type go to, the same way that convertSourceIndexToTarget in
+ * typeMappingsSanitizer.js does.  A static mapping for the source index takes precedence, even when it has no entry
+ * for the type.  Otherwise, the first regex mapping whose <code>^sourceIndexPattern/sourceTypePattern$</code>
+ * matches "index/type" produces the target from its targetIndexPattern.
+ *
+ * <p>The regexes are compiled once, and the result for each (index, type) pair is remembered, since a migration
+ * sees the same few pairs over and over.  Routers are not thread-safe.
+ *
+ * <p>Java and JavaScript regexes don't agree on everything.  {@link #create} returns empty when any pattern uses
+ * a construct that may behave differently in Java, and callers should then leave routing to the JavaScript.
+ */
+@Slf4j
+public class TypeMappingsIndexRouter {
+    public static final String SOURCE_INDEX_PATTERN_KEY = "sourceIndexPattern";
+    public static final String SOURCE_TYPE_PATTERN_KEY = "sourceTypePattern";
+    public static final String TARGET_INDEX_PATTERN_KEY = "targetIndexPattern";
+
+    /**
+     * Beyond this many (index, type) pairs, new pairs are routed without being remembered.
+     */
+    static final int MAX_REMEMBERED_ROUTES = 10_000;
+
+    /**
+     * Constructs in a JavaScript regex that Java reads differently (or that Java accepts but JavaScript rejects):
+     * inline flags and atomic groups, possessive quantifiers, class intersections and nested classes, and
+     * escapes that only one of the two defines.
+     */
+    private static final Pattern UNPORTABLE_REGEX_CONSTRUCTS =
+        Pattern.compile("\\(\\?[^:=!<]|\\(\\?<[^=!a-zA-Z]|[*+?}]\\+|&&|\\[\\[|\\[\\^?]|\\\\[AGZzQEhHpPRXNeavk0]");
+
+    private static class RegexMapping {
+        final Pattern pattern;
+        final String replacement;
+
+        RegexMapping(Pattern pattern, String replacement) {
+            this.pattern = pattern;
+            this.replacement = replacement;
+        }
+    }
+
+    private final Map<String, Map<String, String>> indexMappings;
+    private final List<RegexMapping> regexMappings;
+    private final Map<String, Map<String, Optional<String>>> rememberedRoutes = new HashMap<>();
+    private int rememberedRouteCount;
+
+    private TypeMappingsIndexRouter(Map<String, Map<String, String>> indexMappings, List<RegexMapping> regexMappings) {
+        this.indexMappings = indexMappings;
+        this.regexMappings = regexMappings;
+    }
+
+    /**
+     * @return a router for the mappings, or empty if a regex mapping can't be evaluated in Java exactly as it
+     * would be in JavaScript
+     */
+    public static Optional<TypeMappingsIndexRouter> create(
+        Map<String, Map<String, String>> indexMappings,
+        List<Map<String, String>> regexMappings
+    ) {
+        var compiledMappings = new ArrayList<RegexMapping>(regexMappings.size());
+        for (Map<String, ?> mapping : regexMappings) {
+            var indexPattern = mapping.get(SOURCE_INDEX_PATTERN_KEY);
+            var typePattern = mapping.get(SOURCE_TYPE_PATTERN_KEY);
+            var targetPattern = mapping.get(TARGET_INDEX_PATTERN_KEY);
+            if (!(indexPattern instanceof String && typePattern instanceof String && targetPattern instanceof String)) {
+                return unsupported(String.valueOf(mapping));
+            }
+            var conjoinedRegex = "^" + indexPattern + "/" + typePattern + "$";
+            if (UNPORTABLE_REGEX_CONSTRUCTS.matcher(conjoinedRegex).find()) {
+                return unsupported(conjoinedRegex);
+            }
+            try {
+                var pattern = Pattern.compile(conjoinedRegex);
+                var replacement = toJavaReplacement((String) targetPattern, pattern.matcher("").groupCount());
+                if (replacement == null) {
+                    return unsupported((String) targetPattern);
+                }
+                compiledMappings.add(new RegexMapping(pattern, replacement));
+            } catch (PatternSyntaxException e) {
+                return unsupported(conjoinedRegex);
+            }
+        }
+        return Optional.of(new TypeMappingsIndexRouter(indexMappings, compiledMappings));
+    }
+
+    private static Optional<TypeMappingsIndexRouter> unsupported(String pattern) {
+        log.atInfo().setMessage("Type mappings will be routed with JavaScript because '{}' may not behave the same "
+            + "way as a Java regex").addArgument(pattern).log();
+        return Optional.empty();
+    }
+
+    /**
+     * Rewrites a replacement string for String.replace() in JavaScript into one for Matcher.replaceFirst().
+     *
+     * @return the Java replacement, or null if it uses <code>$`</code>, <code>$'</code> or <code>$&lt;</code>
+     */
+    static String toJavaReplacement(String jsReplacement, int groupCount) {
+        var sb = new StringBuilder();
+        for (int i = 0; i < jsReplacement.length(); ++i) {
+            var c = jsReplacement.charAt(i);
+            var next = i + 1 < jsReplacement.length() ? jsReplacement.charAt(i + 1) : '\0';
+            if (c == '\\') {
+                sb.append("\\\\");
+            } else if (c != '$') {
+                sb.append(c);
+            } else if (next == '$') {
+                sb.append("\\$");
+                ++i;
+            } else if (next == '&') {
+                sb.append("$0");
+                ++i;
+            } else if (next == '`' || next == '\'') {
+                return null;
+            } else if (Character.isDigit(next)) {
+                // JavaScript takes two digits when they name a group, then one, and otherwise leaves "$" as it is
+                var twoDigits = i + 2 < jsReplacement.length() && Character.isDigit(jsReplacement.charAt(i + 2))
+                    ? Integer.parseInt(jsReplacement.substring(i + 1, i + 3))
+                    : -1;
+                var oneDigit = next - '0';
+                if (twoDigits >= 1 && twoDigits <= groupCount) {
+                    sb.append('$').append(twoDigits);
+                    i += 2;
+                } else if (oneDigit >= 1 && oneDigit <= groupCount) {
+                    sb.append('$').append(oneDigit);
+                    ++i;
+                } else {
+                    sb.append("\\$");
+                }
+            } else if (next == '<') {
+                // named groups only have a meaning when the regex defines them, which isn't worth working out
+                return null;
+            } else {
+                sb.append("\\$");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the target index, or null (or an empty String, from a static mapping) when the document should be
+     * dropped
+     */
+    public String getTargetIndex(String sourceIndex, String sourceType) {
+        var routesForIndex = rememberedRoutes.get(sourceIndex);
+        var remembered = routesForIndex == null ? null : routesForIndex.get(sourceType);
+        if (remembered != null) {
+            return remembered.orElse(null);
+        }
+        var targetIndex = route(sourceIndex, sourceType);
+        if (rememberedRouteCount < MAX_REMEMBERED_ROUTES) {
+            rememberedRoutes.computeIfAbsent(sourceIndex, k -> new HashMap<>())
+                .put(sourceType, Optional.ofNullable(targetIndex));
+            ++rememberedRouteCount;
+        }
+        return targetIndex;
+    }
+
+    private String route(String sourceIndex, String sourceType) {
+        Object staticMappings = indexMappings.get(sourceIndex);
+        if (staticMappings != null) {
+            var targetIndex = staticMappings instanceof Map ? ((Map<?, ?>) staticMappings).get(sourceType) : null;
+            return targetIndex == null ? null : targetIndex.toString();
+        }
+        var conjoinedSource = sourceIndex + "/" + sourceType;
+        for (var mapping : regexMappings) {
+            Matcher matcher = mapping.pattern.matcher(conjoinedSource);
+            if (matcher.find()) {
+                return matcher.replaceFirst(mapping.replacement);
+            }
+        }
+        return null;
+    }
+}
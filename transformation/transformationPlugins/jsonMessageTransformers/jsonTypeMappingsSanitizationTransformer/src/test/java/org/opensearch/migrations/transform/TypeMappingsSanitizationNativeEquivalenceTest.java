@@ -0,0 +1,141 @@
+package org.opensearch.migrations.transform;
+
+import java.util.List;
+import java.util.Map;
+
+import org.opensearch.migrations.testutils.JsonNormalizer;
+import org.opensearch.migrations.transform.typemappings.SourceProperties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks that documents sanitized natively come out the same as they do from typeMappingsSanitizer.js.
+ */
+@Slf4j
+public class TypeMappingsSanitizationNativeEquivalenceTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Map<String, Map<String, String>> INDEX_MAPPINGS = Map.of(
+        "indexa", Map.of(
+            "type1", "indexa_1",
+            "type2", "indexa_2"),
+        "indexb", Map.of(
+            "type1", "indexb",
+            "type2", "indexb"));
+    private static final List<Map<String, String>> REGEX_MAPPINGS = List.of(
+        Map.of(
+            "sourceIndexPattern", "time-(.*)",
+            "sourceTypePattern", "(.*)",
+            "targetIndexPattern", "time-$1-$2"
+        ),
+        Map.of(
+            "sourceIndexPattern", "(.*)",
+            "sourceTypePattern", "_doc",
+            "targetIndexPattern", "$1"
+        )
+    );
+
+    private static TypeMappingsSanitizationTransformer nativeTransformer;
+    private static TypeMappingsSanitizationTransformer scriptTransformer;
+
+    @BeforeAll
+    static void initialize() throws Exception {
+        var sourceProperties = new SourceProperties("ES", new SourceProperties.Version(6, 8));
+        nativeTransformer = new TypeMappingsSanitizationTransformer(INDEX_MAPPINGS, REGEX_MAPPINGS,
+            sourceProperties, null, true);
+        scriptTransformer = new TypeMappingsSanitizationTransformer(INDEX_MAPPINGS, REGEX_MAPPINGS,
+            sourceProperties, null, false);
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        nativeTransformer.close();
+        scriptTransformer.close();
+    }
+
+    private static String backfillItem(String index, String type) {
+        return "{ \"schema\": \"rfs-opensearch-bulk-v1\", \"operation_type\": \"index\", \"operation\": { "
+            + "\"_index\": \"" + index + "\", " + (type == null ? "" : "\"_type\": \"" + type + "\", ")
+            + "\"_id\": \"1\" }, \"document\": { \"field1\": \"value1\" }, \"include_document\": true }";
+    }
+
+    private static String request(String method, String uri, String payload) {
+        return "{ \"" + JsonKeysForHttpMessage.METHOD_KEY + "\": \"" + method + "\", "
+            + "\"" + JsonKeysForHttpMessage.URI_KEY + "\": \"" + uri + "\", "
+            + "\"" + JsonKeysForHttpMessage.PROTOCOL_KEY + "\": \"HTTP/1.1\", "
+            + "\"" + JsonKeysForHttpMessage.HEADERS_KEY + "\": { \"Host\": \"localhost\" }"
+            + (payload == null ? "" : ", \"" + JsonKeysForHttpMessage.PAYLOAD_KEY + "\": " + payload)
+            + " }";
+    }
+
+    private static String bulkRequest(String uri) {
+        return request("POST", uri, "{ \"" + JsonKeysForHttpMessage.INLINED_NDJSON_BODIES_DOCUMENT_KEY + "\": [ "
+            + "{ \"index\": { \"_index\": \"indexa\", \"_type\": \"type1\", \"_id\": \"1\" } }, { \"f\": 1 }, "
+            + "{ \"index\": { \"_index\": \"indexa\", \"_type\": \"unmapped\", \"_id\": \"2\" } }, { \"f\": 2 }, "
+            + "{ \"delete\": { \"_index\": \"time-1970\", \"_type\": \"cpu\", \"_id\": \"3\" } }, "
+            + "{ \"update\": { \"_id\": \"4\" } }, { \"doc\": { \"f\": 4 } }, "
+            + "{ \"create\": { \"_index\": \"indexb\", \"_type\": \"type2\", \"_id\": \"5\" } }, { \"f\": 5 }, "
+            + "{ \"index\": { \"_index\": \"plain\", \"_id\": \"6\" } }, { \"f\": 6 } ] }");
+    }
+
+    private void assertSameAsScript(String json) throws Exception {
+        var nativeResult = nativeTransformer.transformJson(OBJECT_MAPPER.readValue(json, Object.class));
+        var scriptResult = scriptTransformer.transformJson(OBJECT_MAPPER.readValue(json, Object.class));
+        log.atInfo().setMessage("result = {}").addArgument(() -> JsonNormalizer.fromObject(nativeResult)).log();
+        Assertions.assertEquals(JsonNormalizer.fromObject(scriptResult), JsonNormalizer.fromObject(nativeResult));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "indexa|type1", "indexa|unmapped", "indexb|type2", "time-1970|cpu", "plain|",
+        "plain|other" })
+    public void backfillItemsMatchTheScript(String indexAndType) throws Exception {
+        var parts = indexAndType.split("\\|", -1);
+        var type = parts[1].isEmpty() ? null : parts[1];
+        assertSameAsScript(backfillItem(parts[0], type));
+        assertSameAsScript("[" + backfillItem(parts[0], type) + ", " + backfillItem("indexa", "type2") + "]");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/_bulk", "/indexa/_bulk", "/indexa/type1/_bulk?refresh=true", "/time-1970/cpu/_bulk",
+        "/unmapped/other/_bulk" })
+    public void bulkRequestsMatchTheScript(String uri) throws Exception {
+        assertSameAsScript(bulkRequest(uri));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "PUT /indexa/type1/1", "POST /indexa/type2/1/_update", "PUT /indexa/unmapped/1",
+        "GET /time-1970/cpu/1", "GET /indexb/type1/1", "GET /_cat/indices", "DELETE /indexa", "HEAD /" })
+    public void documentAndOtherRequestsMatchTheScript(String methodAndUri) throws Exception {
+        var parts = methodAndUri.split(" ");
+        assertSameAsScript(request(parts[0], parts[1], parts[0].equals("GET") ? null : "{ \"inlinedJsonBody\": {} }"));
+    }
+
+    @Test
+    public void createIndexRequestsAreLeftToTheScript() throws Exception {
+        assertSameAsScript(request("PUT", "/indexa", "{ \"inlinedJsonBody\": { \"mappings\": { "
+            + "\"type1\": { \"properties\": { \"field1\": { \"type\": \"text\" } } }, "
+            + "\"type2\": { \"properties\": { \"field2\": { \"type\": \"keyword\" } } } } } }"));
+    }
+
+    @Test
+    public void batchesMixingNativeAndScriptedDocumentsKeepTheirOrder() throws Exception {
+        var batchJson = "[" + String.join(", ",
+            backfillItem("indexa", "type1"),
+            request("PUT", "/indexa", "{ \"inlinedJsonBody\": { \"mappings\": { "
+                + "\"type1\": { \"properties\": { \"field1\": { \"type\": \"text\" } } } } } }"),
+            bulkRequest("/_bulk"),
+            backfillItem("indexa", "unmapped")) + "]";
+
+        var nativeResults = nativeTransformer.transformJsonBatch(OBJECT_MAPPER.readValue(batchJson, List.class));
+        var scriptResults = scriptTransformer.transformJsonBatch(OBJECT_MAPPER.readValue(batchJson, List.class));
+
+        Assertions.assertEquals(4, nativeResults.size());
+        Assertions.assertEquals(JsonNormalizer.fromObject(scriptResults), JsonNormalizer.fromObject(nativeResults));
+    }
+}
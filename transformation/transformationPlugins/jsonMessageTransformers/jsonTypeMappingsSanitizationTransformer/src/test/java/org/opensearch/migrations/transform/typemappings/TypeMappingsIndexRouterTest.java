@@ -0,0 +1,66 @@
+package org.opensearch.migrations.transform.typemappings;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TypeMappingsIndexRouterTest {
+
+    private static Map<String, String> regexMapping(String indexPattern, String typePattern, String targetPattern) {
+        return Map.of(
+            TypeMappingsIndexRouter.SOURCE_INDEX_PATTERN_KEY, indexPattern,
+            TypeMappingsIndexRouter.SOURCE_TYPE_PATTERN_KEY, typePattern,
+            TypeMappingsIndexRouter.TARGET_INDEX_PATTERN_KEY, targetPattern
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "$1_$2         | 2  | $1_$2",
+        "$12           | 1  | $12",
+        "$12           | 12 | $12",
+        "$0$3          | 2  | \\$0\\$3",
+        "$$1           | 1  | \\$1",
+        "$&-x          | 0  | $0-x",
+        "a\\b$         | 0  | a\\\\b\\$",
+        "$x            | 0  | \\$x"
+    })
+    public void javascriptReplacementsAreRewrittenForJava(String jsReplacement, int groupCount, String expected) {
+        Assertions.assertEquals(expected, TypeMappingsIndexRouter.toJavaReplacement(jsReplacement, groupCount));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "$`", "$'", "$<name>" })
+    public void replacementsThatDependOnTheWholeStringAreNotRewritten(String jsReplacement) {
+        Assertions.assertNull(TypeMappingsIndexRouter.toJavaReplacement(jsReplacement, 1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "(?i)logs", "logs++", "\\Qlogs\\E", "[a-z&&[^x]]+", "\\p{L}+", "[^]*" })
+    public void regexesThatMayDifferFromJavascriptAreNotRouted(String indexPattern) {
+        Assertions.assertTrue(TypeMappingsIndexRouter.create(Map.of(),
+            List.of(regexMapping(indexPattern, ".*", "target"))).isEmpty());
+    }
+
+    @Test
+    public void staticMappingsTakePrecedenceOverRegexes() {
+        var router = TypeMappingsIndexRouter.create(
+            Map.of("logs", Map.of("cpu", "logs-cpu")),
+            List.of(
+                regexMapping("(.+)", "_doc", "$1"),
+                regexMapping("(.+)", "(.+)", "$1_$2")
+            )).orElseThrow();
+
+        Assertions.assertEquals("logs-cpu", router.getTargetIndex("logs", "cpu"));
+        Assertions.assertNull(router.getTargetIndex("logs", "memory"));
+        Assertions.assertEquals("metrics", router.getTargetIndex("metrics", "_doc"));
+        Assertions.assertEquals("metrics_disk", router.getTargetIndex("metrics", "disk"));
+        Assertions.assertEquals("metrics_disk", router.getTargetIndex("metrics", "disk"));
+        Assertions.assertEquals("logs-cpu", router.getTargetIndex("logs", "cpu"));
+    }
+}